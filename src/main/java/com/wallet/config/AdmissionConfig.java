@@ -0,0 +1,31 @@
+package com.wallet.config;
+
+import com.wallet.controller.AdmissionFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+@Configuration
+@EnableConfigurationProperties(AdmissionProperties.class)
+public class AdmissionConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "wallet.admission", name = "enabled", havingValue = "true")
+    public FilterRegistrationBean<AdmissionFilter> admissionFilter(AdmissionProperties properties,
+                                                                   DataSource dataSource,
+                                                                   MeterRegistry registry) throws SQLException {
+        int permits = properties.maxConcurrent() > 0
+            ? properties.maxConcurrent()
+            : ConnectionPools.maximumSize(dataSource, "wallet.admission.max-concurrent");
+        FilterRegistrationBean<AdmissionFilter> registration =
+            new FilterRegistrationBean<>(new AdmissionFilter(permits, properties.maxWait(), registry));
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+}
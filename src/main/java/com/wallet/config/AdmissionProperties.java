@@ -0,0 +1,23 @@
+package com.wallet.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Admission limit for API requests, meant for {@code spring.threads.virtual.enabled=true} where
+ * Tomcat no longer caps concurrency with its thread pool.
+ *
+ * @param enabled       whether API requests must take a permit before running
+ * @param maxConcurrent permits; 0 uses the connection pool size (summed over shards), so admitted
+ *                      requests never queue on it
+ * @param maxWait       how long a request may queue for a permit before it is rejected with 503
+ */
+@ConfigurationProperties(prefix = "wallet.admission")
+public record AdmissionProperties(
+    @DefaultValue("false") boolean enabled,
+    @DefaultValue("0") int maxConcurrent,
+    @DefaultValue("5s") Duration maxWait
+) {
+}
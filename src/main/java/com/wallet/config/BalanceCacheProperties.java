@@ -0,0 +1,25 @@
+package com.wallet.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings for the in-process balance cache in front of {@code getBalance}.
+ *
+ * @param enabled           whether balances are cached at all
+ * @param maximumSize       wallets kept; beyond this Caffeine evicts by frequency (W-TinyLFU)
+ * @param ttl               how long an entry lives after it was written; this bounds how stale a
+ *                          balance changed by another instance can be, since only local writes
+ *                          update the cache
+ * @param expireAfterAccess drop entries not read for this long, {@code 0} to disable
+ */
+@ConfigurationProperties(prefix = "wallet.balance-cache")
+public record BalanceCacheProperties(
+    @DefaultValue("true") boolean enabled,
+    @DefaultValue("100000") long maximumSize,
+    @DefaultValue("5m") Duration ttl,
+    @DefaultValue("0s") Duration expireAfterAccess
+) {
+}
@@ -0,0 +1,18 @@
+package com.wallet.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings for the admin bulk import and export of wallets and ledgers.
+ *
+ * @param enabled   whether the {@code /api/admin/bulk} endpoints are exposed
+ * @param chunkSize rows committed per import transaction, fetched per round trip while
+ *                  exporting, and wallets looked up per balance consistency query
+ */
+@ConfigurationProperties(prefix = "wallet.bulk")
+public record BulkProperties(
+    @DefaultValue("false") boolean enabled,
+    @DefaultValue("10000") int chunkSize
+) {
+}
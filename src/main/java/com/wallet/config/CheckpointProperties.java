@@ -0,0 +1,25 @@
+package com.wallet.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Settings for the periodic balance checkpoint writer.
+ *
+ * @param enabled     whether the scheduled writer runs
+ * @param granularity checkpoint boundary, {@code HOURS} or {@code DAYS}
+ * @param settleDelay how long to wait past a boundary before checkpointing it, so in-flight
+ *                    transactions stamped before the boundary have committed
+ * @param batchSize   wallets resolved per query
+ */
+@ConfigurationProperties(prefix = "wallet.checkpoints")
+public record CheckpointProperties(
+    @DefaultValue("true") boolean enabled,
+    @DefaultValue("HOURS") ChronoUnit granularity,
+    @DefaultValue("1m") Duration settleDelay,
+    @DefaultValue("1000") int batchSize
+) {
+}
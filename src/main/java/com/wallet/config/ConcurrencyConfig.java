@@ -0,0 +1,21 @@
+package com.wallet.config;
+
+import com.wallet.repository.WalletRepository;
+import com.wallet.service.concurrency.BalanceUpdateStrategies;
+import com.wallet.service.concurrency.BalanceUpdateStrategy;
+import com.wallet.service.concurrency.ConcurrencyMetrics;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(ConcurrencyProperties.class)
+public class ConcurrencyConfig {
+
+    @Bean
+    public BalanceUpdateStrategy balanceUpdateStrategy(ConcurrencyProperties properties,
+                                                       WalletRepository walletRepository,
+                                                       ConcurrencyMetrics metrics) {
+        return BalanceUpdateStrategies.create(properties.mode(), walletRepository, metrics);
+    }
+}
@@ -0,0 +1,24 @@
+package com.wallet.config;
+
+import com.wallet.service.concurrency.ConcurrencyMode;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings for wallet mutation concurrency control.
+ *
+ * @param mode        strategy used by deposits, withdrawals and transfers
+ * @param maxAttempts attempts per operation, including the first, when a conflict or lock failure occurs
+ * @param baseBackoff backoff before the first retry; doubles per attempt with full jitter
+ * @param maxBackoff  upper bound for a single backoff
+ */
+@ConfigurationProperties(prefix = "wallet.concurrency")
+public record ConcurrencyProperties(
+    @DefaultValue("PESSIMISTIC") ConcurrencyMode mode,
+    @DefaultValue("5") int maxAttempts,
+    @DefaultValue("5ms") Duration baseBackoff,
+    @DefaultValue("200ms") Duration maxBackoff
+) {
+}
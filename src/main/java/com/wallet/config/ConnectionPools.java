@@ -0,0 +1,38 @@
+package com.wallet.config;
+
+import com.wallet.shard.ShardRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * Default concurrency limits derived from the connection pools behind the application data source.
+ */
+final class ConnectionPools {
+
+    private ConnectionPools() {
+    }
+
+    /**
+     * Connections the data source can hand out at once: the sum of the shard pools when sharded,
+     * otherwise the Hikari pool it unwraps to. With read replicas that is the primary's pool, since
+     * every write runs there.
+     *
+     * @param limitProperty the explicit limit to name when no pool size can be found
+     */
+    static int maximumSize(DataSource dataSource, String limitProperty) throws SQLException {
+        if (dataSource.isWrapperFor(ShardRoutingDataSource.class)) {
+            ShardRoutingDataSource shards = dataSource.unwrap(ShardRoutingDataSource.class);
+            int size = 0;
+            for (String shard : shards.shards()) {
+                size += maximumSize(shards.shard(shard), limitProperty);
+            }
+            return size;
+        }
+        if (!dataSource.isWrapperFor(HikariDataSource.class)) {
+            throw new IllegalStateException(limitProperty + " must be set when the data source is not Hikari");
+        }
+        return dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+    }
+}
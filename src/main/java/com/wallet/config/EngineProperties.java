@@ -0,0 +1,30 @@
+package com.wallet.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings for the in-process single-writer balance engine.
+ *
+ * @param enabled  route deposits, withdrawals and transfers through the engine instead of JPA
+ * @param shards   number of single-writer shards; {@code 0} means one per available processor
+ * @param ringSize capacity of each shard's command ring, rounded up to a power of two
+ * @param maxBatch ledger rows written per database transaction
+ * @param projectionInterval  how often wallet balances are projected from the ledger
+ * @param projectionBatchSize wallet rows updated per projection transaction
+ */
+@ConfigurationProperties(prefix = "wallet.engine")
+public record EngineProperties(
+    @DefaultValue("false") boolean enabled,
+    @DefaultValue("0") int shards,
+    @DefaultValue("8192") int ringSize,
+    @DefaultValue("512") int maxBatch,
+    @DefaultValue("100ms") Duration projectionInterval,
+    @DefaultValue("1000") int projectionBatchSize
+) {
+    public int effectiveShards() {
+        return shards > 0 ? shards : Runtime.getRuntime().availableProcessors();
+    }
+}
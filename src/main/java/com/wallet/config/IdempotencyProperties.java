@@ -0,0 +1,25 @@
+package com.wallet.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings for {@code Idempotency-Key} handling on the mutation endpoints.
+ *
+ * @param ttl          how long a completed response is replayed for
+ * @param cacheSize    completed responses kept in process, so hot duplicates skip the database
+ * @param lease        how long a claim may stay in progress before another request may take it over
+ * @param waitTimeout  how long a duplicate waits for the first request's outcome before giving up
+ * @param pollInterval how often a duplicate re-reads a claim held by another instance
+ */
+@ConfigurationProperties(prefix = "wallet.idempotency")
+public record IdempotencyProperties(
+    @DefaultValue("24h") Duration ttl,
+    @DefaultValue("100000") long cacheSize,
+    @DefaultValue("30s") Duration lease,
+    @DefaultValue("10s") Duration waitTimeout,
+    @DefaultValue("50ms") Duration pollInterval
+) {
+}
@@ -0,0 +1,27 @@
+package com.wallet.config;
+
+import com.wallet.service.metrics.HotWallets;
+import com.wallet.service.metrics.StatementListener;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(InstrumentationProperties.class)
+@ConditionalOnProperty(prefix = "wallet.instrumentation", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class InstrumentationConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer statementListenerCustomizer() {
+        return properties -> properties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER,
+            StatementListener.class.getName());
+    }
+
+    @Bean
+    public HotWallets hotWallets(InstrumentationProperties properties) {
+        return new HotWallets(properties.hotWalletCapacity(), properties.hotWalletDecay());
+    }
+}
@@ -0,0 +1,26 @@
+package com.wallet.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings for the {@code WalletService} instrumentation layer.
+ *
+ * @param enabled           whether operations are timed, failures counted by reason and Hibernate
+ *                          statements measured per operation
+ * @param hotWalletCapacity wallets tracked by the hot-wallet sketch, split over up to 16 lock stripes;
+ *                          counts of the reported wallets overestimate by at most
+ *                          {@code stripe mutations / stripe capacity}
+ * @param hotWalletTopK     wallets reported by the {@code hotwallets} actuator endpoint
+ * @param hotWalletDecay    how often tracked counts are halved, so the ranking follows recent traffic
+ */
+@ConfigurationProperties(prefix = "wallet.instrumentation")
+public record InstrumentationProperties(
+    @DefaultValue("true") boolean enabled,
+    @DefaultValue("100") int hotWalletCapacity,
+    @DefaultValue("10") int hotWalletTopK,
+    @DefaultValue("1m") Duration hotWalletDecay
+) {
+}
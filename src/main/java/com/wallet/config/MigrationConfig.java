@@ -0,0 +1,44 @@
+package com.wallet.config;
+
+import com.wallet.shard.ShardRoutingDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(MigrationProperties.class)
+public class MigrationConfig {
+
+    /**
+     * Migrates every shard when sharded, as Flyway alone would only reach the default one, and
+     * skips migrating when {@code wallet.migrations.on-startup} is off.
+     */
+    @Bean
+    public FlywayMigrationStrategy flywayMigrationStrategy(MigrationProperties properties,
+                                                           ObjectProvider<ShardRoutingDataSource> shards) {
+        return flyway -> {
+            if (!properties.onStartup()) {
+                log.info("Skipping schema migrations at startup");
+                return;
+            }
+            ShardRoutingDataSource dataSource = shards.getIfAvailable();
+            if (dataSource == null) {
+                flyway.migrate();
+                return;
+            }
+            for (String shard : dataSource.shards()) {
+                log.info("Migrating shard {}", shard);
+                Flyway.configure()
+                    .configuration(flyway.getConfiguration())
+                    .dataSource(dataSource.shard(shard))
+                    .load()
+                    .migrate();
+            }
+        };
+    }
+}
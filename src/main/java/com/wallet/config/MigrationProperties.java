@@ -0,0 +1,17 @@
+package com.wallet.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Versioned schema migrations under {@code db/migration}, applied by Flyway when
+ * {@code spring.flyway.enabled} (the prod profile).
+ *
+ * @param onStartup whether startup migrates; unlike {@code spring.flyway.enabled} this is still read
+ *                  at run time in AOT-processed builds
+ */
+@ConfigurationProperties(prefix = "wallet.migrations")
+public record MigrationProperties(
+    @DefaultValue("true") boolean onStartup
+) {
+}
@@ -0,0 +1,45 @@
+package com.wallet.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wallet.repository.OutboxRepository;
+import com.wallet.service.outbox.FileOutboxSink;
+import com.wallet.service.outbox.InMemoryOutboxSink;
+import com.wallet.service.outbox.OutboxRelay;
+import com.wallet.service.outbox.OutboxSink;
+import com.wallet.service.outbox.WebhookOutboxSink;
+import com.wallet.shard.ShardRouter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+
+@Configuration
+@EnableConfigurationProperties(OutboxProperties.class)
+public class OutboxConfig {
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "wallet.outbox", name = "enabled", havingValue = "true")
+    public OutboxSink outboxSink(OutboxProperties properties, ObjectMapper objectMapper) throws IOException {
+        return switch (properties.sink()) {
+            case MEMORY -> new InMemoryOutboxSink(properties.memoryCapacity());
+            case FILE -> new FileOutboxSink(properties.file(), objectMapper);
+            case WEBHOOK -> new WebhookOutboxSink(properties.webhookUrl(), properties.webhookTimeout(), objectMapper);
+        };
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "wallet.outbox", name = "enabled", havingValue = "true")
+    public OutboxRelay outboxRelay(OutboxRepository repository, TransactionTemplate transactionTemplate,
+                                   OutboxSink sink, ObjectProvider<ShardRouter> router, OutboxProperties properties,
+                                   MeterRegistry registry) {
+        return new OutboxRelay(repository, transactionTemplate, sink, router.getIfAvailable(), properties.workers(),
+            properties.batchSize(), properties.pollInterval(), properties.retryBackoff(), registry);
+    }
+}
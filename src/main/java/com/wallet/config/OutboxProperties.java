@@ -0,0 +1,42 @@
+package com.wallet.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Settings for the transactional outbox and the relay publishing it.
+ *
+ * @param enabled        write an {@code outbox_events} row alongside every ledger row and relay them
+ * @param sink           where the relay publishes, unless an {@code OutboxSink} bean is defined
+ * @param workers        relay threads draining the outbox concurrently
+ * @param batchSize      events locked, published and deleted per relay transaction
+ * @param pollInterval   how long an idle relay worker waits before looking again
+ * @param retryBackoff   how long a relay worker waits after the sink failed
+ * @param memoryCapacity events the {@code MEMORY} sink holds before publishing fails
+ * @param file           file the {@code FILE} sink appends newline-delimited JSON to
+ * @param webhookUrl     endpoint the {@code WEBHOOK} sink posts JSON arrays of events to
+ * @param webhookTimeout how long the {@code WEBHOOK} sink waits for a response
+ */
+@ConfigurationProperties(prefix = "wallet.outbox")
+public record OutboxProperties(
+    @DefaultValue("false") boolean enabled,
+    @DefaultValue("FILE") Sink sink,
+    @DefaultValue("2") int workers,
+    @DefaultValue("500") int batchSize,
+    @DefaultValue("100ms") Duration pollInterval,
+    @DefaultValue("1s") Duration retryBackoff,
+    @DefaultValue("10000") int memoryCapacity,
+    @DefaultValue("outbox/events.ndjson") Path file,
+    @DefaultValue("http://localhost:8081/events") URI webhookUrl,
+    @DefaultValue("5s") Duration webhookTimeout
+) {
+    public enum Sink {
+        MEMORY,
+        FILE,
+        WEBHOOK
+    }
+}
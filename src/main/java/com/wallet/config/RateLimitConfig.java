@@ -0,0 +1,44 @@
+package com.wallet.config;
+
+import com.wallet.controller.RateLimitFilter;
+import com.wallet.service.ratelimit.AdaptiveConcurrencyLimit;
+import com.wallet.service.ratelimit.TokenBuckets;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+@Configuration
+@EnableConfigurationProperties(RateLimitProperties.class)
+public class RateLimitConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "wallet.rate-limit", name = "enabled", havingValue = "true")
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilter(RateLimitProperties properties,
+                                                                   DataSource dataSource,
+                                                                   MeterRegistry registry) throws SQLException {
+        int initialLimit = properties.initialLimit() > 0
+            ? properties.initialLimit()
+            : ConnectionPools.maximumSize(dataSource, "wallet.rate-limit.initial-limit");
+        RateLimitFilter filter = new RateLimitFilter(
+            properties.clientHeader(),
+            new TokenBuckets(properties.clientRate(), properties.clientBurst(), properties.idleTimeout(),
+                properties.stripes()),
+            new TokenBuckets(properties.userRate(), properties.userBurst(), properties.idleTimeout(),
+                properties.stripes()),
+            new AdaptiveConcurrencyLimit(initialLimit, properties.minLimit(), properties.maxLimit(),
+                properties.targetLatency(), properties.backoffRatio()),
+            registry);
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.addUrlPatterns("/api/wallets/*");
+        // Ahead of the admission filter, so shed requests never take or wait for a permit
+        registration.setOrder(Ordered.LOWEST_PRECEDENCE - 1);
+        return registration;
+    }
+}
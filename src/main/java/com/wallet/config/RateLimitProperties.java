@@ -0,0 +1,42 @@
+package com.wallet.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Rate limits and load shedding for wallet mutations, checked before any transaction opens.
+ *
+ * @param enabled       whether mutations are rate limited
+ * @param clientHeader  request header naming the API client, set only behind a gateway that overwrites it;
+ *                      unset, clients are the authenticated principal or else the remote address
+ * @param clientRate    sustained mutations per second per API client
+ * @param clientBurst   mutations an idle API client may send at once
+ * @param userRate      sustained mutations per second per user, across clients
+ * @param userBurst     mutations an idle user may receive at once
+ * @param idleTimeout   how long an unused bucket is kept; a full bucket is re-created on demand
+ * @param stripes       lock stripes over the bucket maps, a power of two
+ * @param initialLimit  starting concurrency limit; 0 uses the connection pool size (summed over shards)
+ * @param minLimit      floor the concurrency limit never backs off below
+ * @param maxLimit      ceiling the concurrency limit never grows above
+ * @param targetLatency mutation latency above which the concurrency limit backs off
+ * @param backoffRatio  factor the concurrency limit is multiplied by when it backs off
+ */
+@ConfigurationProperties(prefix = "wallet.rate-limit")
+public record RateLimitProperties(
+    @DefaultValue("false") boolean enabled,
+    String clientHeader,
+    @DefaultValue("200") double clientRate,
+    @DefaultValue("400") int clientBurst,
+    @DefaultValue("20") double userRate,
+    @DefaultValue("40") int userBurst,
+    @DefaultValue("5m") Duration idleTimeout,
+    @DefaultValue("64") int stripes,
+    @DefaultValue("0") int initialLimit,
+    @DefaultValue("2") int minLimit,
+    @DefaultValue("200") int maxLimit,
+    @DefaultValue("100ms") Duration targetLatency,
+    @DefaultValue("0.9") double backoffRatio
+) {
+}
@@ -0,0 +1,88 @@
+package com.wallet.config;
+
+import com.wallet.controller.ConsistencyTokenFilter;
+import com.wallet.replica.ReplicaRoutingDataSource;
+import com.wallet.replica.ReplicaSet;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Configuration
+@EnableConfigurationProperties(ReplicaProperties.class)
+@ConditionalOnProperty(prefix = "wallet.replicas", name = "enabled", havingValue = "true")
+public class ReplicaConfig {
+
+    /** The write pool, bound from {@code spring.datasource} as Boot would have built it. */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaSet replicaSet(ReplicaProperties properties, DataSourceProperties primary,
+                                 HikariDataSource primaryDataSource, MeterRegistry registry) {
+        List<ReplicaProperties.Node> nodes = properties.nodes();
+        if (nodes.isEmpty()) {
+            throw new IllegalStateException("wallet.replicas.nodes must list at least one replica");
+        }
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < nodes.size(); i++) {
+            ReplicaProperties.Node node = nodes.get(i);
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("wallet-replica-" + i);
+            replica.setJdbcUrl(node.url());
+            replica.setUsername(node.username() != null ? node.username() : primary.determineUsername());
+            replica.setPassword(node.password() != null ? node.password() : primary.determinePassword());
+            replica.setDriverClassName(primary.determineDriverClassName());
+            if (primaryDataSource.getMaximumPoolSize() > 0) {
+                replica.setMaximumPoolSize(primaryDataSource.getMaximumPoolSize());
+            }
+            replica.setReadOnly(true);
+            replicas.put(replica.getPoolName(), replica);
+        }
+        return new ReplicaSet(primaryDataSource, replicas, properties.lagCheckInterval(), properties.maxLag(),
+            registry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaSet replicaSet) {
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primaryDataSource, replicaSet));
+    }
+
+    /**
+     * Hibernate normally holds a connection for the whole session, which with open-in-view is the
+     * whole request; a write after a read would then reuse the replica connection. Releasing after
+     * each transaction lets every transaction be routed on its own.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer releaseConnectionsAfterTransaction() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+            PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+    @Bean
+    public FilterRegistrationBean<ConsistencyTokenFilter> consistencyTokenFilter() {
+        FilterRegistrationBean<ConsistencyTokenFilter> registration =
+            new FilterRegistrationBean<>(new ConsistencyTokenFilter());
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+}
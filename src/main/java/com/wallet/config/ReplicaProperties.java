@@ -0,0 +1,28 @@
+package com.wallet.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Read replicas that serve read-only transactions.
+ *
+ * @param enabled          whether read-only transactions are routed to {@code nodes}; writes and
+ *                         reads outside a transaction always use {@code spring.datasource}
+ * @param nodes            replica connection settings; credentials default to the primary's
+ * @param lagCheckInterval how often each replica's replication lag is measured
+ * @param maxLag           replicas lagging further behind are skipped until they catch up; also how
+ *                         long a consistency token pins reads when replay positions are unknown
+ */
+@ConfigurationProperties(prefix = "wallet.replicas")
+public record ReplicaProperties(
+    @DefaultValue("false") boolean enabled,
+    @DefaultValue List<Node> nodes,
+    @DefaultValue("1s") Duration lagCheckInterval,
+    @DefaultValue("5s") Duration maxLag
+) {
+    public record Node(String url, String username, String password) {
+    }
+}
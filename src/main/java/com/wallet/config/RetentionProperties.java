@@ -0,0 +1,27 @@
+package com.wallet.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+
+/**
+ * Settings for monthly transaction partitions and archival of cold months.
+ *
+ * @param enabled      whether months older than {@code retainMonths} are archived and removed;
+ *                     partitions are created ahead regardless
+ * @param monthsAhead  monthly partitions kept ready past the current month
+ * @param retainMonths full months kept online before the current one
+ * @param archiveDir   directory receiving one {@code transactions-YYYY-MM.csv.gz} per archived month
+ * @param batchSize    rows fetched per round trip while exporting, and deleted per statement on
+ *                     unpartitioned tables
+ */
+@ConfigurationProperties(prefix = "wallet.retention")
+public record RetentionProperties(
+    @DefaultValue("false") boolean enabled,
+    @DefaultValue("3") int monthsAhead,
+    @DefaultValue("12") int retainMonths,
+    @DefaultValue("archive") Path archiveDir,
+    @DefaultValue("10000") int batchSize
+) {
+}
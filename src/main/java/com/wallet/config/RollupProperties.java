@@ -0,0 +1,20 @@
+package com.wallet.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings for the daily statement rollups.
+ *
+ * @param enabled     whether the scheduled roll-up runs
+ * @param settleDelay how long to wait past midnight before rolling up the previous day, so
+ *                    in-flight transactions stamped before midnight have committed
+ */
+@ConfigurationProperties(prefix = "wallet.rollups")
+public record RollupProperties(
+    @DefaultValue("true") boolean enabled,
+    @DefaultValue("5m") Duration settleDelay
+) {
+}
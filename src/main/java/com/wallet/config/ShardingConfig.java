@@ -0,0 +1,143 @@
+package com.wallet.config;
+
+import com.wallet.repository.TransactionRepository;
+import com.wallet.repository.TransferCreditRepository;
+import com.wallet.repository.TransferSagaRepository;
+import com.wallet.repository.WalletRepository;
+import com.wallet.service.cache.BalanceCache;
+import com.wallet.service.concurrency.BalanceUpdateStrategy;
+import com.wallet.service.outbox.OutboxWriter;
+import com.wallet.shard.CrossShardTransfers;
+import com.wallet.shard.EachShardSchedulingAspect;
+import com.wallet.shard.ShardRebalancer;
+import com.wallet.shard.ShardRouter;
+import com.wallet.shard.ShardRoutingDataSource;
+import com.wallet.shard.ShardSchemaIntegrator;
+import com.wallet.shard.ShardScriptDatabaseInitializer;
+import com.wallet.shard.TransferLegs;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.jpa.boot.spi.JpaSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.autoconfigure.sql.init.SqlInitializationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+
+@Configuration
+@EnableConfigurationProperties({ShardingProperties.class, SqlInitializationProperties.class})
+@ConditionalOnProperty(prefix = "wallet.sharding", name = "enabled", havingValue = "true")
+public class ShardingConfig {
+
+    /** Every shard's pool behind one data source, routed by the shard bound to the calling thread. */
+    @Bean
+    @Primary
+    public ShardRoutingDataSource dataSource(ShardingProperties properties, DataSourceProperties defaults,
+                                             Environment environment) {
+        validate(properties, environment);
+        LinkedHashMap<String, DataSource> shards = new LinkedHashMap<>();
+        for (ShardingProperties.Node node : properties.nodes()) {
+            HikariDataSource shard = new HikariDataSource();
+            shard.setPoolName("wallet-shard-" + node.name());
+            shard.setJdbcUrl(node.url());
+            shard.setUsername(node.username() != null ? node.username() : defaults.determineUsername());
+            shard.setPassword(node.password() != null ? node.password() : defaults.determinePassword());
+            shard.setDriverClassName(defaults.determineDriverClassName());
+            shard.setMaximumPoolSize(properties.poolSize());
+            shards.put(node.name(), shard);
+        }
+        return new ShardRoutingDataSource(shards);
+    }
+
+    private static void validate(ShardingProperties properties, Environment environment) {
+        if (environment.getProperty("wallet.engine.enabled", Boolean.class, false)) {
+            throw new IllegalStateException("wallet.sharding cannot be combined with wallet.engine");
+        }
+        if (environment.getProperty("wallet.replicas.enabled", Boolean.class, false)) {
+            throw new IllegalStateException("wallet.sharding cannot be combined with wallet.replicas");
+        }
+        List<ShardingProperties.Node> nodes = properties.nodes();
+        if (nodes.isEmpty()) {
+            throw new IllegalStateException("wallet.sharding.nodes must list at least one shard");
+        }
+        Set<String> names = new HashSet<>();
+        for (ShardingProperties.Node node : nodes) {
+            if (node.name() == null || node.url() == null || !names.add(node.name())) {
+                throw new IllegalStateException("Every wallet.sharding.nodes entry needs a unique name and a url");
+            }
+        }
+        List<String> previous = properties.previousNodes();
+        if (previous.size() > nodes.size()
+                || !previous.equals(nodes.subList(0, previous.size()).stream().map(ShardingProperties.Node::name).toList())) {
+            // Ids are offset by position, so shards can only ever be appended
+            throw new IllegalStateException("wallet.sharding.previous-nodes must be the leading wallet.sharding.nodes");
+        }
+    }
+
+    @Bean
+    public ShardRouter shardRouter(ShardRoutingDataSource dataSource, ShardingProperties properties) {
+        return new ShardRouter(dataSource, properties.previousNodes(), properties.virtualNodes());
+    }
+
+    /**
+     * Gives every shard Hibernate's schema, and connections back after each transaction, so that
+     * consecutive transactions of one open-in-view request can run on different shards.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer shardSchemaCustomizer(ShardRoutingDataSource dataSource) {
+        return properties -> {
+            properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+            properties.put(JpaSettings.INTEGRATOR_PROVIDER,
+                (IntegratorProvider) () -> List.of(new ShardSchemaIntegrator(dataSource)));
+        };
+    }
+
+    @Bean
+    public ShardScriptDatabaseInitializer shardScriptDatabaseInitializer(ShardRoutingDataSource dataSource,
+                                                                         SqlInitializationProperties properties) {
+        return new ShardScriptDatabaseInitializer(dataSource, properties);
+    }
+
+    @Bean
+    public TransferLegs transferLegs(WalletRepository walletRepository, TransactionRepository transactionRepository,
+                                     TransferSagaRepository sagaRepository, TransferCreditRepository creditRepository,
+                                     BalanceUpdateStrategy balanceUpdateStrategy, BalanceCache balanceCache,
+                                     OutboxWriter outboxWriter, EntityManager entityManager) {
+        return new TransferLegs(walletRepository, transactionRepository, sagaRepository, creditRepository,
+            balanceUpdateStrategy, balanceCache, outboxWriter, entityManager);
+    }
+
+    @Bean
+    public CrossShardTransfers crossShardTransfers(ShardRouter router, TransferLegs legs, ShardingProperties properties,
+                                                   MeterRegistry registry) {
+        return new CrossShardTransfers(router, legs, properties.sagaRecoveryInterval(), properties.sagaTimeout(),
+            registry);
+    }
+
+    @Bean
+    public ShardRebalancer shardRebalancer(ShardRouter router, ShardRoutingDataSource dataSource,
+                                           BalanceCache balanceCache, ShardingProperties properties,
+                                           MeterRegistry registry) {
+        return new ShardRebalancer(router, dataSource, balanceCache, properties.rebalanceBatchSize(), registry);
+    }
+
+    @Bean
+    public EachShardSchedulingAspect eachShardSchedulingAspect(ShardRouter router) {
+        return new EachShardSchedulingAspect(router);
+    }
+}
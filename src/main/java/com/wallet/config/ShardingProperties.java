@@ -0,0 +1,39 @@
+package com.wallet.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Wallet storage spread over several databases by a consistent hash of the userId.
+ *
+ * @param enabled              whether wallets are sharded over {@code nodes}; {@code spring.datasource} is then
+ *                             only used for connection defaults
+ * @param nodes                the shard databases. Ids are offset by each node's position, so new shards are
+ *                             appended and existing ones never reordered. The first also holds data that is
+ *                             not per-user
+ * @param previousNodes        names of the nodes that formed the ring before shards were added; while set,
+ *                             wallets are looked up on their previous shard too and moved to their new one
+ * @param virtualNodes         points each shard places on the hash ring; more points even out the share of
+ *                             wallets per shard
+ * @param poolSize             connections per shard
+ * @param rebalanceBatchSize   wallets scanned, and ledger rows copied, per round trip while moving wallets
+ * @param sagaRecoveryInterval how often cross-shard transfers left half-done are looked for
+ * @param sagaTimeout          how long a cross-shard transfer may stay half-done before recovery completes it
+ */
+@ConfigurationProperties(prefix = "wallet.sharding")
+public record ShardingProperties(
+    @DefaultValue("false") boolean enabled,
+    @DefaultValue List<Node> nodes,
+    @DefaultValue List<String> previousNodes,
+    @DefaultValue("128") int virtualNodes,
+    @DefaultValue("10") int poolSize,
+    @DefaultValue("500") int rebalanceBatchSize,
+    @DefaultValue("30s") Duration sagaRecoveryInterval,
+    @DefaultValue("1m") Duration sagaTimeout
+) {
+    public record Node(String name, String url, String username, String password) {
+    }
+}
@@ -0,0 +1,9 @@
+package com.wallet.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(WalletIdCacheProperties.class)
+public class WalletIdCacheConfig {
+}
@@ -0,0 +1,23 @@
+package com.wallet.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings for the in-process cache of userId to wallet id.
+ *
+ * @param enabled     whether wallet ids are cached at all; when off, every lookup queries and writes
+ *                    skip the up-front existence check
+ * @param maximumSize users kept, found or not; beyond this Caffeine evicts by frequency (W-TinyLFU)
+ * @param negativeTtl how long a user without a wallet is remembered as such; this bounds how long a
+ *                    wallet created on another instance can still be reported missing here
+ */
+@ConfigurationProperties(prefix = "wallet.wallet-id-cache")
+public record WalletIdCacheProperties(
+    @DefaultValue("true") boolean enabled,
+    @DefaultValue("1000000") long maximumSize,
+    @DefaultValue("2s") Duration negativeTtl
+) {
+}
@@ -0,0 +1,114 @@
+package com.wallet.controller;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Caps how many API requests run at once, sized to the connection pool.
+ *
+ * <p>With virtual threads every request gets its own thread, so without a cap a burst would pile
+ * up inside Hikari's connection wait and time out there. Excess requests instead park on a fair
+ * {@link Semaphore}: a parked virtual thread costs a few hundred bytes and does not pin its
+ * carrier. A request still waiting after {@code maxWait} gets 503 with {@code Retry-After}.
+ * Streaming responses hold their permit until the async response completes.
+ */
+public class AdmissionFilter extends OncePerRequestFilter {
+    private final Semaphore permits;
+    private final long maxWaitNanos;
+    private final Timer wait;
+    private final Counter rejected;
+
+    public AdmissionFilter(int permits, Duration maxWait, MeterRegistry registry) {
+        this.permits = new Semaphore(permits, true);
+        this.maxWaitNanos = maxWait.toNanos();
+        this.wait = Timer.builder("wallet.admission.wait")
+            .description("Time API requests spent queued for an admission permit")
+            .register(registry);
+        this.rejected = Counter.builder("wallet.admission.rejected")
+            .description("API requests rejected after waiting too long for an admission permit")
+            .register(registry);
+        Gauge.builder("wallet.admission.queued", this.permits, Semaphore::getQueueLength)
+            .description("API requests currently waiting for an admission permit")
+            .register(registry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!acquire()) {
+            rejected.increment();
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Too many concurrent requests");
+            return;
+        }
+        Permit permit = new Permit();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(permit);
+            } else {
+                permit.release();
+            }
+        }
+    }
+
+    private boolean acquire() throws ServletException {
+        long started = System.nanoTime();
+        try {
+            return permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServletException("Interrupted while waiting for an admission permit", e);
+        } finally {
+            wait.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /** Releases once, whichever of the request thread or the async completion gets there first. */
+    private final class Permit implements AsyncListener {
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.wallet.controller;
+
+import com.wallet.exception.WalletException;
+import com.wallet.service.bulk.BulkCursor;
+import com.wallet.service.bulk.BulkExporter;
+import com.wallet.service.bulk.BulkImporter;
+import com.wallet.service.bulk.BulkResult;
+import com.wallet.service.bulk.BulkTable;
+import com.wallet.shard.ShardRouter;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Admin bulk export and import of {@code wallets} and {@code transactions} as CSV, for migrations,
+ * backfills and restores. Export wallets before transactions and import them in the same order.
+ * When sharded, each shard is exported and imported on its own, named by {@code shard}.
+ */
+@RestController
+@RequestMapping("/api/admin/bulk")
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "wallet.bulk", name = "enabled", havingValue = "true")
+@Tag(name = "Bulk", description = "Bulk import and export of wallets and ledgers")
+public class BulkController {
+    static final String CSV_VALUE = "text/csv";
+    static final String ROWS_TRAILER = "X-Bulk-Rows";
+    static final String CURSOR_TRAILER = "X-Bulk-Cursor";
+    static final String INCONSISTENT_TRAILER = "X-Bulk-Inconsistent-Wallets";
+
+    private final BulkExporter exporter;
+    private final BulkImporter importer;
+    private final ObjectProvider<ShardRouter> shards;
+
+    /**
+     * Streams the table as CSV. Its row count, last cursor and the number of wallets whose balance
+     * differs from their ledger follow the body as HTTP trailers, for clients that accept them.
+     */
+    @GetMapping(value = "/{table}", produces = CSV_VALUE)
+    @Operation(summary = "Export a table as CSV, from just past the 'after' cursor if given")
+    public ResponseEntity<StreamingResponseBody> export(
+            @PathVariable String table,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) String shard,
+            HttpServletResponse response) {
+        BulkTable bulkTable = BulkTable.of(table);
+        BulkCursor cursor = BulkCursor.decode(after);
+        String target = shard(shard);
+        AtomicReference<BulkResult> result = new AtomicReference<>();
+        try {
+            response.setTrailerFields(() -> result.get() == null ? Map.of() : Map.of(
+                ROWS_TRAILER, Long.toString(result.get().rows()),
+                CURSOR_TRAILER, result.get().cursor() != null ? result.get().cursor() : "",
+                INCONSISTENT_TRAILER, Long.toString(result.get().inconsistentWallets())));
+        } catch (IllegalStateException e) {
+            // The client did not ask for trailers; the cursor is still the last line's key
+        }
+        StreamingResponseBody body = out -> result.set(onShard(target,
+            () -> exporter.export(bulkTable, cursor, out)));
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(CSV_VALUE)).body(body);
+    }
+
+    @PostMapping(value = "/{table}", consumes = CSV_VALUE)
+    @Operation(summary = "Import a table from CSV, skipping rows up to the 'after' cursor if given")
+    public ResponseEntity<BulkResult> importFrom(
+            @PathVariable String table,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) String shard,
+            InputStream body) {
+        BulkTable bulkTable = BulkTable.of(table);
+        BulkCursor cursor = BulkCursor.decode(after);
+        BulkResult result = onShard(shard(shard), () -> importer.importFrom(bulkTable, cursor, body));
+        return ResponseEntity.status(result.error() == null ? HttpStatus.OK : HttpStatus.UNPROCESSABLE_ENTITY)
+            .body(result);
+    }
+
+    private String shard(String shard) {
+        ShardRouter router = shards.getIfAvailable();
+        if (router == null) {
+            return null;
+        }
+        if (shard == null || !router.shards().contains(shard)) {
+            throw new WalletException("A shard is required, one of " + router.shards());
+        }
+        return shard;
+    }
+
+    private <T> T onShard(String shard, Supplier<T> action) {
+        return shard == null ? action.get() : shards.getObject().onShard(shard, action);
+    }
+}
@@ -0,0 +1,38 @@
+package com.wallet.controller;
+
+import com.wallet.replica.ConsistencyToken;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Binds the {@value WalletController#CONSISTENCY_TOKEN_HEADER} a client got back from a mutation to
+ * the request thread, so the request's reads only use replicas that have caught up with that write.
+ */
+public class ConsistencyTokenFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String header = request.getHeader(WalletController.CONSISTENCY_TOKEN_HEADER);
+        if (header == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        ConsistencyToken token;
+        try {
+            token = ConsistencyToken.decode(header);
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), e.getMessage());
+            return;
+        }
+        try (ConsistencyToken.Scope scope = ConsistencyToken.bind(token)) {
+            chain.doFilter(request, response);
+        }
+    }
+}
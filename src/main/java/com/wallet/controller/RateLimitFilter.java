@@ -0,0 +1,145 @@
+package com.wallet.controller;
+
+import com.wallet.service.ratelimit.AdaptiveConcurrencyLimit;
+import com.wallet.service.ratelimit.TokenBuckets;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.security.Principal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate limits wallet mutations per API client and per user, and sheds them when the database
+ * slows down, all before a controller runs or a transaction opens.
+ *
+ * <p>A client or user out of tokens gets 429 with {@code Retry-After} set to when its next token
+ * is due, so one flooding client exhausts only its own bucket. Mutations within their rates then
+ * pass an {@link AdaptiveConcurrencyLimit} that follows the latency of admitted mutations, which
+ * is almost all database time; past the limit they get 503 straight away instead of queuing in
+ * front of an already slow pool. Reads are not limited here.
+ *
+ * <p>An API client is the authenticated principal when there is one, and otherwise the remote
+ * address. A client header is only trusted when one is configured, for deployments where a gateway
+ * sets it and strips any copy the caller sent; taken from callers directly, a flooder would get a
+ * fresh bucket per request by rotating its value.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+    private final String clientHeader;
+    private final TokenBuckets clients;
+    private final TokenBuckets users;
+    private final AdaptiveConcurrencyLimit limit;
+    private final Counter clientRejected;
+    private final Counter userRejected;
+    private final Counter concurrencyRejected;
+
+    /**
+     * @param clientHeader header a trusted gateway names the API client in, or {@code null} to
+     *                     ignore client headers
+     */
+    public RateLimitFilter(String clientHeader, TokenBuckets clients, TokenBuckets users,
+                           AdaptiveConcurrencyLimit limit, MeterRegistry registry) {
+        this.clientHeader = clientHeader;
+        this.clients = clients;
+        this.users = users;
+        this.limit = limit;
+        this.clientRejected = rejected(registry, "client");
+        this.userRejected = rejected(registry, "user");
+        this.concurrencyRejected = rejected(registry, "concurrency");
+        Gauge.builder("wallet.ratelimit.limit", limit, AdaptiveConcurrencyLimit::limit)
+            .description("Current adaptive concurrency limit for wallet mutations")
+            .register(registry);
+        Gauge.builder("wallet.ratelimit.in-flight", limit, AdaptiveConcurrencyLimit::inFlight)
+            .description("Wallet mutations currently admitted")
+            .register(registry);
+    }
+
+    private static Counter rejected(MeterRegistry registry, String reason) {
+        return Counter.builder("wallet.ratelimit.rejected")
+            .description("Wallet mutations rejected before running")
+            .tag("reason", reason)
+            .register(registry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !HttpMethod.POST.matches(request.getMethod())
+            || request.getRequestURI().endsWith("/historical-balances");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long now = System.nanoTime();
+        long wait = clients.tryAcquire(clientId(request), now);
+        if (wait > 0) {
+            clientRejected.increment();
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, wait, "API client rate limit exceeded");
+            return;
+        }
+        String userId = userId(request);
+        if (userId != null && (wait = users.tryAcquire(userId, now)) > 0) {
+            userRejected.increment();
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, wait, "Wallet rate limit exceeded");
+            return;
+        }
+        if (!limit.tryAcquire()) {
+            concurrencyRejected.increment();
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, 1, "Too many concurrent wallet mutations");
+            return;
+        }
+        // Mutation endpoints are synchronous, so the permit is always released here
+        long started = System.nanoTime();
+        boolean failed = true;
+        try {
+            chain.doFilter(request, response);
+            failed = response.getStatus() >= HttpStatus.INTERNAL_SERVER_ERROR.value();
+        } finally {
+            limit.release(System.nanoTime() - started, failed);
+        }
+    }
+
+    private String clientId(HttpServletRequest request) {
+        Principal principal = request.getUserPrincipal();
+        if (principal != null) {
+            return "principal:" + principal.getName();
+        }
+        String clientId = clientHeader != null ? request.getHeader(clientHeader) : null;
+        return clientId != null && !clientId.isBlank() ? "header:" + clientId : request.getRemoteAddr();
+    }
+
+    /**
+     * The user a mutation debits or credits first: {@code /api/wallets/{userId}/deposit},
+     * {@code /withdraw} and {@code /transfer/{toUserId}}. Wallet creation and batches have none.
+     */
+    private static String userId(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        int start = path.indexOf('/', "/api/wallets".length()) + 1;
+        int end = start > 0 ? path.indexOf('/', start) : -1;
+        return end > start ? path.substring(start, end) : null;
+    }
+
+    /**
+     * Writes the rejection directly rather than through {@code sendError}, whose error dispatch
+     * costs more than the rejected mutation would have while a client floods.
+     */
+    private static void reject(HttpServletResponse response, HttpStatus status, long waitNanos, String message)
+            throws IOException {
+        long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(seconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"status\":" + status.value() + ",\"error\":\"" + status.getReasonPhrase()
+            + "\",\"message\":\"" + message + "\"}");
+    }
+}
@@ -0,0 +1,147 @@
+package com.wallet.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.wallet.model.Money;
+import com.wallet.model.TransactionType;
+import com.wallet.repository.TransactionRow;
+import org.springframework.boot.jackson.JsonComponent;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+
+/**
+ * Writes a {@link TransactionRow} straight into the generator's output buffer with the same bytes
+ * the default record serialization produces, but without reflection or garbage per row: field
+ * names and enum values are pre-encoded, and amounts and timestamps are formatted into a
+ * per-thread scratch buffer rather than through {@code BigDecimal} and {@code String}.
+ */
+@JsonComponent
+public class TransactionRowJsonSerializer extends StdSerializer<TransactionRow> {
+    private static final SerializedString ID = new SerializedString("id");
+    private static final SerializedString WALLET_ID = new SerializedString("walletId");
+    private static final SerializedString TYPE = new SerializedString("type");
+    private static final SerializedString AMOUNT = new SerializedString("amount");
+    private static final SerializedString BALANCE = new SerializedString("balance");
+    private static final SerializedString DESCRIPTION = new SerializedString("description");
+    private static final SerializedString CREATED_AT = new SerializedString("createdAt");
+    private static final SerializedString[] TYPES = Arrays.stream(TransactionType.values())
+        .map(type -> new SerializedString(type.name()))
+        .toArray(SerializedString[]::new);
+    // Fits -922337203685477.5807 as well as 9999-12-31T23:59:59.999999999
+    private static final ThreadLocal<char[]> SCRATCH = ThreadLocal.withInitial(() -> new char[32]);
+
+    public TransactionRowJsonSerializer() {
+        super(TransactionRow.class);
+    }
+
+    @Override
+    public void serialize(TransactionRow row, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        char[] scratch = SCRATCH.get();
+        generator.writeStartObject(row);
+        generator.writeFieldName(ID);
+        writeLong(generator, row.id());
+        generator.writeFieldName(WALLET_ID);
+        writeLong(generator, row.walletId());
+        generator.writeFieldName(TYPE);
+        if (row.type() == null) {
+            generator.writeNull();
+        } else {
+            generator.writeString(TYPES[row.type().ordinal()]);
+        }
+        generator.writeFieldName(AMOUNT);
+        writeMoney(generator, row.amount(), scratch);
+        generator.writeFieldName(BALANCE);
+        writeMoney(generator, row.balance(), scratch);
+        generator.writeFieldName(DESCRIPTION);
+        generator.writeString(row.description());
+        generator.writeFieldName(CREATED_AT);
+        writeTimestamp(generator, row.createdAt(), scratch);
+        generator.writeEndObject();
+    }
+
+    private static void writeLong(JsonGenerator generator, Long value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(value.longValue());
+        }
+    }
+
+    /** As {@code BigDecimal.toString()} at scale four, which never uses an exponent. */
+    private static void writeMoney(JsonGenerator generator, Money money, char[] scratch) throws IOException {
+        if (money == null) {
+            generator.writeNull();
+            return;
+        }
+        long units = money.units();
+        if (units == Long.MIN_VALUE) {
+            generator.writeNumber(money.toBigDecimal());
+            return;
+        }
+        long remaining = Math.abs(units);
+        int start = scratch.length;
+        for (int i = 0; i < Money.SCALE; i++) {
+            scratch[--start] = (char) ('0' + remaining % 10);
+            remaining /= 10;
+        }
+        scratch[--start] = '.';
+        do {
+            scratch[--start] = (char) ('0' + remaining % 10);
+            remaining /= 10;
+        } while (remaining != 0);
+        if (units < 0) {
+            scratch[--start] = '-';
+        }
+        generator.writeNumber(scratch, start, scratch.length - start);
+    }
+
+    /**
+     * As {@link DateTimeFormatter#ISO_LOCAL_DATE_TIME}, which is what Jackson writes for a
+     * {@link LocalDateTime}: seconds always, fraction only as long as needed.
+     */
+    private static void writeTimestamp(JsonGenerator generator, LocalDateTime timestamp, char[] scratch)
+            throws IOException {
+        if (timestamp == null) {
+            generator.writeNull();
+            return;
+        }
+        int year = timestamp.getYear();
+        if (year < 0 || year > 9999) {
+            generator.writeString(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(timestamp));
+            return;
+        }
+        int length = digits(scratch, 0, year, 4);
+        scratch[length++] = '-';
+        length = digits(scratch, length, timestamp.getMonthValue(), 2);
+        scratch[length++] = '-';
+        length = digits(scratch, length, timestamp.getDayOfMonth(), 2);
+        scratch[length++] = 'T';
+        length = digits(scratch, length, timestamp.getHour(), 2);
+        scratch[length++] = ':';
+        length = digits(scratch, length, timestamp.getMinute(), 2);
+        scratch[length++] = ':';
+        length = digits(scratch, length, timestamp.getSecond(), 2);
+        int nano = timestamp.getNano();
+        if (nano != 0) {
+            scratch[length++] = '.';
+            length = digits(scratch, length, nano, 9);
+            while (scratch[length - 1] == '0') {
+                length--;
+            }
+        }
+        generator.writeString(scratch, 0, length);
+    }
+
+    private static int digits(char[] scratch, int offset, int value, int width) {
+        for (int i = offset + width - 1; i >= offset; i--) {
+            scratch[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return offset + width;
+    }
+}
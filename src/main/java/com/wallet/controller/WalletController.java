@@ -1,34 +1,74 @@
 package com.wallet.controller;
 
-import com.wallet.model.Transaction;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wallet.model.Money;
 import com.wallet.model.Wallet;
+import com.wallet.replica.ConsistencyToken;
+import com.wallet.replica.ReplicaSet;
+import com.wallet.repository.TransactionRow;
+import com.wallet.service.BatchMode;
+import com.wallet.service.BatchOperation;
+import com.wallet.service.BatchResult;
+import com.wallet.service.TransactionCursor;
+import com.wallet.service.TransactionPage;
 import com.wallet.service.WalletService;
+import com.wallet.service.idempotency.IdempotencyService;
+import com.wallet.service.idempotency.IdempotentResponse;
+import com.wallet.service.statement.Statement;
+import com.wallet.service.statement.StatementService;
+import com.wallet.shard.ShardRouter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.math.BigDecimal;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/wallets")
 @RequiredArgsConstructor
 @Tag(name = "Wallet", description = "Wallet management APIs")
 public class WalletController {
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final String NDJSON_VALUE = "application/x-ndjson";
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+    static final String CONSISTENCY_TOKEN_HEADER = "Consistency-Token";
+
     private final WalletService walletService;
+    private final IdempotencyService idempotencyService;
+    private final StatementService statementService;
+    private final ObjectMapper objectMapper;
+    private final ObjectProvider<ReplicaSet> replicas;
+    private final ObjectProvider<ShardRouter> shards;
 
     @PostMapping
     @Operation(summary = "Create a new wallet")
-    public ResponseEntity<Wallet> createWallet(@Valid @RequestBody CreateWalletRequest request) {
-        return ResponseEntity.ok(walletService.createWallet(request.getUserId()));
+    public ResponseEntity<WalletResponse> createWallet(@Valid @RequestBody CreateWalletRequest request) {
+        // The token must be issued once the write has committed, not before it runs
+        Wallet wallet = walletService.createWallet(request.userId());
+        return written(HttpStatus.OK).body(new WalletResponse(wallet.getId(), wallet.getUserId(), wallet.getBalance(),
+            wallet.getCreatedAt(), wallet.getUpdatedAt()));
     }
 
     @GetMapping("/{userId}/balance")
@@ -42,29 +82,39 @@ public class WalletController {
     public ResponseEntity<BalanceResponse> getHistoricalBalance(
             @PathVariable @NotBlank String userId,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime timestamp) {
-        return ResponseEntity.ok(new BalanceResponse(
-            walletService.getHistoricalBalance(userId, timestamp != null ? timestamp : LocalDateTime.now())
-        ));
+        // Left null without a timestamp, so concurrent polls of the latest balance share one lookup
+        return ResponseEntity.ok(new BalanceResponse(walletService.getHistoricalBalance(userId, timestamp)));
+    }
+
+    @PostMapping("/historical-balances")
+    @Operation(summary = "Get the balances of many wallets at one point in time")
+    public ResponseEntity<HistoricalBalancesResponse> getHistoricalBalances(
+            @Valid @RequestBody HistoricalBalancesRequest request) {
+        LocalDateTime timestamp = request.timestamp() != null ? request.timestamp() : LocalDateTime.now();
+        return ResponseEntity.ok(new HistoricalBalancesResponse(
+            timestamp, walletService.getHistoricalBalances(request.userIds(), timestamp)));
     }
 
     @PostMapping("/{userId}/deposit")
     @Operation(summary = "Deposit funds into wallet")
     public ResponseEntity<BalanceResponse> depositFunds(
             @PathVariable @NotBlank String userId,
+            @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
             @Valid @RequestBody TransactionRequest request) {
-        return ResponseEntity.ok(new BalanceResponse(
-            walletService.depositFunds(userId, request.getAmount(), request.getDescription())
-        ));
+        return idempotent(idempotencyKey, userId, BalanceResponse.class, () -> new BalanceResponse(
+            walletService.depositFunds(userId, request.amount(), request.description())
+        ), "deposit", userId, request);
     }
 
     @PostMapping("/{userId}/withdraw")
     @Operation(summary = "Withdraw funds from wallet")
     public ResponseEntity<BalanceResponse> withdrawFunds(
             @PathVariable @NotBlank String userId,
+            @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
             @Valid @RequestBody TransactionRequest request) {
-        return ResponseEntity.ok(new BalanceResponse(
-            walletService.withdrawFunds(userId, request.getAmount(), request.getDescription())
-        ));
+        return idempotent(idempotencyKey, userId, BalanceResponse.class, () -> new BalanceResponse(
+            walletService.withdrawFunds(userId, request.amount(), request.description())
+        ), "withdraw", userId, request);
     }
 
     @PostMapping("/{fromUserId}/transfer/{toUserId}")
@@ -72,23 +122,142 @@ public class WalletController {
     public ResponseEntity<Void> transferFunds(
             @PathVariable @NotBlank String fromUserId,
             @PathVariable @NotBlank String toUserId,
+            @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
             @Valid @RequestBody TransactionRequest request) {
-        walletService.transferFunds(fromUserId, toUserId, request.getAmount(), request.getDescription());
-        return ResponseEntity.ok().build();
+        return idempotent(idempotencyKey, fromUserId, Void.class, () -> {
+            walletService.transferFunds(fromUserId, toUserId, request.amount(), request.description());
+            return null;
+        }, "transfer", fromUserId, toUserId, request);
+    }
+
+    @PostMapping("/batch")
+    @Operation(summary = "Apply many deposits, withdrawals and transfers in one request")
+    public ResponseEntity<BatchResult> applyBatch(@Valid @RequestBody BatchRequest request) {
+        BatchResult result = walletService.applyBatch(request.operations(), request.mode());
+        return written(result.committed() ? HttpStatus.OK : HttpStatus.UNPROCESSABLE_ENTITY).body(result);
     }
 
     @GetMapping("/{userId}/transactions")
-    @Operation(summary = "Get wallet transaction history")
-    public ResponseEntity<List<Transaction>> getTransactionHistory(@PathVariable @NotBlank String userId) {
-        return ResponseEntity.ok(walletService.getTransactionHistory(userId));
+    @Operation(summary = "Get a page of wallet transaction history, newest first")
+    public ResponseEntity<List<TransactionRow>> getTransactionHistory(
+            @PathVariable @NotBlank String userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        TransactionPage page = walletService.getTransactionHistory(userId, TransactionCursor.decode(cursor), limit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor().encode());
+        }
+        return response.body(page.items());
+    }
+
+    @GetMapping(value = "/{userId}/transactions/stream", produces = NDJSON_VALUE)
+    @Operation(summary = "Stream the full wallet transaction history as NDJSON, newest first")
+    public ResponseEntity<StreamingResponseBody> streamTransactionHistory(@PathVariable @NotBlank String userId) {
+        ConsistencyToken token = ConsistencyToken.current();
+        StreamingResponseBody body = out -> {
+            try (ConsistencyToken.Scope scope = ConsistencyToken.bind(token);
+                 JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                walletService.streamTransactionHistory(userId, row -> {
+                    try {
+                        objectMapper.writeValue(generator, row);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON_VALUE)).body(body);
+    }
+
+    @GetMapping("/{userId}/statement")
+    @Operation(summary = "Get a statement of wallet activity over [from, to)")
+    public ResponseEntity<Statement> getStatement(
+            @PathVariable @NotBlank String userId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        Supplier<Statement> statement = () -> statementService.statement(userId, from, to);
+        ShardRouter router = shards.getIfAvailable();
+        return ResponseEntity.ok(router == null ? statement.get() : router.onShard(router.locate(userId), statement));
+    }
+
+    /**
+     * Runs a mutation at most once per idempotency key; retries get the first response back, marked
+     * with {@value #IDEMPOTENT_REPLAYED_HEADER}. When sharded, the key is kept on the shard of the
+     * wallet {@code userId} so it commits together with the mutation.
+     */
+    private <T> ResponseEntity<T> idempotent(String idempotencyKey, String userId, Class<T> type,
+                                             Supplier<T> action, Object... request) {
+        if (idempotencyKey == null) {
+            T result = action.get();
+            return written(HttpStatus.OK).body(result);
+        }
+        AtomicReference<T> produced = new AtomicReference<>();
+        Supplier<IdempotentResponse> execute = () -> idempotencyService.execute(
+            idempotencyKey, IdempotencyService.fingerprint(request), () -> {
+                produced.set(action.get());
+                return writeJson(produced.get());
+            });
+        ShardRouter router = shards.getIfAvailable();
+        IdempotentResponse response = router == null ? execute.get() : router.onShard(router.locate(userId), execute);
+        if (!response.replayed()) {
+            return written(HttpStatus.OK).body(produced.get());
+        }
+        return written(HttpStatus.OK).header(IDEMPOTENT_REPLAYED_HEADER, "true").body(readJson(response.body(), type));
+    }
+
+    /**
+     * Starts the response to a mutation. With read replicas configured it carries a
+     * {@value #CONSISTENCY_TOKEN_HEADER}; clients echo it on later requests to read their own writes.
+     * Call it only once the mutation has committed, since the token records the primary's position
+     * at that moment.
+     */
+    private ResponseEntity.BodyBuilder written(HttpStatus status) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(status);
+        ReplicaSet replicaSet = replicas.getIfAvailable();
+        if (replicaSet != null) {
+            response.header(CONSISTENCY_TOKEN_HEADER, replicaSet.issueToken().encode());
+        }
+        return response;
+    }
+
+    private String writeJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private <T> T readJson(String json, Class<T> type) {
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 }
 
 record CreateWalletRequest(@NotBlank String userId) {}
 
 record TransactionRequest(
-    @NotNull @Positive BigDecimal amount,
+    @NotNull @Positive Money amount,
     String description
 ) {}
 
-record BalanceResponse(BigDecimal balance) {} 
\ No newline at end of file
+record WalletResponse(Long id, String userId, Money balance, LocalDateTime createdAt, LocalDateTime updatedAt) {}
+
+record BalanceResponse(Money balance) {}
+
+record HistoricalBalancesRequest(
+    @NotEmpty @Size(max = 10_000) List<@NotBlank String> userIds,
+    LocalDateTime timestamp
+) {}
+
+record HistoricalBalancesResponse(LocalDateTime timestamp, Map<String, Money> balances) {}
+
+record BatchRequest(
+    @NotNull BatchMode mode,
+    @NotEmpty @Size(max = 10_000) List<@Valid @NotNull BatchOperation> operations
+) {}
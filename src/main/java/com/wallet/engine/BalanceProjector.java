@@ -0,0 +1,149 @@
+package com.wallet.engine;
+
+import com.wallet.model.Money;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps {@code wallets.balance} in step with the append-only ledger, off the write path.
+ *
+ * <p>Shards hand over each wallet's final balance once its ledger rows are durable. Balances are
+ * coalesced per wallet, so a hot wallet written a thousand times between ticks costs one
+ * {@code UPDATE}. A single projector thread applies them in sequence order per wallet. The ledger
+ * remains the source of truth: a balance lost in a crash before projection is repaired from the
+ * last ledger row the next time a shard loads the wallet.
+ */
+@Slf4j
+class BalanceProjector implements AutoCloseable {
+    private static final String UPDATE_BALANCE =
+        "update wallets set balance = ?, version = version + 1, updated_at = ? where id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Map<Long, Pending> pending = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final ScheduledExecutorService executor;
+    private final Timer delay;
+
+    private record Pending(long sequence, Money balance, long enqueuedNanos) {}
+
+    BalanceProjector(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, Duration interval,
+                     int batchSize, MeterRegistry registry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.delay = Timer.builder("wallet.projection.delay")
+            .description("Time from a ledger write becoming durable to its wallet balance being projected")
+            .register(registry);
+        Gauge.builder("wallet.projection.pending", pending, Map::size)
+            .description("Wallets whose projected balance is behind the ledger")
+            .register(registry);
+        Gauge.builder("wallet.projection.lag", this, projector -> projector.lag().toNanos() / 1e9)
+            .description("Age in seconds of the oldest ledger write not yet projected")
+            .baseUnit("seconds")
+            .register(registry);
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "wallet-projector");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::projectSafely, interval.toNanos(), interval.toNanos(),
+            TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Queues the final balances of a durable ledger batch. Callers must hand over a wallet's batches
+     * in write order; shards do, since each wallet has a single writer at a time.
+     */
+    void enqueue(Map<Long, Money> balances) {
+        long now = System.nanoTime();
+        balances.forEach((walletId, balance) -> pending.merge(walletId,
+            new Pending(sequence.incrementAndGet(), balance, now),
+            (current, next) -> new Pending(next.sequence(), next.balance(), current.enqueuedNanos())));
+    }
+
+    /** How far the projected balances trail the ledger, measured from the oldest pending write. */
+    Duration lag() {
+        long now = System.nanoTime();
+        return Duration.ofNanos(pending.values().stream()
+            .mapToLong(next -> now - next.enqueuedNanos())
+            .max()
+            .orElse(0));
+    }
+
+    /**
+     * Projects everything queued so far, in batches.
+     */
+    void drain() {
+        while (!pending.isEmpty()) {
+            if (projectBatch() == 0) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        drain();
+    }
+
+    private void projectSafely() {
+        try {
+            drain();
+        } catch (RuntimeException e) {
+            log.warn("Balance projection failed; {} wallets will be retried", pending.size(), e);
+        }
+    }
+
+    private int projectBatch() {
+        Map<Long, Pending> batch = new HashMap<>();
+        Iterator<Map.Entry<Long, Pending>> entries = pending.entrySet().iterator();
+        while (entries.hasNext() && batch.size() < batchSize) {
+            Map.Entry<Long, Pending> entry = entries.next();
+            // Remove only the value read, so a newer balance queued meanwhile stays for the next batch
+            if (pending.remove(entry.getKey(), entry.getValue())) {
+                batch.put(entry.getKey(), entry.getValue());
+            }
+        }
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> updates = new ArrayList<>(batch.size());
+        batch.forEach((walletId, next) -> updates.add(new Object[] {next.balance().toBigDecimal(), now, walletId}));
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPDATE_BALANCE, updates));
+        } catch (RuntimeException e) {
+            // Put the batch back unless a newer balance for the same wallet arrived in the meantime
+            batch.forEach((walletId, failed) -> pending.merge(walletId, failed,
+                (current, ignored) -> current.sequence() > failed.sequence() ? current : failed));
+            throw e;
+        }
+
+        long projected = System.nanoTime();
+        batch.values().forEach(next -> delay.record(projected - next.enqueuedNanos(), TimeUnit.NANOSECONDS));
+        return batch.size();
+    }
+}
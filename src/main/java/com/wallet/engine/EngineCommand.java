@@ -0,0 +1,31 @@
+package com.wallet.engine;
+
+import com.wallet.model.Money;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Work items accepted by a {@link WalletShard}. Every mutation completes its future only after the
+ * resulting ledger rows are durable.
+ */
+sealed interface EngineCommand {
+    record Deposit(String userId, Money amount, String description,
+                   CompletableFuture<Money> result) implements EngineCommand {}
+
+    record Withdraw(String userId, Money amount, String description,
+                    CompletableFuture<Money> result) implements EngineCommand {}
+
+    /**
+     * Reads a wallet's balance, answered once every write before it is durable.
+     */
+    record Read(String userId, CompletableFuture<Money> result) implements EngineCommand {}
+
+    record Transfer(String fromUserId, String toUserId, Money amount, String description,
+                    WalletShard fromShard, WalletShard toShard,
+                    CompletableFuture<Void> result) implements EngineCommand {}
+
+    /**
+     * Asks a shard to flush and hand its state to a lower-numbered coordinator until released.
+     */
+    record Park(CountDownLatch parked, CountDownLatch released) implements EngineCommand {}
+}
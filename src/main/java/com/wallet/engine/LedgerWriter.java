@@ -0,0 +1,98 @@
+package com.wallet.engine;
+
+import com.wallet.model.Money;
+import com.wallet.model.OutboxEvent;
+import com.wallet.model.TransactionType;
+import com.wallet.repository.SequenceIdAllocator;
+import com.wallet.service.outbox.OutboxWriter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Appends shard output to the ledger with plain JDBC batches, one transaction per flush. Ledger
+ * rows are never updated; {@code wallets.balance} is brought up to date separately by the
+ * {@link BalanceProjector}. Outbox events, when enabled, are appended in the same transaction.
+ */
+@RequiredArgsConstructor
+class LedgerWriter {
+    private static final String INSERT_TRANSACTION = """
+        insert into transactions (id, wallet_id, type, amount, balance, description, created_at)
+        values (?, ?, ?, ?, ?, ?, ?)
+        """;
+    private static final String UPDATE_BALANCE =
+        "update wallets set balance = ?, version = version + 1, updated_at = ? where id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SequenceIdAllocator transactionIds;
+    private final OutboxWriter outboxWriter;
+
+    record Entry(String userId, long walletId, TransactionType type, Money amount, Money balance,
+                 String description, LocalDateTime createdAt) {}
+
+    void write(Collection<Entry> entries) {
+        List<Object[]> rows = new ArrayList<>(entries.size());
+        List<OutboxEvent> events = new ArrayList<>(outboxWriter.enabled() ? entries.size() : 0);
+        for (Entry entry : entries) {
+            long id = transactionIds.nextId();
+            rows.add(new Object[] {id, entry.walletId(), entry.type().name(),
+                entry.amount().toBigDecimal(), entry.balance().toBigDecimal(),
+                entry.description(), Timestamp.valueOf(entry.createdAt())});
+            if (outboxWriter.enabled()) {
+                events.add(OutboxEvent.of(entry.userId(), entry.walletId(), id, entry.type(), entry.amount(),
+                    entry.balance(), entry.description(), entry.createdAt()));
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(INSERT_TRANSACTION, rows);
+            outboxWriter.record(events);
+        });
+    }
+
+    /**
+     * Rebuilds a wallet's state from the ledger; the last transaction's running balance wins over
+     * {@code wallets.balance}, which is repaired if the two disagree.
+     *
+     * @return {@code null} when no wallet exists for the user
+     */
+    WalletState load(String userId) {
+        List<WalletState> wallets = jdbcTemplate.query(
+            "select id, balance from wallets where user_id = ?",
+            (rs, rowNum) -> new WalletState(userId, rs.getLong("id"), Money.of(rs.getBigDecimal("balance"))),
+            userId);
+        if (wallets.isEmpty()) {
+            return null;
+        }
+        WalletState wallet = wallets.get(0);
+        List<BigDecimal> ledger = jdbcTemplate.queryForList("""
+            select balance from transactions where wallet_id = ?
+            order by created_at desc, id desc fetch first 1 rows only
+            """, BigDecimal.class, wallet.walletId);
+        if (!ledger.isEmpty() && !Money.of(ledger.get(0)).equals(wallet.balance)) {
+            wallet.balance = Money.of(ledger.get(0));
+            jdbcTemplate.update(UPDATE_BALANCE, wallet.balance.toBigDecimal(), Timestamp.valueOf(LocalDateTime.now()),
+                wallet.walletId);
+        }
+        return wallet;
+    }
+
+    static final class WalletState {
+        final String userId;
+        final long walletId;
+        Money balance;
+
+        WalletState(String userId, long walletId, Money balance) {
+            this.userId = userId;
+            this.walletId = walletId;
+            this.balance = balance;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.wallet.engine;
+
+import com.wallet.config.EngineProperties;
+import com.wallet.engine.EngineCommand.Deposit;
+import com.wallet.engine.EngineCommand.Read;
+import com.wallet.engine.EngineCommand.Transfer;
+import com.wallet.engine.EngineCommand.Withdraw;
+import com.wallet.exception.WalletException;
+import com.wallet.model.Money;
+import com.wallet.model.Transaction;
+import com.wallet.repository.SequenceIdAllocator;
+import com.wallet.service.outbox.OutboxWriter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Routes every userId to a fixed {@link WalletShard}, so each wallet has exactly one writer thread
+ * and mutations never contend on a lock or a database row. Mutations only append to the
+ * {@code transactions} ledger; {@code wallets.balance} is projected asynchronously by a
+ * {@link BalanceProjector}, and balance reads are answered from the shards' in-memory state so they
+ * stay exact regardless of projection lag. Wallet state is rebuilt lazily from the ledger the first
+ * time a shard touches a wallet, which is also how the engine recovers after a restart.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "wallet.engine", name = "enabled", havingValue = "true")
+public class ShardedBalanceEngine implements DisposableBean {
+    private final WalletShard[] shards;
+    private final BalanceProjector projector;
+
+    public ShardedBalanceEngine(EngineProperties properties, JdbcTemplate jdbcTemplate,
+                                TransactionTemplate transactionTemplate, OutboxWriter outboxWriter,
+                                MeterRegistry registry) {
+        this.projector = new BalanceProjector(jdbcTemplate, transactionTemplate, properties.projectionInterval(),
+            properties.projectionBatchSize(), registry);
+        LedgerWriter writer = new LedgerWriter(jdbcTemplate, transactionTemplate, new SequenceIdAllocator(
+            jdbcTemplate, "transactions_seq", Transaction.ID_ALLOCATION_SIZE), outboxWriter);
+        this.shards = new WalletShard[properties.effectiveShards()];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new WalletShard(i, properties.ringSize(), properties.maxBatch(), writer, projector);
+            shards[i].start();
+        }
+        log.info("Started wallet engine with {} shards", shards.length);
+    }
+
+    public Money deposit(String userId, Money amount, String description) {
+        CompletableFuture<Money> result = new CompletableFuture<>();
+        shardFor(userId).submit(new Deposit(userId, amount, description, result));
+        return await(result);
+    }
+
+    public Money withdraw(String userId, Money amount, String description) {
+        CompletableFuture<Money> result = new CompletableFuture<>();
+        shardFor(userId).submit(new Withdraw(userId, amount, description, result));
+        return await(result);
+    }
+
+    public Money balance(String userId) {
+        CompletableFuture<Money> result = new CompletableFuture<>();
+        shardFor(userId).submit(new Read(userId, result));
+        return await(result);
+    }
+
+    /**
+     * How far {@code wallets.balance} trails the ledger; also published as {@code wallet.projection.lag}.
+     */
+    public Duration projectionLag() {
+        return projector.lag();
+    }
+
+    public void transfer(String fromUserId, String toUserId, Money amount, String description) {
+        WalletShard from = shardFor(fromUserId);
+        WalletShard to = shardFor(toUserId);
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        // The lower-numbered shard coordinates, so parking always flows one way and cannot deadlock
+        WalletShard coordinator = from.index <= to.index ? from : to;
+        coordinator.submit(new Transfer(fromUserId, toUserId, amount, description, from, to, result));
+        await(result);
+    }
+
+    int shardCount() {
+        return shards.length;
+    }
+
+    WalletShard shardFor(String userId) {
+        return shards[Math.floorMod(userId.hashCode(), shards.length)];
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        for (WalletShard shard : shards) {
+            shard.stop();
+        }
+        projector.close();
+    }
+
+    private static <T> T await(CompletableFuture<T> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof WalletException walletException) {
+                throw walletException;
+            }
+            throw new WalletException("Wallet engine failed", e.getCause());
+        }
+    }
+}
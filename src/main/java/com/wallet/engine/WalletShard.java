@@ -0,0 +1,306 @@
+package com.wallet.engine;
+
+import com.wallet.engine.EngineCommand.Deposit;
+import com.wallet.engine.EngineCommand.Park;
+import com.wallet.engine.EngineCommand.Read;
+import com.wallet.engine.EngineCommand.Transfer;
+import com.wallet.engine.EngineCommand.Withdraw;
+import com.wallet.engine.LedgerWriter.Entry;
+import com.wallet.engine.LedgerWriter.WalletState;
+import com.wallet.exception.WalletException;
+import com.wallet.model.Money;
+import com.wallet.model.TransactionType;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Owns the in-memory balances of every wallet hashed to it. Only the shard thread reads or writes
+ * {@link #wallets}, except while the shard is parked for a cross-shard transfer, when the
+ * coordinating shard borrows it under the happens-before edges of the park latches.
+ */
+@Slf4j
+final class WalletShard implements Runnable {
+    private static final long IDLE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final int SPINS_BEFORE_PARK = 100;
+
+    final int index;
+    private final MpscRingBuffer<EngineCommand> ring;
+    private final LedgerWriter writer;
+    private final BalanceProjector projector;
+    private final int maxBatch;
+    private final Map<String, WalletState> wallets = new HashMap<>();
+
+    private final List<Entry> pendingEntries = new ArrayList<>();
+    private final Map<Long, Money> pendingBalances = new LinkedHashMap<>();
+    private final List<Runnable> pendingCompletions = new ArrayList<>();
+    private final List<CompletableFuture<?>> pendingFutures = new ArrayList<>();
+
+    private volatile Thread thread;
+    private volatile boolean running = true;
+
+    WalletShard(int index, int ringSize, int maxBatch, LedgerWriter writer, BalanceProjector projector) {
+        this.index = index;
+        this.ring = new MpscRingBuffer<>(ringSize);
+        this.maxBatch = maxBatch;
+        this.writer = writer;
+        this.projector = projector;
+    }
+
+    void start() {
+        thread = new Thread(this, "wallet-shard-" + index);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void submit(EngineCommand command) {
+        while (!ring.offer(command)) {
+            if (!running) {
+                throw new WalletException("Wallet engine is shutting down");
+            }
+            // Ring full: back-pressure the producer instead of queueing without bound
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+        LockSupport.unpark(thread);
+    }
+
+    void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(thread);
+        thread.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    @Override
+    public void run() {
+        int idleSpins = 0;
+        while (running || !ring.isEmpty()) {
+            EngineCommand command = ring.poll();
+            if (command == null) {
+                if (!pendingEntries.isEmpty()) {
+                    flush();
+                } else if (++idleSpins < SPINS_BEFORE_PARK) {
+                    Thread.onSpinWait();
+                } else {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                continue;
+            }
+            idleSpins = 0;
+            try {
+                apply(command);
+            } catch (RuntimeException e) {
+                log.error("Wallet shard {} failed to apply {}", index, command, e);
+                fail(command, e);
+            }
+            if (pendingEntries.size() >= maxBatch) {
+                flush();
+            }
+        }
+        flush();
+    }
+
+    private void apply(EngineCommand command) {
+        if (command instanceof Deposit deposit) {
+            deposit(deposit);
+        } else if (command instanceof Withdraw withdraw) {
+            withdraw(withdraw);
+        } else if (command instanceof Transfer transfer) {
+            transfer(transfer);
+        } else if (command instanceof Read read) {
+            read(read);
+        } else if (command instanceof Park park) {
+            park(park);
+        }
+    }
+
+    private void deposit(Deposit command) {
+        WalletState wallet = resolve(command.userId(), command.result());
+        if (wallet == null) {
+            return;
+        }
+        wallet.balance = wallet.balance.plus(command.amount());
+        record(wallet, TransactionType.DEPOSIT, command.amount(), command.description());
+        complete(command.result(), wallet.balance);
+    }
+
+    private void withdraw(Withdraw command) {
+        WalletState wallet = resolve(command.userId(), command.result());
+        if (wallet == null) {
+            return;
+        }
+        if (wallet.balance.isLessThan(command.amount())) {
+            command.result().completeExceptionally(new WalletException("Insufficient funds"));
+            return;
+        }
+        wallet.balance = wallet.balance.minus(command.amount());
+        record(wallet, TransactionType.WITHDRAWAL, command.amount(), command.description());
+        complete(command.result(), wallet.balance);
+    }
+
+    private void read(Read command) {
+        WalletState wallet = resolve(command.userId(), command.result());
+        if (wallet == null) {
+            return;
+        }
+        if (pendingEntries.isEmpty()) {
+            command.result().complete(wallet.balance);
+        } else {
+            // The balance includes writes that are not durable yet; answer once they are
+            complete(command.result(), wallet.balance);
+        }
+    }
+
+    private void transfer(Transfer command) {
+        if (command.fromShard() == command.toShard()) {
+            applyTransfer(command);
+            return;
+        }
+        WalletShard counterpart = command.fromShard() == this ? command.toShard() : command.fromShard();
+
+        // Cross-shard: this shard has the lower index and coordinates. Both shards flush first so
+        // earlier rows for either wallet reach the database before the transfer legs do.
+        flush();
+        Park park = new Park(new CountDownLatch(1), new CountDownLatch(1));
+        counterpart.submit(park);
+        try {
+            park.parked().await();
+            try {
+                applyTransfer(command);
+            } catch (RuntimeException e) {
+                // Only safe while the counterpart is parked; this shard's copies go in fail()
+                counterpart.evict(command.fromUserId());
+                counterpart.evict(command.toUserId());
+                throw e;
+            }
+            if (!flush()) {
+                counterpart.evict(command.fromUserId());
+                counterpart.evict(command.toUserId());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            command.result().completeExceptionally(new WalletException("Transfer interrupted", e));
+        } finally {
+            park.released().countDown();
+        }
+    }
+
+    private void applyTransfer(Transfer command) {
+        WalletState from = command.fromShard().resolve(command.fromUserId(), command.result());
+        WalletState to = from == null ? null : command.toShard().resolve(command.toUserId(), command.result());
+        if (to == null) {
+            return;
+        }
+        if (from.balance.isLessThan(command.amount())) {
+            command.result().completeExceptionally(new WalletException("Insufficient funds for transfer"));
+            return;
+        }
+        // Both balances are computed before either is assigned, so an overflow leaves neither changed
+        Money fromBalance = from.balance.minus(command.amount());
+        Money toBalance = to.balance.plus(command.amount());
+        from.balance = fromBalance;
+        to.balance = toBalance;
+        record(from, TransactionType.TRANSFER, command.amount().negate(),
+            "Transfer to " + command.toUserId() + ": " + command.description());
+        record(to, TransactionType.TRANSFER, command.amount(),
+            "Transfer from " + command.fromUserId() + ": " + command.description());
+        complete(command.result(), null);
+    }
+
+    private void park(Park command) {
+        flush();
+        command.parked().countDown();
+        try {
+            command.released().await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Fails a command that threw while being applied, so its caller does not wait forever. Rows
+     * already pending are persisted first; then the wallets it touched are dropped and reloaded
+     * from the ledger on next access, since their in-memory state can no longer be trusted.
+     */
+    private void fail(EngineCommand command, RuntimeException e) {
+        flush();
+        if (command instanceof Deposit deposit) {
+            evict(deposit.userId());
+            deposit.result().completeExceptionally(e);
+        } else if (command instanceof Withdraw withdraw) {
+            evict(withdraw.userId());
+            withdraw.result().completeExceptionally(e);
+        } else if (command instanceof Read read) {
+            evict(read.userId());
+            read.result().completeExceptionally(e);
+        } else if (command instanceof Transfer transfer) {
+            evict(transfer.fromUserId());
+            evict(transfer.toUserId());
+            transfer.result().completeExceptionally(e);
+        }
+    }
+
+    private void evict(String userId) {
+        wallets.remove(userId);
+    }
+
+    private WalletState resolve(String userId, CompletableFuture<?> result) {
+        WalletState wallet = wallets.get(userId);
+        if (wallet == null) {
+            wallet = writer.load(userId);
+            if (wallet == null) {
+                result.completeExceptionally(new WalletException("Wallet not found for user: " + userId));
+                return null;
+            }
+            wallets.put(userId, wallet);
+        }
+        return wallet;
+    }
+
+    private void record(WalletState wallet, TransactionType type, Money amount, String description) {
+        pendingEntries.add(new Entry(wallet.userId, wallet.walletId, type, amount, wallet.balance, description,
+            LocalDateTime.now().truncatedTo(ChronoUnit.MICROS)));
+        pendingBalances.put(wallet.walletId, wallet.balance);
+    }
+
+    private <T> void complete(CompletableFuture<T> result, T value) {
+        pendingFutures.add(result);
+        pendingCompletions.add(() -> result.complete(value));
+    }
+
+    /**
+     * @return {@code false} if the batch could not be persisted and its wallets were evicted
+     */
+    private boolean flush() {
+        if (pendingEntries.isEmpty()) {
+            return true;
+        }
+        try {
+            writer.write(pendingEntries);
+            projector.enqueue(pendingBalances);
+            pendingCompletions.forEach(Runnable::run);
+            return true;
+        } catch (RuntimeException e) {
+            log.error("Wallet shard {} failed to persist {} ledger rows", index, pendingEntries.size(), e);
+            // The in-memory balances ran ahead of the database; drop them so the next access reloads
+            wallets.values().removeIf(wallet -> pendingBalances.containsKey(wallet.walletId));
+            WalletException failure = new WalletException("Failed to persist wallet mutation", e);
+            pendingFutures.forEach(future -> future.completeExceptionally(failure));
+            return false;
+        } finally {
+            pendingEntries.clear();
+            pendingBalances.clear();
+            pendingCompletions.clear();
+            pendingFutures.clear();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.wallet.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Balance of a wallet as of {@code checkpointAt}, written periodically so point-in-time queries
+ * only replay the transactions recorded after the nearest checkpoint.
+ */
+@Data
+@Entity
+@Table(name = "balance_checkpoints", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_balance_checkpoints_wallet_at", columnNames = {"wallet_id", "checkpoint_at"})
+})
+public class BalanceCheckpoint {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "wallet_id", nullable = false)
+    private Long walletId;
+
+    @Column(name = "checkpoint_at", nullable = false)
+    private LocalDateTime checkpointAt;
+
+    @Column(nullable = false, precision = 19, scale = 4)
+    private Money balance;
+
+    @Column(name = "last_transaction_id")
+    private Long lastTransactionId;
+}
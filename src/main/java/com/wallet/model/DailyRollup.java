@@ -0,0 +1,44 @@
+package com.wallet.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * Totals of one wallet's transactions of one type on one day, rolled up from the ledger once the
+ * day has settled, so statements over long ranges sum a row per day instead of every transaction.
+ */
+@Data
+@Entity
+@Table(name = "daily_rollups", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_daily_rollups_wallet_day_type", columnNames = {"wallet_id", "rollup_day", "type"})
+}, indexes = {
+    @Index(name = "idx_daily_rollups_day", columnList = "rollup_day")
+})
+public class DailyRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "wallet_id", nullable = false)
+    private Long walletId;
+
+    @Column(name = "rollup_day", nullable = false)
+    private LocalDate day;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private TransactionType type;
+
+    @Column(name = "tx_count", nullable = false)
+    private long count;
+
+    /** Money received: deposits and incoming transfers. */
+    @Column(nullable = false, precision = 19, scale = 4)
+    private Money credits;
+
+    /** Money paid out: withdrawals and outgoing transfers, as a positive amount. */
+    @Column(nullable = false, precision = 19, scale = 4)
+    private Money debits;
+}
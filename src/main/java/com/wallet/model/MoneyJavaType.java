@@ -0,0 +1,86 @@
+package com.wallet.model;
+
+import org.hibernate.dialect.Dialect;
+import org.hibernate.type.descriptor.WrapperOptions;
+import org.hibernate.type.descriptor.java.AbstractClassJavaType;
+import org.hibernate.type.descriptor.java.ImmutableMutabilityPlan;
+import org.hibernate.type.descriptor.jdbc.JdbcType;
+import org.hibernate.type.descriptor.jdbc.JdbcTypeIndicators;
+
+import java.math.BigDecimal;
+import java.sql.Types;
+
+/**
+ * Maps {@link Money} onto the {@code numeric(19, 4)} columns as a basic type. HQL only allows
+ * arithmetic on {@link Number} attributes, which Money is not, so in-place balance updates such
+ * as {@code balance + :amount} must be native SQL.
+ */
+public class MoneyJavaType extends AbstractClassJavaType<Money> {
+    public static final MoneyJavaType INSTANCE = new MoneyJavaType();
+
+    public MoneyJavaType() {
+        super(Money.class, ImmutableMutabilityPlan.instance());
+    }
+
+    @Override
+    public JdbcType getRecommendedJdbcType(JdbcTypeIndicators indicators) {
+        return indicators.getJdbcType(Types.NUMERIC);
+    }
+
+    @Override
+    public long getDefaultSqlLength(Dialect dialect, JdbcType jdbcType) {
+        return 19;
+    }
+
+    @Override
+    public int getDefaultSqlPrecision(Dialect dialect, JdbcType jdbcType) {
+        return 19;
+    }
+
+    @Override
+    public int getDefaultSqlScale(Dialect dialect, JdbcType jdbcType) {
+        return Money.SCALE;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <X> X unwrap(Money value, Class<X> type, WrapperOptions options) {
+        if (value == null) {
+            return null;
+        }
+        if (BigDecimal.class.isAssignableFrom(type) || Object.class.equals(type)) {
+            return (X) value.toBigDecimal();
+        }
+        if (Money.class.isAssignableFrom(type)) {
+            return (X) value;
+        }
+        throw unknownUnwrap(type);
+    }
+
+    @Override
+    public <X> Money wrap(X value, WrapperOptions options) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Money money) {
+            return money;
+        }
+        if (value instanceof BigDecimal decimal) {
+            return Money.of(decimal);
+        }
+        if (value instanceof Number number) {
+            return Money.of(new BigDecimal(number.toString()));
+        }
+        throw unknownWrap(value.getClass());
+    }
+
+    @Override
+    public Money fromString(CharSequence string) {
+        return Money.of(string.toString());
+    }
+
+    @Override
+    public String toString(Money value) {
+        return value.toString();
+    }
+}
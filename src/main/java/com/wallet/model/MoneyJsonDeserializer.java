@@ -0,0 +1,32 @@
+package com.wallet.model;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+import java.io.IOException;
+
+/**
+ * Reads {@link Money} from a JSON number or numeric string, rejecting more than four decimal places.
+ */
+public class MoneyJsonDeserializer extends StdDeserializer<Money> {
+    public MoneyJsonDeserializer() {
+        super(Money.class);
+    }
+
+    @Override
+    public Money deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token != JsonToken.VALUE_NUMBER_INT && token != JsonToken.VALUE_NUMBER_FLOAT
+            && token != JsonToken.VALUE_STRING) {
+            return (Money) context.handleUnexpectedToken(Money.class, parser);
+        }
+        try {
+            return token == JsonToken.VALUE_STRING ? Money.of(parser.getText().trim()) : Money.of(parser.getDecimalValue());
+        } catch (ArithmeticException | NumberFormatException e) {
+            return (Money) context.handleWeirdStringValue(Money.class, parser.getText(),
+                "not an amount with at most %d decimal places", Money.SCALE);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.wallet.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * A ledger row waiting to be published, written in the same database transaction as the
+ * {@link Transaction} it describes and deleted once the relay has handed it to the sink. It carries
+ * everything consumers need, so relaying never reads the {@code transactions} table. Consumers see
+ * each event at least once and deduplicate on {@code transactionId}.
+ */
+@Data
+@Entity
+@Table(name = "outbox_events")
+public class OutboxEvent {
+    /**
+     * Sequence increment and id block size; {@code OutboxRepository} allocates ids in pooled-lo
+     * blocks of this size.
+     */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_events_seq")
+    @SequenceGenerator(name = "outbox_events_seq", sequenceName = "outbox_events_seq", allocationSize = ID_ALLOCATION_SIZE)
+    private Long id;
+
+    @Column(name = "transaction_id", nullable = false)
+    private Long transactionId;
+
+    @Column(name = "user_id", nullable = false)
+    private String userId;
+
+    @Column(name = "wallet_id", nullable = false)
+    private Long walletId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private TransactionType type;
+
+    @Column(nullable = false, precision = 19, scale = 4)
+    private Money amount;
+
+    @Column(nullable = false, precision = 19, scale = 4)
+    private Money balance;
+
+    @Column
+    private String description;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public static OutboxEvent of(String userId, Transaction transaction) {
+        // The wallet may be an uninitialized reference; reading its id does not load it
+        return of(userId, transaction.getWallet().getId(), transaction.getId(), transaction.getType(),
+            transaction.getAmount(), transaction.getBalance(), transaction.getDescription(),
+            transaction.getCreatedAt());
+    }
+
+    public static OutboxEvent of(String userId, long walletId, long transactionId, TransactionType type,
+                                 Money amount, Money balance, String description, LocalDateTime createdAt) {
+        OutboxEvent event = new OutboxEvent();
+        event.setTransactionId(transactionId);
+        event.setUserId(userId);
+        event.setWalletId(walletId);
+        event.setType(type);
+        event.setAmount(amount);
+        event.setBalance(balance);
+        event.setDescription(description);
+        event.setCreatedAt(createdAt);
+        return event;
+    }
+}
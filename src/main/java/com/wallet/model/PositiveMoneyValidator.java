@@ -0,0 +1,16 @@
+package com.wallet.model;
+
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+import jakarta.validation.constraints.Positive;
+
+/**
+ * Lets {@link Positive} validate {@link Money}; registered through
+ * {@code META-INF/services/jakarta.validation.ConstraintValidator}.
+ */
+public class PositiveMoneyValidator implements ConstraintValidator<Positive, Money> {
+    @Override
+    public boolean isValid(Money value, ConstraintValidatorContext context) {
+        return value == null || value.isPositive();
+    }
+}
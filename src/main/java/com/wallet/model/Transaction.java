@@ -5,16 +5,25 @@ import lombok.Data;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Data
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = {
+    @Index(name = "idx_transactions_wallet_created_id", columnList = "wallet_id, created_at desc, id desc"),
+    @Index(name = "idx_transactions_created_at", columnList = "created_at")
+})
 @EntityListeners(AuditingEntityListener.class)
 public class Transaction {
+    /**
+     * Sequence increment and id block size; raw JDBC writers must allocate ids in the same
+     * pooled-lo blocks so they never collide with Hibernate.
+     */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transactions_seq")
+    @SequenceGenerator(name = "transactions_seq", sequenceName = "transactions_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -26,10 +35,10 @@ public class Transaction {
     private TransactionType type;
 
     @Column(nullable = false, precision = 19, scale = 4)
-    private BigDecimal amount;
+    private Money amount;
 
     @Column(nullable = false, precision = 19, scale = 4)
-    private BigDecimal balance;
+    private Money balance;
 
     @Column
     private String description;
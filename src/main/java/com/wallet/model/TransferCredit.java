@@ -0,0 +1,28 @@
+package com.wallet.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Marks the credit of a {@link TransferSaga} as applied, on the recipient's shard. It is inserted
+ * in the crediting transaction, so a saga re-driven after a crash fails on the primary key instead
+ * of crediting twice. It moves with the recipient's wallet when shards are rebalanced.
+ */
+@Data
+@Entity
+@Table(name = "transfer_credits", indexes = {
+    @Index(name = "idx_transfer_credits_user_id", columnList = "user_id")
+})
+public class TransferCredit {
+    @Id
+    @Column(name = "saga_id", length = 36)
+    private String sagaId;
+
+    @Column(name = "user_id", nullable = false)
+    private String userId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,52 @@
+package com.wallet.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * A transfer between wallets on different shards, kept on the sender's shard. The sender is
+ * debited in the same transaction that inserts the saga as {@code DEBITED}; the recipient is
+ * credited afterwards on its own shard, together with a {@link TransferCredit} that makes the
+ * credit happen at most once, and the saga then ends {@code COMPLETED}. A saga whose recipient no
+ * longer exists refunds the sender and ends {@code COMPENSATED}.
+ */
+@Data
+@Entity
+@Table(name = "transfer_sagas", indexes = {
+    @Index(name = "idx_transfer_sagas_status_updated_at", columnList = "status, updated_at")
+})
+public class TransferSaga {
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Column(name = "from_user_id", nullable = false)
+    private String fromUserId;
+
+    @Column(name = "to_user_id", nullable = false)
+    private String toUserId;
+
+    @Column(nullable = false, precision = 19, scale = 4)
+    private Money amount;
+
+    @Column
+    private String description;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public enum Status {
+        DEBITED,
+        COMPLETED,
+        COMPENSATED
+    }
+}
@@ -0,0 +1,4 @@
+@JavaTypeRegistration(javaType = Money.class, descriptorClass = MoneyJavaType.class)
+package com.wallet.model;
+
+import org.hibernate.annotations.JavaTypeRegistration;
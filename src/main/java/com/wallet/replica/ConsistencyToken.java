@@ -0,0 +1,60 @@
+package com.wallet.replica;
+
+/**
+ * Read-your-writes marker handed to clients after a mutation commits.
+ *
+ * <p>{@code position} is the primary's WAL position once the write was durable, or
+ * {@link #UNKNOWN} when the database cannot report one; {@code issuedAtMillis} is when the token was
+ * issued. While a token is bound to the current thread, read-only transactions only go to replicas
+ * that have replayed past its position, or, when positions are unknown, once the replica lag bound
+ * has elapsed since it was issued.
+ */
+public record ConsistencyToken(long position, long issuedAtMillis) {
+    public static final long UNKNOWN = -1;
+
+    private static final ThreadLocal<ConsistencyToken> CURRENT = new ThreadLocal<>();
+
+    public String encode() {
+        return Long.toHexString(position) + "." + Long.toHexString(issuedAtMillis);
+    }
+
+    /**
+     * @throws IllegalArgumentException when {@code value} is not a token produced by {@link #encode()}
+     */
+    public static ConsistencyToken decode(String value) {
+        int separator = value.indexOf('.');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Invalid consistency token: " + value);
+        }
+        try {
+            return new ConsistencyToken(Long.parseUnsignedLong(value.substring(0, separator), 16),
+                Long.parseUnsignedLong(value.substring(separator + 1), 16));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid consistency token: " + value, e);
+        }
+    }
+
+    /** The token bound to the current thread, or {@code null} when reads may use any replica. */
+    public static ConsistencyToken current() {
+        return CURRENT.get();
+    }
+
+    /** Binds {@code token} to the current thread until the returned scope is closed. */
+    public static Scope bind(ConsistencyToken token) {
+        ConsistencyToken previous = CURRENT.get();
+        CURRENT.set(token);
+        return () -> {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
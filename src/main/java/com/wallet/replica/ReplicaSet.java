@@ -0,0 +1,226 @@
+package com.wallet.replica;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.support.JdbcUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The read replicas behind {@link ReplicaRoutingDataSource}, with their measured replication lag.
+ *
+ * <p>A monitor thread polls every replica each {@code lagCheckInterval}. On PostgreSQL it records
+ * the replayed WAL position and how far replay trails the primary in time; other databases have no
+ * replication to inspect, so a reachable replica counts as current. Replicas that are unreachable
+ * or lag more than {@code maxLag} are skipped until a later check clears them. Reads are spread
+ * round-robin over the rest, and fall back to the primary when none qualifies.
+ */
+@Slf4j
+public class ReplicaSet implements AutoCloseable {
+    private static final String POSTGRES_PRIMARY_POSITION =
+        "select pg_wal_lsn_diff(pg_current_wal_lsn(), '0/0')::bigint";
+    private static final String POSTGRES_REPLICA_STATUS = """
+        select pg_wal_lsn_diff(pg_last_wal_replay_lsn(), '0/0')::bigint,
+               case when pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0
+                    else coalesce(extract(epoch from now() - pg_last_xact_replay_timestamp()), 0)
+               end
+        """;
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final long maxLagNanos;
+    private final long pinMillis;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Counter primaryReads;
+    private final ScheduledExecutorService monitor;
+    private volatile Boolean primaryIsPostgres;
+
+    public ReplicaSet(DataSource primary, Map<String, DataSource> replicas, Duration lagCheckInterval,
+                      Duration maxLag, MeterRegistry registry) {
+        this.primary = primary;
+        this.replicas = replicas.entrySet().stream()
+            .map(entry -> new Replica(entry.getKey(), entry.getValue(), registry))
+            .toList();
+        this.maxLagNanos = maxLag.toNanos();
+        // A replica cleared at the last check may have fallen behind since; allow for one more interval
+        this.pinMillis = maxLag.plus(lagCheckInterval).toMillis();
+        this.primaryReads = Counter.builder("wallet.replica.reads")
+            .description("Read-only transactions served by each replica, or by the primary as a fallback")
+            .tag("replica", "primary")
+            .register(registry);
+        checkAll();
+        this.monitor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "wallet-replica-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        monitor.scheduleWithFixedDelay(this::checkAll, lagCheckInterval.toNanos(), lagCheckInterval.toNanos(),
+            TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Opens a connection for a read-only transaction on the next replica that is healthy and has
+     * caught up with {@code token}, or on the primary when none has.
+     */
+    Connection readConnection(ConsistencyToken token, ConnectionOpener opener) throws SQLException {
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (!replica.serves(token, now)) {
+                continue;
+            }
+            try {
+                Connection connection = opener.open(replica.dataSource);
+                replica.reads.increment();
+                return connection;
+            } catch (SQLException e) {
+                log.warn("Replica {} refused a connection, skipping it until the next lag check", replica.name, e);
+                replica.available = false;
+            }
+        }
+        primaryReads.increment();
+        return opener.open(primary);
+    }
+
+    /** A token for a mutation that has just committed on the primary. */
+    public ConsistencyToken issueToken() {
+        long position = ConsistencyToken.UNKNOWN;
+        try (Connection connection = primary.getConnection()) {
+            if (isPostgres(connection)) {
+                position = queryLong(connection, POSTGRES_PRIMARY_POSITION);
+            }
+        } catch (SQLException e) {
+            log.warn("Could not read the primary WAL position, issuing a time-based consistency token", e);
+        }
+        return new ConsistencyToken(position, System.currentTimeMillis());
+    }
+
+    private void checkAll() {
+        replicas.forEach(Replica::check);
+    }
+
+    private boolean isPostgres(Connection connection) throws SQLException {
+        Boolean postgres = primaryIsPostgres;
+        if (postgres == null) {
+            postgres = isPostgres(connection.getMetaData());
+            primaryIsPostgres = postgres;
+        }
+        return postgres;
+    }
+
+    private static boolean isPostgres(DatabaseMetaData metaData) throws SQLException {
+        return "PostgreSQL".equals(JdbcUtils.commonDatabaseName(metaData.getDatabaseProductName()));
+    }
+
+    private static long queryLong(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery(sql)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    @Override
+    public void close() {
+        monitor.shutdownNow();
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    log.warn("Failed to close replica {}", replica.name, e);
+                }
+            }
+        }
+    }
+
+    @FunctionalInterface
+    interface ConnectionOpener {
+        Connection open(DataSource dataSource) throws SQLException;
+    }
+
+    private final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private final Counter reads;
+        private volatile boolean available;
+        private volatile long position = ConsistencyToken.UNKNOWN;
+        private volatile long lagNanos;
+
+        Replica(String name, DataSource dataSource, MeterRegistry registry) {
+            this.name = name;
+            this.dataSource = dataSource;
+            this.reads = Counter.builder("wallet.replica.reads")
+                .description("Read-only transactions served by each replica, or by the primary as a fallback")
+                .tag("replica", name)
+                .register(registry);
+            Gauge.builder("wallet.replica.lag", this, Replica::lagSeconds)
+                .description("How far the replica's replay trails the primary, as of the last lag check")
+                .tag("replica", name)
+                .baseUnit("seconds")
+                .register(registry);
+            Gauge.builder("wallet.replica.available", this, replica -> replica.available ? 1 : 0)
+                .description("Whether the replica is reachable and within the lag bound, as of the last lag check")
+                .tag("replica", name)
+                .register(registry);
+        }
+
+        boolean serves(ConsistencyToken token, long nowMillis) {
+            if (!available) {
+                return false;
+            }
+            if (token == null) {
+                return true;
+            }
+            if (token.position() != ConsistencyToken.UNKNOWN && position != ConsistencyToken.UNKNOWN) {
+                return position >= token.position();
+            }
+            return nowMillis - token.issuedAtMillis() >= pinMillis;
+        }
+
+        double lagSeconds() {
+            return lagNanos / 1e9;
+        }
+
+        void check() {
+            try (Connection connection = dataSource.getConnection()) {
+                if (isPostgres(connection.getMetaData())) {
+                    try (Statement statement = connection.createStatement();
+                         ResultSet rs = statement.executeQuery(POSTGRES_REPLICA_STATUS)) {
+                        rs.next();
+                        long replayed = rs.getLong(1);
+                        position = rs.wasNull() ? ConsistencyToken.UNKNOWN : replayed;
+                        lagNanos = (long) (rs.getDouble(2) * 1e9);
+                    }
+                } else if (!connection.isValid(1)) {
+                    throw new SQLException("Connection is not valid");
+                }
+                boolean current = lagNanos <= maxLagNanos;
+                if (available && !current) {
+                    log.warn("Replica {} lags {}s behind the primary, routing reads elsewhere", name, lagSeconds());
+                }
+                available = current;
+            } catch (SQLException | RuntimeException e) {
+                if (available) {
+                    log.warn("Replica {} failed its lag check, routing reads elsewhere", name, e);
+                }
+                available = false;
+            }
+        }
+    }
+}
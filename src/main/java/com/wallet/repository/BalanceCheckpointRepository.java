@@ -0,0 +1,37 @@
+package com.wallet.repository;
+
+import com.wallet.model.BalanceCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BalanceCheckpointRepository extends JpaRepository<BalanceCheckpoint, Long> {
+    Optional<BalanceCheckpoint> findFirstByWalletIdAndCheckpointAtLessThanEqualOrderByCheckpointAtDesc(
+        Long walletId, LocalDateTime timestamp);
+
+    @Query("""
+        select c from BalanceCheckpoint c
+        where c.walletId in :walletIds
+          and c.checkpointAt = (
+            select max(c2.checkpointAt) from BalanceCheckpoint c2
+            where c2.walletId = c.walletId and c2.checkpointAt <= :timestamp)
+        """)
+    List<BalanceCheckpoint> findLatestAtOrBefore(@Param("walletIds") Collection<Long> walletIds,
+                                                 @Param("timestamp") LocalDateTime timestamp);
+
+    @Query("select max(c.checkpointAt) from BalanceCheckpoint c")
+    Optional<LocalDateTime> findLatestCheckpointAt();
+
+    boolean existsByWalletIdAndCheckpointAt(Long walletId, LocalDateTime checkpointAt);
+
+    @Query("select c.walletId from BalanceCheckpoint c where c.walletId in :walletIds and c.checkpointAt = :at")
+    List<Long> findWalletIdsCheckpointedAt(@Param("walletIds") Collection<Long> walletIds,
+                                           @Param("at") LocalDateTime at);
+}
@@ -0,0 +1,85 @@
+package com.wallet.repository;
+
+import com.wallet.model.Money;
+import com.wallet.model.TransactionType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The {@code daily_rollups} table in plain JDBC: a day is rolled up with one
+ * {@code INSERT ... SELECT} over the ledger, which JPQL cannot express, and both the rollups and
+ * the ledger are summed with the same credit and debit rules.
+ */
+@Repository
+public class DailyRollupRepository {
+    // Outgoing transfers are stored as negative amounts, withdrawals as positive ones
+    private static final String CREDITS =
+        "sum(case when type <> 'WITHDRAWAL' and amount > 0 then amount else 0 end)";
+    private static final String DEBITS =
+        "sum(case when type = 'WITHDRAWAL' then amount when amount < 0 then -amount else 0 end)";
+    private static final String ROLL_UP = """
+        insert into daily_rollups (wallet_id, rollup_day, type, tx_count, credits, debits)
+        select wallet_id, cast(? as date), type, count(*), %s, %s
+        from transactions where created_at >= ? and created_at < ?
+        group by wallet_id, type
+        """.formatted(CREDITS, DEBITS);
+    private static final String SUM_ROLLUPS = """
+        select type, sum(tx_count) as tx_count, sum(credits) as credits, sum(debits) as debits
+        from daily_rollups where wallet_id = ? and rollup_day >= ? and rollup_day < ?
+        group by type
+        """;
+    private static final String SUM_LEDGER = """
+        select type, count(*) as tx_count, %s as credits, %s as debits
+        from transactions where wallet_id = ? and created_at >= ? and created_at < ?
+        group by type
+        """.formatted(CREDITS, DEBITS);
+    private static final RowMapper<TypeTotals> TOTALS = (rs, rowNum) -> new TypeTotals(
+        TransactionType.valueOf(rs.getString("type")), rs.getLong("tx_count"),
+        Money.of(rs.getBigDecimal("credits")), Money.of(rs.getBigDecimal("debits")));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public DailyRollupRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /** The last day rolled up; every day up to and including it has its rollups. */
+    public Optional<LocalDate> findLatestDay() {
+        Date day = jdbcTemplate.queryForObject("select max(rollup_day) from daily_rollups", Date.class);
+        return Optional.ofNullable(day).map(Date::toLocalDate);
+    }
+
+    public Optional<LocalDateTime> findFirstTransactionAt() {
+        Timestamp first = jdbcTemplate.queryForObject("select min(created_at) from transactions", Timestamp.class);
+        return Optional.ofNullable(first).map(Timestamp::toLocalDateTime);
+    }
+
+    /**
+     * Replaces the rollups of {@code day} with fresh totals from the ledger.
+     *
+     * @return number of rollups written
+     */
+    public int rollUp(LocalDate day) {
+        jdbcTemplate.update("delete from daily_rollups where rollup_day = ?", Date.valueOf(day));
+        return jdbcTemplate.update(ROLL_UP, Date.valueOf(day), Timestamp.valueOf(day.atStartOfDay()),
+            Timestamp.valueOf(day.plusDays(1).atStartOfDay()));
+    }
+
+    /** Totals per type over the rolled-up days {@code [from, to)}. */
+    public List<TypeTotals> sumRollups(Long walletId, LocalDate from, LocalDate to) {
+        return jdbcTemplate.query(SUM_ROLLUPS, TOTALS, walletId, Date.valueOf(from), Date.valueOf(to));
+    }
+
+    /** Totals per type straight from the ledger over {@code [from, to)}. */
+    public List<TypeTotals> sumLedger(Long walletId, LocalDateTime from, LocalDateTime to) {
+        return jdbcTemplate.query(SUM_LEDGER, TOTALS, walletId, Timestamp.valueOf(from), Timestamp.valueOf(to));
+    }
+}
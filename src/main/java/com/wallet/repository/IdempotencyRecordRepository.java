@@ -0,0 +1,64 @@
+package com.wallet.repository;
+
+import com.wallet.model.IdempotencyRecord;
+import com.wallet.model.IdempotencyRecord.Status;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+    /**
+     * Inserts a fresh claim; a duplicate key fails on the primary key, which is what makes only one
+     * request across all instances win the claim.
+     */
+    @Modifying
+    @Query(value = """
+        insert into idempotency_keys (idempotency_key, fingerprint, status, locked_until, expires_at)
+        values (:key, :fingerprint, 'IN_PROGRESS', :lockedUntil, :expiresAt)
+        """, nativeQuery = true)
+    int insertClaim(@Param("key") String key, @Param("fingerprint") String fingerprint,
+                    @Param("lockedUntil") LocalDateTime lockedUntil, @Param("expiresAt") LocalDateTime expiresAt);
+
+    /**
+     * Reclaims a key whose owner let its lease lapse without completing, or whose stored response
+     * has expired.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+        update IdempotencyRecord r
+        set r.fingerprint = :fingerprint, r.status = :inProgress, r.responseBody = null,
+            r.lockedUntil = :lockedUntil, r.expiresAt = :expiresAt
+        where r.idempotencyKey = :key
+          and ((r.status = :inProgress and r.lockedUntil < :now) or r.expiresAt < :now)
+        """)
+    int takeOver(@Param("key") String key, @Param("fingerprint") String fingerprint,
+                 @Param("lockedUntil") LocalDateTime lockedUntil, @Param("expiresAt") LocalDateTime expiresAt,
+                 @Param("now") LocalDateTime now, @Param("inProgress") Status inProgress);
+
+    /**
+     * Completes a claim, fenced on the claim's {@code lockedUntil} so a request whose lease was
+     * taken over cannot overwrite the new owner's outcome.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+        update IdempotencyRecord r
+        set r.status = :completed, r.responseBody = :responseBody, r.lockedUntil = null, r.expiresAt = :expiresAt
+        where r.idempotencyKey = :key and r.lockedUntil = :lockedUntil
+        """)
+    int complete(@Param("key") String key, @Param("lockedUntil") LocalDateTime lockedUntil,
+                 @Param("responseBody") String responseBody, @Param("expiresAt") LocalDateTime expiresAt,
+                 @Param("completed") Status completed);
+
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.idempotencyKey = :key and r.lockedUntil = :lockedUntil")
+    int release(@Param("key") String key, @Param("lockedUntil") LocalDateTime lockedUntil);
+
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
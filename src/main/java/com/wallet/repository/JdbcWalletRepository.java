@@ -0,0 +1,192 @@
+package com.wallet.repository;
+
+import com.wallet.model.Money;
+import com.wallet.model.Transaction;
+import com.wallet.model.TransactionType;
+import com.wallet.model.Wallet;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Wallet writes in plain JDBC, one round trip per statement: balance updates return the new
+ * balance and version in the same statement ({@code RETURNING} on Postgres, a {@code FINAL TABLE}
+ * query on H2), and ids come from the shared sequences in pooled-lo blocks. Every statement is a
+ * constant string, so the driver's prepared-statement cache reuses them.
+ */
+@Repository
+public class JdbcWalletRepository {
+    private static final String BALANCE_COLUMNS = "id, user_id, balance, version";
+    private static final String INSERT_WALLET = """
+        insert into wallets (id, user_id, balance, version, created_at, updated_at)
+        values (?, ?, 0, 0, ?, ?)
+        """;
+    private static final String INSERT_TRANSACTION = """
+        insert into transactions (id, wallet_id, type, amount, balance, description, created_at)
+        values (?, ?, ?, ?, ?, ?, ?)
+        """;
+    private static final String CREDIT =
+        "update wallets set balance = balance + ?, version = version + 1, updated_at = ? where user_id = ?";
+    private static final String DEBIT = """
+        update wallets set balance = balance - ?, version = version + 1, updated_at = ?
+        where user_id = ? and balance >= ?
+        """;
+    // Debits the first wallet and credits the second, but touches neither unless the debit is covered
+    private static final String TRANSFER = """
+        update wallets
+        set balance = case when user_id = ? then balance - ? else balance + ? end,
+            version = version + 1, updated_at = ?
+        where user_id in (?, ?) and (user_id <> ? or balance >= ?)
+        """;
+    private static final RowMapper<BalanceRow> BALANCE_ROW = (rs, rowNum) -> new BalanceRow(
+        rs.getString("user_id"),
+        new WalletBalance(rs.getLong("id"), Money.of(rs.getBigDecimal("balance")), rs.getLong("version")));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SequenceIdAllocator walletIds;
+    private final SequenceIdAllocator transactionIds;
+    private volatile Statements statements;
+
+    public JdbcWalletRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.walletIds = new SequenceIdAllocator(jdbcTemplate, "wallets_seq", Wallet.ID_ALLOCATION_SIZE);
+        this.transactionIds = new SequenceIdAllocator(jdbcTemplate, "transactions_seq", Transaction.ID_ALLOCATION_SIZE);
+    }
+
+    /**
+     * @throws org.springframework.dao.DuplicateKeyException when the user already has a wallet
+     */
+    public Wallet insert(String userId, LocalDateTime now) {
+        long id = walletIds.nextId();
+        jdbcTemplate.update(INSERT_WALLET, id, userId, Timestamp.valueOf(now), Timestamp.valueOf(now));
+        Wallet wallet = new Wallet();
+        wallet.setId(id);
+        wallet.setUserId(userId);
+        wallet.setVersion(0L);
+        wallet.setCreatedAt(now);
+        wallet.setUpdatedAt(now);
+        return wallet;
+    }
+
+    /**
+     * @return the new balance, empty when the user has no wallet
+     */
+    public Optional<WalletBalance> credit(String userId, Money amount, LocalDateTime now) {
+        return single(jdbcTemplate.query(statements().credit(), BALANCE_ROW,
+            amount.toBigDecimal(), Timestamp.valueOf(now), userId));
+    }
+
+    /**
+     * @return the new balance, empty when the user has no wallet or the balance does not cover {@code amount}
+     */
+    public Optional<WalletBalance> debit(String userId, Money amount, LocalDateTime now) {
+        return single(jdbcTemplate.query(statements().debit(), BALANCE_ROW,
+            amount.toBigDecimal(), Timestamp.valueOf(now), userId, amount.toBigDecimal()));
+    }
+
+    /**
+     * Moves {@code amount} between two distinct wallets in one statement.
+     *
+     * @return the new balances by user id; fewer than two entries means nothing may be committed,
+     *         because a wallet is missing or the balance of {@code fromUserId} does not cover the amount
+     */
+    public Map<String, WalletBalance> transfer(String fromUserId, String toUserId, Money amount, LocalDateTime now) {
+        List<BalanceRow> rows = jdbcTemplate.query(statements().transfer(), BALANCE_ROW,
+            fromUserId, amount.toBigDecimal(), amount.toBigDecimal(), Timestamp.valueOf(now),
+            fromUserId, toUserId, fromUserId, amount.toBigDecimal());
+        Map<String, WalletBalance> balances = new HashMap<>(4);
+        rows.forEach(row -> balances.put(row.userId(), row.balance()));
+        return balances;
+    }
+
+    public Optional<WalletBalance> lockBalance(String userId) {
+        return single(jdbcTemplate.query(
+            "select " + BALANCE_COLUMNS + " from wallets where user_id = ? for update", BALANCE_ROW, userId));
+    }
+
+    public Optional<Long> findIdByUserId(String userId) {
+        return jdbcTemplate.queryForList("select id from wallets where user_id = ?", Long.class, userId)
+            .stream().findFirst();
+    }
+
+    public List<String> findExistingUserIds(Collection<String> userIds) {
+        if (userIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        String placeholders = String.join(", ", Collections.nCopies(userIds.size(), "?"));
+        return jdbcTemplate.queryForList("select user_id from wallets where user_id in (" + placeholders + ")",
+            String.class, userIds.toArray());
+    }
+
+    /**
+     * Appends ledger rows in one JDBC batch.
+     *
+     * @return the ids given to the rows, in order
+     */
+    public List<Long> insertTransactions(List<LedgerEntry> entries) {
+        List<Long> ids = new ArrayList<>(entries.size());
+        List<Object[]> rows = new ArrayList<>(entries.size());
+        for (LedgerEntry entry : entries) {
+            long id = transactionIds.nextId();
+            ids.add(id);
+            rows.add(new Object[] {id, entry.walletId(), entry.type().name(),
+                entry.amount().toBigDecimal(), entry.balance().toBigDecimal(), entry.description(),
+                Timestamp.valueOf(entry.createdAt())});
+        }
+        if (rows.size() == 1) {
+            jdbcTemplate.update(INSERT_TRANSACTION, rows.get(0));
+        } else {
+            jdbcTemplate.batchUpdate(INSERT_TRANSACTION, rows);
+        }
+        return ids;
+    }
+
+    /**
+     * @param userId owner of the wallet; not stored with the row, but needed for its outbox event
+     */
+    public record LedgerEntry(String userId, long walletId, TransactionType type, Money amount, Money balance,
+                              String description, LocalDateTime createdAt) {
+    }
+
+    private Statements statements() {
+        Statements resolved = statements;
+        if (resolved == null) {
+            String product = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            resolved = switch (product) {
+                case "PostgreSQL" -> new Statements(
+                    CREDIT + " returning " + BALANCE_COLUMNS,
+                    DEBIT + " returning " + BALANCE_COLUMNS,
+                    TRANSFER + " returning " + BALANCE_COLUMNS);
+                case "H2" -> new Statements(
+                    "select " + BALANCE_COLUMNS + " from final table (" + CREDIT + ")",
+                    "select " + BALANCE_COLUMNS + " from final table (" + DEBIT + ")",
+                    "select " + BALANCE_COLUMNS + " from final table (" + TRANSFER + ")");
+                default -> throw new IllegalStateException("No JDBC wallet support for database: " + product);
+            };
+            statements = resolved;
+        }
+        return resolved;
+    }
+
+    private static Optional<WalletBalance> single(List<BalanceRow> rows) {
+        return rows.isEmpty() ? Optional.empty() : Optional.of(rows.get(0).balance());
+    }
+
+    private record Statements(String credit, String debit, String transfer) {
+    }
+
+    private record BalanceRow(String userId, WalletBalance balance) {
+    }
+}
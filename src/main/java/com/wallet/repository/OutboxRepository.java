@@ -0,0 +1,79 @@
+package com.wallet.repository;
+
+import com.wallet.model.Money;
+import com.wallet.model.OutboxEvent;
+import com.wallet.model.TransactionType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The {@code outbox_events} table in plain JDBC, so the JPA, JDBC and engine write paths can all
+ * append to it within their own transactions, and relay workers can claim rows with
+ * {@code SKIP LOCKED}, which JPQL cannot express.
+ */
+@Repository
+public class OutboxRepository {
+    private static final String INSERT_EVENT = """
+        insert into outbox_events
+        (id, transaction_id, user_id, wallet_id, type, amount, balance, description, created_at)
+        values (?, ?, ?, ?, ?, ?, ?, ?, ?)
+        """;
+    // Rows another worker holds are skipped rather than waited for, so workers never contend
+    private static final String LOCK_NEXT = """
+        select id, transaction_id, user_id, wallet_id, type, amount, balance, description, created_at
+        from outbox_events order by id fetch first ? rows only for update skip locked
+        """;
+    private static final RowMapper<OutboxEvent> EVENT = (rs, rowNum) -> {
+        OutboxEvent event = OutboxEvent.of(rs.getString("user_id"), rs.getLong("wallet_id"),
+            rs.getLong("transaction_id"), TransactionType.valueOf(rs.getString("type")),
+            Money.of(rs.getBigDecimal("amount")), Money.of(rs.getBigDecimal("balance")),
+            rs.getString("description"), rs.getTimestamp("created_at").toLocalDateTime());
+        event.setId(rs.getLong("id"));
+        return event;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SequenceIdAllocator eventIds;
+
+    public OutboxRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventIds = new SequenceIdAllocator(jdbcTemplate, "outbox_events_seq", OutboxEvent.ID_ALLOCATION_SIZE);
+    }
+
+    /**
+     * Inserts the events in one JDBC batch, assigning their ids; joins the caller's transaction.
+     */
+    public void append(Collection<OutboxEvent> events) {
+        List<Object[]> rows = new ArrayList<>(events.size());
+        for (OutboxEvent event : events) {
+            event.setId(eventIds.nextId());
+            rows.add(new Object[] {event.getId(), event.getTransactionId(), event.getUserId(), event.getWalletId(),
+                event.getType().name(), event.getAmount().toBigDecimal(), event.getBalance().toBigDecimal(),
+                event.getDescription(), Timestamp.valueOf(event.getCreatedAt())});
+        }
+        if (rows.size() == 1) {
+            jdbcTemplate.update(INSERT_EVENT, rows.get(0));
+        } else {
+            jdbcTemplate.batchUpdate(INSERT_EVENT, rows);
+        }
+    }
+
+    /**
+     * Locks up to {@code limit} of the oldest events no other transaction holds, until the calling
+     * transaction ends.
+     */
+    public List<OutboxEvent> lockNext(int limit) {
+        return jdbcTemplate.query(LOCK_NEXT, EVENT, limit);
+    }
+
+    public void delete(List<OutboxEvent> events) {
+        jdbcTemplate.batchUpdate("delete from outbox_events where id = ?",
+            events.stream().map(event -> new Object[] {event.getId()}).toList());
+    }
+}
@@ -1,16 +1,77 @@
 package com.wallet.repository;
 
 import com.wallet.model.Transaction;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
+    String STREAM_FETCH_SIZE = "500";
+
     List<Transaction> findByWalletIdOrderByCreatedAtDesc(Long walletId);
-    Optional<Transaction> findFirstByWalletIdAndCreatedAtLessThanEqualOrderByCreatedAtDesc(
-        Long walletId, LocalDateTime timestamp);
-} 
\ No newline at end of file
+
+    @Query("""
+        select new com.wallet.repository.TransactionRow(
+            t.id, t.wallet.id, t.type, t.amount, t.balance, t.description, t.createdAt)
+        from Transaction t
+        where t.wallet.id = :walletId
+        order by t.createdAt desc, t.id desc
+        """)
+    List<TransactionRow> findRowsByWalletId(@Param("walletId") Long walletId, Limit limit);
+
+    @Query("""
+        select new com.wallet.repository.TransactionRow(
+            t.id, t.wallet.id, t.type, t.amount, t.balance, t.description, t.createdAt)
+        from Transaction t
+        where t.wallet.id = :walletId
+          and (t.createdAt < :createdAt or (t.createdAt = :createdAt and t.id < :id))
+        order by t.createdAt desc, t.id desc
+        """)
+    List<TransactionRow> findRowsBefore(@Param("walletId") Long walletId,
+                                        @Param("createdAt") LocalDateTime createdAt,
+                                        @Param("id") Long id,
+                                        Limit limit);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query("""
+        select new com.wallet.repository.TransactionRow(
+            t.id, t.wallet.id, t.type, t.amount, t.balance, t.description, t.createdAt)
+        from Transaction t
+        where t.wallet.id = :walletId
+        order by t.createdAt desc, t.id desc
+        """)
+    Stream<TransactionRow> streamRowsByWalletId(@Param("walletId") Long walletId);
+
+    Optional<Transaction> findFirstByWalletIdAndCreatedAtBetweenOrderByCreatedAtDescIdDesc(
+        Long walletId, LocalDateTime from, LocalDateTime to);
+
+    @Query("""
+        select new com.wallet.repository.WalletBalanceAt(t.wallet.id, t.id, t.createdAt, t.balance)
+        from Transaction t
+        where t.wallet.id in :walletIds
+          and t.createdAt between :from and :to
+          and not exists (
+            select t2.id from Transaction t2
+            where t2.wallet = t.wallet
+              and t2.createdAt between :from and :to
+              and (t2.createdAt > t.createdAt or (t2.createdAt = t.createdAt and t2.id > t.id)))
+        """)
+    List<WalletBalanceAt> findLatestBalancesBetween(@Param("walletIds") Collection<Long> walletIds,
+                                                    @Param("from") LocalDateTime from,
+                                                    @Param("to") LocalDateTime to);
+
+    @Query("select distinct t.wallet.id from Transaction t where t.createdAt > :from and t.createdAt <= :to")
+    List<Long> findWalletIdsActiveBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+}
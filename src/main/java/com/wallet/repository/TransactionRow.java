@@ -0,0 +1,14 @@
+package com.wallet.repository;
+
+import com.wallet.model.Money;
+import com.wallet.model.TransactionType;
+
+import java.time.LocalDateTime;
+
+/**
+ * A ledger row as the API returns it, selected column by column: no entity is instantiated, no
+ * wallet proxy is attached, and the persistence context never tracks it.
+ */
+public record TransactionRow(Long id, Long walletId, TransactionType type, Money amount, Money balance,
+                             String description, LocalDateTime createdAt) {
+}
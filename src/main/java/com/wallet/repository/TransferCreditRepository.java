@@ -0,0 +1,25 @@
+package com.wallet.repository;
+
+import com.wallet.model.TransferCredit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface TransferCreditRepository extends JpaRepository<TransferCredit, String> {
+    /**
+     * Inserts the marker; a saga credited before fails on the primary key, and one being credited
+     * concurrently waits for it and then fails.
+     */
+    @Modifying
+    @Query(value = """
+        insert into transfer_credits (saga_id, user_id, created_at)
+        values (:sagaId, :userId, :now)
+        """, nativeQuery = true)
+    int insertCredit(@Param("sagaId") String sagaId, @Param("userId") String userId,
+                     @Param("now") LocalDateTime now);
+}
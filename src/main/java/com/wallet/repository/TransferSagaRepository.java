@@ -0,0 +1,32 @@
+package com.wallet.repository;
+
+import com.wallet.model.TransferSaga;
+import com.wallet.model.TransferSaga.Status;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface TransferSagaRepository extends JpaRepository<TransferSaga, String> {
+    @Query("select s.id from TransferSaga s where s.status = :status and s.updatedAt < :before order by s.updatedAt")
+    List<String> findIdsByStatusUpdatedBefore(@Param("status") Status status, @Param("before") LocalDateTime before,
+                                              Limit limit);
+
+    /**
+     * Moves a saga on only from the state the caller saw, so a transfer completed by its request
+     * and by recovery at the same time is finished exactly once.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+        update TransferSaga s set s.status = :to, s.updatedAt = :now
+        where s.id = :id and s.status = :from
+        """)
+    int transition(@Param("id") String id, @Param("from") Status from, @Param("to") Status to,
+                   @Param("now") LocalDateTime now);
+}
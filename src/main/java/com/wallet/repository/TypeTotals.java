@@ -0,0 +1,18 @@
+package com.wallet.repository;
+
+import com.wallet.model.Money;
+import com.wallet.model.TransactionType;
+
+/**
+ * Count and money moved by a wallet's transactions of one type; debits are positive amounts.
+ */
+public record TypeTotals(TransactionType type, long count, Money credits, Money debits) {
+
+    public static TypeTotals zero(TransactionType type) {
+        return new TypeTotals(type, 0, Money.ZERO, Money.ZERO);
+    }
+
+    public TypeTotals plus(TypeTotals other) {
+        return new TypeTotals(type, count + other.count, credits.plus(other.credits), debits.plus(other.debits));
+    }
+}
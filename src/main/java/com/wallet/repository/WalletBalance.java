@@ -0,0 +1,10 @@
+package com.wallet.repository;
+
+import com.wallet.model.Money;
+
+/**
+ * A wallet's id and balance, read without loading the entity. {@code version} is the row version
+ * that holds this balance, which lets caches order concurrent updates.
+ */
+public record WalletBalance(Long walletId, Money balance, Long version) {
+}
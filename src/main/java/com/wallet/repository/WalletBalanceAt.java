@@ -0,0 +1,11 @@
+package com.wallet.repository;
+
+import com.wallet.model.Money;
+
+import java.time.LocalDateTime;
+
+/**
+ * Running balance carried by the latest transaction of a wallet at or before some point in time.
+ */
+public record WalletBalanceAt(Long walletId, Long transactionId, LocalDateTime createdAt, Money balance) {
+}
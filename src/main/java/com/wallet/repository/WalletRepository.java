@@ -1,13 +1,99 @@
 package com.wallet.repository;
 
+import com.wallet.model.Money;
 import com.wallet.model.Wallet;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface WalletRepository extends JpaRepository<Wallet, Long> {
+    /** Read-only so that, called outside a transaction, it may be served by a read replica. */
+    @Transactional(readOnly = true)
     Optional<Wallet> findByUserId(String userId);
+    List<Wallet> findByUserIdIn(Collection<String> userIds);
     boolean existsByUserId(String userId);
-} 
\ No newline at end of file
+
+    @Transactional(readOnly = true)
+    @Query("select w.id from Wallet w where w.userId = :userId")
+    Optional<Long> findIdByUserId(@Param("userId") String userId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select w from Wallet w where w.userId = :userId")
+    Optional<Wallet> findByUserIdForUpdate(@Param("userId") String userId);
+
+    @Transactional(readOnly = true)
+    @Query("select new com.wallet.repository.WalletBalance(w.id, w.balance, w.version) from Wallet w where w.userId = :userId")
+    Optional<WalletBalance> findBalanceByUserId(@Param("userId") String userId);
+
+    /**
+     * Locks the wallets in ascending id order, so concurrent transfers between the same wallets
+     * always queue on the same row first instead of deadlocking.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+        select w.id as id, w.userId as userId, w.balance as balance, w.version as version
+        from Wallet w where w.userId in :userIds order by w.id
+        """)
+    List<WalletRow> lockByUserIdInOrderById(@Param("userIds") Collection<String> userIds);
+
+    @Query("""
+        select w.id as id, w.userId as userId, w.balance as balance, w.version as version
+        from Wallet w where w.userId in :userIds order by w.id
+        """)
+    List<WalletRow> findRowsByUserIdInOrderById(@Param("userIds") Collection<String> userIds);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select w from Wallet w where w.id in :ids order by w.id")
+    List<Wallet> lockAllByIdInOrderById(@Param("ids") Collection<Long> ids);
+
+    // The in-place balance updates are native because HQL only allows arithmetic on Number
+    // attributes, and Money is deliberately not one.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = """
+        update wallets
+        set balance = case when id = :fromId then balance - :amount else balance + :amount end,
+            version = version + 1, updated_at = :now
+        where id in (:fromId, :toId)
+        """, nativeQuery = true)
+    int transfer(@Param("fromId") Long fromId, @Param("toId") Long toId, @Param("amount") Money amount,
+                 @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = """
+        update wallets
+        set balance = case when id = :fromId then balance - :amount else balance + :amount end,
+            version = version + 1, updated_at = :now
+        where (id = :fromId and version = :fromVersion) or (id = :toId and version = :toVersion)
+        """, nativeQuery = true)
+    int transferIfUnchanged(@Param("fromId") Long fromId, @Param("fromVersion") Long fromVersion,
+                            @Param("toId") Long toId, @Param("toVersion") Long toVersion,
+                            @Param("amount") Money amount, @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = """
+        update wallets
+        set balance = balance + :amount, version = version + 1, updated_at = :now
+        where user_id = :userId
+        """, nativeQuery = true)
+    int credit(@Param("userId") String userId, @Param("amount") Money amount, @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = """
+        update wallets
+        set balance = balance - :amount, version = version + 1, updated_at = :now
+        where user_id = :userId and balance >= :amount
+        """, nativeQuery = true)
+    int debitIfSufficient(@Param("userId") String userId, @Param("amount") Money amount,
+                          @Param("now") LocalDateTime now);
+}
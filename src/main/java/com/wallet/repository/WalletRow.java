@@ -0,0 +1,13 @@
+package com.wallet.repository;
+
+import com.wallet.model.Money;
+
+/**
+ * Columns of a wallet needed to apply a transfer, read without loading the entity.
+ */
+public interface WalletRow {
+    Long getId();
+    String getUserId();
+    Money getBalance();
+    Long getVersion();
+}
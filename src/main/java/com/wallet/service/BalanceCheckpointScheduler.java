@@ -0,0 +1,20 @@
+package com.wallet.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "wallet.checkpoints", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class BalanceCheckpointScheduler {
+    private final BalanceCheckpointService checkpointService;
+
+    @Scheduled(cron = "${wallet.checkpoints.cron:0 */5 * * * *}")
+    public void writeCheckpoints() {
+        checkpointService.writeCheckpoints(checkpointService.currentBoundary(LocalDateTime.now()));
+    }
+}
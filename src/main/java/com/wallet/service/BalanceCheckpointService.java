@@ -0,0 +1,173 @@
+package com.wallet.service;
+
+import com.wallet.config.CheckpointProperties;
+import com.wallet.model.BalanceCheckpoint;
+import com.wallet.model.Money;
+import com.wallet.model.Transaction;
+import com.wallet.repository.BalanceCheckpointRepository;
+import com.wallet.repository.TransactionRepository;
+import com.wallet.repository.WalletBalanceAt;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Resolves point-in-time balances from the nearest checkpoint plus the transactions after it,
+ * and writes new checkpoints for wallets that moved since the previous boundary.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BalanceCheckpointService {
+    static final LocalDateTime BEGINNING_OF_TIME = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final BalanceCheckpointRepository checkpointRepository;
+    private final TransactionRepository transactionRepository;
+    private final CheckpointProperties properties;
+
+    @Transactional(readOnly = true)
+    public Money balanceAt(Long walletId, LocalDateTime timestamp) {
+        Optional<BalanceCheckpoint> checkpoint = checkpointRepository
+            .findFirstByWalletIdAndCheckpointAtLessThanEqualOrderByCheckpointAtDesc(walletId, timestamp);
+        LocalDateTime from = checkpoint.map(BalanceCheckpoint::getCheckpointAt).orElse(BEGINNING_OF_TIME);
+
+        return transactionRepository
+            .findFirstByWalletIdAndCreatedAtBetweenOrderByCreatedAtDescIdDesc(walletId, from, timestamp)
+            .map(Transaction::getBalance)
+            .or(() -> checkpoint.map(BalanceCheckpoint::getBalance))
+            .orElse(Money.ZERO);
+    }
+
+    /**
+     * Balances of many wallets at one instant in two queries per {@code batchSize} wallets.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Money> balancesAt(Collection<Long> walletIds, LocalDateTime timestamp) {
+        Map<Long, Money> balances = new HashMap<>(walletIds.size() * 2);
+        for (List<Long> chunk : chunks(walletIds, properties.batchSize())) {
+            Map<Long, BalanceCheckpoint> checkpoints = new HashMap<>();
+            for (BalanceCheckpoint checkpoint : checkpointRepository.findLatestAtOrBefore(chunk, timestamp)) {
+                checkpoints.put(checkpoint.getWalletId(), checkpoint);
+            }
+
+            // Only replay from the oldest checkpoint in the chunk, or from the start if any wallet has none
+            LocalDateTime from = checkpoints.size() < chunk.size()
+                ? BEGINNING_OF_TIME
+                : checkpoints.values().stream().map(BalanceCheckpoint::getCheckpointAt)
+                    .min(LocalDateTime::compareTo).orElse(BEGINNING_OF_TIME);
+
+            Map<Long, WalletBalanceAt> latest = new HashMap<>();
+            for (WalletBalanceAt row : transactionRepository.findLatestBalancesBetween(chunk, from, timestamp)) {
+                latest.put(row.walletId(), row);
+            }
+
+            for (Long walletId : chunk) {
+                balances.put(walletId, resolve(checkpoints.get(walletId), latest.get(walletId)));
+            }
+        }
+        return balances;
+    }
+
+    /**
+     * Writes a checkpoint at {@code boundary} for every wallet with transactions since the previous one.
+     *
+     * @return number of checkpoints written
+     */
+    @Transactional
+    public int writeCheckpoints(LocalDateTime boundary) {
+        LocalDateTime from = checkpointRepository.findLatestCheckpointAt().orElse(BEGINNING_OF_TIME);
+        if (!boundary.isAfter(from)) {
+            return 0;
+        }
+
+        List<Long> walletIds = transactionRepository.findWalletIdsActiveBetween(from, boundary);
+        int written = 0;
+        for (List<Long> chunk : chunks(walletIds, properties.batchSize())) {
+            List<BalanceCheckpoint> checkpoints = new ArrayList<>(chunk.size());
+            for (WalletBalanceAt row : transactionRepository.findLatestBalancesBetween(chunk, from, boundary)) {
+                checkpoints.add(checkpoint(row, boundary));
+            }
+            checkpointRepository.saveAll(checkpoints);
+            written += checkpoints.size();
+        }
+        log.debug("Wrote {} balance checkpoints at {}", written, boundary);
+        return written;
+    }
+
+    /**
+     * Writes a checkpoint at {@code cutoff} for every wallet with transactions in
+     * {@code [from, cutoff)}, so their balances survive once those rows are archived. Wallets
+     * already checkpointed at {@code cutoff} are skipped, which makes a retried archival safe.
+     *
+     * @return number of checkpoints written
+     */
+    @Transactional
+    public int writeArchiveCheckpoints(LocalDateTime from, LocalDateTime cutoff) {
+        // Timestamps are stored in microseconds, so this turns the inclusive bounds into [from, cutoff)
+        LocalDateTime lastIncluded = cutoff.minus(1, ChronoUnit.MICROS);
+        List<Long> walletIds = transactionRepository.findWalletIdsActiveBetween(
+            from.minus(1, ChronoUnit.MICROS), lastIncluded);
+        int written = 0;
+        for (List<Long> chunk : chunks(walletIds, properties.batchSize())) {
+            Set<Long> existing = new HashSet<>(checkpointRepository.findWalletIdsCheckpointedAt(chunk, cutoff));
+            List<BalanceCheckpoint> checkpoints = new ArrayList<>(chunk.size());
+            for (WalletBalanceAt row : transactionRepository.findLatestBalancesBetween(chunk, from, lastIncluded)) {
+                if (!existing.contains(row.walletId())) {
+                    checkpoints.add(checkpoint(row, cutoff));
+                }
+            }
+            checkpointRepository.saveAll(checkpoints);
+            written += checkpoints.size();
+        }
+        log.debug("Wrote {} archive checkpoints at {}", written, cutoff);
+        return written;
+    }
+
+    public LocalDateTime currentBoundary(LocalDateTime now) {
+        return now.minus(properties.settleDelay()).truncatedTo(properties.granularity());
+    }
+
+    private static BalanceCheckpoint checkpoint(WalletBalanceAt row, LocalDateTime at) {
+        BalanceCheckpoint checkpoint = new BalanceCheckpoint();
+        checkpoint.setWalletId(row.walletId());
+        checkpoint.setCheckpointAt(at);
+        checkpoint.setBalance(row.balance());
+        checkpoint.setLastTransactionId(row.transactionId());
+        return checkpoint;
+    }
+
+    private static Money resolve(BalanceCheckpoint checkpoint, WalletBalanceAt latest) {
+        if (latest != null && (checkpoint == null || !latest.createdAt().isBefore(checkpoint.getCheckpointAt()))) {
+            return latest.balance();
+        }
+        return checkpoint != null ? checkpoint.getBalance() : Money.ZERO;
+    }
+
+    private static <T> List<List<T>> chunks(Collection<T> items, int size) {
+        List<List<T>> chunks = new ArrayList<>();
+        List<T> current = new ArrayList<>(Math.min(size, items.size()));
+        for (T item : items) {
+            current.add(item);
+            if (current.size() == size) {
+                chunks.add(current);
+                current = new ArrayList<>(size);
+            }
+        }
+        if (!current.isEmpty()) {
+            chunks.add(current);
+        }
+        return chunks;
+    }
+}
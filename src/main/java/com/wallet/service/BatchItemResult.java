@@ -0,0 +1,27 @@
+package com.wallet.service;
+
+import com.wallet.model.Money;
+
+/**
+ * Outcome of the operation at {@code index}; {@code balance} is the source wallet's balance right
+ * after the operation and is only set when it was applied.
+ */
+public record BatchItemResult(int index, Status status, Money balance, String error) {
+    public enum Status {
+        APPLIED,
+        FAILED,
+        ROLLED_BACK
+    }
+
+    public static BatchItemResult applied(int index, Money balance) {
+        return new BatchItemResult(index, Status.APPLIED, balance, null);
+    }
+
+    public static BatchItemResult failed(int index, String error) {
+        return new BatchItemResult(index, Status.FAILED, null, error);
+    }
+
+    BatchItemResult rolledBack() {
+        return status == Status.APPLIED ? new BatchItemResult(index, Status.ROLLED_BACK, null, null) : this;
+    }
+}
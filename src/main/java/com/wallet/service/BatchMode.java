@@ -0,0 +1,10 @@
+package com.wallet.service;
+
+/**
+ * How a batch treats failing operations: {@code ALL_OR_NOTHING} commits only when every operation
+ * succeeds, {@code BEST_EFFORT} commits the operations that succeeded and reports the rest.
+ */
+public enum BatchMode {
+    ALL_OR_NOTHING,
+    BEST_EFFORT
+}
@@ -0,0 +1,13 @@
+package com.wallet.service;
+
+import com.wallet.model.Money;
+import com.wallet.model.TransactionType;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * One deposit, withdrawal or transfer in a batch; {@code toUserId} is only used by transfers.
+ */
+public record BatchOperation(@NotNull TransactionType type, @NotBlank String userId, String toUserId,
+                             @NotNull Money amount, String description) {
+}
@@ -0,0 +1,18 @@
+package com.wallet.service;
+
+import java.util.List;
+
+/**
+ * Per-item outcome of a batch, in request order. {@code committed} is false only when an
+ * all-or-nothing batch was rolled back.
+ */
+public record BatchResult(BatchMode mode, boolean committed, int applied, int failed, List<BatchItemResult> items) {
+
+    public static BatchResult of(BatchMode mode, List<BatchItemResult> items) {
+        int failed = (int) items.stream().filter(item -> item.status() == BatchItemResult.Status.FAILED).count();
+        if (mode == BatchMode.ALL_OR_NOTHING && failed > 0) {
+            return new BatchResult(mode, false, 0, failed, items.stream().map(BatchItemResult::rolledBack).toList());
+        }
+        return new BatchResult(mode, true, items.size() - failed, failed, items);
+    }
+}
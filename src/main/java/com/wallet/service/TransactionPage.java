@@ -0,0 +1,11 @@
+package com.wallet.service;
+
+import com.wallet.repository.TransactionRow;
+
+import java.util.List;
+
+/**
+ * One page of transaction history; {@code nextCursor} is null when the history is exhausted.
+ */
+public record TransactionPage(List<TransactionRow> items, TransactionCursor nextCursor) {
+}
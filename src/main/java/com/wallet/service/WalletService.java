@@ -1,18 +1,24 @@
 package com.wallet.service;
 
+import com.wallet.model.Money;
 import com.wallet.model.Wallet;
-import com.wallet.model.Transaction;
+import com.wallet.repository.TransactionRow;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public interface WalletService {
     Wallet createWallet(String userId);
-    BigDecimal getBalance(String userId);
-    BigDecimal getHistoricalBalance(String userId, LocalDateTime timestamp);
-    BigDecimal depositFunds(String userId, BigDecimal amount, String description);
-    BigDecimal withdrawFunds(String userId, BigDecimal amount, String description);
-    void transferFunds(String fromUserId, String toUserId, BigDecimal amount, String description);
-    List<Transaction> getTransactionHistory(String userId);
+    Money getBalance(String userId);
+    Money getHistoricalBalance(String userId, LocalDateTime timestamp);
+    Map<String, Money> getHistoricalBalances(Collection<String> userIds, LocalDateTime timestamp);
+    Money depositFunds(String userId, Money amount, String description);
+    Money withdrawFunds(String userId, Money amount, String description);
+    void transferFunds(String fromUserId, String toUserId, Money amount, String description);
+    TransactionPage getTransactionHistory(String userId, TransactionCursor after, int limit);
+    void streamTransactionHistory(String userId, Consumer<TransactionRow> sink);
+    BatchResult applyBatch(List<BatchOperation> operations, BatchMode mode);
 } 
\ No newline at end of file
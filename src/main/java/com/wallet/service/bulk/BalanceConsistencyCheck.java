@@ -0,0 +1,101 @@
+package com.wallet.service.bulk;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Checks, in one pass over a ledger grouped by wallet and newest first, that each wallet's latest
+ * transaction balance equals the wallet's balance. It holds the wallet being read and the
+ * completed wallets still waiting for their balance to be looked up, never the whole ledger.
+ */
+final class BalanceConsistencyCheck {
+    static final int MAX_REPORTED = 100;
+
+    private final Map<Long, BigDecimal> pending = new LinkedHashMap<>();
+    private final List<String> reported = new ArrayList<>();
+    private Long walletId;
+    private BigDecimal ledgerBalance;
+    private BigDecimal walletBalance;
+    private long checked;
+    private long inconsistent;
+
+    /**
+     * @param walletBalance the wallet's balance read alongside the row, or {@code null} to look
+     *                      it up later in {@link #lookUp}
+     */
+    void row(long walletId, BigDecimal balance, BigDecimal walletBalance) {
+        if (this.walletId != null && this.walletId == walletId) {
+            return;
+        }
+        if (this.walletId != null) {
+            complete();
+        }
+        this.walletId = walletId;
+        this.ledgerBalance = balance;
+        this.walletBalance = walletBalance;
+    }
+
+    /** Completes the last wallet; call once the stream has ended. */
+    void finish() {
+        if (walletId != null) {
+            complete();
+        }
+    }
+
+    /** Compares the completed wallets still waiting against the {@code wallets} table. */
+    void lookUp(JdbcTemplate jdbcTemplate) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<Long, BigDecimal> balances = new HashMap<>(pending.size() * 2);
+        jdbcTemplate.query("select id, balance from wallets where id in (?" + ", ?".repeat(pending.size() - 1) + ")",
+            rs -> {
+                balances.put(rs.getLong(1), rs.getBigDecimal(2));
+            }, pending.keySet().toArray());
+        pending.forEach((id, ledger) -> compare(id, ledger, balances.get(id)));
+        pending.clear();
+    }
+
+    long checked() {
+        return checked;
+    }
+
+    long inconsistent() {
+        return inconsistent;
+    }
+
+    /** The first {@value #MAX_REPORTED} inconsistencies found. */
+    List<String> reported() {
+        return Collections.unmodifiableList(reported);
+    }
+
+    private void complete() {
+        if (walletBalance != null) {
+            compare(walletId, ledgerBalance, walletBalance);
+        } else {
+            pending.put(walletId, ledgerBalance);
+        }
+        walletId = null;
+    }
+
+    private void compare(long id, BigDecimal ledger, BigDecimal wallet) {
+        checked++;
+        if (wallet != null && wallet.compareTo(ledger) == 0) {
+            return;
+        }
+        inconsistent++;
+        if (reported.size() < MAX_REPORTED) {
+            reported.add(wallet == null
+                ? "Wallet " + id + " not found for its ledger"
+                : "Wallet " + id + " balance " + wallet.toPlainString() + " differs from its ledger's "
+                    + ledger.toPlainString());
+        }
+    }
+}
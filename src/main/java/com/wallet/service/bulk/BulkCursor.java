@@ -0,0 +1,42 @@
+package com.wallet.service.bulk;
+
+import com.wallet.exception.WalletException;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Position in a bulk stream: the last row exported or committed, from which an interrupted export
+ * or import resumes. Wallets are ordered by {@code id}; transactions by
+ * {@code (wallet_id, created_at desc, id desc)}, so each wallet's ledger is contiguous, newest first.
+ * It is written as the row's key fields as they appear in the file, {@code id} or
+ * {@code wallet_id|created_at|id}, so a client can resume from the last complete line it holds.
+ */
+public record BulkCursor(Long walletId, LocalDateTime createdAt, long id) {
+    private static final String SEPARATOR = "|";
+
+    public static BulkCursor ofWallet(long id) {
+        return new BulkCursor(null, null, id);
+    }
+
+    public String encode() {
+        return walletId != null
+            ? walletId + SEPARATOR + Csv.timestamp(createdAt) + SEPARATOR + id
+            : Long.toString(id);
+    }
+
+    public static BulkCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String[] parts = token.split("\\" + SEPARATOR);
+            if (parts.length == 1) {
+                return ofWallet(Long.parseLong(parts[0]));
+            }
+            return new BulkCursor(Long.parseLong(parts[0]), Csv.parseTimestamp(parts[1]), Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new WalletException("Invalid bulk cursor", e);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.wallet.service.bulk;
+
+import com.wallet.config.BulkProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyOut;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Streams a table out as CSV with a header line. On Postgres the rows come from
+ * {@code COPY (...) TO STDOUT}, one row per message; elsewhere from a JDBC cursor. Either way
+ * each row is written as soon as it is read, so memory stays flat however large the table, and a
+ * slow reader holds back the database rather than filling the heap. Transactions are checked
+ * against their wallet's balance on the way through.
+ */
+@Slf4j
+@Service
+public class BulkExporter {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BulkProperties properties;
+
+    public BulkExporter(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                        BulkProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        // Read-only, so it may run on a replica; Postgres only honours the fetch size inside a transaction
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Writes {@code table} from just past {@code after}, or from the start, to {@code out}.
+     */
+    public BulkResult export(BulkTable table, BulkCursor after, OutputStream out) {
+        table.checkCursor(after);
+        return transactionTemplate.execute(status -> {
+            DataSource dataSource = jdbcTemplate.getDataSource();
+            Connection connection = DataSourceUtils.getConnection(dataSource);
+            try {
+                Export export = new Export(table, new BufferedOutputStream(out, BUFFER_SIZE));
+                if (connection.isWrapperFor(PGConnection.class)) {
+                    copyOut(connection.unwrap(PGConnection.class), table.select(after), export);
+                } else {
+                    jdbcOut(table.select(after), export);
+                }
+                BulkResult result = export.finish();
+                log.info("Exported {} rows of {}; {} of {} wallets inconsistent", result.rows(), table.tableName(),
+                    result.inconsistentWallets(), result.walletsChecked());
+                return result;
+            } catch (SQLException e) {
+                throw new IllegalStateException("Could not export " + table.tableName(), e);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not export " + table.tableName(), e);
+            } finally {
+                DataSourceUtils.releaseConnection(connection, dataSource);
+            }
+        });
+    }
+
+    private static void copyOut(PGConnection connection, String select, Export export)
+            throws SQLException, IOException {
+        CopyOut copy = connection.getCopyAPI().copyOut("COPY (" + select + ") TO STDOUT WITH (FORMAT csv)");
+        try {
+            byte[] row;
+            while ((row = copy.readFromCopy()) != null) {
+                // Each message holds one row and its line feed
+                export.row(new String(row, 0, row.length - 1, StandardCharsets.UTF_8));
+            }
+        } finally {
+            if (copy.isActive()) {
+                copy.cancelCopy();
+            }
+        }
+    }
+
+    private void jdbcOut(String select, Export export) {
+        JdbcTemplate streaming = new JdbcTemplate(jdbcTemplate.getDataSource());
+        streaming.setFetchSize(properties.chunkSize());
+        StringBuilder record = new StringBuilder(256);
+        streaming.query(select, rs -> {
+            record.setLength(0);
+            int columns = rs.getMetaData().getColumnCount();
+            for (int i = 1; i <= columns; i++) {
+                if (i > 1) {
+                    record.append(',');
+                }
+                Csv.append(record, text(rs, i));
+            }
+            try {
+                export.row(record.toString());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private static String text(ResultSet rs, int column) throws SQLException {
+        Object value = rs.getObject(column);
+        if (value instanceof Timestamp timestamp) {
+            return Csv.timestamp(timestamp.toLocalDateTime());
+        }
+        if (value instanceof LocalDateTime timestamp) {
+            return Csv.timestamp(timestamp);
+        }
+        if (value instanceof BigDecimal number) {
+            return number.toPlainString();
+        }
+        return value != null ? value.toString() : null;
+    }
+
+    /** Writes rows out as they arrive, remembering only the last one's key. */
+    private static final class Export {
+        private final BulkTable table;
+        private final OutputStream out;
+        private final BalanceConsistencyCheck check = new BalanceConsistencyCheck();
+        private String[] lastKey;
+        private long rows;
+
+        Export(BulkTable table, OutputStream out) throws IOException {
+            this.table = table;
+            this.out = out;
+            out.write((table.header() + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+
+        void row(String record) throws IOException {
+            if (table == BulkTable.TRANSACTIONS) {
+                // id, wallet_id, type, amount, balance and created_at are never quoted, and the
+                // appended wallet balance is last
+                int walletBalance = record.lastIndexOf(',');
+                String[] key = record.split(",", 7);
+                check.row(Long.parseLong(key[1]), new BigDecimal(key[4]),
+                    new BigDecimal(record.substring(walletBalance + 1)));
+                record = record.substring(0, walletBalance);
+                lastKey = key;
+            } else {
+                lastKey = new String[] {record.substring(0, record.indexOf(','))};
+            }
+            out.write(record.getBytes(StandardCharsets.UTF_8));
+            out.write('\n');
+            rows++;
+        }
+
+        BulkResult finish() throws IOException {
+            out.flush();
+            check.finish();
+            String cursor = lastKey == null ? null : table == BulkTable.TRANSACTIONS
+                ? table.cursor(lastKey).encode() : lastKey[0];
+            return new BulkResult(table, rows, cursor, check.checked(), check.inconsistent(), check.reported(), null);
+        }
+    }
+}
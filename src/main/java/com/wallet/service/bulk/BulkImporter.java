@@ -0,0 +1,238 @@
+package com.wallet.service.bulk;
+
+import com.wallet.config.BulkProperties;
+import com.wallet.engine.ShardedBalanceEngine;
+import com.wallet.exception.WalletException;
+import com.wallet.service.cache.WalletIdCache;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Loads a CSV stream in the format {@link BulkExporter} writes, keeping row ids, in chunks of
+ * {@code chunkSize} rows that each commit on their own. On Postgres a chunk is one
+ * {@code COPY ... FROM STDIN} fed straight from the request; elsewhere one JDBC batch. Only one
+ * chunk is in flight, and it is read from the stream only as fast as the database takes it.
+ *
+ * <p>An import that fails reports the last committed row; passing it back as {@code after}
+ * skips what is already loaded. Transactions are checked against the wallets imported before
+ * them once each chunk commits. Sequences are moved past the imported ids afterwards. Load into
+ * a database that does not hold these ids yet and before it takes traffic: imports neither
+ * update cached balances nor publish outbox events, and days already rolled up for statements
+ * are not rolled up again.
+ */
+@Slf4j
+@Service
+public class BulkImporter {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectProvider<ShardedBalanceEngine> engine;
+    private final WalletIdCache walletIds;
+    private final BulkProperties properties;
+
+    public BulkImporter(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                        ObjectProvider<ShardedBalanceEngine> engine, WalletIdCache walletIds,
+                        BulkProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.engine = engine;
+        this.walletIds = walletIds;
+        this.properties = properties;
+    }
+
+    /**
+     * Loads {@code table} from {@code in}, skipping rows up to and including {@code after}.
+     */
+    public BulkResult importFrom(BulkTable table, BulkCursor after, InputStream in) {
+        table.checkCursor(after);
+        if (engine.getIfAvailable() != null) {
+            // The engine holds balances in memory and would never see the imported rows
+            throw new WalletException("Bulk import is not supported while the balance engine is enabled");
+        }
+        Import load = new Import(table, after, new Csv.RecordReader(
+            new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), BUFFER_SIZE)));
+        boolean postgres = Boolean.TRUE.equals(jdbcTemplate.execute(
+            (ConnectionCallback<Boolean>) connection -> connection.isWrapperFor(PGConnection.class)));
+        String error = null;
+        try {
+            load.readHeader();
+            boolean more = true;
+            while (more) {
+                more = Boolean.TRUE.equals(transactionTemplate.execute(status -> postgres ? copyIn(load) : insert(load)));
+                load.commit();
+                load.check.lookUp(jdbcTemplate);
+            }
+            load.check.finish();
+            load.check.lookUp(jdbcTemplate);
+        } catch (RuntimeException e) {
+            error = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            log.warn("Bulk import of {} stopped after {} rows", table.tableName(), load.committedRows, e);
+        } finally {
+            if (load.committedRows > 0) {
+                advanceSequence(table, postgres);
+                if (table == BulkTable.WALLETS) {
+                    // Users looked up before the import may be cached as having no wallet
+                    walletIds.invalidateAll();
+                }
+            }
+        }
+        BulkResult result = new BulkResult(table, load.committedRows,
+            load.committed != null ? load.committed.encode() : null, load.check.checked(),
+            load.check.inconsistent(), load.check.reported(), error);
+        log.info("Imported {} rows of {}; {} of {} wallets inconsistent", result.rows(), table.tableName(),
+            result.inconsistentWallets(), result.walletsChecked());
+        return result;
+    }
+
+    /** Streams one chunk into {@code COPY}; returns whether the input has more rows. */
+    private boolean copyIn(Import load) {
+        DataSource dataSource = jdbcTemplate.getDataSource();
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            CopyIn copy = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(load.table.copyIn());
+            try {
+                StringBuilder record = new StringBuilder(256);
+                String[] fields;
+                while (load.chunkRows < properties.chunkSize() && (fields = load.next()) != null) {
+                    record.setLength(0);
+                    for (int i = 0; i < fields.length; i++) {
+                        if (i > 0) {
+                            record.append(',');
+                        }
+                        Csv.append(record, fields[i]);
+                    }
+                    byte[] bytes = record.append('\n').toString().getBytes(StandardCharsets.UTF_8);
+                    copy.writeToCopy(bytes, 0, bytes.length);
+                }
+                copy.endCopy();
+            } finally {
+                if (copy.isActive()) {
+                    copy.cancelCopy();
+                }
+            }
+            return load.chunkRows == properties.chunkSize();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not copy into " + load.table.tableName(), e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    /** Inserts one chunk as a JDBC batch; returns whether the input has more rows. */
+    private boolean insert(Import load) {
+        List<Object[]> batch = new ArrayList<>(Math.min(properties.chunkSize(), 10_000));
+        String[] fields;
+        while (load.chunkRows < properties.chunkSize() && (fields = load.next()) != null) {
+            batch.add(load.table.parameters(fields));
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(load.table.insert(), batch);
+        }
+        return load.chunkRows == properties.chunkSize();
+    }
+
+    /** Moves the table's sequence past the largest id, so ids allocated from now on are free. */
+    private void advanceSequence(BulkTable table, boolean postgres) {
+        Long max = jdbcTemplate.queryForObject("select max(id) from " + table.tableName(), Long.class);
+        Long next = jdbcTemplate.queryForObject(postgres
+            ? "select nextval('" + table.sequence() + "')"
+            : "select next value for " + table.sequence(), Long.class);
+        if (max != null && next != null && next <= max) {
+            jdbcTemplate.execute("alter sequence " + table.sequence() + " restart with " + (max + 1));
+            log.info("Sequence {} moved to {}", table.sequence(), max + 1);
+        }
+    }
+
+    /** Reading state of one import: the records read so far and the last one committed. */
+    private static final class Import {
+        private final BulkTable table;
+        private final Csv.RecordReader reader;
+        private final BalanceConsistencyCheck check = new BalanceConsistencyCheck();
+        private BulkCursor skipThrough;
+        private final Long resumedWalletId;
+        private BulkCursor committed;
+        private BulkCursor read;
+        private long committedRows;
+        private int chunkRows;
+
+        Import(BulkTable table, BulkCursor after, Csv.RecordReader reader) {
+            this.table = table;
+            this.skipThrough = after;
+            this.resumedWalletId = after != null ? after.walletId() : null;
+            this.committed = after;
+            this.reader = reader;
+        }
+
+        void readHeader() {
+            String[] header = read();
+            if (header == null || !List.of(header).equals(table.columns())) {
+                throw new WalletException("Expected the header " + table.header() + " for " + table.tableName());
+            }
+        }
+
+        /** The next record past the resume point, or {@code null} at the end of the stream. */
+        String[] next() {
+            while (true) {
+                long line = reader.line();
+                String[] fields = read();
+                if (fields == null) {
+                    return null;
+                }
+                if (fields.length != table.columns().size()) {
+                    throw new WalletException("Expected " + table.columns().size() + " fields on line " + line);
+                }
+                if (skipThrough != null && !table.isAfter(fields, skipThrough)) {
+                    continue;
+                }
+                // The stream is ordered, so nothing after the first new row needs comparing
+                skipThrough = null;
+                read = table.cursor(fields);
+                // A wallet resumed part-way had its newest row loaded before, so it cannot be checked
+                if (table == BulkTable.TRANSACTIONS && !read.walletId().equals(resumedWalletId)) {
+                    check.row(read.walletId(), new BigDecimal(fields[4]), null);
+                }
+                chunkRows++;
+                return fields;
+            }
+        }
+
+        void commit() {
+            if (chunkRows > 0) {
+                committed = read;
+                committedRows += chunkRows;
+                chunkRows = 0;
+            }
+        }
+
+        private String[] read() {
+            try {
+                return reader.next();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
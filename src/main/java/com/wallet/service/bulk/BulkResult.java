@@ -0,0 +1,23 @@
+package com.wallet.service.bulk;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk export or import. {@code cursor} is the last row exported or committed; pass
+ * it back as {@code after} to resume. Transaction streams are checked against wallet balances in
+ * the same pass; {@code inconsistencies} lists the first of {@code inconsistentWallets}. An
+ * import that failed carries its {@code error}, and everything before {@code cursor} is committed.
+ */
+public record BulkResult(
+    BulkTable table,
+    long rows,
+    String cursor,
+    long walletsChecked,
+    long inconsistentWallets,
+    List<String> inconsistencies,
+    String error
+) {
+    public boolean consistent() {
+        return inconsistentWallets == 0;
+    }
+}
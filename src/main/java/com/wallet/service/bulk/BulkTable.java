@@ -0,0 +1,146 @@
+package com.wallet.service.bulk;
+
+import com.wallet.exception.WalletException;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A table the bulk pipeline streams, with its columns in file order and the order rows are
+ * exported in, which is also the order a resumed import skips by.
+ */
+public enum BulkTable {
+    WALLETS("wallets_seq", List.of("id", "user_id", "balance", "version", "created_at", "updated_at")) {
+        @Override
+        String select(BulkCursor after) {
+            return "select id, user_id, balance, version, created_at, updated_at from wallets"
+                + (after != null ? " where id > " + after.id() : "") + " order by id";
+        }
+
+        @Override
+        BulkCursor cursor(String[] fields) {
+            return BulkCursor.ofWallet(Long.parseLong(fields[0]));
+        }
+
+        @Override
+        boolean isAfter(String[] fields, BulkCursor cursor) {
+            return Long.parseLong(fields[0]) > cursor.id();
+        }
+
+        @Override
+        Object[] parameters(String[] fields) {
+            return new Object[] {Long.valueOf(fields[0]), fields[1], new BigDecimal(fields[2]),
+                fields[3] != null ? Long.valueOf(fields[3]) : null, timestamp(fields[4]), timestamp(fields[5])};
+        }
+    },
+
+    /**
+     * Exported with each row's wallet balance as an extra last column, which the consistency
+     * check reads and strips, so it sees the ledger and the wallets in one snapshot.
+     */
+    TRANSACTIONS("transactions_seq",
+            List.of("id", "wallet_id", "type", "amount", "balance", "created_at", "description")) {
+        @Override
+        String select(BulkCursor after) {
+            // Literals rather than parameters: COPY cannot take any. The order is that of
+            // idx_transactions_wallet_created_id, so rows stream off the index without a sort
+            String where = after == null ? "" : (" where t.wallet_id > %1$d or t.wallet_id = %1$d"
+                + " and (t.created_at < %2$s or t.created_at = %2$s and t.id < %3$d)")
+                .formatted(after.walletId(), literal(after.createdAt()), after.id());
+            // A subquery rather than a join, which H2 would drive from wallets and then sort
+            return "select t.id, t.wallet_id, t.type, t.amount, t.balance, t.created_at, t.description,"
+                + " (select w.balance from wallets w where w.id = t.wallet_id) from transactions t" + where
+                + " order by t.wallet_id, t.created_at desc, t.id desc";
+        }
+
+        @Override
+        BulkCursor cursor(String[] fields) {
+            return new BulkCursor(Long.valueOf(fields[1]), Csv.parseTimestamp(fields[5]), Long.parseLong(fields[0]));
+        }
+
+        @Override
+        boolean isAfter(String[] fields, BulkCursor cursor) {
+            long walletId = Long.parseLong(fields[1]);
+            if (walletId != cursor.walletId()) {
+                return walletId > cursor.walletId();
+            }
+            int byTime = Csv.parseTimestamp(fields[5]).compareTo(cursor.createdAt());
+            return byTime < 0 || byTime == 0 && Long.parseLong(fields[0]) < cursor.id();
+        }
+
+        @Override
+        Object[] parameters(String[] fields) {
+            return new Object[] {Long.valueOf(fields[0]), Long.valueOf(fields[1]), fields[2],
+                new BigDecimal(fields[3]), new BigDecimal(fields[4]), timestamp(fields[5]), fields[6]};
+        }
+    };
+
+    private final String sequence;
+    private final List<String> columns;
+
+    BulkTable(String sequence, List<String> columns) {
+        this.sequence = sequence;
+        this.columns = columns;
+    }
+
+    public static BulkTable of(String name) {
+        try {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new WalletException("Unknown bulk table: " + name);
+        }
+    }
+
+    public String tableName() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    String sequence() {
+        return sequence;
+    }
+
+    List<String> columns() {
+        return columns;
+    }
+
+    String header() {
+        return String.join(",", columns);
+    }
+
+    String insert() {
+        return "insert into " + tableName() + " (" + header() + ") values (?" + ", ?".repeat(columns.size() - 1) + ")";
+    }
+
+    String copyIn() {
+        return "COPY " + tableName() + " (" + header() + ") FROM STDIN WITH (FORMAT csv)";
+    }
+
+    /** Rejects a cursor taken from the other table's stream. */
+    void checkCursor(BulkCursor cursor) {
+        if (cursor != null && (cursor.walletId() == null) != (this == WALLETS)) {
+            throw new WalletException("Invalid bulk cursor for " + tableName() + ": " + cursor.encode());
+        }
+    }
+
+    /** The export query from just past {@code after}, or from the start when it is null. */
+    abstract String select(BulkCursor after);
+
+    abstract BulkCursor cursor(String[] fields);
+
+    /** Whether a record sorts past {@code cursor}, so a resumed import still has to load it. */
+    abstract boolean isAfter(String[] fields, BulkCursor cursor);
+
+    /** JDBC parameters of a record for {@link #insert()}. */
+    abstract Object[] parameters(String[] fields);
+
+    private static Timestamp timestamp(String value) {
+        return value != null ? Timestamp.valueOf(Csv.parseTimestamp(value)) : null;
+    }
+
+    private static String literal(LocalDateTime value) {
+        return "timestamp '" + Csv.timestamp(value) + "'";
+    }
+}
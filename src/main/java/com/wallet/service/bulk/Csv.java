@@ -0,0 +1,124 @@
+package com.wallet.service.bulk;
+
+import com.wallet.exception.WalletException;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The CSV dialect of Postgres {@code COPY ... (FORMAT csv)}, so files move between the COPY and
+ * JDBC paths unchanged: an unquoted empty field is {@code NULL}, a quoted one the empty string,
+ * and timestamps are written {@code 2024-01-31 23:59:59.123456} with trailing zeros dropped.
+ */
+final class Csv {
+    static final DateTimeFormatter TIMESTAMP = new DateTimeFormatterBuilder()
+        .appendPattern("uuuu-MM-dd HH:mm:ss")
+        .appendFraction(ChronoField.NANO_OF_SECOND, 0, 6, true)
+        .toFormatter();
+
+    private Csv() {
+    }
+
+    static void append(StringBuilder record, String value) {
+        if (value == null) {
+            return;
+        }
+        if (!value.isEmpty() && value.indexOf(',') < 0 && value.indexOf('"') < 0
+                && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            record.append(value);
+            return;
+        }
+        record.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                record.append('"');
+            }
+            record.append(c);
+        }
+        record.append('"');
+    }
+
+    static String timestamp(LocalDateTime value) {
+        return value != null ? TIMESTAMP.format(value) : null;
+    }
+
+    static LocalDateTime parseTimestamp(String value) {
+        return value != null ? LocalDateTime.parse(value, TIMESTAMP) : null;
+    }
+
+    /**
+     * Reads one record at a time, so memory is bounded by the longest record, not the stream.
+     */
+    static final class RecordReader {
+        private final java.io.Reader in;
+        private final StringBuilder field = new StringBuilder();
+        private long line = 1;
+
+        RecordReader(java.io.Reader in) {
+            this.in = in;
+        }
+
+        /** Line the next record starts on, for error messages. */
+        long line() {
+            return line;
+        }
+
+        /**
+         * @return the next record's fields, or {@code null} at the end of the stream
+         */
+        String[] next() throws IOException {
+            int c = in.read();
+            if (c < 0) {
+                return null;
+            }
+            List<String> fields = new ArrayList<>();
+            boolean quoted = false;
+            boolean inQuotes = false;
+            field.setLength(0);
+            while (true) {
+                if (inQuotes) {
+                    if (c < 0) {
+                        throw new WalletException("Unterminated quoted field on line " + line);
+                    }
+                    if (c == '"') {
+                        c = in.read();
+                        if (c == '"') {
+                            field.append('"');
+                        } else {
+                            inQuotes = false;
+                            continue;
+                        }
+                    } else {
+                        if (c == '\n') {
+                            line++;
+                        }
+                        field.append((char) c);
+                    }
+                } else if (c == ',' || c == '\n' || c == '\r' || c < 0) {
+                    fields.add(quoted || field.length() > 0 ? field.toString() : null);
+                    field.setLength(0);
+                    quoted = false;
+                    if (c != ',') {
+                        if (c == '\r' && (c = in.read()) != '\n' && c >= 0) {
+                            throw new WalletException("Stray carriage return on line " + line);
+                        }
+                        line++;
+                        return fields.toArray(String[]::new);
+                    }
+                } else if (c == '"' && field.length() == 0 && !quoted) {
+                    quoted = true;
+                    inQuotes = true;
+                } else {
+                    field.append((char) c);
+                }
+                c = in.read();
+            }
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.wallet.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.wallet.config.BalanceCacheProperties;
+import com.wallet.model.Money;
+import com.wallet.replica.ConsistencyToken;
+import com.wallet.repository.WalletBalance;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * Read-through cache of current balances by userId, updated write-through once the writing
+ * transaction has committed. Concurrent misses for one wallet share a single lookup, whether or
+ * not caching is enabled.
+ *
+ * <p>Entries carry the wallet row version, so updates that commit in one order but reach the
+ * cache in another never replace a newer balance with an older one. Writes that do not know the
+ * version evict instead and bump a striped generation counter, which stops a reader that loaded
+ * the balance before that write from caching it afterwards. Hits return the cached immutable
+ * {@link Money}, so they allocate nothing.
+ *
+ * <p>Reads inside a transaction bypass the cache: they must see that transaction's own writes,
+ * which may still roll back. So do reads pinned by a {@link ConsistencyToken}: both a cached entry
+ * and a shared lookup on a replica may predate the write the client is waiting for.
+ */
+@Component
+public class BalanceCache {
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final Cache<String, CachedBalance> cache;
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+    private final SingleFlight<String, WalletBalance> loads;
+
+    public BalanceCache(BalanceCacheProperties properties, MeterRegistry registry) {
+        this.loads = new SingleFlight<>("balances", registry);
+        if (!properties.enabled()) {
+            this.cache = null;
+            return;
+        }
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+            .maximumSize(properties.maximumSize())
+            .expireAfterWrite(properties.ttl())
+            .recordStats();
+        if (!properties.expireAfterAccess().isZero()) {
+            builder.expireAfterAccess(properties.expireAfterAccess());
+        }
+        this.cache = builder.build();
+        CaffeineCacheMetrics.monitor(registry, cache, "balances");
+    }
+
+    private record CachedBalance(long version, Money balance) {}
+
+    public Money get(String userId, Function<String, WalletBalance> loader) {
+        if (TransactionSynchronizationManager.isActualTransactionActive() || ConsistencyToken.current() != null) {
+            return loader.apply(userId).balance();
+        }
+        if (cache == null) {
+            return loads.load(userId, loader).balance();
+        }
+        CachedBalance cached = cache.getIfPresent(userId);
+        if (cached != null) {
+            return cached.balance();
+        }
+
+        // Concurrent misses for the same wallet share one lookup
+        return loads.load(userId, key -> {
+            long generation = generations.get(stripe(key));
+            WalletBalance loaded = loader.apply(key);
+            cache.asMap().compute(key, (k, current) ->
+                generations.get(stripe(k)) == generation ? newer(current, loaded) : current);
+            return loaded;
+        }).balance();
+    }
+
+    /**
+     * Records a balance written by the current transaction, once it commits.
+     */
+    public void put(String userId, WalletBalance balance) {
+        if (cache == null || balance.version() == null) {
+            evict(userId);
+            return;
+        }
+        afterCommit(() -> {
+            // A load already in flight may predate this write; later readers must not join it
+            loads.forget(userId);
+            generations.incrementAndGet(stripe(userId));
+            cache.asMap().compute(userId, (key, current) -> newer(current, balance));
+        });
+    }
+
+    /**
+     * Drops the cached balance of a wallet changed by a writer that does not report versions,
+     * once the current transaction (if any) commits.
+     */
+    public void evict(String userId) {
+        afterCommit(() -> {
+            loads.forget(userId);
+            generations.incrementAndGet(stripe(userId));
+            if (cache != null) {
+                cache.invalidate(userId);
+            }
+        });
+    }
+
+    /**
+     * Advances once each write to a wallet in the same stripe as {@code userId} has committed, so
+     * other lookups keyed on it are not shared with one that started before the write.
+     */
+    public long generation(String userId) {
+        return generations.get(stripe(userId));
+    }
+
+    private static CachedBalance newer(CachedBalance current, WalletBalance candidate) {
+        if (current != null && current.version() >= candidate.version()) {
+            return current;
+        }
+        return new CachedBalance(candidate.version(), candidate.balance());
+    }
+
+    private static int stripe(String userId) {
+        return (userId.hashCode() & Integer.MAX_VALUE) % GENERATION_STRIPES;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
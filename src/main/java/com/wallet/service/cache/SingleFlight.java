@@ -0,0 +1,71 @@
+package com.wallet.service.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Coalesces concurrent loads of the same key: the first caller runs the loader on its own thread
+ * and every caller that arrives while it is in flight waits for that result instead of issuing
+ * its own lookup. No extra threads are involved, and nothing is kept once the flight lands.
+ *
+ * <p>Callers must not hold a database connection while they wait, or followers would tie up the
+ * pool for a query they do not run; call this outside any transaction.
+ */
+public final class SingleFlight<K, V> {
+    private final ConcurrentMap<K, CompletableFuture<V>> flights = new ConcurrentHashMap<>();
+    private final Counter shared;
+
+    public SingleFlight(String name, MeterRegistry registry) {
+        this.shared = Counter.builder("wallet.singleflight.shared")
+            .description("Lookups answered by a concurrent caller's in-flight load")
+            .tag("name", name)
+            .register(registry);
+    }
+
+    public V load(K key, Function<K, V> loader) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> inFlight = flights.putIfAbsent(key, flight);
+        if (inFlight != null) {
+            shared.increment();
+            return await(inFlight);
+        }
+        try {
+            V value = loader.apply(key);
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            flights.remove(key, flight);
+        }
+    }
+
+    /**
+     * Stops later callers from joining the load in flight for {@code key}, for when it may have
+     * started before a write they must observe.
+     */
+    public void forget(K key) {
+        flights.remove(key);
+    }
+
+    private static <V> V await(CompletableFuture<V> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.wallet.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.wallet.config.WalletIdCacheProperties;
+import com.wallet.exception.WalletException;
+import com.wallet.replica.ConsistencyToken;
+import com.wallet.replica.ReplicaSet;
+import com.wallet.shard.ShardRouter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Cache of the wallet id each userId resolves to, so that operations can go straight to
+ * {@code wallet_id} instead of looking the wallet up by userId first.
+ *
+ * <p>A wallet keeps its id for life, also when sharding moves it, so found ids never expire and
+ * only give way to size-based eviction. Users without a wallet are remembered for the short
+ * {@code negativeTtl} only, because another instance may create the wallet meanwhile; a local
+ * {@code createWallet} replaces the entry at once. Entries loaded or created inside a transaction
+ * are stored once it commits, so a rolled-back create is never cached; that a user has no wallet
+ * is stored however the transaction ends.
+ *
+ * <p>Reads pinned by a {@link ConsistencyToken} never trust or store a missing wallet: the client
+ * may be waiting for its own create to show up. With read replicas, a missing wallet is only
+ * stored when looked up inside a read-write transaction; any other lookup may have gone to a
+ * replica that has not replayed the create yet. While shards are being added the cache is off,
+ * since a wallet moved off a shard must be reported missing there for the caller to follow it.
+ */
+@Slf4j
+@Component
+public class WalletIdCache {
+    private static final long MISSING = -1;
+
+    private final Cache<String, Long> cache;
+    private final boolean replicated;
+
+    public WalletIdCache(WalletIdCacheProperties properties, ObjectProvider<ShardRouter> router,
+                         ObjectProvider<ReplicaSet> replicas, MeterRegistry registry) {
+        this.replicated = replicas.getIfAvailable() != null;
+        ShardRouter shards = router.getIfAvailable();
+        if (shards != null && shards.resharding() && properties.enabled()) {
+            log.info("Wallet id cache disabled while shards are being added");
+        }
+        if (!properties.enabled() || (shards != null && shards.resharding())) {
+            this.cache = null;
+            return;
+        }
+        long negativeTtl = properties.negativeTtl().toNanos();
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(properties.maximumSize())
+            .expireAfter(new Expiry<String, Long>() {
+                @Override
+                public long expireAfterCreate(String userId, Long walletId, long currentTime) {
+                    return walletId == MISSING ? negativeTtl : Long.MAX_VALUE;
+                }
+
+                @Override
+                public long expireAfterUpdate(String userId, Long walletId, long currentTime, long currentDuration) {
+                    return expireAfterCreate(userId, walletId, currentTime);
+                }
+
+                @Override
+                public long expireAfterRead(String userId, Long walletId, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+            })
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(registry, cache, "wallet-ids");
+    }
+
+    public boolean enabled() {
+        return cache != null;
+    }
+
+    /**
+     * @throws WalletException when the user has no wallet
+     */
+    public long walletId(String userId, Function<String, Optional<Long>> loader) {
+        if (cache == null) {
+            return loader.apply(userId).orElseThrow(() -> walletNotFound(userId));
+        }
+        Long cached = cache.getIfPresent(userId);
+        if (cached != null && cached != MISSING) {
+            return cached;
+        }
+        boolean trustMissing = ConsistencyToken.current() == null;
+        if (cached != null && trustMissing) {
+            throw walletNotFound(userId);
+        }
+
+        Optional<Long> loaded = loader.apply(userId);
+        if (loaded.isPresent()) {
+            long walletId = loaded.get();
+            afterCompletion(true, () -> cache.put(userId, walletId));
+            return walletId;
+        }
+        if (trustMissing && fromPrimary()) {
+            // A create that committed meanwhile has already put the id, which must stay
+            afterCompletion(false, () -> cache.asMap().putIfAbsent(userId, MISSING));
+        }
+        throw walletNotFound(userId);
+    }
+
+    /**
+     * Resolves several users at once, loading all those not cached as found in one call of
+     * {@code loader}, which returns the ids of the users that have a wallet.
+     *
+     * @throws WalletException naming every user without a wallet
+     */
+    public Map<String, Long> walletIds(Collection<String> userIds,
+                                       Function<Collection<String>, Map<String, Long>> loader) {
+        Map<String, Long> ids = new HashMap<>(userIds.size() * 2);
+        List<String> misses = new ArrayList<>();
+        for (String userId : new LinkedHashSet<>(userIds)) {
+            Long cached = cache != null ? cache.getIfPresent(userId) : null;
+            if (cached != null && cached != MISSING) {
+                ids.put(userId, cached);
+            } else {
+                misses.add(userId);
+            }
+        }
+        if (misses.isEmpty()) {
+            return ids;
+        }
+
+        Map<String, Long> loaded = loader.apply(misses);
+        List<String> missing = new ArrayList<>();
+        for (String userId : misses) {
+            Long walletId = loaded.get(userId);
+            if (walletId != null) {
+                ids.put(userId, walletId);
+            } else {
+                missing.add(userId);
+            }
+        }
+        if (cache != null) {
+            afterCompletion(true, () -> misses.stream().filter(loaded::containsKey)
+                .forEach(userId -> cache.put(userId, loaded.get(userId))));
+        }
+        if (!missing.isEmpty()) {
+            throw new WalletException("Wallets not found for users: " + missing);
+        }
+        return ids;
+    }
+
+    /**
+     * Fails fast ahead of a write when the user has no wallet. With the cache off this does
+     * nothing, as the write itself then finds out without an extra query.
+     *
+     * @throws WalletException when the user has no wallet
+     */
+    public void requireWallet(String userId, Function<String, Optional<Long>> loader) {
+        if (cache != null) {
+            walletId(userId, loader);
+        }
+    }
+
+    /**
+     * Records a wallet created by the current transaction, once it commits.
+     */
+    public void created(String userId, long walletId) {
+        if (cache == null) {
+            return;
+        }
+        // Lets the rest of the creating transaction look the wallet up rather than trust a stale miss
+        cache.invalidate(userId);
+        afterCompletion(true, () -> cache.put(userId, walletId));
+    }
+
+    /**
+     * Forgets everything, for when wallets were written behind the service's back.
+     */
+    public void invalidateAll() {
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    private boolean fromPrimary() {
+        return !replicated || (TransactionSynchronizationManager.isActualTransactionActive()
+            && !TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+    }
+
+    private static WalletException walletNotFound(String userId) {
+        return new WalletException("Wallet not found for user: " + userId);
+    }
+
+    private static void afterCompletion(boolean onlyOnCommit, Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED || !onlyOnCommit) {
+                    action.run();
+                }
+            }
+        });
+    }
+}
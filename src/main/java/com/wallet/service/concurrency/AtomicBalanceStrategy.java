@@ -0,0 +1,66 @@
+package com.wallet.service.concurrency;
+
+import com.wallet.exception.WalletException;
+import com.wallet.model.Money;
+import com.wallet.repository.WalletBalance;
+import com.wallet.repository.WalletRepository;
+import com.wallet.repository.WalletRow;
+import lombok.RequiredArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Lets the database apply the change: {@code balance = balance - ? ... and balance >= ?} both checks
+ * and writes under the row lock in one statement. The resulting balance is then read back while
+ * the lock is still held.
+ */
+@RequiredArgsConstructor
+class AtomicBalanceStrategy implements BalanceUpdateStrategy {
+    private final WalletRepository walletRepository;
+    private final ConcurrencyMetrics metrics;
+
+    @Override
+    public ConcurrencyMode mode() {
+        return ConcurrencyMode.ATOMIC;
+    }
+
+    @Override
+    public WalletBalance credit(String userId, Money amount) {
+        int updated = metrics.timeLockWait(() -> walletRepository.credit(userId, amount, now()));
+        if (updated == 0) {
+            throw EntityBalanceStrategy.walletNotFound(userId);
+        }
+        return readBack(userId);
+    }
+
+    @Override
+    public WalletBalance debit(String userId, Money amount, String insufficientFundsMessage) {
+        int updated = metrics.timeLockWait(() -> walletRepository.debitIfSufficient(userId, amount, now()));
+        if (updated == 0) {
+            // Only the failure path pays for telling the two causes apart
+            throw walletRepository.existsByUserId(userId)
+                ? new WalletException(insufficientFundsMessage)
+                : EntityBalanceStrategy.walletNotFound(userId);
+        }
+        return readBack(userId);
+    }
+
+    @Override
+    public TransferBalances transfer(String fromUserId, String toUserId, Money amount,
+                                     String insufficientFundsMessage) {
+        List<WalletRow> rows = metrics.timeLockWait(
+            () -> walletRepository.lockByUserIdInOrderById(List.of(fromUserId, toUserId)));
+        return Transfers.apply(walletRepository, rows, fromUserId, toUserId, amount, insufficientFundsMessage, false);
+    }
+
+    private WalletBalance readBack(String userId) {
+        return walletRepository.findBalanceByUserId(userId)
+            .orElseThrow(() -> EntityBalanceStrategy.walletNotFound(userId));
+    }
+
+    private static LocalDateTime now() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
+}
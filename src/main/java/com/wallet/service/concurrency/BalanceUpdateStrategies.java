@@ -0,0 +1,17 @@
+package com.wallet.service.concurrency;
+
+import com.wallet.repository.WalletRepository;
+
+public final class BalanceUpdateStrategies {
+    private BalanceUpdateStrategies() {
+    }
+
+    public static BalanceUpdateStrategy create(ConcurrencyMode mode, WalletRepository walletRepository,
+                                               ConcurrencyMetrics metrics) {
+        return switch (mode) {
+            case OPTIMISTIC -> new OptimisticBalanceStrategy(walletRepository);
+            case PESSIMISTIC -> new PessimisticBalanceStrategy(walletRepository, metrics);
+            case ATOMIC -> new AtomicBalanceStrategy(walletRepository, metrics);
+        };
+    }
+}
@@ -0,0 +1,25 @@
+package com.wallet.service.concurrency;
+
+import com.wallet.model.Money;
+import com.wallet.repository.WalletBalance;
+
+/**
+ * Applies a balance change to one wallet inside the caller's transaction.
+ */
+public interface BalanceUpdateStrategy {
+    ConcurrencyMode mode();
+
+    WalletBalance credit(String userId, Money amount);
+
+    /**
+     * @throws com.wallet.exception.WalletException with {@code insufficientFundsMessage} if the
+     *                                              balance is lower than {@code amount}
+     */
+    WalletBalance debit(String userId, Money amount, String insufficientFundsMessage);
+
+    /**
+     * Moves {@code amount} between two wallets, locking them in ascending id order and updating both
+     * balances in one statement.
+     */
+    TransferBalances transfer(String fromUserId, String toUserId, Money amount, String insufficientFundsMessage);
+}
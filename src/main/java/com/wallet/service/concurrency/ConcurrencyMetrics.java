@@ -0,0 +1,52 @@
+package com.wallet.service.concurrency;
+
+import com.wallet.config.ConcurrencyProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * Retry, conflict and lock-wait meters, tagged with the active {@link ConcurrencyMode}.
+ */
+@Component
+public class ConcurrencyMetrics {
+    private final Counter conflicts;
+    private final Counter retries;
+    private final Counter exhausted;
+    private final Timer lockWait;
+
+    public ConcurrencyMetrics(MeterRegistry registry, ConcurrencyProperties properties) {
+        String mode = properties.mode().name();
+        this.conflicts = Counter.builder("wallet.concurrency.conflicts")
+            .description("Optimistic conflicts and lock failures seen by wallet mutations")
+            .tag("mode", mode).register(registry);
+        this.retries = Counter.builder("wallet.concurrency.retries")
+            .description("Wallet mutations retried after a conflict")
+            .tag("mode", mode).register(registry);
+        this.exhausted = Counter.builder("wallet.concurrency.retries.exhausted")
+            .description("Wallet mutations that failed after the last retry")
+            .tag("mode", mode).register(registry);
+        this.lockWait = Timer.builder("wallet.concurrency.lock.wait")
+            .description("Time spent acquiring wallet row locks")
+            .tag("mode", mode).register(registry);
+    }
+
+    public void conflict() {
+        conflicts.increment();
+    }
+
+    public void retry() {
+        retries.increment();
+    }
+
+    public void exhausted() {
+        exhausted.increment();
+    }
+
+    public <T> T timeLockWait(Supplier<T> lockingCall) {
+        return lockWait.record(lockingCall);
+    }
+}
@@ -0,0 +1,13 @@
+package com.wallet.service.concurrency;
+
+/**
+ * How wallet balance mutations guard against concurrent writers.
+ */
+public enum ConcurrencyMode {
+    /** Unlocked read, versioned write; conflicting transactions are retried with jittered backoff. */
+    OPTIMISTIC,
+    /** {@code SELECT ... FOR UPDATE} before the read-modify-write. */
+    PESSIMISTIC,
+    /** A single conditional {@code UPDATE} that never loads the wallet entity. */
+    ATOMIC
+}
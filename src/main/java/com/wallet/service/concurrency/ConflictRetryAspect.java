@@ -0,0 +1,58 @@
+package com.wallet.service.concurrency;
+
+import com.wallet.config.ConcurrencyProperties;
+import com.wallet.exception.WalletException;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ordered just outside the transaction interceptor so a failed attempt has rolled back before the
+ * next one begins.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+public class ConflictRetryAspect {
+    private final ConcurrencyProperties properties;
+    private final ConcurrencyMetrics metrics;
+
+    @Around("@annotation(com.wallet.service.concurrency.RetryOnConflict)")
+    public Object retry(ProceedingJoinPoint joinPoint) throws Throwable {
+        // Inside an outer transaction a retry would reuse the doomed transaction; let the caller decide
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed();
+        }
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return joinPoint.proceed();
+            } catch (ConcurrencyFailureException e) {
+                metrics.conflict();
+                if (attempt >= properties.maxAttempts()) {
+                    metrics.exhausted();
+                    throw new WalletException("Wallet is busy, please retry", e);
+                }
+                metrics.retry();
+                backoff(attempt);
+            }
+        }
+    }
+
+    private void backoff(int attempt) throws InterruptedException {
+        long ceiling = Math.min(properties.maxBackoff().toNanos(),
+            properties.baseBackoff().toNanos() << Math.min(attempt - 1, 20));
+        // Full jitter keeps retrying writers from colliding again in lockstep
+        TimeUnit.NANOSECONDS.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+    }
+}
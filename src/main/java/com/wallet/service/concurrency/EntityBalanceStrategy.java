@@ -0,0 +1,40 @@
+package com.wallet.service.concurrency;
+
+import com.wallet.exception.WalletException;
+import com.wallet.model.Money;
+import com.wallet.model.Wallet;
+import com.wallet.repository.WalletBalance;
+
+/**
+ * Read-modify-write of a loaded {@link Wallet}; subclasses decide how the row is loaded.
+ */
+abstract class EntityBalanceStrategy implements BalanceUpdateStrategy {
+
+    protected abstract Wallet load(String userId);
+
+    @Override
+    public WalletBalance credit(String userId, Money amount) {
+        Wallet wallet = load(userId);
+        wallet.setBalance(wallet.getBalance().plus(amount));
+        return flushedBalance(wallet);
+    }
+
+    @Override
+    public WalletBalance debit(String userId, Money amount, String insufficientFundsMessage) {
+        Wallet wallet = load(userId);
+        if (wallet.getBalance().isLessThan(amount)) {
+            throw new WalletException(insufficientFundsMessage);
+        }
+        wallet.setBalance(wallet.getBalance().minus(amount));
+        return flushedBalance(wallet);
+    }
+
+    /** The dirty wallet is written once at flush, which bumps its version exactly once. */
+    private static WalletBalance flushedBalance(Wallet wallet) {
+        return new WalletBalance(wallet.getId(), wallet.getBalance(), wallet.getVersion() + 1);
+    }
+
+    static WalletException walletNotFound(String userId) {
+        return new WalletException("Wallet not found for user: " + userId);
+    }
+}
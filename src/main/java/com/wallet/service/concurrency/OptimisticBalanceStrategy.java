@@ -0,0 +1,36 @@
+package com.wallet.service.concurrency;
+
+import com.wallet.model.Money;
+import com.wallet.model.Wallet;
+import com.wallet.repository.WalletRepository;
+import com.wallet.repository.WalletRow;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Relies on {@code Wallet.version}: a concurrent commit makes the flush fail with an optimistic
+ * locking exception, which {@link ConflictRetryAspect} turns into a retry of the whole operation.
+ */
+@RequiredArgsConstructor
+class OptimisticBalanceStrategy extends EntityBalanceStrategy {
+    private final WalletRepository walletRepository;
+
+    @Override
+    public ConcurrencyMode mode() {
+        return ConcurrencyMode.OPTIMISTIC;
+    }
+
+    @Override
+    protected Wallet load(String userId) {
+        return walletRepository.findByUserId(userId).orElseThrow(() -> walletNotFound(userId));
+    }
+
+    @Override
+    public TransferBalances transfer(String fromUserId, String toUserId, Money amount,
+                                     String insufficientFundsMessage) {
+        // No locks: the update only matches if neither version moved, otherwise the operation is retried
+        List<WalletRow> rows = walletRepository.findRowsByUserIdInOrderById(List.of(fromUserId, toUserId));
+        return Transfers.apply(walletRepository, rows, fromUserId, toUserId, amount, insufficientFundsMessage, true);
+    }
+}
@@ -0,0 +1,37 @@
+package com.wallet.service.concurrency;
+
+import com.wallet.model.Money;
+import com.wallet.model.Wallet;
+import com.wallet.repository.WalletRepository;
+import com.wallet.repository.WalletRow;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Takes the wallet row lock up front, so the balance read is the one that gets written.
+ */
+@RequiredArgsConstructor
+class PessimisticBalanceStrategy extends EntityBalanceStrategy {
+    private final WalletRepository walletRepository;
+    private final ConcurrencyMetrics metrics;
+
+    @Override
+    public ConcurrencyMode mode() {
+        return ConcurrencyMode.PESSIMISTIC;
+    }
+
+    @Override
+    protected Wallet load(String userId) {
+        return metrics.timeLockWait(() -> walletRepository.findByUserIdForUpdate(userId))
+            .orElseThrow(() -> walletNotFound(userId));
+    }
+
+    @Override
+    public TransferBalances transfer(String fromUserId, String toUserId, Money amount,
+                                     String insufficientFundsMessage) {
+        List<WalletRow> rows = metrics.timeLockWait(
+            () -> walletRepository.lockByUserIdInOrderById(List.of(fromUserId, toUserId)));
+        return Transfers.apply(walletRepository, rows, fromUserId, toUserId, amount, insufficientFundsMessage, false);
+    }
+}
@@ -0,0 +1,15 @@
+package com.wallet.service.concurrency;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Retries the annotated transactional method when it loses an optimistic or pessimistic
+ * locking race. The retry wraps the transaction, so every attempt starts from fresh reads.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RetryOnConflict {
+}
@@ -0,0 +1,9 @@
+package com.wallet.service.concurrency;
+
+import com.wallet.repository.WalletBalance;
+
+/**
+ * Balances of both wallets after a transfer has been applied.
+ */
+public record TransferBalances(WalletBalance from, WalletBalance to) {
+}
@@ -0,0 +1,55 @@
+package com.wallet.service.concurrency;
+
+import com.wallet.exception.WalletException;
+import com.wallet.model.Money;
+import com.wallet.repository.WalletBalance;
+import com.wallet.repository.WalletRepository;
+import com.wallet.repository.WalletRow;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Applies a transfer to wallet rows already read in id order with a single balance update.
+ */
+final class Transfers {
+    private Transfers() {
+    }
+
+    static TransferBalances apply(WalletRepository walletRepository, List<WalletRow> rows, String fromUserId,
+                                  String toUserId, Money amount, String insufficientFundsMessage,
+                                  boolean checkVersions) {
+        WalletRow from = find(rows, fromUserId);
+        WalletRow to = find(rows, toUserId);
+        if (from.getBalance().isLessThan(amount)) {
+            throw new WalletException(insufficientFundsMessage);
+        }
+        if (from.getId().equals(to.getId())) {
+            WalletBalance unchanged = new WalletBalance(from.getId(), from.getBalance(), from.getVersion());
+            return new TransferBalances(unchanged, unchanged);
+        }
+
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        int updated = checkVersions
+            ? walletRepository.transferIfUnchanged(from.getId(), from.getVersion(), to.getId(), to.getVersion(),
+                amount, now)
+            : walletRepository.transfer(from.getId(), to.getId(), amount, now);
+        if (updated != 2) {
+            throw new OptimisticLockingFailureException("Wallets changed during transfer");
+        }
+        return new TransferBalances(
+            new WalletBalance(from.getId(), from.getBalance().minus(amount), from.getVersion() + 1),
+            new WalletBalance(to.getId(), to.getBalance().plus(amount), to.getVersion() + 1));
+    }
+
+    private static WalletRow find(List<WalletRow> rows, String userId) {
+        for (WalletRow row : rows) {
+            if (row.getUserId().equals(userId)) {
+                return row;
+            }
+        }
+        throw EntityBalanceStrategy.walletNotFound(userId);
+    }
+}
@@ -0,0 +1,21 @@
+package com.wallet.service.idempotency;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IdempotencyPurgeScheduler {
+    private final IdempotencyService idempotencyService;
+
+    @Scheduled(cron = "${wallet.idempotency.purge-cron:0 0 * * * *}")
+    public void purgeExpired() {
+        int purged = idempotencyService.purgeExpired();
+        if (purged > 0) {
+            log.debug("Purged {} expired idempotency keys", purged);
+        }
+    }
+}
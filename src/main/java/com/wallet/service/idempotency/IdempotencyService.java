@@ -0,0 +1,206 @@
+package com.wallet.service.idempotency;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.wallet.config.EngineProperties;
+import com.wallet.config.IdempotencyProperties;
+import com.wallet.exception.WalletException;
+import com.wallet.model.IdempotencyRecord;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Runs each {@code Idempotency-Key} at most once and replays its response to every retry.
+ *
+ * <p>Completed responses are answered from a size-bounded TinyLFU cache without touching the
+ * database. Duplicates arriving while the first request is still running wait on it: in process
+ * through a shared future, across instances by polling the claim row.
+ *
+ * <p>Keys are rejected while the balance engine is enabled: the engine commits mutations in its
+ * own ledger transactions, so they could not commit or roll back together with the key.
+ */
+@Service
+public class IdempotencyService {
+    public static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyStore store;
+    private final IdempotencyProperties properties;
+    private final boolean engineEnabled;
+    private final Cache<String, Completed> completed;
+    private final ConcurrentMap<String, CompletableFuture<Completed>> inFlight = new ConcurrentHashMap<>();
+
+    IdempotencyService(IdempotencyStore store, IdempotencyProperties properties, EngineProperties engine,
+                       MeterRegistry meterRegistry) {
+        this.store = store;
+        this.properties = properties;
+        this.engineEnabled = engine.enabled();
+        this.completed = Caffeine.newBuilder()
+            .maximumSize(properties.cacheSize())
+            .expireAfter(new UntilExpiry())
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, completed, "idempotency");
+    }
+
+    private record Completed(String fingerprint, String body, LocalDateTime expiresAt) {}
+
+    /**
+     * @param fingerprint identifies the request payload; reusing a key for a different payload fails
+     * @param action      performs the mutation and returns its serialized response
+     */
+    public IdempotentResponse execute(String key, String fingerprint, Supplier<String> action) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new WalletException("Idempotency key must be between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+        if (engineEnabled) {
+            throw new WalletException("Idempotency keys are not supported while wallet.engine.enabled is on");
+        }
+        long deadline = System.nanoTime() + properties.waitTimeout().toNanos();
+        while (true) {
+            Completed cached = completed.getIfPresent(key);
+            if (cached != null) {
+                return replay(key, cached, fingerprint);
+            }
+
+            CompletableFuture<Completed> mine = new CompletableFuture<>();
+            CompletableFuture<Completed> running = inFlight.putIfAbsent(key, mine);
+            if (running != null) {
+                Completed outcome = await(key, running, deadline);
+                if (outcome != null) {
+                    return replay(key, outcome, fingerprint);
+                }
+                // The first request failed without an outcome, so this one may run it
+                continue;
+            }
+
+            try {
+                ClaimOutcome outcome = runClaimed(key, fingerprint, action, deadline);
+                completed.put(key, outcome.completed());
+                mine.complete(outcome.completed());
+                return outcome.replayed()
+                    ? replay(key, outcome.completed(), fingerprint)
+                    : new IdempotentResponse(outcome.completed().body(), false);
+            } catch (RuntimeException e) {
+                mine.complete(null);
+                throw e;
+            } finally {
+                inFlight.remove(key, mine);
+            }
+        }
+    }
+
+    public int purgeExpired() {
+        return store.purgeExpired();
+    }
+
+    public static String fingerprint(Object... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Object part : parts) {
+                digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record ClaimOutcome(Completed completed, boolean replayed) {}
+
+    private ClaimOutcome runClaimed(String key, String fingerprint, Supplier<String> action, long deadline) {
+        while (true) {
+            Optional<LocalDateTime> claim = store.claim(key, fingerprint);
+            if (claim.isPresent()) {
+                LocalDateTime lockedUntil = claim.get();
+                try {
+                    String body = store.executeAndComplete(key, lockedUntil, action);
+                    return new ClaimOutcome(
+                        new Completed(fingerprint, body, IdempotencyStore.now().plus(properties.ttl())), false);
+                } catch (RuntimeException e) {
+                    // The mutation rolled back, so a retry with this key must be free to run it
+                    store.release(key, lockedUntil);
+                    throw e;
+                }
+            }
+
+            Optional<IdempotencyRecord> record = store.find(key);
+            if (record.isPresent() && record.get().getStatus() == IdempotencyRecord.Status.COMPLETED) {
+                IdempotencyRecord done = record.get();
+                return new ClaimOutcome(
+                    new Completed(done.getFingerprint(), done.getResponseBody(), done.getExpiresAt()), true);
+            }
+            if (System.nanoTime() - deadline >= 0) {
+                throw stillInProgress(key);
+            }
+            sleep(properties.pollInterval());
+        }
+    }
+
+    private Completed await(String key, CompletableFuture<Completed> running, long deadline) {
+        try {
+            return running.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw stillInProgress(key);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WalletException("Interrupted while waiting for idempotency key " + key, e);
+        } catch (ExecutionException e) {
+            return null;
+        }
+    }
+
+    private static IdempotentResponse replay(String key, Completed outcome, String fingerprint) {
+        if (!outcome.fingerprint().equals(fingerprint)) {
+            throw new WalletException("Idempotency key " + key + " was already used for a different request");
+        }
+        return new IdempotentResponse(outcome.body(), true);
+    }
+
+    private static WalletException stillInProgress(String key) {
+        return new WalletException("A request with idempotency key " + key + " is still in progress");
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WalletException("Interrupted while waiting for an idempotent request", e);
+        }
+    }
+
+    private static final class UntilExpiry implements Expiry<String, Completed> {
+        @Override
+        public long expireAfterCreate(String key, Completed value, long currentTime) {
+            return Math.max(0, Duration.between(LocalDateTime.now(), value.expiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Completed value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Completed value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.wallet.service.idempotency;
+
+import com.wallet.config.IdempotencyProperties;
+import com.wallet.exception.WalletException;
+import com.wallet.model.IdempotencyRecord;
+import com.wallet.model.IdempotencyRecord.Status;
+import com.wallet.repository.IdempotencyRecordRepository;
+import com.wallet.service.concurrency.RetryOnConflict;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Database side of idempotency. Claims and releases commit on their own so other instances see
+ * them immediately; completion commits together with the wallet mutation it describes.
+ */
+@Component
+class IdempotencyStore {
+    private final IdempotencyRecordRepository repository;
+    private final IdempotencyProperties properties;
+    private final TransactionTemplate requiresNew;
+
+    IdempotencyStore(IdempotencyRecordRepository repository, IdempotencyProperties properties,
+                     PlatformTransactionManager transactionManager) {
+        this.repository = repository;
+        this.properties = properties;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * @return the claim's fencing token, or empty when another request holds or has completed the key
+     */
+    public Optional<LocalDateTime> claim(String key, String fingerprint) {
+        LocalDateTime now = now();
+        LocalDateTime lockedUntil = now.plus(properties.lease());
+        LocalDateTime expiresAt = now.plus(properties.ttl());
+        Integer reclaimed = requiresNew.execute(status ->
+            repository.takeOver(key, fingerprint, lockedUntil, expiresAt, now, Status.IN_PROGRESS));
+        if (reclaimed != null && reclaimed == 1) {
+            return Optional.of(lockedUntil);
+        }
+        try {
+            // A separate transaction, since a failed insert poisons the transaction it ran in
+            requiresNew.executeWithoutResult(status ->
+                repository.insertClaim(key, fingerprint, lockedUntil, expiresAt));
+            return Optional.of(lockedUntil);
+        } catch (DataIntegrityViolationException e) {
+            return Optional.empty();
+        }
+    }
+
+    @RetryOnConflict
+    @Transactional
+    public String executeAndComplete(String key, LocalDateTime lockedUntil, Supplier<String> action) {
+        String responseBody = action.get();
+        if (repository.complete(key, lockedUntil, responseBody, now().plus(properties.ttl()), Status.COMPLETED) != 1) {
+            throw new WalletException("Idempotency key " + key + " was taken over before the request completed");
+        }
+        return responseBody;
+    }
+
+    public void release(String key, LocalDateTime lockedUntil) {
+        requiresNew.executeWithoutResult(status -> repository.release(key, lockedUntil));
+    }
+
+    public Optional<IdempotencyRecord> find(String key) {
+        return requiresNew.execute(status -> repository.findById(key));
+    }
+
+    public int purgeExpired() {
+        Integer deleted = requiresNew.execute(status -> repository.deleteExpired(now()));
+        return deleted == null ? 0 : deleted;
+    }
+
+    static LocalDateTime now() {
+        // Fencing compares lockedUntil for equality, so it must survive the column's precision
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
+}
@@ -0,0 +1,8 @@
+package com.wallet.service.idempotency;
+
+/**
+ * Serialized response for an idempotent request; {@code replayed} is true when it was not
+ * produced by this call but by an earlier request with the same key.
+ */
+public record IdempotentResponse(String body, boolean replayed) {
+}
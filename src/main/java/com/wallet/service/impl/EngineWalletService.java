@@ -0,0 +1,135 @@
+package com.wallet.service.impl;
+
+import com.wallet.engine.ShardedBalanceEngine;
+import com.wallet.exception.WalletException;
+import com.wallet.model.Money;
+import com.wallet.model.Wallet;
+import com.wallet.repository.TransactionRow;
+import com.wallet.service.BatchItemResult;
+import com.wallet.service.BatchMode;
+import com.wallet.service.BatchOperation;
+import com.wallet.service.BatchResult;
+import com.wallet.service.TransactionCursor;
+import com.wallet.service.TransactionPage;
+import com.wallet.service.WalletService;
+import com.wallet.service.cache.BalanceCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Sends mutations and current-balance reads through the {@link ShardedBalanceEngine} and everything
+ * else to the JPA service. Balances come from the engine rather than {@code wallets.balance},
+ * which is projected asynchronously and may trail the ledger. Engine writes also evict the
+ * cached balance, for any JPA reader of it.
+ */
+@Service
+@Primary
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "wallet.engine", name = "enabled", havingValue = "true")
+public class EngineWalletService implements WalletService {
+    private final WalletServiceImpl delegate;
+    private final ShardedBalanceEngine engine;
+    private final BalanceCache balanceCache;
+
+    @Override
+    public Wallet createWallet(String userId) {
+        return delegate.createWallet(userId);
+    }
+
+    @Override
+    public Money getBalance(String userId) {
+        return engine.balance(userId);
+    }
+
+    @Override
+    public Money getHistoricalBalance(String userId, LocalDateTime timestamp) {
+        return delegate.getHistoricalBalance(userId, timestamp);
+    }
+
+    @Override
+    public Map<String, Money> getHistoricalBalances(Collection<String> userIds, LocalDateTime timestamp) {
+        return delegate.getHistoricalBalances(userIds, timestamp);
+    }
+
+    @Override
+    public Money depositFunds(String userId, Money amount, String description) {
+        if (!amount.isPositive()) {
+            throw new WalletException("Deposit amount must be greater than zero");
+        }
+        Money balance = engine.deposit(userId, amount, description);
+        balanceCache.evict(userId);
+        return balance;
+    }
+
+    @Override
+    public Money withdrawFunds(String userId, Money amount, String description) {
+        if (!amount.isPositive()) {
+            throw new WalletException("Withdrawal amount must be greater than zero");
+        }
+        Money balance = engine.withdraw(userId, amount, description);
+        balanceCache.evict(userId);
+        return balance;
+    }
+
+    @Override
+    public void transferFunds(String fromUserId, String toUserId, Money amount, String description) {
+        if (!amount.isPositive()) {
+            throw new WalletException("Transfer amount must be greater than zero");
+        }
+        engine.transfer(fromUserId, toUserId, amount, description);
+        balanceCache.evict(fromUserId);
+        balanceCache.evict(toUserId);
+    }
+
+    @Override
+    public TransactionPage getTransactionHistory(String userId, TransactionCursor after, int limit) {
+        return delegate.getTransactionHistory(userId, after, limit);
+    }
+
+    @Override
+    public void streamTransactionHistory(String userId, Consumer<TransactionRow> sink) {
+        delegate.streamTransactionHistory(userId, sink);
+    }
+
+    /**
+     * Feeds the operations through the engine one by one. Shards commit independently, so only
+     * best-effort batches can be honoured here.
+     */
+    @Override
+    public BatchResult applyBatch(List<BatchOperation> operations, BatchMode mode) {
+        if (mode != BatchMode.BEST_EFFORT) {
+            throw new WalletException("The wallet engine only supports " + BatchMode.BEST_EFFORT + " batches");
+        }
+        List<BatchItemResult> items = new ArrayList<>(operations.size());
+        for (int i = 0; i < operations.size(); i++) {
+            BatchOperation operation = operations.get(i);
+            try {
+                if (operation.type() == null || operation.amount() == null) {
+                    throw new WalletException("Operation type and amount are required");
+                }
+                Money balance = switch (operation.type()) {
+                    case DEPOSIT -> depositFunds(operation.userId(), operation.amount(), operation.description());
+                    case WITHDRAWAL -> withdrawFunds(operation.userId(), operation.amount(), operation.description());
+                    case TRANSFER -> {
+                        transferFunds(operation.userId(), operation.toUserId(), operation.amount(),
+                            operation.description());
+                        yield null;
+                    }
+                };
+                items.add(BatchItemResult.applied(i, balance));
+            } catch (WalletException e) {
+                items.add(BatchItemResult.failed(i, e.getMessage()));
+            }
+        }
+        return BatchResult.of(mode, items);
+    }
+}
@@ -0,0 +1,209 @@
+package com.wallet.service.impl;
+
+import com.wallet.exception.WalletException;
+import com.wallet.model.Money;
+import com.wallet.model.OutboxEvent;
+import com.wallet.model.TransactionType;
+import com.wallet.model.Wallet;
+import com.wallet.repository.JdbcWalletRepository;
+import com.wallet.repository.JdbcWalletRepository.LedgerEntry;
+import com.wallet.repository.TransactionRow;
+import com.wallet.repository.WalletBalance;
+import com.wallet.service.BatchMode;
+import com.wallet.service.BatchOperation;
+import com.wallet.service.BatchResult;
+import com.wallet.service.TransactionCursor;
+import com.wallet.service.TransactionPage;
+import com.wallet.service.WalletService;
+import com.wallet.service.cache.BalanceCache;
+import com.wallet.service.cache.WalletIdCache;
+import com.wallet.service.concurrency.RetryOnConflict;
+import com.wallet.service.outbox.OutboxWriter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Primary;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Writes wallets and ledger rows through {@link JdbcWalletRepository} instead of Hibernate: no
+ * entity loads, dirty checking or auditing listeners. A deposit or withdrawal is one balance update
+ * that returns the new balance plus one ledger insert, a transfer one update of both rows plus one
+ * batched insert, and creating a wallet a single insert; writes to a wallet not yet in the
+ * {@link WalletIdCache} first look its id up once. The database checks funds, so
+ * {@code wallet.concurrency.mode} does not apply. Reads and batches go to the JPA service.
+ */
+@Service
+@Primary
+@RequiredArgsConstructor
+@ConditionalOnExpression("'${wallet.persistence.mode:JPA}'.equalsIgnoreCase('JDBC') and !${wallet.engine.enabled:false}"
+    + " and !${wallet.sharding.enabled:false}")
+public class JdbcWalletService implements WalletService {
+    private final WalletServiceImpl delegate;
+    private final JdbcWalletRepository repository;
+    private final BalanceCache balanceCache;
+    private final WalletIdCache walletIds;
+    private final OutboxWriter outboxWriter;
+
+    @Override
+    public Wallet createWallet(String userId) {
+        try {
+            Wallet wallet = repository.insert(userId, now());
+            walletIds.created(userId, wallet.getId());
+            return wallet;
+        } catch (DuplicateKeyException e) {
+            throw new WalletException("Wallet already exists for user: " + userId);
+        }
+    }
+
+    @Override
+    public Money getBalance(String userId) {
+        return delegate.getBalance(userId);
+    }
+
+    @Override
+    public Money getHistoricalBalance(String userId, LocalDateTime timestamp) {
+        return delegate.getHistoricalBalance(userId, timestamp);
+    }
+
+    @Override
+    public Map<String, Money> getHistoricalBalances(Collection<String> userIds, LocalDateTime timestamp) {
+        return delegate.getHistoricalBalances(userIds, timestamp);
+    }
+
+    @Override
+    @RetryOnConflict
+    @Transactional
+    public Money depositFunds(String userId, Money amount, String description) {
+        if (!amount.isPositive()) {
+            throw new WalletException("Deposit amount must be greater than zero");
+        }
+        walletIds.requireWallet(userId, repository::findIdByUserId);
+
+        LocalDateTime now = now();
+        WalletBalance wallet = repository.credit(userId, amount, now)
+            .orElseThrow(() -> walletNotFound(userId));
+        balanceCache.put(userId, wallet);
+        insertTransactions(List.of(
+            new LedgerEntry(userId, wallet.walletId(), TransactionType.DEPOSIT, amount, wallet.balance(),
+                description, now)));
+        return wallet.balance();
+    }
+
+    @Override
+    @RetryOnConflict
+    @Transactional
+    public Money withdrawFunds(String userId, Money amount, String description) {
+        if (!amount.isPositive()) {
+            throw new WalletException("Withdrawal amount must be greater than zero");
+        }
+        walletIds.requireWallet(userId, repository::findIdByUserId);
+
+        LocalDateTime now = now();
+        WalletBalance wallet = repository.debit(userId, amount, now).orElseThrow(() ->
+            // Only the failure path pays for telling the two causes apart
+            repository.findExistingUserIds(List.of(userId)).isEmpty()
+                ? walletNotFound(userId)
+                : new WalletException("Insufficient funds"));
+        balanceCache.put(userId, wallet);
+        insertTransactions(List.of(
+            new LedgerEntry(userId, wallet.walletId(), TransactionType.WITHDRAWAL, amount, wallet.balance(),
+                description, now)));
+        return wallet.balance();
+    }
+
+    @Override
+    @RetryOnConflict
+    @Transactional
+    public void transferFunds(String fromUserId, String toUserId, Money amount, String description) {
+        if (!amount.isPositive()) {
+            throw new WalletException("Transfer amount must be greater than zero");
+        }
+        walletIds.requireWallet(fromUserId, repository::findIdByUserId);
+        walletIds.requireWallet(toUserId, repository::findIdByUserId);
+
+        LocalDateTime now = now();
+        WalletBalance from;
+        WalletBalance to;
+        if (fromUserId.equals(toUserId)) {
+            // Balance unchanged, but both ledger legs are still recorded
+            from = repository.lockBalance(fromUserId).orElseThrow(() -> walletNotFound(fromUserId));
+            if (from.balance().isLessThan(amount)) {
+                throw new WalletException("Insufficient funds for transfer");
+            }
+            to = from;
+        } else {
+            Map<String, WalletBalance> balances = repository.transfer(fromUserId, toUserId, amount, now);
+            if (balances.size() < 2) {
+                // Throwing rolls back the credit the statement may have applied on its own
+                throw transferFailure(fromUserId, toUserId);
+            }
+            from = balances.get(fromUserId);
+            to = balances.get(toUserId);
+            balanceCache.put(fromUserId, from);
+            balanceCache.put(toUserId, to);
+        }
+
+        insertTransactions(List.of(
+            new LedgerEntry(fromUserId, from.walletId(), TransactionType.TRANSFER, amount.negate(), from.balance(),
+                "Transfer to " + toUserId + ": " + description, now),
+            new LedgerEntry(toUserId, to.walletId(), TransactionType.TRANSFER, amount, to.balance(),
+                "Transfer from " + fromUserId + ": " + description, now)));
+    }
+
+    @Override
+    public TransactionPage getTransactionHistory(String userId, TransactionCursor after, int limit) {
+        return delegate.getTransactionHistory(userId, after, limit);
+    }
+
+    @Override
+    public void streamTransactionHistory(String userId, Consumer<TransactionRow> sink) {
+        delegate.streamTransactionHistory(userId, sink);
+    }
+
+    @Override
+    public BatchResult applyBatch(List<BatchOperation> operations, BatchMode mode) {
+        return delegate.applyBatch(operations, mode);
+    }
+
+    private void insertTransactions(List<LedgerEntry> entries) {
+        List<Long> ids = repository.insertTransactions(entries);
+        if (outboxWriter.enabled()) {
+            List<OutboxEvent> events = new ArrayList<>(entries.size());
+            for (int i = 0; i < entries.size(); i++) {
+                LedgerEntry entry = entries.get(i);
+                events.add(OutboxEvent.of(entry.userId(), entry.walletId(), ids.get(i), entry.type(), entry.amount(),
+                    entry.balance(), entry.description(), entry.createdAt()));
+            }
+            outboxWriter.record(events);
+        }
+    }
+
+    private WalletException transferFailure(String fromUserId, String toUserId) {
+        List<String> existing = repository.findExistingUserIds(List.of(fromUserId, toUserId));
+        if (!existing.contains(fromUserId)) {
+            return walletNotFound(fromUserId);
+        }
+        if (!existing.contains(toUserId)) {
+            return walletNotFound(toUserId);
+        }
+        return new WalletException("Insufficient funds for transfer");
+    }
+
+    private static WalletException walletNotFound(String userId) {
+        return new WalletException("Wallet not found for user: " + userId);
+    }
+
+    private static LocalDateTime now() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
+}
@@ -0,0 +1,221 @@
+package com.wallet.service.impl;
+
+import com.wallet.exception.WalletException;
+import com.wallet.model.Money;
+import com.wallet.model.TransactionType;
+import com.wallet.model.Wallet;
+import com.wallet.repository.TransactionRow;
+import com.wallet.service.BatchItemResult;
+import com.wallet.service.BatchMode;
+import com.wallet.service.BatchOperation;
+import com.wallet.service.BatchResult;
+import com.wallet.service.TransactionCursor;
+import com.wallet.service.TransactionPage;
+import com.wallet.service.WalletService;
+import com.wallet.shard.CrossShardTransfers;
+import com.wallet.shard.ShardContext;
+import com.wallet.shard.ShardRouter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Runs each operation on the shard that holds the wallet, through the JPA service. Transfers
+ * between wallets on one shard take the usual single-transaction path; transfers across shards go
+ * through {@link CrossShardTransfers}. Batches touching one shard run as one transaction there;
+ * best-effort batches spanning shards run operation by operation, and all-or-nothing ones are
+ * refused, since no transaction spans shards.
+ *
+ * <p>Called inside a transaction, an operation joins it and must belong to the shard that
+ * transaction runs on.
+ */
+@Service
+@Primary
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "wallet.sharding", name = "enabled", havingValue = "true")
+public class ShardedWalletService implements WalletService {
+    private final WalletServiceImpl delegate;
+    private final ShardRouter router;
+    private final CrossShardTransfers crossShardTransfers;
+
+    @Override
+    public Wallet createWallet(String userId) {
+        String shard = router.shardFor(userId);
+        if (router.resharding() && !router.previousShardFor(userId).equals(shard)
+                && router.exists(router.previousShardFor(userId), userId)) {
+            throw new WalletException("Wallet already exists for user: " + userId);
+        }
+        return onShard(shard, () -> delegate.createWallet(userId));
+    }
+
+    @Override
+    public Money getBalance(String userId) {
+        return onWalletShard(userId, () -> delegate.getBalance(userId));
+    }
+
+    @Override
+    public Money getHistoricalBalance(String userId, LocalDateTime timestamp) {
+        return onWalletShard(userId, () -> delegate.getHistoricalBalance(userId, timestamp));
+    }
+
+    @Override
+    public Map<String, Money> getHistoricalBalances(Collection<String> userIds, LocalDateTime timestamp) {
+        Set<String> requested = new LinkedHashSet<>(userIds);
+        Map<String, List<String>> byShard = new LinkedHashMap<>();
+        for (String userId : requested) {
+            byShard.computeIfAbsent(router.locate(userId), shard -> new ArrayList<>()).add(userId);
+        }
+        Map<String, Money> found = new HashMap<>(requested.size() * 2);
+        byShard.forEach((shard, users) ->
+            found.putAll(onShard(shard, () -> delegate.getHistoricalBalances(users, timestamp))));
+
+        Map<String, Money> balances = new LinkedHashMap<>();
+        for (String userId : requested) {
+            balances.put(userId, found.get(userId));
+        }
+        return balances;
+    }
+
+    @Override
+    public Money depositFunds(String userId, Money amount, String description) {
+        return onWalletShard(userId, () -> delegate.depositFunds(userId, amount, description));
+    }
+
+    @Override
+    public Money withdrawFunds(String userId, Money amount, String description) {
+        return onWalletShard(userId, () -> delegate.withdrawFunds(userId, amount, description));
+    }
+
+    @Override
+    public void transferFunds(String fromUserId, String toUserId, Money amount, String description) {
+        String fromShard = router.locate(fromUserId);
+        if (fromShard.equals(router.locate(toUserId))) {
+            onShard(fromShard, () -> {
+                delegate.transferFunds(fromUserId, toUserId, amount, description);
+                return null;
+            });
+            return;
+        }
+        onShard(fromShard, () -> crossShardTransfers.transfer(fromShard, fromUserId, toUserId, amount, description));
+    }
+
+    @Override
+    public TransactionPage getTransactionHistory(String userId, TransactionCursor after, int limit) {
+        return onWalletShard(userId, () -> delegate.getTransactionHistory(userId, after, limit));
+    }
+
+    @Override
+    public void streamTransactionHistory(String userId, Consumer<TransactionRow> sink) {
+        onWalletShard(userId, () -> {
+            delegate.streamTransactionHistory(userId, sink);
+            return null;
+        });
+    }
+
+    @Override
+    public BatchResult applyBatch(List<BatchOperation> operations, BatchMode mode) {
+        if (operations.isEmpty() || operations.size() > WalletServiceImpl.MAX_BATCH_SIZE) {
+            throw new WalletException("Batch must contain between 1 and "
+                + WalletServiceImpl.MAX_BATCH_SIZE + " operations");
+        }
+        Map<String, String> shards = new HashMap<>();
+        for (BatchOperation operation : operations) {
+            for (String userId : usersOf(operation)) {
+                shards.computeIfAbsent(userId, router::locate);
+            }
+        }
+        Set<String> touched = new LinkedHashSet<>(shards.values());
+        if (touched.size() <= 1) {
+            String shard = touched.isEmpty() ? router.defaultShard() : touched.iterator().next();
+            return onShard(shard, () -> delegate.applyBatch(operations, mode));
+        }
+        if (mode == BatchMode.ALL_OR_NOTHING) {
+            throw new WalletException("All-or-nothing batches must not span shards");
+        }
+
+        List<BatchItemResult> items = new ArrayList<>(operations.size());
+        for (int i = 0; i < operations.size(); i++) {
+            items.add(applyOne(i, operations.get(i), shards));
+        }
+        return BatchResult.of(mode, items);
+    }
+
+    private BatchItemResult applyOne(int index, BatchOperation operation, Map<String, String> shards) {
+        String shard = operation.userId() != null ? shards.get(operation.userId()) : router.defaultShard();
+        boolean crossShard = operation.type() == TransactionType.TRANSFER && operation.toUserId() != null
+            && !shard.equals(shards.get(operation.toUserId()));
+        if (!crossShard) {
+            BatchItemResult item = onShard(shard, () ->
+                delegate.applyBatch(List.of(operation), BatchMode.BEST_EFFORT)).items().get(0);
+            return new BatchItemResult(index, item.status(), item.balance(), item.error());
+        }
+        try {
+            return BatchItemResult.applied(index, onShard(shard, () -> crossShardTransfers.transfer(
+                shard, operation.userId(), operation.toUserId(), operation.amount(), operation.description())));
+        } catch (WalletException e) {
+            return BatchItemResult.failed(index, e.getMessage());
+        }
+    }
+
+    private static List<String> usersOf(BatchOperation operation) {
+        List<String> userIds = new ArrayList<>(2);
+        if (operation.userId() != null) {
+            userIds.add(operation.userId());
+        }
+        if (operation.type() == TransactionType.TRANSFER && operation.toUserId() != null) {
+            userIds.add(operation.toUserId());
+        }
+        return userIds;
+    }
+
+    /**
+     * Runs {@code action} on the shard the wallet is on. While shards are being added the wallet
+     * may move between the lookup and the action, which then fails to find it; it is looked up and
+     * run once more.
+     */
+    private <T> T onWalletShard(String userId, Supplier<T> action) {
+        String shard = router.locate(userId);
+        try {
+            return onShard(shard, action);
+        } catch (WalletException e) {
+            if (!router.resharding() || TransactionSynchronizationManager.isActualTransactionActive()
+                    || !e.getMessage().startsWith("Wallet not found")) {
+                throw e;
+            }
+            String moved = router.locate(userId);
+            if (moved.equals(shard)) {
+                throw e;
+            }
+            return onShard(moved, action);
+        }
+    }
+
+    private <T> T onShard(String shard, Supplier<T> action) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return router.onShard(shard, action);
+        }
+        String current = Objects.requireNonNullElse(ShardContext.current(), router.defaultShard());
+        if (!current.equals(shard)) {
+            if (router.resharding()) {
+                throw new WalletException("Wallet is being moved to another shard, please retry");
+            }
+            throw new IllegalStateException("Shard " + shard + " used inside a transaction on shard " + current);
+        }
+        return action.get();
+    }
+}
@@ -1,25 +1,86 @@
 package com.wallet.service.impl;
 
 import com.wallet.exception.WalletException;
+import com.wallet.model.Money;
+import com.wallet.model.OutboxEvent;
 import com.wallet.model.Transaction;
 import com.wallet.model.TransactionType;
 import com.wallet.model.Wallet;
+import com.wallet.replica.ConsistencyToken;
 import com.wallet.repository.TransactionRepository;
+import com.wallet.repository.TransactionRow;
+import com.wallet.repository.WalletBalance;
 import com.wallet.repository.WalletRepository;
+import com.wallet.service.BalanceCheckpointService;
+import com.wallet.service.BatchItemResult;
+import com.wallet.service.BatchMode;
+import com.wallet.service.BatchOperation;
+import com.wallet.service.BatchResult;
+import com.wallet.service.TransactionCursor;
+import com.wallet.service.TransactionPage;
 import com.wallet.service.WalletService;
-import lombok.RequiredArgsConstructor;
+import com.wallet.service.cache.BalanceCache;
+import com.wallet.service.cache.SingleFlight;
+import com.wallet.service.cache.WalletIdCache;
+import com.wallet.service.concurrency.BalanceUpdateStrategy;
+import com.wallet.service.concurrency.RetryOnConflict;
+import com.wallet.service.concurrency.TransferBalances;
+import com.wallet.service.outbox.OutboxWriter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
-@RequiredArgsConstructor
 public class WalletServiceImpl implements WalletService {
+    static final int MAX_HISTORY_PAGE_SIZE = 1000;
+    static final int MAX_BATCH_SIZE = 10_000;
+    private static final int LOCK_CHUNK_SIZE = 1000;
+
     private final WalletRepository walletRepository;
     private final TransactionRepository transactionRepository;
+    private final BalanceCheckpointService checkpointService;
+    private final BalanceUpdateStrategy balanceUpdateStrategy;
+    private final EntityManager entityManager;
+    private final BalanceCache balanceCache;
+    private final WalletIdCache walletIds;
+    private final OutboxWriter outboxWriter;
+    private final SingleFlight<HistoricalBalanceKey, Money> historicalBalanceLoads;
+
+    public WalletServiceImpl(WalletRepository walletRepository, TransactionRepository transactionRepository,
+                             BalanceCheckpointService checkpointService, BalanceUpdateStrategy balanceUpdateStrategy,
+                             EntityManager entityManager, BalanceCache balanceCache, WalletIdCache walletIds,
+                             OutboxWriter outboxWriter, MeterRegistry meterRegistry) {
+        this.walletRepository = walletRepository;
+        this.transactionRepository = transactionRepository;
+        this.checkpointService = checkpointService;
+        this.balanceUpdateStrategy = balanceUpdateStrategy;
+        this.entityManager = entityManager;
+        this.balanceCache = balanceCache;
+        this.walletIds = walletIds;
+        this.outboxWriter = outboxWriter;
+        this.historicalBalanceLoads = new SingleFlight<>("historical-balances", meterRegistry);
+    }
+
+    private record HistoricalBalanceKey(String userId, LocalDateTime timestamp, long generation) {}
 
     @Override
     @Transactional
@@ -27,111 +88,317 @@ public class WalletServiceImpl implements WalletService {
         if (walletRepository.existsByUserId(userId)) {
             throw new WalletException("Wallet already exists for user: " + userId);
         }
-        return walletRepository.save(new Wallet());
+        Wallet wallet = new Wallet();
+        wallet.setUserId(userId);
+        Wallet saved = walletRepository.save(wallet);
+        walletIds.created(userId, saved.getId());
+        return saved;
     }
 
     @Override
-    @Transactional(readOnly = true)
-    public BigDecimal getBalance(String userId) {
-        Wallet wallet = getWalletByUserId(userId);
-        return wallet.getBalance();
+    public Money getBalance(String userId) {
+        return balanceCache.get(userId, this::loadBalance);
+    }
+
+    /**
+     * Not transactional, so callers waiting on a concurrent identical lookup hold no connection;
+     * the wallet lookup and the replay each run in their own read-only transaction. Inside a
+     * caller's transaction the lookup runs alone, since it may see that transaction's writes, and
+     * so does a lookup pinned by a consistency token, since a shared one may have gone to a replica.
+     *
+     * <p>A null {@code timestamp} asks for the balance now, resolved when the lookup starts, so
+     * concurrent polls of the latest balance share one key. The key also carries the wallet's
+     * write generation: a caller arriving after a write has committed starts a lookup of its own
+     * rather than joining one that may predate the write.
+     */
+    @Override
+    public Money getHistoricalBalance(String userId, LocalDateTime timestamp) {
+        HistoricalBalanceKey key = new HistoricalBalanceKey(userId, timestamp, balanceCache.generation(userId));
+        return TransactionSynchronizationManager.isActualTransactionActive() || ConsistencyToken.current() != null
+            ? loadHistoricalBalance(key)
+            : historicalBalanceLoads.load(key, this::loadHistoricalBalance);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public BigDecimal getHistoricalBalance(String userId, LocalDateTime timestamp) {
-        Wallet wallet = getWalletByUserId(userId);
-        return transactionRepository
-            .findFirstByWalletIdAndCreatedAtLessThanEqualOrderByCreatedAtDesc(wallet.getId(), timestamp)
-            .map(Transaction::getBalance)
-            .orElse(wallet.getBalance());
+    public Map<String, Money> getHistoricalBalances(Collection<String> userIds, LocalDateTime timestamp) {
+        Set<String> requested = new LinkedHashSet<>(userIds);
+        Map<String, Long> ids = walletIds.walletIds(requested, this::loadWalletIds);
+
+        Map<Long, Money> byWalletId = checkpointService.balancesAt(List.copyOf(ids.values()), timestamp);
+        Map<String, Money> balances = new LinkedHashMap<>();
+        for (String userId : requested) {
+            balances.put(userId, byWalletId.get(ids.get(userId)));
+        }
+        return balances;
     }
 
     @Override
+    @RetryOnConflict
     @Transactional
-    public BigDecimal depositFunds(String userId, BigDecimal amount, String description) {
-        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+    public Money depositFunds(String userId, Money amount, String description) {
+        if (!amount.isPositive()) {
             throw new WalletException("Deposit amount must be greater than zero");
         }
+        walletIds.requireWallet(userId, walletRepository::findIdByUserId);
 
-        Wallet wallet = getWalletByUserId(userId);
-        BigDecimal newBalance = wallet.getBalance().add(amount);
-        wallet.setBalance(newBalance);
-        walletRepository.save(wallet);
-
-        createTransaction(wallet, TransactionType.DEPOSIT, amount, newBalance, description);
-        return newBalance;
+        WalletBalance wallet = balanceUpdateStrategy.credit(userId, amount);
+        balanceCache.put(userId, wallet);
+        createTransaction(userId, wallet.walletId(), TransactionType.DEPOSIT, amount, wallet.balance(), description);
+        return wallet.balance();
     }
 
     @Override
+    @RetryOnConflict
     @Transactional
-    public BigDecimal withdrawFunds(String userId, BigDecimal amount, String description) {
-        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+    public Money withdrawFunds(String userId, Money amount, String description) {
+        if (!amount.isPositive()) {
             throw new WalletException("Withdrawal amount must be greater than zero");
         }
+        walletIds.requireWallet(userId, walletRepository::findIdByUserId);
+
+        WalletBalance wallet = balanceUpdateStrategy.debit(userId, amount, "Insufficient funds");
+        balanceCache.put(userId, wallet);
+        createTransaction(userId, wallet.walletId(), TransactionType.WITHDRAWAL, amount, wallet.balance(), description);
+        return wallet.balance();
+    }
+
+    @Override
+    @RetryOnConflict
+    @Transactional
+    public void transferFunds(String fromUserId, String toUserId, Money amount, String description) {
+        if (!amount.isPositive()) {
+            throw new WalletException("Transfer amount must be greater than zero");
+        }
+        walletIds.requireWallet(fromUserId, walletRepository::findIdByUserId);
+        walletIds.requireWallet(toUserId, walletRepository::findIdByUserId);
+
+        TransferBalances balances = balanceUpdateStrategy.transfer(
+            fromUserId, toUserId, amount, "Insufficient funds for transfer");
+        balanceCache.put(fromUserId, balances.from());
+        balanceCache.put(toUserId, balances.to());
 
-        Wallet wallet = getWalletByUserId(userId);
-        if (wallet.getBalance().compareTo(amount) < 0) {
-            throw new WalletException("Insufficient funds");
+        // Both ledger legs go out in one batched insert
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        List<Transaction> legs = transactionRepository.saveAll(List.of(
+            newTransaction(balances.from(), TransactionType.TRANSFER, amount.negate(),
+                "Transfer to " + toUserId + ": " + description, now),
+            newTransaction(balances.to(), TransactionType.TRANSFER, amount,
+                "Transfer from " + fromUserId + ": " + description, now)));
+        outboxWriter.record(List.of(OutboxEvent.of(fromUserId, legs.get(0)), OutboxEvent.of(toUserId, legs.get(1))));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public TransactionPage getTransactionHistory(String userId, TransactionCursor after, int limit) {
+        if (limit <= 0 || limit > MAX_HISTORY_PAGE_SIZE) {
+            throw new WalletException("Page size must be between 1 and " + MAX_HISTORY_PAGE_SIZE);
         }
 
-        BigDecimal newBalance = wallet.getBalance().subtract(amount);
-        wallet.setBalance(newBalance);
-        walletRepository.save(wallet);
+        long walletId = walletIds.walletId(userId, walletRepository::findIdByUserId);
+        // Fetch one extra row to learn whether another page exists without a count query
+        Limit fetchLimit = Limit.of(limit + 1);
+        List<TransactionRow> rows = after == null
+            ? transactionRepository.findRowsByWalletId(walletId, fetchLimit)
+            : transactionRepository.findRowsBefore(walletId, after.createdAt(), after.id(), fetchLimit);
 
-        createTransaction(wallet, TransactionType.WITHDRAWAL, amount, newBalance, description);
-        return newBalance;
+        if (rows.size() <= limit) {
+            return new TransactionPage(rows, null);
+        }
+        List<TransactionRow> items = rows.subList(0, limit);
+        TransactionRow last = items.get(limit - 1);
+        return new TransactionPage(items, new TransactionCursor(last.createdAt(), last.id()));
+    }
+
+    /**
+     * Rows are projections rather than entities, so the persistence context stays empty however
+     * long the history is.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void streamTransactionHistory(String userId, Consumer<TransactionRow> sink) {
+        long walletId = walletIds.walletId(userId, walletRepository::findIdByUserId);
+        try (Stream<TransactionRow> rows = transactionRepository.streamRowsByWalletId(walletId)) {
+            rows.forEach(sink);
+        }
     }
 
+    /**
+     * Applies the operations in request order against wallets locked once, up front, in id order.
+     * Balances are updated in memory and flushed as one batched update per wallet alongside the
+     * batched ledger inserts. Failures never touch state, so later operations see exactly the
+     * balances they would have seen had the failed ones not been submitted.
+     */
     @Override
+    @RetryOnConflict
     @Transactional
-    public void transferFunds(String fromUserId, String toUserId, BigDecimal amount, String description) {
-        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
-            throw new WalletException("Transfer amount must be greater than zero");
+    public BatchResult applyBatch(List<BatchOperation> operations, BatchMode mode) {
+        if (operations.isEmpty() || operations.size() > MAX_BATCH_SIZE) {
+            throw new WalletException("Batch must contain between 1 and " + MAX_BATCH_SIZE + " operations");
         }
 
-        Wallet fromWallet = getWalletByUserId(fromUserId);
-        Wallet toWallet = getWalletByUserId(toUserId);
+        Map<String, Wallet> wallets = lockWallets(operations);
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        List<Transaction> ledger = new ArrayList<>();
+        List<BatchItemResult> items = new ArrayList<>(operations.size());
+        for (int i = 0; i < operations.size(); i++) {
+            try {
+                items.add(BatchItemResult.applied(i, applyOperation(operations.get(i), wallets, ledger, now)));
+            } catch (WalletException e) {
+                items.add(BatchItemResult.failed(i, e.getMessage()));
+            }
+        }
 
-        if (fromWallet.getBalance().compareTo(amount) < 0) {
-            throw new WalletException("Insufficient funds for transfer");
+        BatchResult result = BatchResult.of(mode, items);
+        if (result.committed()) {
+            transactionRepository.saveAll(ledger);
+            if (outboxWriter.enabled()) {
+                outboxWriter.record(ledger.stream()
+                    .map(transaction -> OutboxEvent.of(transaction.getWallet().getUserId(), transaction))
+                    .toList());
+            }
+            // Flush now so the versions handed to the cache are the ones actually written
+            entityManager.flush();
+            for (Wallet wallet : wallets.values()) {
+                balanceCache.put(wallet.getUserId(),
+                    new WalletBalance(wallet.getId(), wallet.getBalance(), wallet.getVersion()));
+            }
+        } else {
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+        }
+        return result;
+    }
+
+    private Map<String, Wallet> lockWallets(List<BatchOperation> operations) {
+        Set<String> userIds = new HashSet<>();
+        for (BatchOperation operation : operations) {
+            if (operation.userId() != null) {
+                userIds.add(operation.userId());
+            }
+            if (operation.type() == TransactionType.TRANSFER && operation.toUserId() != null) {
+                userIds.add(operation.toUserId());
+            }
         }
 
-        BigDecimal fromNewBalance = fromWallet.getBalance().subtract(amount);
-        BigDecimal toNewBalance = toWallet.getBalance().add(amount);
+        // Resolve ids first so the locks below are taken in one global id order across chunks
+        List<Long> ids = new ArrayList<>(userIds.size());
+        List<String> pending = new ArrayList<>(userIds);
+        for (int from = 0; from < pending.size(); from += LOCK_CHUNK_SIZE) {
+            List<String> chunk = pending.subList(from, Math.min(from + LOCK_CHUNK_SIZE, pending.size()));
+            walletRepository.findRowsByUserIdInOrderById(chunk).forEach(row -> ids.add(row.getId()));
+        }
+        Collections.sort(ids);
 
-        fromWallet.setBalance(fromNewBalance);
-        toWallet.setBalance(toNewBalance);
+        Map<String, Wallet> wallets = new HashMap<>(ids.size() * 2);
+        for (int from = 0; from < ids.size(); from += LOCK_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + LOCK_CHUNK_SIZE, ids.size()));
+            walletRepository.lockAllByIdInOrderById(chunk).forEach(wallet -> wallets.put(wallet.getUserId(), wallet));
+        }
+        return wallets;
+    }
 
-        walletRepository.save(fromWallet);
-        walletRepository.save(toWallet);
+    private Money applyOperation(BatchOperation operation, Map<String, Wallet> wallets,
+                                      List<Transaction> ledger, LocalDateTime now) {
+        if (operation.type() == null) {
+            throw new WalletException("Operation type is required");
+        }
+        if (operation.amount() == null || !operation.amount().isPositive()) {
+            throw new WalletException(switch (operation.type()) {
+                case DEPOSIT -> "Deposit amount must be greater than zero";
+                case WITHDRAWAL -> "Withdrawal amount must be greater than zero";
+                case TRANSFER -> "Transfer amount must be greater than zero";
+            });
+        }
+        Wallet wallet = lockedWallet(wallets, operation.userId());
+        Money amount = operation.amount();
+        String description = operation.description();
 
-        createTransaction(fromWallet, TransactionType.TRANSFER, amount.negate(), fromNewBalance,
-            "Transfer to " + toUserId + ": " + description);
-        createTransaction(toWallet, TransactionType.TRANSFER, amount, toNewBalance,
-            "Transfer from " + fromUserId + ": " + description);
+        switch (operation.type()) {
+            case DEPOSIT -> {
+                wallet.setBalance(wallet.getBalance().plus(amount));
+                ledger.add(ledgerEntry(wallet, TransactionType.DEPOSIT, amount, description, now));
+            }
+            case WITHDRAWAL -> {
+                if (wallet.getBalance().isLessThan(amount)) {
+                    throw new WalletException("Insufficient funds");
+                }
+                wallet.setBalance(wallet.getBalance().minus(amount));
+                ledger.add(ledgerEntry(wallet, TransactionType.WITHDRAWAL, amount, description, now));
+            }
+            case TRANSFER -> {
+                Wallet to = lockedWallet(wallets, operation.toUserId());
+                if (wallet.getBalance().isLessThan(amount)) {
+                    throw new WalletException("Insufficient funds for transfer");
+                }
+                wallet.setBalance(wallet.getBalance().minus(amount));
+                ledger.add(ledgerEntry(wallet, TransactionType.TRANSFER, amount.negate(),
+                    "Transfer to " + to.getUserId() + ": " + description, now));
+                to.setBalance(to.getBalance().plus(amount));
+                ledger.add(ledgerEntry(to, TransactionType.TRANSFER, amount,
+                    "Transfer from " + wallet.getUserId() + ": " + description, now));
+            }
+        }
+        return wallet.getBalance();
     }
 
-    @Override
-    @Transactional(readOnly = true)
-    public List<Transaction> getTransactionHistory(String userId) {
-        Wallet wallet = getWalletByUserId(userId);
-        return transactionRepository.findByWalletIdOrderByCreatedAtDesc(wallet.getId());
+    private static Wallet lockedWallet(Map<String, Wallet> wallets, String userId) {
+        Wallet wallet = userId == null ? null : wallets.get(userId);
+        if (wallet == null) {
+            throw new WalletException("Wallet not found for user: " + userId);
+        }
+        return wallet;
     }
 
-    private Wallet getWalletByUserId(String userId) {
-        return walletRepository.findByUserId(userId)
+    private static Transaction ledgerEntry(Wallet wallet, TransactionType type, Money amount,
+                                           String description, LocalDateTime createdAt) {
+        Transaction transaction = new Transaction();
+        transaction.setWallet(wallet);
+        transaction.setType(type);
+        transaction.setAmount(amount);
+        transaction.setBalance(wallet.getBalance());
+        transaction.setDescription(description);
+        transaction.setCreatedAt(createdAt);
+        return transaction;
+    }
+
+    private Money loadHistoricalBalance(HistoricalBalanceKey key) {
+        return checkpointService.balanceAt(
+            walletIds.walletId(key.userId(), walletRepository::findIdByUserId),
+            key.timestamp() != null ? key.timestamp() : LocalDateTime.now());
+    }
+
+    private Map<String, Long> loadWalletIds(Collection<String> userIds) {
+        Map<String, Long> ids = new HashMap<>(userIds.size() * 2);
+        walletRepository.findRowsByUserIdInOrderById(userIds).forEach(row -> ids.put(row.getUserId(), row.getId()));
+        return ids;
+    }
+
+    private WalletBalance loadBalance(String userId) {
+        return walletRepository.findBalanceByUserId(userId)
             .orElseThrow(() -> new WalletException("Wallet not found for user: " + userId));
     }
 
-    private void createTransaction(Wallet wallet, TransactionType type, BigDecimal amount,
-                                 BigDecimal balance, String description) {
+    private Transaction newTransaction(WalletBalance wallet, TransactionType type, Money amount,
+                                       String description, LocalDateTime createdAt) {
         Transaction transaction = new Transaction();
-        transaction.setWallet(wallet);
+        transaction.setWallet(walletRepository.getReferenceById(wallet.walletId()));
+        transaction.setType(type);
+        transaction.setAmount(amount);
+        transaction.setBalance(wallet.balance());
+        transaction.setDescription(description);
+        transaction.setCreatedAt(createdAt);
+        return transaction;
+    }
+
+    private void createTransaction(String userId, Long walletId, TransactionType type, Money amount,
+                                   Money balance, String description) {
+        Transaction transaction = new Transaction();
+        transaction.setWallet(walletRepository.getReferenceById(walletId));
         transaction.setType(type);
         transaction.setAmount(amount);
         transaction.setBalance(balance);
         transaction.setDescription(description);
         transactionRepository.save(transaction);
+        outboxWriter.record(userId, transaction);
     }
 } 
\ No newline at end of file
@@ -0,0 +1,216 @@
+package com.wallet.service.metrics;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Most-mutated wallets, tracked with the Space-Saving sketch in a fixed number of counters: a
+ * wallet that is not tracked replaces the one with the lowest count and inherits that count as
+ * its error bound. Counts are halved every {@code decay} so the ranking follows recent traffic.
+ *
+ * <p>Wallets are spread over lock-striped sketches of {@code capacity / stripes} counters each, so
+ * writers contend only with others hashing to the same stripe, and {@link #top} merges them on
+ * read. Each stripe keeps its counters in a min-heap by count, so finding the one to replace is
+ * O(1) and recording O(log capacity) without allocating once the stripe is full. Any wallet
+ * mutated more than {@code stripe mutations / stripe capacity} times is guaranteed to be tracked.
+ */
+public class HotWallets {
+    private static final int MAX_STRIPES = 16;
+    private static final int MIN_STRIPE_CAPACITY = 8;
+
+    private final Stripe[] stripes;
+    private final long decayNanos;
+    private final LongSupplier nanoClock;
+
+    public HotWallets(int capacity, Duration decay) {
+        this(capacity, decay, System::nanoTime);
+    }
+
+    HotWallets(int capacity, Duration decay, LongSupplier nanoClock) {
+        this(capacity, decay, nanoClock,
+            Math.min(MAX_STRIPES, Integer.highestOneBit(Math.max(1, capacity / MIN_STRIPE_CAPACITY))));
+    }
+
+    HotWallets(int capacity, Duration decay, LongSupplier nanoClock, int stripes) {
+        if (capacity < 1 || Integer.bitCount(stripes) != 1) {
+            throw new IllegalArgumentException("Capacity must be positive and stripes a power of two");
+        }
+        this.decayNanos = decay.toNanos();
+        this.nanoClock = nanoClock;
+        this.stripes = new Stripe[stripes];
+        int stripeCapacity = Math.max(1, (capacity + stripes - 1) / stripes);
+        long nextDecay = nanoClock.getAsLong() + decayNanos;
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new Stripe(stripeCapacity, nextDecay);
+        }
+    }
+
+    public void record(String userId) {
+        Stripe stripe = stripes[spread(userId.hashCode()) & (stripes.length - 1)];
+        stripe.lock.lock();
+        try {
+            decayIfDue(stripe);
+            stripe.record(userId);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * The {@code k} wallets with the highest estimated counts, highest first. Equal counts are
+     * ranked by their error, lowest first, so a wallet counted exactly outranks one whose count
+     * was mostly inherited from the wallet it replaced.
+     */
+    public List<HotWallet> top(int k) {
+        List<HotWallet> wallets = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                decayIfDue(stripe);
+                for (int i = 0; i < stripe.size; i++) {
+                    Slot slot = stripe.heap[i];
+                    wallets.add(new HotWallet(slot.userId, slot.count, slot.error));
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        wallets.sort(Comparator.comparingLong(HotWallet::count).reversed().thenComparingLong(HotWallet::error));
+        return List.copyOf(wallets.subList(0, Math.min(k, wallets.size())));
+    }
+
+    private void decayIfDue(Stripe stripe) {
+        long now = nanoClock.getAsLong();
+        if (now - stripe.nextDecay < 0) {
+            return;
+        }
+        stripe.nextDecay = now + decayNanos;
+        stripe.halve();
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * @param count estimated mutations, never lower than the true count
+     * @param error how much {@code count} may overestimate by
+     */
+    public record HotWallet(String userId, long count, long error) {
+    }
+
+    private static final class Slot {
+        private String userId;
+        private long count;
+        private long error;
+        private int index;
+
+        private Slot(String userId, long count, long error) {
+            this.userId = userId;
+            this.count = count;
+            this.error = error;
+        }
+    }
+
+    /** One Space-Saving sketch; every field is guarded by {@link #lock}. */
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<String, Slot> slots;
+        private final Slot[] heap;
+        private int size;
+        private long nextDecay;
+
+        private Stripe(int capacity, long nextDecay) {
+            this.slots = new HashMap<>(capacity * 2);
+            this.heap = new Slot[capacity];
+            this.nextDecay = nextDecay;
+        }
+
+        void record(String userId) {
+            Slot slot = slots.get(userId);
+            if (slot != null) {
+                slot.count++;
+                siftDown(slot.index);
+            } else if (size < heap.length) {
+                slot = new Slot(userId, 1, 0);
+                slot.index = size;
+                heap[size++] = slot;
+                slots.put(userId, slot);
+                siftUp(slot.index);
+            } else {
+                // The root holds the lowest count; its counter is handed over to the new wallet
+                Slot min = heap[0];
+                slots.remove(min.userId);
+                min.userId = userId;
+                min.error = min.count;
+                min.count++;
+                slots.put(userId, min);
+                siftDown(0);
+            }
+        }
+
+        void halve() {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                Slot slot = heap[i];
+                slot.count >>= 1;
+                slot.error >>= 1;
+                if (slot.count == 0) {
+                    slots.remove(slot.userId);
+                } else {
+                    slot.index = kept;
+                    heap[kept++] = slot;
+                }
+            }
+            for (int i = kept; i < size; i++) {
+                heap[i] = null;
+            }
+            size = kept;
+            for (int i = size / 2 - 1; i >= 0; i--) {
+                siftDown(i);
+            }
+        }
+
+        private void siftUp(int index) {
+            Slot slot = heap[index];
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (heap[parent].count <= slot.count) {
+                    break;
+                }
+                place(heap[parent], index);
+                index = parent;
+            }
+            place(slot, index);
+        }
+
+        private void siftDown(int index) {
+            Slot slot = heap[index];
+            int half = size >>> 1;
+            while (index < half) {
+                int child = 2 * index + 1;
+                int right = child + 1;
+                if (right < size && heap[right].count < heap[child].count) {
+                    child = right;
+                }
+                if (slot.count <= heap[child].count) {
+                    break;
+                }
+                place(heap[child], index);
+                index = child;
+            }
+            place(slot, index);
+        }
+
+        private void place(Slot slot, int index) {
+            heap[index] = slot;
+            slot.index = index;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.wallet.service.metrics;
+
+import com.wallet.config.InstrumentationProperties;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * {@code /actuator/hotwallets}: the most-mutated wallets by recent deposits, withdrawals and transfers.
+ */
+@Component
+@Endpoint(id = "hotwallets")
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "wallet.instrumentation", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class HotWalletsEndpoint {
+    private final HotWallets hotWallets;
+    private final InstrumentationProperties properties;
+
+    @ReadOperation
+    public List<HotWallets.HotWallet> hotWallets() {
+        return hotWallets.top(properties.hotWalletTopK());
+    }
+}
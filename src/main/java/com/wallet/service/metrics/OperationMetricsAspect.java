@@ -0,0 +1,180 @@
+package com.wallet.service.metrics;
+
+import com.wallet.exception.WalletException;
+import com.wallet.service.BatchOperation;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every {@code WalletService} operation and counts its failures by reason, along with the
+ * Hibernate statements it ran. Ordered outermost, so the measurement covers retries and the
+ * transaction commit. When one implementation delegates to another, only the outer call is
+ * measured. Reads that ran no statement, such as balance cache hits, only feed a plain timer, so
+ * the hottest path skips the histogram, the statement meters and hot-wallet tracking.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(prefix = "wallet.instrumentation", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class OperationMetricsAspect {
+    private static final Set<String> MUTATIONS = Set.of("depositFunds", "withdrawFunds", "transferFunds", "applyBatch");
+
+    private final MeterRegistry registry;
+    private final HotWallets hotWallets;
+    private final Map<String, OperationMeters> meters = new ConcurrentHashMap<>();
+
+    public OperationMetricsAspect(MeterRegistry registry, HotWallets hotWallets) {
+        this.registry = registry;
+        this.hotWallets = hotWallets;
+    }
+
+    @Around("execution(* com.wallet.service.WalletService.*(..))")
+    public Object measure(ProceedingJoinPoint joinPoint) throws Throwable {
+        StatementStats stats = StatementStats.begin();
+        if (stats == null) {
+            return joinPoint.proceed();
+        }
+
+        OperationMeters operationMeters = meters(joinPoint.getSignature().getName());
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            stats.end();
+            operationMeters.failure.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            operationMeters.errors.computeIfAbsent(reason(e), reason -> errorCounter(operationMeters.operation, reason))
+                .increment();
+            recordStatements(operationMeters, stats);
+            throw e;
+        }
+        stats.end();
+        if (stats.statements() == 0 && !operationMeters.mutation) {
+            operationMeters.cached.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+        }
+        operationMeters.success.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        recordStatements(operationMeters, stats);
+        if (operationMeters.mutation) {
+            recordMutation(operationMeters.operation, joinPoint.getArgs());
+        }
+        return result;
+    }
+
+    private static void recordStatements(OperationMeters operationMeters, StatementStats stats) {
+        if (stats.statements() > 0) {
+            operationMeters.statements.record(stats.statements());
+            operationMeters.statementTime.record(stats.nanos(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private OperationMeters meters(String operation) {
+        OperationMeters operationMeters = meters.get(operation);
+        return operationMeters != null ? operationMeters : meters.computeIfAbsent(operation, this::register);
+    }
+
+    private void recordMutation(String operation, Object[] args) {
+        switch (operation) {
+            case "depositFunds", "withdrawFunds" -> hotWallets.record((String) args[0]);
+            case "transferFunds" -> {
+                hotWallets.record((String) args[0]);
+                hotWallets.record((String) args[1]);
+            }
+            case "applyBatch" -> {
+                @SuppressWarnings("unchecked")
+                List<BatchOperation> operations = (List<BatchOperation>) args[0];
+                for (BatchOperation batchOperation : operations) {
+                    hotWallets.record(batchOperation.userId());
+                    if (batchOperation.toUserId() != null) {
+                        hotWallets.record(batchOperation.toUserId());
+                    }
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * Low-cardinality reason for a failure, derived from the messages {@link WalletException} is
+     * raised with.
+     */
+    static String reason(Throwable e) {
+        if (!(e instanceof WalletException) || e.getMessage() == null) {
+            return "unexpected";
+        }
+        String message = e.getMessage();
+        if (message.startsWith("Insufficient funds")) {
+            return "insufficient_funds";
+        }
+        if (message.startsWith("Wallet not found") || message.startsWith("Wallets not found")) {
+            return "wallet_not_found";
+        }
+        if (message.startsWith("Wallet already exists")) {
+            return "duplicate_wallet";
+        }
+        if (message.startsWith("Wallet is busy")) {
+            return "busy";
+        }
+        // Wrapped infrastructure failures rather than a rejected request
+        return e.getCause() == null ? "rejected" : "unexpected";
+    }
+
+    private OperationMeters register(String operation) {
+        return new OperationMeters(
+            operation,
+            MUTATIONS.contains(operation),
+            timer(operation, "success"),
+            Timer.builder("wallet.operation.cached")
+                .description("Latency of wallet service reads answered without a database statement")
+                .tag("operation", operation)
+                .register(registry),
+            timer(operation, "error"),
+            DistributionSummary.builder("wallet.operation.statements")
+                .description("JDBC statements and batches Hibernate executed per wallet operation")
+                .tag("operation", operation)
+                .register(registry),
+            Timer.builder("wallet.operation.statement.time")
+                .description("Time spent executing Hibernate statements per wallet operation")
+                .tag("operation", operation)
+                .register(registry),
+            new ConcurrentHashMap<>());
+    }
+
+    private Counter errorCounter(String operation, String reason) {
+        return Counter.builder("wallet.operation.errors")
+            .description("Failed wallet operations by reason")
+            .tag("operation", operation)
+            .tag("reason", reason)
+            .register(registry);
+    }
+
+    private Timer timer(String operation, String outcome) {
+        return Timer.builder("wallet.operation")
+            .description("Latency of wallet service operations")
+            .tag("operation", operation)
+            .tag("outcome", outcome)
+            .publishPercentileHistogram()
+            .register(registry);
+    }
+
+    private record OperationMeters(String operation, boolean mutation, Timer success, Timer cached, Timer failure,
+                                   DistributionSummary statements, Timer statementTime,
+                                   Map<String, Counter> errors) {
+    }
+}
@@ -0,0 +1,32 @@
+package com.wallet.service.metrics;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Times every statement and batch a Hibernate session executes, into the thread's
+ * {@link StatementStats}. Hibernate creates one per session, so the start time is never shared
+ * across threads.
+ */
+public class StatementListener implements SessionEventListener {
+    private long start;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        start = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        StatementStats.record(System.nanoTime() - start);
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        start = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        StatementStats.record(System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,47 @@
+package com.wallet.service.metrics;
+
+/**
+ * JDBC round trips Hibernate made on the current thread during the operation being measured.
+ * One instance per thread is reused; it only collects while an operation is active.
+ */
+final class StatementStats {
+    private static final ThreadLocal<StatementStats> CURRENT = ThreadLocal.withInitial(StatementStats::new);
+
+    private boolean active;
+    private int statements;
+    private long nanos;
+
+    /**
+     * Starts collecting on this thread, or returns {@code null} when an enclosing operation already is.
+     */
+    static StatementStats begin() {
+        StatementStats stats = CURRENT.get();
+        if (stats.active) {
+            return null;
+        }
+        stats.active = true;
+        stats.statements = 0;
+        stats.nanos = 0;
+        return stats;
+    }
+
+    static void record(long nanos) {
+        StatementStats stats = CURRENT.get();
+        if (stats.active) {
+            stats.statements++;
+            stats.nanos += nanos;
+        }
+    }
+
+    void end() {
+        active = false;
+    }
+
+    int statements() {
+        return statements;
+    }
+
+    long nanos() {
+        return nanos;
+    }
+}
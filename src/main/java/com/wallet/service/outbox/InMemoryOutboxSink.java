@@ -0,0 +1,49 @@
+package com.wallet.service.outbox;
+
+import com.wallet.model.OutboxEvent;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands events to in-process consumers through a bounded queue. A full queue fails the batch, which
+ * then stays in the outbox, so slow consumers push back on the relay instead of exhausting memory.
+ */
+public class InMemoryOutboxSink implements OutboxSink {
+    private final BlockingQueue<OutboxEvent> queue;
+
+    public InMemoryOutboxSink(int capacity) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    @Override
+    public void publish(List<OutboxEvent> events) throws IOException {
+        // All or nothing, so a retried batch is not partially queued twice
+        synchronized (queue) {
+            if (queue.remainingCapacity() < events.size()) {
+                throw new IOException("Outbox queue cannot take " + events.size() + " more events");
+            }
+            queue.addAll(events);
+        }
+    }
+
+    /** @return the next event, or {@code null} if none arrived within {@code timeout} */
+    public OutboxEvent poll(Duration timeout) throws InterruptedException {
+        return queue.poll(timeout.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    public List<OutboxEvent> drain(int max) {
+        List<OutboxEvent> events = new ArrayList<>(Math.min(max, queue.size()));
+        queue.drainTo(events, max);
+        return events;
+    }
+
+    public int size() {
+        return queue.size();
+    }
+}
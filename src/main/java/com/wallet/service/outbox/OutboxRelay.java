@@ -0,0 +1,135 @@
+package com.wallet.service.outbox;
+
+import com.wallet.model.OutboxEvent;
+import com.wallet.repository.OutboxRepository;
+import com.wallet.shard.ShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drains the outbox into an {@link OutboxSink}. Each worker repeatedly locks a batch of the oldest
+ * unclaimed events with {@code SKIP LOCKED}, publishes it and deletes it in one transaction, so
+ * workers here and on other instances split the backlog without coordinating. A batch is deleted
+ * only after the sink accepted it, so delivery is at least once. Concurrent workers give up global
+ * ordering: consumers that care order a wallet's events by {@code transactionId}.
+ */
+@Slf4j
+public class OutboxRelay implements AutoCloseable {
+    private final OutboxRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxSink sink;
+    private final ShardRouter router;
+    private final int batchSize;
+    private final Duration retryBackoff;
+    private final ScheduledExecutorService workers;
+    private final Counter published;
+    private final Counter failures;
+    private final Timer lag;
+
+    /**
+     * @param router the shards to drain, or {@code null} when not sharded
+     */
+    public OutboxRelay(OutboxRepository repository, TransactionTemplate transactionTemplate, OutboxSink sink,
+                       ShardRouter router, int workerCount, int batchSize, Duration pollInterval,
+                       Duration retryBackoff, MeterRegistry registry) {
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+        this.sink = sink;
+        this.router = router;
+        this.batchSize = batchSize;
+        this.retryBackoff = retryBackoff;
+        this.published = Counter.builder("wallet.outbox.published")
+            .description("Outbox events handed to the sink")
+            .register(registry);
+        this.failures = Counter.builder("wallet.outbox.failures")
+            .description("Outbox batches the sink rejected or that could not be claimed")
+            .register(registry);
+        this.lag = Timer.builder("wallet.outbox.lag")
+            .description("Time from a ledger write to its event being published")
+            .register(registry);
+        AtomicInteger threads = new AtomicInteger();
+        this.workers = Executors.newScheduledThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "wallet-outbox-relay-" + threads.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = pollInterval.toNanos();
+        for (int i = 0; i < workerCount; i++) {
+            workers.scheduleWithFixedDelay(this::relaySafely, interval, interval, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Publishes events until the outbox of every shard is empty or held by other workers.
+     *
+     * @return the number of events published
+     */
+    public int relayAll() {
+        int total = 0;
+        for (String shard : router != null ? router.shards() : Collections.<String>singletonList(null)) {
+            int count;
+            do {
+                count = shard == null ? relayBatch() : router.onShard(shard, this::relayBatch);
+                total += count;
+            } while (count == batchSize && !Thread.currentThread().isInterrupted());
+        }
+        return total;
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        workers.shutdownNow();
+        workers.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private void relaySafely() {
+        try {
+            relayAll();
+        } catch (RuntimeException e) {
+            failures.increment();
+            log.warn("Outbox relay failed; retrying in {}", retryBackoff, e);
+            try {
+                Thread.sleep(retryBackoff.toMillis());
+            } catch (InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private int relayBatch() {
+        List<OutboxEvent> batch = transactionTemplate.execute(status -> {
+            List<OutboxEvent> events = repository.lockNext(batchSize);
+            if (!events.isEmpty()) {
+                try {
+                    sink.publish(events);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                repository.delete(events);
+            }
+            return events;
+        });
+        if (batch == null || batch.isEmpty()) {
+            return 0;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        published.increment(batch.size());
+        batch.forEach(event -> lag.record(Duration.between(event.getCreatedAt(), now)));
+        return batch.size();
+    }
+}
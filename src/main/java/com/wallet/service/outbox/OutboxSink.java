@@ -0,0 +1,19 @@
+package com.wallet.service.outbox;
+
+import com.wallet.model.OutboxEvent;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Where the {@link OutboxRelay} publishes events. Define a bean of this type to replace the sink
+ * chosen by {@code wallet.outbox.sink}.
+ */
+public interface OutboxSink {
+
+    /**
+     * Publishes a batch in outbox order. Called from several relay workers at once. Throwing leaves
+     * the whole batch in the outbox to be published again, so a batch may be seen twice.
+     */
+    void publish(List<OutboxEvent> events) throws IOException;
+}
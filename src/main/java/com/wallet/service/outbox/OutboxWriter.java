@@ -0,0 +1,43 @@
+package com.wallet.service.outbox;
+
+import com.wallet.config.OutboxProperties;
+import com.wallet.model.OutboxEvent;
+import com.wallet.model.Transaction;
+import com.wallet.repository.OutboxRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Records an {@link OutboxEvent} for every ledger row, in the transaction writing the row, when
+ * {@code wallet.outbox.enabled} is set; otherwise does nothing, so the write paths stay one
+ * statement shorter.
+ */
+@Component
+public class OutboxWriter {
+    private final OutboxRepository repository;
+    private final boolean enabled;
+
+    public OutboxWriter(OutboxRepository repository, OutboxProperties properties) {
+        this.repository = repository;
+        this.enabled = properties.enabled();
+    }
+
+    public boolean enabled() {
+        return enabled;
+    }
+
+    /** Must run after {@code transaction} was saved, so it has its id and creation time. */
+    public void record(String userId, Transaction transaction) {
+        if (enabled) {
+            repository.append(List.of(OutboxEvent.of(userId, transaction)));
+        }
+    }
+
+    public void record(Collection<OutboxEvent> events) {
+        if (enabled && !events.isEmpty()) {
+            repository.append(events);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.wallet.service.ratelimit;
+
+import java.time.Duration;
+
+/**
+ * A concurrency limit that follows the latency of the work it admits, additive-increase /
+ * multiplicative-decrease. Each completion slower than {@code targetLatency}, or failed, shrinks
+ * the limit by {@code backoffRatio}, at most once per {@code targetLatency} so one slow burst does
+ * not collapse it. Completions within target grow it by about one per limit's worth of them, but
+ * only while at least half of it is in use, so an idle service does not drift to the maximum.
+ * Callers over the limit are turned away at once rather than queued.
+ */
+public class AdaptiveConcurrencyLimit {
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetNanos;
+    private final double backoffRatio;
+    private double limit;
+    private int inFlight;
+    private long lastDecrease;
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, Duration targetLatency,
+                                    double backoffRatio) {
+        if (minLimit < 1 || minLimit > maxLimit || backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("Need 1 <= min <= max and a backoff ratio in (0, 1)");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.targetNanos = targetLatency.toNanos();
+        this.backoffRatio = backoffRatio;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.lastDecrease = System.nanoTime() - targetNanos;
+    }
+
+    public synchronized boolean tryAcquire() {
+        if (inFlight >= (int) limit) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    /**
+     * Releases a permit taken by {@link #tryAcquire}, feeding back how the admitted work went.
+     */
+    public void release(long latencyNanos, boolean failed) {
+        release(latencyNanos, failed, System.nanoTime());
+    }
+
+    synchronized void release(long latencyNanos, boolean failed, long nowNanos) {
+        int busy = inFlight--;
+        if (failed || latencyNanos > targetNanos) {
+            if (nowNanos - lastDecrease >= targetNanos) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+                lastDecrease = nowNanos;
+            }
+        } else if (busy * 2 >= limit) {
+            limit = Math.min(maxLimit, limit + 1 / limit);
+        }
+    }
+
+    public synchronized int limit() {
+        return (int) limit;
+    }
+
+    public synchronized int inFlight() {
+        return inFlight;
+    }
+}
@@ -0,0 +1,109 @@
+package com.wallet.service.ratelimit;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Token buckets by key, refilled at {@code ratePerSecond} up to {@code burst} tokens. Keys are
+ * spread over lock-striped hash maps, so callers contend only with others hashing to the same
+ * stripe, and a bucket is updated under its stripe's lock without allocating.
+ *
+ * <p>A bucket left alone long enough to refill completely is indistinguishable from a new one, so
+ * each stripe drops buckets idle for {@code idleTimeout} (at least that refill time) whenever it
+ * is next used after a sweep is due. Memory is then bounded by the keys active within that window.
+ */
+public class TokenBuckets {
+    private final Stripe[] stripes;
+    private final double tokensPerNano;
+    private final double burst;
+    private final long idleNanos;
+
+    public TokenBuckets(double ratePerSecond, int burst, Duration idleTimeout, int stripes) {
+        if (ratePerSecond <= 0 || burst < 1 || Integer.bitCount(stripes) != 1) {
+            throw new IllegalArgumentException("Rate and burst must be positive and stripes a power of two");
+        }
+        this.tokensPerNano = ratePerSecond / 1e9;
+        this.burst = burst;
+        this.idleNanos = Math.max(idleTimeout.toNanos(), (long) Math.ceil(burst / tokensPerNano));
+        this.stripes = new Stripe[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Takes a token from {@code key}'s bucket.
+     *
+     * @return 0 if a token was taken, otherwise the nanoseconds until one will be available
+     */
+    public long tryAcquire(String key, long nowNanos) {
+        Stripe stripe = stripes[spread(key.hashCode()) & (stripes.length - 1)];
+        stripe.lock.lock();
+        try {
+            if (stripe.buckets.isEmpty() || nowNanos - stripe.nextSweep >= 0) {
+                stripe.sweep(nowNanos - idleNanos);
+                stripe.nextSweep = nowNanos + idleNanos;
+            }
+            Bucket bucket = stripe.buckets.get(key);
+            if (bucket == null) {
+                bucket = new Bucket(burst, nowNanos);
+                stripe.buckets.put(key, bucket);
+            } else {
+                bucket.tokens = Math.min(burst, bucket.tokens + (nowNanos - bucket.refilledAt) * tokensPerNano);
+                bucket.refilledAt = nowNanos;
+            }
+            if (bucket.tokens >= 1) {
+                bucket.tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - bucket.tokens) / tokensPerNano);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /** Keys currently tracked, including idle ones not swept yet. */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                size += stripe.buckets.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<String, Bucket> buckets = new HashMap<>();
+        private long nextSweep;
+
+        void sweep(long idleBefore) {
+            for (Iterator<Bucket> it = buckets.values().iterator(); it.hasNext(); ) {
+                if (it.next().refilledAt - idleBefore < 0) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    private static final class Bucket {
+        private double tokens;
+        private long refilledAt;
+
+        Bucket(double tokens, long refilledAt) {
+            this.tokens = tokens;
+            this.refilledAt = refilledAt;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.wallet.service.retention;
+
+import com.wallet.config.RetentionProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RetentionScheduler {
+    private final TransactionPartitions partitions;
+    private final TransactionArchiver archiver;
+    private final RetentionProperties properties;
+
+    @Scheduled(cron = "${wallet.retention.cron:0 30 2 * * *}")
+    public void maintain() {
+        YearMonth current = YearMonth.now();
+        partitions.createAhead(current);
+        if (properties.enabled()) {
+            int archived = archiver.archiveExpired(current);
+            if (archived > 0) {
+                log.debug("Archived {} months of transactions", archived);
+            }
+        }
+    }
+}
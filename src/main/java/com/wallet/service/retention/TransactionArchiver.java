@@ -0,0 +1,166 @@
+package com.wallet.service.retention;
+
+import com.wallet.config.RetentionProperties;
+import com.wallet.service.BalanceCheckpointService;
+import com.wallet.shard.ShardContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Moves whole months of transactions off the database. A month is archived in three steps, each
+ * safe to repeat if a later one fails:
+ * <ol>
+ *   <li>checkpoint every wallet active in the month at the first instant of the next month, so
+ *       historical balances no longer need the month's rows;</li>
+ *   <li>stream the rows to {@code transactions-YYYY-MM.csv.gz} ({@code transactions-YYYY-MM-<shard>.csv.gz}
+ *       when sharded), written to a temporary file and
+ *       moved into place once complete;</li>
+ *   <li>drop the month's partition, or delete its rows in batches when it has none.</li>
+ * </ol>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TransactionArchiver {
+    private static final String HEADER = "id,wallet_id,type,amount,balance,description,created_at";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionPartitions partitions;
+    private final BalanceCheckpointService checkpointService;
+    private final RetentionProperties properties;
+
+    /**
+     * Archives every month older than the {@code retainMonths} full months before {@code current},
+     * oldest first.
+     *
+     * @return number of months archived
+     */
+    public int archiveExpired(YearMonth current) {
+        YearMonth cutoff = current.minusMonths(properties.retainMonths());
+        int archived = 0;
+        for (YearMonth month : partitions.months()) {
+            if (month.isBefore(cutoff)) {
+                archive(month);
+                archived++;
+            }
+        }
+        // Unpartitioned tables, and rows that fell into the default partition
+        for (Optional<YearMonth> oldest = oldestMonth(); oldest.filter(m -> m.isBefore(cutoff)).isPresent();
+             oldest = oldestMonth()) {
+            archive(oldest.get());
+            archived++;
+        }
+        return archived;
+    }
+
+    /**
+     * Archives one month of transactions.
+     *
+     * @return number of rows exported
+     */
+    public long archive(YearMonth month) {
+        LocalDateTime from = month.atDay(1).atStartOfDay();
+        LocalDateTime cutoff = month.plusMonths(1).atDay(1).atStartOfDay();
+
+        int checkpoints = checkpointService.writeArchiveCheckpoints(from, cutoff);
+        long rows = export(month, from, cutoff);
+        if (!partitions.drop(month)) {
+            delete(from, cutoff);
+        }
+        log.info("Archived {} transactions from {} with {} checkpoints", rows, month, checkpoints);
+        return rows;
+    }
+
+    private long export(YearMonth month, LocalDateTime from, LocalDateTime cutoff) {
+        try {
+            Files.createDirectories(properties.archiveDir());
+            // Each shard archives its own rows of the month
+            String shard = ShardContext.current() != null ? "-" + ShardContext.current() : "";
+            Path target = properties.archiveDir().resolve("transactions-" + month + shard + ".csv.gz");
+            Path temp = properties.archiveDir().resolve(target.getFileName() + ".tmp");
+            long rows;
+            try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                    new GZIPOutputStream(Files.newOutputStream(temp)), StandardCharsets.UTF_8))) {
+                out.write(HEADER);
+                out.write('\n');
+                rows = stream(from, cutoff, out);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return rows;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not archive transactions for " + month, e);
+        }
+    }
+
+    private long stream(LocalDateTime from, LocalDateTime cutoff, Writer out) {
+        // Postgres only honours the fetch size inside a transaction
+        return transactionTemplate.execute(status -> {
+            long[] rows = {0};
+            JdbcTemplate streaming = new JdbcTemplate(jdbcTemplate.getDataSource());
+            streaming.setFetchSize(properties.batchSize());
+            streaming.query("""
+                    select id, wallet_id, type, amount, balance, description, created_at from transactions
+                    where created_at >= ? and created_at < ?
+                    order by created_at, id
+                    """,
+                rs -> {
+                    try {
+                        out.write(rs.getLong(1) + "," + rs.getLong(2) + "," + rs.getString(3) + ","
+                            + rs.getBigDecimal(4).toPlainString() + "," + rs.getBigDecimal(5).toPlainString() + ","
+                            + csv(rs.getString(6)) + "," + rs.getTimestamp(7).toLocalDateTime() + "\n");
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    rows[0]++;
+                },
+                Timestamp.valueOf(from), Timestamp.valueOf(cutoff));
+            return rows[0];
+        });
+    }
+
+    private void delete(LocalDateTime from, LocalDateTime cutoff) {
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update("""
+                delete from transactions where created_at >= ? and created_at < ? and id in (
+                    select id from transactions where created_at >= ? and created_at < ?
+                    fetch first ? rows only)
+                """, Timestamp.valueOf(from), Timestamp.valueOf(cutoff),
+                Timestamp.valueOf(from), Timestamp.valueOf(cutoff), properties.batchSize());
+        } while (deleted > 0);
+    }
+
+    private Optional<YearMonth> oldestMonth() {
+        return Optional.ofNullable(jdbcTemplate.queryForObject("select min(created_at) from transactions", Timestamp.class))
+            .map(min -> YearMonth.from(min.toLocalDateTime()));
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,119 @@
+package com.wallet.service.retention;
+
+import com.wallet.config.RetentionProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Maintains the monthly range partitions of {@code transactions} on Postgres, where
+ * {@code schema-postgresql.sql} creates the table partitioned by {@code created_at}. Partitions
+ * are created {@code monthsAhead} months in advance so inserts never land in the default
+ * partition. On H2, or on a Postgres table created before partitioning, every operation is a
+ * no-op and cold months are removed by range delete instead.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TransactionPartitions {
+    private static final Pattern PARTITION_NAME = Pattern.compile("transactions_p(\\d{4})_(\\d{2})");
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("'transactions_p'uuuu_MM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RetentionProperties properties;
+    private Boolean partitioned;
+
+    /**
+     * Runs once the application is ready rather than while the context refreshes, so a refresh
+     * alone, such as the CDS training run, never needs a database.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void createOnStartup() {
+        createAhead(YearMonth.now());
+    }
+
+    /**
+     * Whether {@code transactions} is a partitioned table, resolved once.
+     */
+    public boolean partitioned() {
+        if (partitioned == null) {
+            String product = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            partitioned = "PostgreSQL".equals(product) && Objects.requireNonNullElse(jdbcTemplate.queryForObject(
+                "select count(*) > 0 from pg_partitioned_table where partrelid = to_regclass('transactions')",
+                Boolean.class), false);
+            if (!partitioned) {
+                log.info("transactions is not partitioned; cold months are archived by range delete");
+            }
+        }
+        return partitioned;
+    }
+
+    /**
+     * Creates the partitions for {@code current} and the {@code monthsAhead} months after it.
+     */
+    public void createAhead(YearMonth current) {
+        if (!partitioned()) {
+            return;
+        }
+        for (int i = 0; i <= properties.monthsAhead(); i++) {
+            YearMonth month = current.plusMonths(i);
+            try {
+                jdbcTemplate.execute("create table if not exists " + name(month)
+                    + " partition of transactions for values from ('" + month.atDay(1)
+                    + "') to ('" + month.plusMonths(1).atDay(1) + "')");
+            } catch (RuntimeException e) {
+                // Fails when the default partition already holds rows for this month
+                log.error("Could not create transaction partition {}", name(month), e);
+            }
+        }
+    }
+
+    /**
+     * Months that currently have a partition, oldest first.
+     */
+    public List<YearMonth> months() {
+        if (!partitioned()) {
+            return List.of();
+        }
+        return jdbcTemplate.queryForList("""
+                select c.relname from pg_inherits i join pg_class c on c.oid = i.inhrelid
+                where i.inhparent = to_regclass('transactions')
+                """, String.class).stream()
+            .map(PARTITION_NAME::matcher)
+            .filter(Matcher::matches)
+            .map(m -> YearMonth.of(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2))))
+            .sorted()
+            .toList();
+    }
+
+    /**
+     * Detaches and drops the partition of {@code month}, if it has one.
+     *
+     * @return whether a partition was dropped
+     */
+    public boolean drop(YearMonth month) {
+        if (!months().contains(month)) {
+            return false;
+        }
+        jdbcTemplate.execute("alter table transactions detach partition " + name(month));
+        jdbcTemplate.execute("drop table " + name(month));
+        log.info("Dropped transaction partition {}", name(month));
+        return true;
+    }
+
+    static String name(YearMonth month) {
+        return NAME_FORMAT.format(month);
+    }
+}
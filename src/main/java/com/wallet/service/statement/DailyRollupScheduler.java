@@ -0,0 +1,20 @@
+package com.wallet.service.statement;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "wallet.rollups", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class DailyRollupScheduler {
+    private final StatementService statementService;
+
+    @Scheduled(cron = "${wallet.rollups.cron:0 15 * * * *}")
+    public void rollUp() {
+        statementService.rollUp(statementService.lastSettledDay(LocalDateTime.now()));
+    }
+}
@@ -0,0 +1,21 @@
+package com.wallet.service.statement;
+
+import com.wallet.model.Money;
+import com.wallet.repository.TypeTotals;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A wallet's activity over {@code [from, to)}: its balance just before and at the end of the
+ * range, and totals for every transaction type, zero where there was none.
+ */
+public record Statement(
+    String userId,
+    LocalDateTime from,
+    LocalDateTime to,
+    Money openingBalance,
+    Money closingBalance,
+    List<TypeTotals> totals
+) {
+}
@@ -0,0 +1,115 @@
+package com.wallet.service.statement;
+
+import com.wallet.config.RollupProperties;
+import com.wallet.exception.WalletException;
+import com.wallet.model.TransactionType;
+import com.wallet.repository.DailyRollupRepository;
+import com.wallet.repository.TypeTotals;
+import com.wallet.repository.WalletRepository;
+import com.wallet.service.BalanceCheckpointService;
+import com.wallet.service.cache.WalletIdCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Rolls the ledger up into per-wallet daily totals once each day has settled, and answers
+ * statements from them: whole rolled-up days cost one row per type each, and only the partial
+ * days at either edge of the range, plus any days not rolled up yet, are summed from the ledger.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StatementService {
+    private final DailyRollupRepository rollupRepository;
+    private final WalletRepository walletRepository;
+    private final WalletIdCache walletIds;
+    private final BalanceCheckpointService checkpointService;
+    private final TransactionTemplate transactionTemplate;
+    private final RollupProperties properties;
+
+    @Transactional(readOnly = true)
+    public Statement statement(String userId, LocalDateTime from, LocalDateTime to) {
+        if (!to.isAfter(from)) {
+            throw new WalletException("Statement range must end after it starts");
+        }
+        long walletId = walletIds.walletId(userId, walletRepository::findIdByUserId);
+
+        Map<TransactionType, TypeTotals> totals = new EnumMap<>(TransactionType.class);
+        for (TransactionType type : TransactionType.values()) {
+            totals.put(type, TypeTotals.zero(type));
+        }
+
+        // Rollups cover the whole days in [firstDay, lastDay), the ledger the rest of the range
+        LocalDate firstDay = from.equals(from.toLocalDate().atStartOfDay())
+            ? from.toLocalDate() : from.toLocalDate().plusDays(1);
+        LocalDate lastDay = rollupRepository.findLatestDay()
+            .map(latest -> min(latest.plusDays(1), to.toLocalDate()))
+            .orElse(firstDay);
+        if (firstDay.isBefore(lastDay)) {
+            add(totals, rollupRepository.sumRollups(walletId, firstDay, lastDay));
+            if (from.isBefore(firstDay.atStartOfDay())) {
+                add(totals, rollupRepository.sumLedger(walletId, from, firstDay.atStartOfDay()));
+            }
+            if (lastDay.atStartOfDay().isBefore(to)) {
+                add(totals, rollupRepository.sumLedger(walletId, lastDay.atStartOfDay(), to));
+            }
+        } else {
+            add(totals, rollupRepository.sumLedger(walletId, from, to));
+        }
+
+        // Timestamps are stored in microseconds, so these are the balances before from and before to
+        return new Statement(userId, from, to,
+            checkpointService.balanceAt(walletId, from.minus(1, ChronoUnit.MICROS)),
+            checkpointService.balanceAt(walletId, to.minus(1, ChronoUnit.MICROS)),
+            new ArrayList<>(totals.values()));
+    }
+
+    /**
+     * Rolls up every day after the last one rolled up, through {@code lastDay}, each day in its own
+     * transaction.
+     *
+     * @return number of days rolled up
+     */
+    public int rollUp(LocalDate lastDay) {
+        Optional<LocalDate> next = rollupRepository.findLatestDay().map(day -> day.plusDays(1))
+            .or(() -> rollupRepository.findFirstTransactionAt().map(LocalDateTime::toLocalDate));
+        if (next.isEmpty()) {
+            return 0;
+        }
+        int days = 0;
+        for (LocalDate day = next.get(); !day.isAfter(lastDay); day = day.plusDays(1)) {
+            LocalDate rolled = day;
+            int rollups = transactionTemplate.execute(status -> rollupRepository.rollUp(rolled));
+            log.debug("Rolled up {} into {} daily rollups", rolled, rollups);
+            days++;
+        }
+        return days;
+    }
+
+    /** The last day that has settled by {@code now}. */
+    public LocalDate lastSettledDay(LocalDateTime now) {
+        return now.minus(properties.settleDelay()).toLocalDate().minusDays(1);
+    }
+
+    private static void add(Map<TransactionType, TypeTotals> totals, List<TypeTotals> rows) {
+        for (TypeTotals row : rows) {
+            totals.merge(row.type(), row, TypeTotals::plus);
+        }
+    }
+
+    private static LocalDate min(LocalDate a, LocalDate b) {
+        return a.isBefore(b) ? a : b;
+    }
+}
@@ -0,0 +1,194 @@
+package com.wallet.shard;
+
+import com.wallet.exception.WalletException;
+import com.wallet.model.Money;
+import com.wallet.model.TransferSaga;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transfers between wallets on different shards as a saga of single-shard transactions, since no
+ * transaction spans two databases: debit the sender and record the saga, then credit the recipient
+ * at most once, then mark the saga completed. A crash between the steps leaves the saga
+ * {@code DEBITED}; a background task finds those older than the saga timeout on every shard and
+ * drives them to the end. Money is never created: until the credit lands it is simply in flight.
+ */
+@Slf4j
+public class CrossShardTransfers implements AutoCloseable {
+    private static final int RECOVERY_BATCH_SIZE = 100;
+
+    private final ShardRouter router;
+    private final TransferLegs legs;
+    private final Duration sagaTimeout;
+    private final ScheduledExecutorService recovery;
+    private final Counter completed;
+    private final Counter compensated;
+    private final Counter recovered;
+
+    public CrossShardTransfers(ShardRouter router, TransferLegs legs, Duration recoveryInterval,
+                               Duration sagaTimeout, MeterRegistry registry) {
+        this.router = router;
+        this.legs = legs;
+        this.sagaTimeout = sagaTimeout;
+        this.completed = Counter.builder("wallet.sharding.transfers")
+            .description("Cross-shard transfers by outcome")
+            .tag("outcome", "completed")
+            .register(registry);
+        this.compensated = Counter.builder("wallet.sharding.transfers")
+            .description("Cross-shard transfers by outcome")
+            .tag("outcome", "compensated")
+            .register(registry);
+        this.recovered = Counter.builder("wallet.sharding.transfers.recovered")
+            .description("Cross-shard transfers finished by recovery rather than by their request")
+            .register(registry);
+        this.recovery = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "wallet-saga-recovery");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = recoveryInterval.toMillis();
+        recovery.scheduleWithFixedDelay(this::recoverAll, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Moves {@code amount} from a wallet on {@code fromShard} to one on another shard. Inside a
+     * transaction on {@code fromShard} the debit joins it and the credit follows its commit.
+     *
+     * @return the sender's balance after the debit
+     */
+    public Money transfer(String fromShard, String fromUserId, String toUserId, Money amount, String description) {
+        if (amount == null || !amount.isPositive()) {
+            throw new WalletException("Transfer amount must be greater than zero");
+        }
+        // Checked up front so the usual case of a mistyped recipient never debits anything
+        if (!router.exists(router.locate(toUserId), toUserId)) {
+            throw new WalletException("Wallet not found for user: " + toUserId);
+        }
+
+        LocalDateTime now = TransferLegs.now();
+        TransferSaga saga = new TransferSaga();
+        saga.setId(UUID.randomUUID().toString());
+        saga.setFromUserId(fromUserId);
+        saga.setToUserId(toUserId);
+        saga.setAmount(amount);
+        saga.setDescription(description);
+        saga.setStatus(TransferSaga.Status.DEBITED);
+        saga.setCreatedAt(now);
+        saga.setUpdatedAt(now);
+        Money balance = router.onShard(fromShard, () -> legs.debit(saga)).balance();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    try {
+                        finish(fromShard, saga);
+                    } catch (RuntimeException e) {
+                        log.warn("Cross-shard transfer {} left for recovery", saga.getId(), e);
+                    }
+                }
+            });
+            return balance;
+        }
+        try {
+            finish(fromShard, saga);
+        } catch (WalletException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            // The debit is durable, so recovery completes the transfer; failing the call would only
+            // invite the client to send it again
+            log.warn("Cross-shard transfer {} left for recovery", saga.getId(), e);
+        }
+        return balance;
+    }
+
+    /**
+     * Credits the recipient, unless that already happened, and completes the saga; refunds the
+     * sender instead if the recipient's wallet is gone.
+     *
+     * @throws WalletException if the saga was compensated
+     */
+    void finish(String shard, TransferSaga saga) {
+        try {
+            credit(saga);
+        } catch (WalletException e) {
+            if (!e.getMessage().startsWith("Wallet not found")) {
+                throw e;
+            }
+            if (router.onShard(shard, () -> legs.compensate(saga))) {
+                compensated.increment();
+            }
+            throw e;
+        }
+        if (router.onShard(shard, () -> legs.complete(saga.getId()))) {
+            completed.increment();
+        }
+    }
+
+    private void credit(TransferSaga saga) {
+        String toUserId = saga.getToUserId();
+        String shard = router.locate(toUserId);
+        try {
+            router.onShard(shard, () -> legs.credit(saga));
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Cross-shard transfer {} was credited before", saga.getId());
+        } catch (WalletException e) {
+            // The wallet may have just been moved to its new shard
+            String moved = router.resharding() ? router.locate(toUserId) : shard;
+            if (moved.equals(shard) || !e.getMessage().startsWith("Wallet not found")) {
+                throw e;
+            }
+            try {
+                router.onShard(moved, () -> legs.credit(saga));
+            } catch (DataIntegrityViolationException duplicate) {
+                log.debug("Cross-shard transfer {} was credited before", saga.getId());
+            }
+        }
+    }
+
+    /**
+     * Finishes sagas left {@code DEBITED} for longer than the saga timeout, up to a batch per shard
+     * per run.
+     */
+    public void recoverAll() {
+        for (String shard : router.shards()) {
+            try {
+                recover(shard);
+            } catch (RuntimeException e) {
+                log.warn("Cross-shard transfer recovery failed on shard {}", shard, e);
+            }
+        }
+    }
+
+    private void recover(String shard) {
+        LocalDateTime before = TransferLegs.now().minus(sagaTimeout);
+        for (String sagaId : router.onShard(shard, () -> legs.findStale(before, RECOVERY_BATCH_SIZE))) {
+            TransferSaga saga = router.onShard(shard, () -> legs.find(sagaId)).orElse(null);
+            if (saga == null || saga.getStatus() != TransferSaga.Status.DEBITED) {
+                continue;
+            }
+            try {
+                finish(shard, saga);
+            } catch (WalletException e) {
+                log.info("Cross-shard transfer {} not completed: {}", sagaId, e.getMessage());
+            }
+            recovered.increment();
+        }
+    }
+
+    @Override
+    public void close() {
+        recovery.shutdownNow();
+    }
+}
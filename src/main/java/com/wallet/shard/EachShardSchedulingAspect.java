@@ -0,0 +1,37 @@
+package com.wallet.shard;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+
+/**
+ * Runs every scheduled maintenance task (checkpoints, partition upkeep, purges) once per shard,
+ * with that shard bound, since each shard holds its own slice of the tables they maintain. A
+ * failure on one shard does not keep the others from running; the first is rethrown at the end.
+ */
+@Aspect
+@RequiredArgsConstructor
+public class EachShardSchedulingAspect {
+    private final ShardRouter router;
+
+    @Around("@annotation(org.springframework.scheduling.annotation.Scheduled) && within(com.wallet..*)")
+    public Object onEachShard(ProceedingJoinPoint joinPoint) throws Throwable {
+        Throwable failure = null;
+        for (String shard : router.shards()) {
+            try (ShardContext.Scope scope = ShardContext.bind(shard)) {
+                joinPoint.proceed();
+            } catch (Throwable e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,36 @@
+package com.wallet.shard;
+
+/**
+ * The shard the current thread's database work goes to. Bind it before a transaction starts:
+ * connections are routed when they are opened, and a transaction keeps its connection.
+ */
+public final class ShardContext {
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    /** The bound shard, or {@code null} for the default one. */
+    public static String current() {
+        return CURRENT.get();
+    }
+
+    /** Binds {@code shard} to the current thread until the returned scope is closed. */
+    public static Scope bind(String shard) {
+        String previous = CURRENT.get();
+        CURRENT.set(shard);
+        return () -> {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,204 @@
+package com.wallet.shard;
+
+import com.wallet.service.cache.BalanceCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Moves wallets to the shard the current ring gives them while shards are being added, with the
+ * service online. A wallet moves with its checkpoints, daily rollups, received-transfer markers and
+ * ledger, whose rows keep their ids, in a transaction on each shard:
+ * <ol>
+ *   <li>on the old shard, lock the wallet row, which holds back its writers until the move ends;</li>
+ *   <li>on the new shard, replace whatever an interrupted earlier move left there with a fresh
+ *       copy, and commit;</li>
+ *   <li>delete the wallet from the old shard and commit, releasing the writers, who then find it
+ *       gone and look it up again on the new shard.</li>
+ * </ol>
+ * Until the last step commits the old shard is authoritative, so a move that fails half-way is
+ * simply repeated. Wallets with an outgoing cross-shard transfer still in flight are skipped for
+ * the next pass, since the transfer's saga stays on the old shard.
+ */
+@Slf4j
+public class ShardRebalancer implements AutoCloseable {
+    private final ShardRouter router;
+    private final BalanceCache balanceCache;
+    private final int batchSize;
+    private final Map<String, JdbcTemplate> jdbcTemplates = new HashMap<>();
+    private final Map<String, TransactionTemplate> transactionTemplates = new HashMap<>();
+    private final ReentrantLock running = new ReentrantLock();
+    private final ExecutorService executor;
+    private final Counter moved;
+
+    public ShardRebalancer(ShardRouter router, ShardRoutingDataSource dataSource, BalanceCache balanceCache,
+                           int batchSize, MeterRegistry registry) {
+        this.router = router;
+        this.balanceCache = balanceCache;
+        this.batchSize = batchSize;
+        for (String shard : router.shards()) {
+            DataSource pool = dataSource.shard(shard);
+            jdbcTemplates.put(shard, new JdbcTemplate(pool));
+            transactionTemplates.put(shard, new TransactionTemplate(new DataSourceTransactionManager(pool)));
+        }
+        this.moved = Counter.builder("wallet.sharding.wallets.moved")
+            .description("Wallets moved to another shard by rebalancing")
+            .register(registry);
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "wallet-shard-rebalancer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebalanceInBackground() {
+        if (router.resharding()) {
+            executor.execute(() -> {
+                try {
+                    rebalance();
+                } catch (RuntimeException e) {
+                    log.error("Shard rebalancing failed; it resumes on the next start", e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Moves every misplaced wallet, one pass over each shard. Concurrent calls wait for the pass in
+     * progress and then make their own.
+     *
+     * @return number of wallets moved
+     */
+    public int rebalance() {
+        running.lock();
+        try {
+            int total = 0;
+            int skipped = 0;
+            for (String shard : router.shards()) {
+                long after = 0;
+                List<Map<String, Object>> page;
+                do {
+                    page = jdbcTemplates.get(shard).queryForList(
+                        "select id, user_id from wallets where id > ? order by id fetch first ? rows only",
+                        after, batchSize);
+                    for (Map<String, Object> row : page) {
+                        after = ((Number) row.get("id")).longValue();
+                        String userId = (String) row.get("user_id");
+                        String target = router.shardFor(userId);
+                        if (target.equals(shard)) {
+                            continue;
+                        }
+                        if (move(userId, shard, target)) {
+                            total++;
+                        } else {
+                            skipped++;
+                        }
+                    }
+                } while (page.size() == batchSize);
+            }
+            if (skipped > 0) {
+                log.info("Moved {} wallets between shards; {} skipped until their transfers finish", total, skipped);
+            } else {
+                log.info("Moved {} wallets between shards; every wallet is on its shard", total);
+            }
+            return total;
+        } finally {
+            running.unlock();
+        }
+    }
+
+    private boolean move(String userId, String from, String to) {
+        JdbcTemplate source = jdbcTemplates.get(from);
+        JdbcTemplate target = jdbcTemplates.get(to);
+        Boolean done = transactionTemplates.get(from).execute(sourceStatus -> {
+            List<Map<String, Object>> wallets = source.queryForList("""
+                select id, user_id, balance, version, created_at, updated_at from wallets
+                where user_id = ? for update
+                """, userId);
+            if (wallets.isEmpty()) {
+                return false;
+            }
+            Integer inFlight = source.queryForObject(
+                "select count(*) from transfer_sagas where from_user_id = ? and status = 'DEBITED'",
+                Integer.class, userId);
+            if (inFlight != null && inFlight > 0) {
+                return false;
+            }
+            Map<String, Object> wallet = wallets.get(0);
+            long walletId = ((Number) wallet.get("id")).longValue();
+
+            transactionTemplates.get(to).executeWithoutResult(targetStatus -> {
+                delete(target, walletId, userId);
+                target.update("""
+                    insert into wallets (id, user_id, balance, version, created_at, updated_at)
+                    values (?, ?, ?, ?, ?, ?)
+                    """, wallet.get("id"), wallet.get("user_id"), wallet.get("balance"), wallet.get("version"),
+                    wallet.get("created_at"), wallet.get("updated_at"));
+                copy(source, target, "transactions", "id, wallet_id, type, amount, balance, description, created_at",
+                    "wallet_id = ? order by id", walletId);
+                copy(source, target, "balance_checkpoints", "wallet_id, checkpoint_at, balance, last_transaction_id",
+                    "wallet_id = ?", walletId);
+                copy(source, target, "daily_rollups", "wallet_id, rollup_day, type, tx_count, credits, debits",
+                    "wallet_id = ?", walletId);
+                copy(source, target, "transfer_credits", "saga_id, user_id, created_at", "user_id = ?", userId);
+            });
+            delete(source, walletId, userId);
+            return true;
+        });
+        if (Boolean.TRUE.equals(done)) {
+            balanceCache.evict(userId);
+            moved.increment();
+            log.debug("Moved wallet of {} from shard {} to {}", userId, from, to);
+        }
+        return Boolean.TRUE.equals(done);
+    }
+
+    private void copy(JdbcTemplate source, JdbcTemplate target, String table, String columns, String where,
+                      Object key) {
+        int width = columns.split(",").length;
+        String insert = "insert into " + table + " (" + columns + ") values (?" + ", ?".repeat(width - 1) + ")";
+        List<Object[]> rows = new ArrayList<>(batchSize);
+        source.query("select " + columns + " from " + table + " where " + where, rs -> {
+            Object[] row = new Object[width];
+            for (int i = 0; i < width; i++) {
+                row[i] = rs.getObject(i + 1);
+            }
+            rows.add(row);
+            if (rows.size() == batchSize) {
+                target.batchUpdate(insert, rows);
+                rows.clear();
+            }
+        }, key);
+        if (!rows.isEmpty()) {
+            target.batchUpdate(insert, rows);
+        }
+    }
+
+    private static void delete(JdbcTemplate shard, long walletId, String userId) {
+        shard.update("delete from transfer_credits where user_id = ?", userId);
+        shard.update("delete from balance_checkpoints where wallet_id = ?", walletId);
+        shard.update("delete from daily_rollups where wallet_id = ?", walletId);
+        shard.update("delete from transactions where wallet_id = ?", walletId);
+        shard.update("delete from wallets where id = ?", walletId);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,83 @@
+package com.wallet.shard;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Decides which shard holds a wallet. Each userId hashes to one shard on the ring of all shards;
+ * while shards are being added it may still sit on the shard the previous ring gave it, until
+ * {@link ShardRebalancer} has moved it.
+ */
+public class ShardRouter {
+    private final List<String> shards;
+    private final ConsistentHashRing ring;
+    private final ConsistentHashRing previousRing;
+    private final Map<String, JdbcTemplate> lookups = new LinkedHashMap<>();
+
+    /**
+     * @param previousShards the shards before the latest were added, or empty when not resharding
+     */
+    public ShardRouter(ShardRoutingDataSource dataSource, List<String> previousShards, int virtualNodes) {
+        this.shards = dataSource.shards();
+        this.ring = new ConsistentHashRing(shards, virtualNodes);
+        this.previousRing = previousShards.isEmpty() ? null : new ConsistentHashRing(previousShards, virtualNodes);
+        for (String shard : shards) {
+            lookups.put(shard, new JdbcTemplate(dataSource.shard(shard)));
+        }
+    }
+
+    public List<String> shards() {
+        return shards;
+    }
+
+    /** The shard that also holds data which is not per-user. */
+    public String defaultShard() {
+        return shards.get(0);
+    }
+
+    /** Whether wallets may still sit on the shard the previous ring gave them. */
+    public boolean resharding() {
+        return previousRing != null;
+    }
+
+    /** The shard a wallet belongs on. */
+    public String shardFor(String userId) {
+        return ring.nodeFor(userId);
+    }
+
+    /** The shard a wallet belonged on before the latest shards were added. */
+    public String previousShardFor(String userId) {
+        return previousRing != null ? previousRing.nodeFor(userId) : shardFor(userId);
+    }
+
+    /**
+     * The shard a wallet is on right now. Outside resharding that is {@link #shardFor}; during it,
+     * the previous shard as long as the wallet has not been moved off it yet.
+     */
+    public String locate(String userId) {
+        String shard = shardFor(userId);
+        if (previousRing == null) {
+            return shard;
+        }
+        String previous = previousRing.nodeFor(userId);
+        return !previous.equals(shard) && exists(previous, userId) ? previous : shard;
+    }
+
+    /** Looks outside any transaction running on the calling thread, which may be on another shard. */
+    public boolean exists(String shard, String userId) {
+        Integer count = lookups.get(shard).queryForObject(
+            "select count(*) from wallets where user_id = ?", Integer.class, userId);
+        return count != null && count > 0;
+    }
+
+    /** Runs {@code action} with {@code shard} bound, so transactions it starts open on that shard. */
+    public <T> T onShard(String shard, Supplier<T> action) {
+        try (ShardContext.Scope scope = ShardContext.bind(shard)) {
+            return action.get();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.wallet.shard;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.model.relational.Namespace;
+import org.hibernate.boot.model.relational.Sequence;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.jdbc.spi.JdbcServices;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.id.factory.IdentifierGeneratorFactory;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.mapping.PersistentClass;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.hibernate.tool.schema.spi.SchemaManagementToolCoordinator;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+/**
+ * Hibernate only manages the schema of the database it connects to first, the default shard. This
+ * applies the same schema action to every other shard, then moves each shard's sequences and
+ * identity columns to a range of its own, {@code index << }{@value #SHARD_ID_BITS}, so ids stay
+ * unique across shards: wallets can be moved between shards with their ids, and one persistence
+ * context can hold entities read from several shards.
+ */
+@Slf4j
+public class ShardSchemaIntegrator implements Integrator {
+    static final int SHARD_ID_BITS = 48;
+
+    private final ShardRoutingDataSource dataSource;
+
+    public ShardSchemaIntegrator(ShardRoutingDataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext,
+                          SessionFactoryImplementor sessionFactory) {
+        ServiceRegistry registry = bootstrapContext.getServiceRegistry();
+        Dialect dialect = registry.requireService(JdbcServices.class).getDialect();
+        List<String> shards = dataSource.shards();
+        for (int index = 1; index < shards.size(); index++) {
+            String shard = shards.get(index);
+            try (ShardContext.Scope scope = ShardContext.bind(shard)) {
+                SchemaManagementToolCoordinator.process(metadata, registry,
+                    registry.requireService(ConfigurationService.class).getSettings(), action -> {
+                    });
+            }
+            offsetIds(metadata, registry, dialect, new JdbcTemplate(dataSource.shard(shard)),
+                (long) index << SHARD_ID_BITS);
+        }
+    }
+
+    private static void offsetIds(Metadata metadata, ServiceRegistry registry, Dialect dialect,
+                                  JdbcTemplate shard, long base) {
+        for (Namespace namespace : metadata.getDatabase().getNamespaces()) {
+            for (Sequence sequence : namespace.getSequences()) {
+                String name = sequence.getName().getSequenceName().render(dialect);
+                Long next = shard.queryForObject(
+                    dialect.getSequenceSupport().getSequenceNextValString(name), Long.class);
+                if (next != null && next < base) {
+                    shard.execute("alter sequence " + name + " restart with " + base);
+                    log.info("Sequence {} moved to {}", name, base);
+                }
+            }
+        }
+
+        IdentifierGeneratorFactory generators = registry.requireService(IdentifierGeneratorFactory.class);
+        for (PersistentClass entity : metadata.getEntityBindings()) {
+            if (!entity.getIdentifier().isIdentityColumn(generators, dialect)) {
+                continue;
+            }
+            String table = entity.getTable().getQualifiedTableName().render();
+            String column = entity.getIdentifier().getColumns().get(0).getQuotedName(dialect);
+            Long max = shard.queryForObject("select max(" + column + ") from " + table, Long.class);
+            if (max == null || max < base) {
+                shard.execute("alter table " + table + " alter column " + column + " restart with " + base);
+                log.info("Identity {}.{} moved to {}", table, column, base);
+            }
+        }
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+    }
+}
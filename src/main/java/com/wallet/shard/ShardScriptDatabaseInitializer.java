@@ -0,0 +1,29 @@
+package com.wallet.shard;
+
+import org.springframework.boot.autoconfigure.sql.init.SqlDataSourceScriptDatabaseInitializer;
+import org.springframework.boot.autoconfigure.sql.init.SqlInitializationProperties;
+
+/**
+ * Runs the {@code spring.sql.init} scripts on every shard rather than only the default one. Being
+ * a {@link SqlDataSourceScriptDatabaseInitializer}, it replaces Boot's own initializer and still
+ * runs before Hibernate.
+ */
+public class ShardScriptDatabaseInitializer extends SqlDataSourceScriptDatabaseInitializer {
+    private final ShardRoutingDataSource dataSource;
+
+    public ShardScriptDatabaseInitializer(ShardRoutingDataSource dataSource, SqlInitializationProperties properties) {
+        super(dataSource, properties);
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public boolean initializeDatabase() {
+        boolean initialized = false;
+        for (String shard : dataSource.shards()) {
+            try (ShardContext.Scope scope = ShardContext.bind(shard)) {
+                initialized |= super.initializeDatabase();
+            }
+        }
+        return initialized;
+    }
+}
@@ -0,0 +1,123 @@
+package com.wallet.shard;
+
+import com.wallet.model.Money;
+import com.wallet.model.Transaction;
+import com.wallet.model.TransactionType;
+import com.wallet.model.TransferSaga;
+import com.wallet.repository.TransactionRepository;
+import com.wallet.repository.TransferCreditRepository;
+import com.wallet.repository.TransferSagaRepository;
+import com.wallet.repository.WalletBalance;
+import com.wallet.repository.WalletRepository;
+import com.wallet.service.cache.BalanceCache;
+import com.wallet.service.concurrency.BalanceUpdateStrategy;
+import com.wallet.service.concurrency.RetryOnConflict;
+import com.wallet.service.outbox.OutboxWriter;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The single-shard transactions a {@link TransferSaga} is made of. Each runs on whatever shard the
+ * caller bound; only the debit may join a transaction already running there.
+ */
+@RequiredArgsConstructor
+public class TransferLegs {
+    private final WalletRepository walletRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransferSagaRepository sagaRepository;
+    private final TransferCreditRepository creditRepository;
+    private final BalanceUpdateStrategy balanceUpdateStrategy;
+    private final BalanceCache balanceCache;
+    private final OutboxWriter outboxWriter;
+    private final EntityManager entityManager;
+
+    /** Debits the sender and records the saga as {@code DEBITED}. */
+    @RetryOnConflict
+    @Transactional
+    public WalletBalance debit(TransferSaga saga) {
+        WalletBalance wallet = balanceUpdateStrategy.debit(
+            saga.getFromUserId(), saga.getAmount(), "Insufficient funds for transfer");
+        balanceCache.put(saga.getFromUserId(), wallet);
+        ledgerEntry(saga.getFromUserId(), wallet, saga.getAmount().negate(),
+            "Transfer to " + saga.getToUserId() + ": " + saga.getDescription(), saga.getCreatedAt());
+        entityManager.persist(saga);
+        return wallet;
+    }
+
+    /**
+     * Credits the recipient once.
+     *
+     * @throws org.springframework.dao.DataIntegrityViolationException if the saga was credited before
+     */
+    @RetryOnConflict
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public WalletBalance credit(TransferSaga saga) {
+        creditRepository.insertCredit(saga.getId(), saga.getToUserId(), now());
+        WalletBalance wallet = balanceUpdateStrategy.credit(saga.getToUserId(), saga.getAmount());
+        balanceCache.put(saga.getToUserId(), wallet);
+        ledgerEntry(saga.getToUserId(), wallet, saga.getAmount(),
+            "Transfer from " + saga.getFromUserId() + ": " + saga.getDescription(), now());
+        return wallet;
+    }
+
+    /** @return whether this call completed the saga, rather than a concurrent one */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public boolean complete(String sagaId) {
+        return sagaRepository.transition(
+            sagaId, TransferSaga.Status.DEBITED, TransferSaga.Status.COMPLETED, now()) == 1;
+    }
+
+    /**
+     * Refunds the sender of a saga whose recipient no longer exists.
+     *
+     * @return whether this call refunded it, rather than a concurrent one
+     */
+    @RetryOnConflict
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public boolean compensate(TransferSaga saga) {
+        if (sagaRepository.transition(
+                saga.getId(), TransferSaga.Status.DEBITED, TransferSaga.Status.COMPENSATED, now()) == 0) {
+            return false;
+        }
+        WalletBalance wallet = balanceUpdateStrategy.credit(saga.getFromUserId(), saga.getAmount());
+        balanceCache.put(saga.getFromUserId(), wallet);
+        ledgerEntry(saga.getFromUserId(), wallet, saga.getAmount(),
+            "Transfer to " + saga.getToUserId() + " reversed: " + saga.getDescription(), now());
+        return true;
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<TransferSaga> find(String sagaId) {
+        return sagaRepository.findById(sagaId);
+    }
+
+    @Transactional(readOnly = true)
+    public List<String> findStale(LocalDateTime before, int limit) {
+        return sagaRepository.findIdsByStatusUpdatedBefore(TransferSaga.Status.DEBITED, before, Limit.of(limit));
+    }
+
+    private void ledgerEntry(String userId, WalletBalance wallet, Money amount, String description,
+                             LocalDateTime createdAt) {
+        Transaction transaction = new Transaction();
+        transaction.setWallet(walletRepository.getReferenceById(wallet.walletId()));
+        transaction.setType(TransactionType.TRANSFER);
+        transaction.setAmount(amount);
+        transaction.setBalance(wallet.balance());
+        transaction.setDescription(description);
+        transaction.setCreatedAt(createdAt);
+        transactionRepository.save(transaction);
+        outboxWriter.record(userId, transaction);
+    }
+
+    static LocalDateTime now() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
+}
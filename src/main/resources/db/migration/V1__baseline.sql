@@ -0,0 +1,107 @@
+-- The schema as schema-postgresql.sql and Hibernate's ddl-auto=update left it. Databases created
+-- that way are baselined at this version (spring.flyway.baseline-on-migrate) instead of running it.
+create sequence outbox_events_seq start with 1 increment by 50;
+create sequence transactions_seq start with 1 increment by 50;
+create sequence wallets_seq start with 1 increment by 50;
+
+create table wallets (
+    id bigint not null,
+    user_id varchar(255) not null,
+    balance numeric(19,4) not null,
+    version bigint,
+    created_at timestamp(6) not null,
+    updated_at timestamp(6) not null,
+    primary key (id),
+    constraint uk_sswfdl9fq40xlkove1y5kc7kv unique (user_id)
+);
+
+-- Range-partitioned by month on created_at; TransactionPartitions creates and detaches the
+-- monthly partitions, the default partition only catches rows outside all of them.
+create table transactions (
+    id bigint not null,
+    wallet_id bigint not null,
+    type varchar(255) not null,
+    amount numeric(19,4) not null,
+    balance numeric(19,4) not null,
+    description varchar(255),
+    created_at timestamp(6) not null,
+    primary key (id, created_at)
+) partition by range (created_at);
+
+create table transactions_default partition of transactions default;
+
+create index idx_transactions_wallet_created_id on transactions (wallet_id, created_at desc, id desc);
+create index idx_transactions_created_at on transactions (created_at);
+alter table transactions add constraint FK23bop5lktue0o5q7kr19ti8h foreign key (wallet_id) references wallets;
+
+create table balance_checkpoints (
+    id bigserial not null,
+    wallet_id bigint not null,
+    checkpoint_at timestamp(6) not null,
+    balance numeric(19,4) not null,
+    last_transaction_id bigint,
+    primary key (id),
+    constraint uk_balance_checkpoints_wallet_at unique (wallet_id, checkpoint_at)
+);
+
+create table daily_rollups (
+    id bigserial not null,
+    wallet_id bigint not null,
+    rollup_day date not null,
+    type varchar(255) not null check (type in ('DEPOSIT','WITHDRAWAL','TRANSFER')),
+    tx_count bigint not null,
+    credits numeric(19,4) not null,
+    debits numeric(19,4) not null,
+    primary key (id),
+    constraint uk_daily_rollups_wallet_day_type unique (wallet_id, rollup_day, type)
+);
+
+create index idx_daily_rollups_day on daily_rollups (rollup_day);
+
+create table idempotency_keys (
+    idempotency_key varchar(255) not null,
+    status varchar(16) not null check (status in ('IN_PROGRESS','COMPLETED')),
+    fingerprint varchar(64) not null,
+    response_body varchar(4000),
+    locked_until timestamp(6),
+    expires_at timestamp(6) not null,
+    primary key (idempotency_key)
+);
+
+create index idx_idempotency_keys_expires_at on idempotency_keys (expires_at);
+
+create table outbox_events (
+    id bigint not null,
+    transaction_id bigint not null,
+    wallet_id bigint not null,
+    user_id varchar(255) not null,
+    type varchar(255) not null check (type in ('DEPOSIT','WITHDRAWAL','TRANSFER')),
+    amount numeric(19,4) not null,
+    balance numeric(19,4) not null,
+    description varchar(255),
+    created_at timestamp(6) not null,
+    primary key (id)
+);
+
+create table transfer_sagas (
+    id varchar(36) not null,
+    from_user_id varchar(255) not null,
+    to_user_id varchar(255) not null,
+    amount numeric(19,4) not null,
+    description varchar(255),
+    status varchar(16) not null check (status in ('DEBITED','COMPLETED','COMPENSATED')),
+    created_at timestamp(6) not null,
+    updated_at timestamp(6) not null,
+    primary key (id)
+);
+
+create index idx_transfer_sagas_status_updated_at on transfer_sagas (status, updated_at);
+
+create table transfer_credits (
+    saga_id varchar(36) not null,
+    user_id varchar(255) not null,
+    created_at timestamp(6) not null,
+    primary key (saga_id)
+);
+
+create index idx_transfer_credits_user_id on transfer_credits (user_id);
@@ -0,0 +1,20 @@
+-- Transactions are range-partitioned by month on created_at. Monthly partitions are created
+-- ahead and detached by TransactionPartitions; the default partition only catches rows that
+-- fall outside every monthly partition. Runs before Hibernate, which leaves existing tables alone.
+create sequence if not exists transactions_seq start with 1 increment by 50;
+
+create table if not exists transactions (
+    id bigint not null,
+    wallet_id bigint not null,
+    type varchar(255) not null,
+    amount numeric(19,4) not null,
+    balance numeric(19,4) not null,
+    description varchar(255),
+    created_at timestamp(6) not null,
+    primary key (id, created_at)
+) partition by range (created_at);
+
+create table if not exists transactions_default partition of transactions default;
+
+create index if not exists idx_transactions_wallet_created_id on transactions (wallet_id, created_at desc, id desc);
+create index if not exists idx_transactions_created_at on transactions (created_at);
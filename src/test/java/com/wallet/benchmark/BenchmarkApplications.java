@@ -0,0 +1,57 @@
+package com.wallet.benchmark;
+
+import com.wallet.WalletServiceApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Boots the service, by default without a web server and against a private in-memory database.
+ */
+public final class BenchmarkApplications {
+    private BenchmarkApplications() {
+    }
+
+    public static ConfigurableApplicationContext start(String databaseName, String... properties) {
+        return start(BenchmarkDatabase.H2, databaseName, properties);
+    }
+
+    public static ConfigurableApplicationContext start(BenchmarkDatabase database, String databaseName,
+                                                       String... properties) {
+        return start(WebApplicationType.NONE, database, databaseName, properties);
+    }
+
+    /**
+     * Boots the service with its web server on a random port, read back from {@link #port}.
+     */
+    public static ConfigurableApplicationContext startServer(BenchmarkDatabase database, String databaseName,
+                                                             String... properties) {
+        List<String> args = new ArrayList<>(List.of(properties));
+        args.add("server.port=0");
+        return start(WebApplicationType.SERVLET, database, databaseName, args.toArray(String[]::new));
+    }
+
+    public static int port(ConfigurableApplicationContext context) {
+        return context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+    }
+
+    private static ConfigurableApplicationContext start(WebApplicationType webApplicationType,
+                                                        BenchmarkDatabase database, String databaseName,
+                                                        String... properties) {
+        List<String> args = new ArrayList<>(database.properties(databaseName));
+        args.addAll(List.of(
+            "spring.jpa.show-sql=false",
+            "logging.level.root=WARN",
+            "logging.level.com.wallet=WARN",
+            "wallet.checkpoints.enabled=false"));
+        args.addAll(List.of(properties));
+        // Passed as command-line arguments so they outrank application-test.yml
+        return new SpringApplicationBuilder(WalletServiceApplication.class)
+            .profiles("test")
+            .web(webApplicationType)
+            .run(args.stream().map(arg -> "--" + arg).toArray(String[]::new));
+    }
+}
@@ -0,0 +1,40 @@
+package com.wallet.benchmark;
+
+import java.util.List;
+
+/**
+ * Databases a benchmark can boot the service against. Postgres is read from
+ * {@code BENCH_POSTGRES_URL}, {@code BENCH_POSTGRES_USERNAME} and {@code BENCH_POSTGRES_PASSWORD},
+ * defaulting to a local {@code wallet_bench} database; its schema is recreated on every start.
+ */
+public enum BenchmarkDatabase {
+    H2 {
+        @Override
+        List<String> properties(String databaseName) {
+            return List.of("spring.datasource.url=jdbc:h2:mem:" + databaseName + ";DB_CLOSE_DELAY=-1");
+        }
+    },
+    POSTGRES {
+        @Override
+        List<String> properties(String databaseName) {
+            return List.of(
+                "spring.datasource.url=" + env("BENCH_POSTGRES_URL", "jdbc:postgresql://localhost:5432/wallet_bench"),
+                "spring.datasource.username=" + env("BENCH_POSTGRES_USERNAME", "postgres"),
+                "spring.datasource.password=" + env("BENCH_POSTGRES_PASSWORD", "postgres"),
+                "spring.datasource.driver-class-name=org.postgresql.Driver",
+                "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.PostgreSQLDialect");
+        }
+    };
+
+    abstract List<String> properties(String databaseName);
+
+    /** Parses a JMH {@code database} parameter such as {@code h2} or {@code postgres}. */
+    public static BenchmarkDatabase of(String name) {
+        return valueOf(name.toUpperCase());
+    }
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.isBlank() ? defaultValue : value;
+    }
+}
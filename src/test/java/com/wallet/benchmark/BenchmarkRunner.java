@@ -0,0 +1,51 @@
+package com.wallet.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.util.Arrays;
+
+/**
+ * Runs the JMH benchmarks matching {@code args[0]} once per thread count in {@code -Djmh.threads},
+ * attaching any profilers listed in {@code -Djmh.profilers} (e.g. {@code gc}). Benchmarks with a
+ * {@code database} parameter run against every database in {@code -Djmh.databases}. Each run writes
+ * a JSON result file into {@code -Djmh.results}, which the build points at a per-version directory
+ * so releases can be compared.
+ */
+public final class BenchmarkRunner {
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : ".*";
+        int[] threadCounts = Arrays.stream(list("jmh.threads", "1")).mapToInt(Integer::parseInt).toArray();
+        String[] profilers = list("jmh.profilers", "");
+        String[] databases = list("jmh.databases", "h2");
+        File results = new File(System.getProperty("jmh.results", "target/jmh"));
+        results.mkdirs();
+
+        for (int threads : threadCounts) {
+            ChainedOptionsBuilder options = new OptionsBuilder()
+                .include(include)
+                .threads(threads)
+                .param("database", databases)
+                .resultFormat(ResultFormatType.JSON)
+                .result(new File(results, "jmh-result-t" + threads + ".json").getPath());
+            for (String profiler : profilers) {
+                options.addProfiler(profiler);
+            }
+            new Runner(options.build()).run();
+        }
+    }
+
+    private static String[] list(String property, String defaultValue) {
+        return Arrays.stream(System.getProperty(property, defaultValue).split(","))
+            .map(String::trim)
+            .filter(value -> !value.isEmpty())
+            .toArray(String[]::new);
+    }
+}
@@ -0,0 +1,134 @@
+package com.wallet.benchmark;
+
+import com.wallet.model.TransactionType;
+import com.wallet.model.Wallet;
+import com.wallet.service.WalletService;
+import com.wallet.service.bulk.BulkExporter;
+import com.wallet.service.bulk.BulkResult;
+import com.wallet.service.bulk.BulkTable;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Exports ledgers of growing size and samples the retained heap while rows are being written.
+ * Run with {@code mvn test -Pbenchmarks}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+    "spring.jpa.show-sql=false",
+    // Let H2 hand rows to the cursor as it produces them, as Postgres does with a fetch size
+    "spring.datasource.url=jdbc:h2:mem:bulkbench;DB_CLOSE_DELAY=-1;LAZY_QUERY_EXECUTION=1"
+})
+@ActiveProfiles("test")
+class BulkExportHeapBenchmark {
+    private static final int[] LEDGER_SIZES = {50_000, 250_000, 500_000};
+    private static final int WALLETS = 100;
+    private static final long SAMPLE_EVERY_BYTES = 4 * 1024 * 1024;
+    private static final long MB = 1024 * 1024;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private BulkExporter exporter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void exportHeapStaysFlatAsLedgerGrows() {
+        List<Wallet> wallets = new ArrayList<>();
+        for (int i = 0; i < WALLETS; i++) {
+            wallets.add(walletService.createWallet("bulk-bench-" + i));
+        }
+        List<Long> growth = new ArrayList<>();
+        int seeded = 0;
+        for (int size : LEDGER_SIZES) {
+            seedLedger(wallets, seeded, size);
+            seeded = size;
+
+            long baseline = retainedHeap();
+            AtomicLong peak = new AtomicLong(baseline);
+            BulkResult result = exporter.export(BulkTable.TRANSACTIONS, null, new SamplingOutputStream(peak));
+
+            assertEquals(size, result.rows());
+            long grown = Math.max(0, peak.get() - baseline);
+            growth.add(grown);
+            System.out.printf("ledger=%,d rows  retained-heap-growth=%,d KB%n", size, grown / 1024);
+        }
+
+        // A 10x larger ledger must not need materially more retained heap; the slack covers the
+        // embedded H2 page cache (16 MB by default), which lives in the same heap
+        long smallest = growth.get(0);
+        long largest = growth.get(growth.size() - 1);
+        assertTrue(largest < smallest + 32 * MB,
+            "retained heap grew from " + smallest / MB + " MB to " + largest / MB + " MB");
+    }
+
+    /** Grows the ledger to {@code size} rows, spread over the wallets in time order. */
+    private void seedLedger(List<Wallet> wallets, int from, int size) {
+        LocalDateTime start = LocalDateTime.now().minusDays(30);
+        List<Object[]> batch = new ArrayList<>(5_000);
+        for (int i = from; i < size; i++) {
+            Wallet wallet = wallets.get(i % WALLETS);
+            batch.add(new Object[] {wallet.getId(), TransactionType.DEPOSIT.name(), BigDecimal.ONE,
+                BigDecimal.valueOf(i / WALLETS + 1L), "seed " + i, Timestamp.valueOf(start.plusSeconds(i))});
+            if (batch.size() == 5_000 || i == size - 1) {
+                jdbcTemplate.batchUpdate("""
+                    insert into transactions (id, wallet_id, type, amount, balance, description, created_at)
+                    values (next value for transactions_seq, ?, ?, ?, ?, ?, ?)
+                    """, batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private static long retainedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /** Discards the export, sampling the retained heap every few megabytes. */
+    private static final class SamplingOutputStream extends OutputStream {
+        private final AtomicLong peak;
+        private long written;
+
+        SamplingOutputStream(AtomicLong peak) {
+            this.peak = peak;
+        }
+
+        @Override
+        public void write(int b) {
+            count(1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count(len);
+        }
+
+        private void count(long bytes) {
+            long before = written / SAMPLE_EVERY_BYTES;
+            written += bytes;
+            if (written / SAMPLE_EVERY_BYTES != before) {
+                peak.accumulateAndGet(retainedHeap(), Math::max);
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.wallet.benchmark;
+
+import com.wallet.model.Money;
+import com.wallet.service.WalletService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the {@code WalletService} instrumentation layer: the same operations with
+ * {@code wallet.instrumentation.enabled} on and off. {@code getBalance} is served from the balance
+ * cache, so it shows the overhead against the cheapest call the service has.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class InstrumentationOverheadBenchmark {
+    private static final int WALLETS = 64;
+    private static final Money AMOUNT = Money.of("1.25");
+
+    @Param({"true", "false"})
+    public boolean instrumentation;
+
+    @Param({"h2"})
+    public String database;
+
+    private ConfigurableApplicationContext context;
+    private WalletService walletService;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkApplications.start(BenchmarkDatabase.of(database), "instrumentation-bench",
+            "wallet.instrumentation.enabled=" + instrumentation);
+        walletService = context.getBean(WalletService.class);
+        for (int i = 0; i < WALLETS; i++) {
+            walletService.createWallet(userId(i));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public Money deposit() {
+        return walletService.depositFunds(randomUser(), AMOUNT, "bench");
+    }
+
+    @Benchmark
+    public Money getBalance() {
+        return walletService.getBalance(randomUser());
+    }
+
+    private static String randomUser() {
+        return userId(ThreadLocalRandom.current().nextInt(WALLETS));
+    }
+
+    private static String userId(int i) {
+        return "bench-" + i;
+    }
+}
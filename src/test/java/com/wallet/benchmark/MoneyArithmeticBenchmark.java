@@ -0,0 +1,91 @@
+package com.wallet.benchmark;
+
+import com.wallet.model.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Balance arithmetic of a deposit, a withdrawal and a transfer with {@link BigDecimal} versus
+ * {@link Money}. Run with the GC profiler to compare allocation rates:
+ * {@code mvn -Pbenchmarks test-compile exec:exec -Djmh.include=MoneyArithmeticBenchmark -Djmh.profilers=gc}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyArithmeticBenchmark {
+    private static final BigDecimal DECIMAL_AMOUNT = new BigDecimal("1.2500");
+    private static final Money MONEY_AMOUNT = Money.of("1.2500");
+
+    private BigDecimal decimalFrom = new BigDecimal("1000000.0000");
+    private BigDecimal decimalTo = new BigDecimal("1000000.0000");
+    private Money moneyFrom = Money.of("1000000.0000");
+    private Money moneyTo = Money.of("1000000.0000");
+
+    @Benchmark
+    public BigDecimal bigDecimalDeposit() {
+        decimalTo = decimalTo.add(DECIMAL_AMOUNT);
+        return decimalTo;
+    }
+
+    @Benchmark
+    public Money moneyDeposit() {
+        moneyTo = moneyTo.plus(MONEY_AMOUNT);
+        return moneyTo;
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalWithdraw() {
+        // Top up when drained so every iteration takes the successful branch
+        if (decimalFrom.compareTo(DECIMAL_AMOUNT) < 0) {
+            decimalFrom = decimalFrom.add(new BigDecimal("1000000.0000"));
+        }
+        decimalFrom = decimalFrom.subtract(DECIMAL_AMOUNT);
+        return decimalFrom;
+    }
+
+    @Benchmark
+    public Money moneyWithdraw() {
+        if (moneyFrom.isLessThan(MONEY_AMOUNT)) {
+            moneyFrom = moneyFrom.plus(Money.of("1000000.0000"));
+        }
+        moneyFrom = moneyFrom.minus(MONEY_AMOUNT);
+        return moneyFrom;
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalTransfer() {
+        if (decimalFrom.compareTo(DECIMAL_AMOUNT) < 0) {
+            BigDecimal swap = decimalFrom;
+            decimalFrom = decimalTo;
+            decimalTo = swap;
+        }
+        decimalFrom = decimalFrom.subtract(DECIMAL_AMOUNT);
+        decimalTo = decimalTo.add(DECIMAL_AMOUNT);
+        return decimalFrom.add(decimalTo);
+    }
+
+    @Benchmark
+    public Money moneyTransfer() {
+        if (moneyFrom.isLessThan(MONEY_AMOUNT)) {
+            Money swap = moneyFrom;
+            moneyFrom = moneyTo;
+            moneyTo = swap;
+        }
+        moneyFrom = moneyFrom.minus(MONEY_AMOUNT);
+        moneyTo = moneyTo.plus(MONEY_AMOUNT);
+        return moneyFrom.plus(moneyTo);
+    }
+}
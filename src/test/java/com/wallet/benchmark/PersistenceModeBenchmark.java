@@ -0,0 +1,108 @@
+package com.wallet.benchmark;
+
+import com.wallet.model.Money;
+import com.wallet.service.WalletService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write throughput of the JPA and JDBC implementations ({@code wallet.persistence.mode}). Before
+ * measuring, each trial prints the JDBC statements one call of each operation executes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class PersistenceModeBenchmark {
+    private static final int WALLETS = 64;
+    private static final int SAMPLES = 200;
+    private static final Money AMOUNT = Money.of("1.25");
+
+    @Param({"JPA", "JDBC"})
+    public String persistence;
+
+    @Param({"h2"})
+    public String database;
+
+    private final AtomicLong newWallets = new AtomicLong();
+    private ConfigurableApplicationContext context;
+    private WalletService walletService;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkApplications.start(BenchmarkDatabase.of(database), "persistence-bench",
+            "wallet.persistence.mode=" + persistence,
+            "spring.datasource.type=" + StatementCountingDataSource.class.getName());
+        walletService = context.getBean(WalletService.class);
+        for (int i = 0; i < WALLETS; i++) {
+            walletService.createWallet(userId(i));
+            walletService.depositFunds(userId(i), Money.of("1000000000"), "seed");
+        }
+
+        System.out.printf("%n%s statements per call: createWallet %.2f, deposit %.2f, withdraw %.2f, transfer %.2f%n",
+            persistence, statements(this::createWallet), statements(this::deposit),
+            statements(this::withdraw), statements(this::transfer));
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object createWallet() {
+        return walletService.createWallet("new-" + newWallets.incrementAndGet());
+    }
+
+    @Benchmark
+    public Money deposit() {
+        return walletService.depositFunds(randomUser(), AMOUNT, "bench");
+    }
+
+    @Benchmark
+    public Money withdraw() {
+        return walletService.withdrawFunds(randomUser(), AMOUNT, "bench");
+    }
+
+    @Benchmark
+    public void transfer() {
+        int from = ThreadLocalRandom.current().nextInt(WALLETS);
+        int to = (from + 1 + ThreadLocalRandom.current().nextInt(WALLETS - 1)) % WALLETS;
+        walletService.transferFunds(userId(from), userId(to), AMOUNT, "bench");
+    }
+
+    // Averaged so the occasional sequence block fetch is amortised the way it is in production
+    private static double statements(Runnable operation) {
+        long before = StatementCountingDataSource.executions();
+        for (int i = 0; i < SAMPLES; i++) {
+            operation.run();
+        }
+        return (StatementCountingDataSource.executions() - before) / (double) SAMPLES;
+    }
+
+    private static String randomUser() {
+        return userId(ThreadLocalRandom.current().nextInt(WALLETS));
+    }
+
+    private static String userId(int i) {
+        return "bench-" + i;
+    }
+}
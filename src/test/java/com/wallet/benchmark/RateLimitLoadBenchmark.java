@@ -0,0 +1,186 @@
+package com.wallet.benchmark;
+
+import com.wallet.model.Money;
+import com.wallet.service.WalletService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Measures what one flooding API client does to everyone else. Well-behaved clients each deposit
+ * into their own wallet at a fixed pace under their own client id, while a flooder runs many
+ * closed-loop connections under a single client id. Reports the well-behaved clients' p50/p99
+ * deposit latency with no flood, with a flood and no limits, and with a flood and
+ * {@code wallet.rate-limit.enabled}, the per-client rate set to {@code load.client-rate} so it
+ * binds on small machines. Run with
+ * {@code mvn test -Pbenchmarks -Dtest=RateLimitLoadBenchmark -Dload.seconds=20 -Dload.good-clients=50
+ * -Dload.flood-connections=400 -Dload.client-rate=200}.
+ */
+@Tag("benchmark")
+class RateLimitLoadBenchmark {
+    private static final Duration RUN = Duration.ofSeconds(Long.getLong("load.seconds", 10));
+    private static final Duration WARMUP = Duration.ofSeconds(3);
+    private static final int GOOD_CLIENTS = Integer.getInteger("load.good-clients", 10);
+    private static final Duration GOOD_INTERVAL = Duration.ofMillis(100);
+    private static final int FLOOD_CONNECTIONS = Integer.getInteger("load.flood-connections", 50);
+    private static final int FLOOD_RATE = Integer.getInteger("load.client-rate", 50);
+    private static final int FLOOD_WALLETS = 1_000;
+
+    @Test
+    void compareFloodWithAndWithoutLimits() throws Exception {
+        List<String> report = new ArrayList<>();
+        report.add(run("no flood", false, false));
+        report.add(run("flood, unlimited", true, false));
+        report.add(run("flood, limited", true, true));
+        System.out.printf("%-18s %9s %9s %8s %12s %12s%n",
+            "scenario", "p50 ms", "p99 ms", "errors", "flood ok/s", "flood 4xx/5xx/s");
+        report.forEach(System.out::println);
+    }
+
+    private String run(String scenario, boolean flood, boolean limited) throws Exception {
+        try (ConfigurableApplicationContext context = BenchmarkApplications.startServer(BenchmarkDatabase.H2,
+                "ratelimit-" + scenario.replaceAll("\\W", ""),
+                "wallet.rate-limit.enabled=" + limited,
+                // Every client connects from localhost, so they are told apart as behind a gateway
+                "wallet.rate-limit.client-header=X-Client-Id",
+                "wallet.rate-limit.client-rate=" + FLOOD_RATE,
+                "wallet.rate-limit.client-burst=" + FLOOD_RATE * 2,
+                "server.tomcat.max-connections=" + (FLOOD_CONNECTIONS + GOOD_CLIENTS) * 2)) {
+            WalletService walletService = context.getBean(WalletService.class);
+            for (int i = 0; i < GOOD_CLIENTS; i++) {
+                walletService.createWallet(goodUser(i));
+            }
+            for (int i = 0; i < FLOOD_WALLETS; i++) {
+                walletService.createWallet(floodUser(i));
+                walletService.depositFunds(floodUser(i), Money.of("1000"), "seed");
+            }
+
+            String baseUrl = "http://localhost:" + BenchmarkApplications.port(context) + "/api/wallets/";
+            ExecutorService clientExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+            ScheduledExecutorService pacer = Executors.newScheduledThreadPool(2);
+            try {
+                HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(clientExecutor)
+                    .connectTimeout(Duration.ofSeconds(30))
+                    .build();
+                drive(client, pacer, baseUrl, flood, WARMUP);
+                Outcome outcome = drive(client, pacer, baseUrl, flood, RUN);
+                double seconds = RUN.toNanos() / 1e9;
+                return String.format("%-18s %9.1f %9.1f %8d %12.0f %12.0f", scenario,
+                    outcome.percentileMillis(0.50), outcome.percentileMillis(0.99), outcome.goodErrors(),
+                    outcome.floodAccepted() / seconds, outcome.floodRejected() / seconds);
+            } finally {
+                pacer.shutdownNow();
+                clientExecutor.shutdownNow();
+            }
+        }
+    }
+
+    private static Outcome drive(HttpClient client, ScheduledExecutorService pacer, String baseUrl, boolean flood,
+                                 Duration duration) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<Long> latencies = new ArrayList<>();
+        LongAdder goodErrors = new LongAdder();
+        LongAdder floodAccepted = new LongAdder();
+        LongAdder floodRejected = new LongAdder();
+        ConcurrentHashMap.KeySetView<CompletableFuture<?>, Boolean> pending = ConcurrentHashMap.newKeySet();
+
+        CompletableFuture<?>[] flooders = new CompletableFuture<?>[flood ? FLOOD_CONNECTIONS : 0];
+        for (int i = 0; i < flooders.length; i++) {
+            flooders[i] = floodLoop(client, baseUrl, deadline, floodAccepted, floodRejected);
+        }
+        for (int i = 0; i < GOOD_CLIENTS; i++) {
+            int clientIndex = i;
+            long offset = GOOD_INTERVAL.toNanos() * i / GOOD_CLIENTS;
+            pacer.scheduleAtFixedRate(() -> {
+                if (System.nanoTime() >= deadline) {
+                    return;
+                }
+                long sent = System.nanoTime();
+                CompletableFuture<?> request = client.sendAsync(
+                        deposit(baseUrl, goodUser(clientIndex), "good-" + clientIndex),
+                        HttpResponse.BodyHandlers.discarding())
+                    .handle((response, failure) -> {
+                        if (failure != null || response.statusCode() >= 300) {
+                            goodErrors.increment();
+                        }
+                        synchronized (latencies) {
+                            latencies.add(System.nanoTime() - sent);
+                        }
+                        return null;
+                    });
+                pending.add(request);
+                request.whenComplete((ignored, failure) -> pending.remove(request));
+            }, offset, GOOD_INTERVAL.toNanos(), TimeUnit.NANOSECONDS);
+        }
+
+        CompletableFuture.allOf(flooders).join();
+        TimeUnit.NANOSECONDS.sleep(Math.max(0, deadline - System.nanoTime()));
+        CompletableFuture.allOf(pending.toArray(CompletableFuture<?>[]::new)).get(60, TimeUnit.SECONDS);
+        long[] sorted;
+        synchronized (latencies) {
+            sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        }
+        assertTrue(sorted.length > 0, "no well-behaved request completed");
+        return new Outcome(sorted, goodErrors.sum(), floodAccepted.sum(), floodRejected.sum());
+    }
+
+    private static CompletableFuture<Void> floodLoop(HttpClient client, String baseUrl, long deadline,
+                                                     LongAdder accepted, LongAdder rejected) {
+        if (System.nanoTime() >= deadline) {
+            return CompletableFuture.completedFuture(null);
+        }
+        String userId = floodUser(ThreadLocalRandom.current().nextInt(FLOOD_WALLETS));
+        return client.sendAsync(deposit(baseUrl, userId, "flood"), HttpResponse.BodyHandlers.discarding())
+            .handle((response, failure) -> {
+                (failure == null && response.statusCode() < 300 ? accepted : rejected).increment();
+                return null;
+            })
+            .thenCompose(ignored -> floodLoop(client, baseUrl, deadline, accepted, rejected));
+    }
+
+    private static HttpRequest deposit(String baseUrl, String userId, String clientId) {
+        return HttpRequest.newBuilder()
+            .timeout(Duration.ofSeconds(60))
+            .uri(URI.create(baseUrl + userId + "/deposit"))
+            .header("Content-Type", "application/json")
+            .header("X-Client-Id", clientId)
+            .POST(HttpRequest.BodyPublishers.ofString("{\"amount\": 0.01, \"description\": \"load\"}"))
+            .build();
+    }
+
+    private static String goodUser(int i) {
+        return "good-" + i;
+    }
+
+    private static String floodUser(int i) {
+        return "flood-" + i;
+    }
+
+    private record Outcome(long[] sortedLatencies, long goodErrors, long floodAccepted, long floodRejected) {
+        double percentileMillis(double percentile) {
+            int index = (int) Math.ceil(percentile * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(index, 0)] / 1e6;
+        }
+    }
+}
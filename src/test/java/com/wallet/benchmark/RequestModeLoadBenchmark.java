@@ -0,0 +1,167 @@
+package com.wallet.benchmark;
+
+import com.wallet.model.Money;
+import com.wallet.service.WalletService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives the HTTP API with closed-loop clients (each sends its next request as soon as the last
+ * one answers) in platform-thread and virtual-thread mode, reporting throughput and p50/p99 latency
+ * per client count. Half the requests read a balance, half deposit. Virtual threads need Java 21;
+ * on older runtimes only the platform mode runs. Run with
+ * {@code mvn test -Pbenchmarks -Dtest=RequestModeLoadBenchmark -Dload.clients=1000,5000,10000 -Dload.seconds=20}.
+ */
+@Tag("benchmark")
+class RequestModeLoadBenchmark {
+    private static final int[] CLIENTS = Arrays.stream(System.getProperty("load.clients", "1000,2500,5000,10000")
+        .split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
+    private static final Duration RUN = Duration.ofSeconds(Long.getLong("load.seconds", 10));
+    private static final Duration WARMUP = Duration.ofSeconds(5);
+    private static final int WALLETS = 1_000;
+    private static final int MAX_SAMPLES = 5_000_000;
+
+    @Test
+    void compareThreadModes() throws Exception {
+        List<String> report = new ArrayList<>(run("platform", false));
+        if (Runtime.version().feature() >= 21) {
+            report.addAll(run("virtual", true));
+        } else {
+            report.add("virtual  skipped: virtual threads need Java 21, running " + Runtime.version());
+        }
+        System.out.printf("%-8s %8s %10s %9s %9s %8s%n", "mode", "clients", "req/s", "p50 ms", "p99 ms", "errors");
+        report.forEach(System.out::println);
+    }
+
+    private List<String> run(String mode, boolean virtualThreads) throws Exception {
+        List<String> rows = new ArrayList<>();
+        try (ConfigurableApplicationContext context = BenchmarkApplications.startServer(BenchmarkDatabase.H2,
+                "load-" + mode,
+                "spring.threads.virtual.enabled=" + virtualThreads,
+                "server.tomcat.max-connections=" + (Arrays.stream(CLIENTS).max().orElse(0) * 2),
+                "server.tomcat.accept-count=10000")) {
+            WalletService walletService = context.getBean(WalletService.class);
+            for (int i = 0; i < WALLETS; i++) {
+                walletService.createWallet(userId(i));
+                walletService.depositFunds(userId(i), Money.of("1000"), "seed");
+            }
+
+            String baseUrl = "http://localhost:" + BenchmarkApplications.port(context) + "/api/wallets/";
+            ExecutorService clientExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+            try {
+                HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(clientExecutor)
+                    .connectTimeout(Duration.ofSeconds(30))
+                    .build();
+                drive(client, baseUrl, 100, WARMUP);
+                double best = 0;
+                for (int clients : CLIENTS) {
+                    Result result = drive(client, baseUrl, clients, RUN);
+                    best = Math.max(best, result.throughput());
+                    rows.add(String.format("%-8s %8d %10.0f %9.1f %9.1f %8d", mode, clients, result.throughput(),
+                        result.percentileMillis(0.50), result.percentileMillis(0.99), result.errors()));
+                }
+                rows.add(String.format("%-8s max throughput %.0f req/s", mode, best));
+            } finally {
+                clientExecutor.shutdownNow();
+            }
+        }
+        return rows;
+    }
+
+    private static Result drive(HttpClient client, String baseUrl, int clients, Duration duration) {
+        Samples samples = new Samples();
+        long deadline = System.nanoTime() + duration.toNanos();
+        long started = System.nanoTime();
+        CompletableFuture<?>[] loops = new CompletableFuture<?>[clients];
+        for (int i = 0; i < clients; i++) {
+            loops[i] = loop(client, baseUrl, deadline, samples);
+        }
+        CompletableFuture.allOf(loops).join();
+        double seconds = (System.nanoTime() - started) / 1e9;
+        assertTrue(samples.count() > 0, "no request completed");
+        return new Result(samples.count() / seconds, samples.sorted(), samples.errors.sum());
+    }
+
+    private static CompletableFuture<Void> loop(HttpClient client, String baseUrl, long deadline, Samples samples) {
+        if (System.nanoTime() >= deadline) {
+            return CompletableFuture.completedFuture(null);
+        }
+        long sent = System.nanoTime();
+        return client.sendAsync(nextRequest(baseUrl), HttpResponse.BodyHandlers.discarding())
+            .handle((response, failure) -> {
+                samples.record(System.nanoTime() - sent, failure == null && response.statusCode() < 300);
+                return null;
+            })
+            .thenCompose(ignored -> loop(client, baseUrl, deadline, samples));
+    }
+
+    private static HttpRequest nextRequest(String baseUrl) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String userId = userId(random.nextInt(WALLETS));
+        HttpRequest.Builder request = HttpRequest.newBuilder().timeout(Duration.ofSeconds(60));
+        if (random.nextBoolean()) {
+            return request.uri(URI.create(baseUrl + userId + "/balance")).GET().build();
+        }
+        return request.uri(URI.create(baseUrl + userId + "/deposit"))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString("{\"amount\": 0.01, \"description\": \"load\"}"))
+            .build();
+    }
+
+    private static String userId(int i) {
+        return "load-" + i;
+    }
+
+    private static final class Samples {
+        private final long[] latencies = new long[MAX_SAMPLES];
+        private final AtomicInteger size = new AtomicInteger();
+        private final LongAdder errors = new LongAdder();
+
+        void record(long nanos, boolean ok) {
+            if (!ok) {
+                errors.increment();
+            }
+            int index = size.getAndIncrement();
+            if (index < latencies.length) {
+                latencies[index] = nanos;
+            }
+        }
+
+        int count() {
+            return Math.min(size.get(), latencies.length);
+        }
+
+        long[] sorted() {
+            long[] copy = Arrays.copyOf(latencies, count());
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+
+    private record Result(double throughput, long[] sortedLatencies, long errors) {
+        double percentileMillis(double percentile) {
+            int index = (int) Math.ceil(percentile * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(index, 0)] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.wallet.benchmark;
+
+import com.wallet.model.Money;
+import com.wallet.service.WalletService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write throughput over 1, 2 and 4 shards, each its own in-memory H2 database with its own pool.
+ * With {@code n} shards a random transfer crosses shards with probability {@code (n - 1) / n} and
+ * then runs as a saga of three transactions instead of one, which is the price paid for spreading
+ * the deposits. Run it with several threads ({@code -Djmh.threads=8}); shards only pay off under
+ * contention. The in-memory shards share one machine's CPUs, so this shows the routing and saga
+ * overhead more than the scale-out separate database servers give.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class ShardScalingBenchmark {
+    private static final int WALLETS = 256;
+    private static final Money AMOUNT = Money.of("1.25");
+
+    @Param({"1", "2", "4"})
+    public int shards;
+
+    private ConfigurableApplicationContext context;
+    private WalletService walletService;
+
+    @Setup(Level.Trial)
+    public void start() {
+        List<String> properties = new ArrayList<>(List.of(
+            "wallet.sharding.enabled=true",
+            "wallet.sharding.pool-size=8"));
+        for (int i = 0; i < shards; i++) {
+            properties.add("wallet.sharding.nodes[" + i + "].name=s" + i);
+            properties.add("wallet.sharding.nodes[" + i + "].url=jdbc:h2:mem:shard-bench-" + shards + "-" + i
+                + ";DB_CLOSE_DELAY=-1");
+        }
+        context = BenchmarkApplications.start("shard-bench", properties.toArray(String[]::new));
+        walletService = context.getBean(WalletService.class);
+        for (int i = 0; i < WALLETS; i++) {
+            walletService.createWallet(userId(i));
+            walletService.depositFunds(userId(i), Money.of("1000000000"), "seed");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public Money deposit() {
+        return walletService.depositFunds(userId(ThreadLocalRandom.current().nextInt(WALLETS)), AMOUNT, "bench");
+    }
+
+    @Benchmark
+    public void transfer() {
+        int from = ThreadLocalRandom.current().nextInt(WALLETS);
+        int to = (from + 1 + ThreadLocalRandom.current().nextInt(WALLETS - 1)) % WALLETS;
+        walletService.transferFunds(userId(from), userId(to), AMOUNT, "bench");
+    }
+
+    private static String userId(int i) {
+        return "bench-" + i;
+    }
+}
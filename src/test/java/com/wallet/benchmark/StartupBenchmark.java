@@ -0,0 +1,195 @@
+package com.wallet.benchmark;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Starts the packaged service in a JVM of its own, as it is deployed, and reports the time from
+ * launch to the first answered API request and the resident set size at that point. Compares the
+ * executable jar in its default mode with the production build (prod profile, AOT, CDS archive)
+ * against the same Postgres (see {@link BenchmarkDatabase}), whose schema is dropped first. Both
+ * jars must be built beforehand:
+ * {@code mvn -Pproduction package -DskipTests && mvn test -Pbenchmarks -Dtest=StartupBenchmark -Dstartup.runs=5}.
+ */
+@Tag("benchmark")
+class StartupBenchmark {
+    private static final int RUNS = Integer.getInteger("startup.runs", 3);
+    private static final Duration TIMEOUT = Duration.ofMinutes(2);
+    private static final Path TARGET = Path.of("target");
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+
+    @Test
+    void compareStartupModes() throws Exception {
+        Path appDirectory = TARGET.resolve("app");
+        Path executableJar = jar(TARGET, ".jar");
+        Path appJar = jar(appDirectory, "-app.jar");
+        assumeTrue(executableJar != null && appJar != null && Files.exists(appDirectory.resolve("app.jsa")),
+            "Build both jars first with mvn -Pproduction package -DskipTests");
+
+        Map<String, String> database = properties(BenchmarkDatabase.POSTGRES.properties("startup"));
+        dropSchema(database);
+        List<String> arguments = database.entrySet().stream().map(e -> "--" + e.getKey() + "=" + e.getValue()).toList();
+        Mode standard = new Mode("default", TARGET, command(arguments, "-jar", executableJar.getFileName().toString()));
+        // Run from the directory of the training run: the archive records the class path as it was given there
+        Mode production = new Mode("production", appDirectory, command(arguments,
+            "-XX:SharedArchiveFile=app.jsa", "-Dspring.aot.enabled=true",
+            "-jar", appJar.getFileName().toString(), "--spring.profiles.active=prod"));
+
+        // Flyway creates the schema, then the default mode's ddl-auto=update finds it complete
+        production.start();
+        standard.start();
+        for (int run = 0; run < RUNS; run++) {
+            standard.record(standard.start());
+            production.record(production.start());
+        }
+        System.out.printf("%-11s %5s %22s %22s%n", "mode", "runs", "first request ms", "RSS MB");
+        System.out.printf("%-11s %5s %22s %22s%n", "", "", "median (min-max)", "median (min-max)");
+        System.out.println(standard);
+        System.out.println(production);
+    }
+
+    private static List<String> command(List<String> applicationArguments, String... jvmArguments) {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(List.of(jvmArguments));
+        command.addAll(applicationArguments);
+        return command;
+    }
+
+    private final class Mode {
+        private final String name;
+        private final Path directory;
+        private final List<String> command;
+        private final List<Long> millis = new ArrayList<>();
+        private final List<Long> rssKilobytes = new ArrayList<>();
+
+        Mode(String name, Path directory, List<String> command) {
+            this.name = name;
+            this.directory = directory;
+            this.command = command;
+        }
+
+        /** @return time to first request in ms and RSS in kB */
+        long[] start() throws Exception {
+            int port = freePort();
+            List<String> args = new ArrayList<>(command);
+            args.add("--server.port=" + port);
+            Path log = TARGET.resolve("startup-" + name + ".log").toAbsolutePath();
+            long launched = System.nanoTime();
+            Process process = new ProcessBuilder(args).directory(directory.toFile()).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+            try {
+                awaitFirstResponse(process, port, launched + TIMEOUT.toNanos(), log);
+                long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - launched);
+                return new long[] {elapsed, rssKilobytes(process.pid())};
+            } finally {
+                process.destroy();
+                if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                    process.destroyForcibly().waitFor();
+                }
+            }
+        }
+
+        void record(long[] sample) {
+            millis.add(sample[0]);
+            rssKilobytes.add(sample[1]);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-11s %5d %22s %22s", name, millis.size(), summary(millis, 1), summary(rssKilobytes, 1024));
+        }
+    }
+
+    private void awaitFirstResponse(Process process, int port, long deadline, Path log) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(
+            URI.create("http://localhost:" + port + "/api/wallets/startup-probe/balance")).build();
+        while (true) {
+            assertTrue(process.isAlive(), () -> "Service exited early, see " + log);
+            assertTrue(System.nanoTime() < deadline, () -> "Service did not answer in time, see " + log);
+            try {
+                client.send(request, HttpResponse.BodyHandlers.discarding());
+                return;
+            } catch (ConnectException e) {
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+        }
+    }
+
+    private static long rssKilobytes(long pid) throws IOException {
+        Path status = Path.of("/proc", Long.toString(pid), "status");
+        if (!Files.exists(status)) {
+            return -1;
+        }
+        try (Stream<String> lines = Files.lines(status)) {
+            return lines.filter(line -> line.startsWith("VmRSS:"))
+                .mapToLong(line -> Long.parseLong(line.replaceAll("\\D", "")))
+                .findFirst()
+                .orElse(-1);
+        }
+    }
+
+    private static String summary(List<Long> samples, long divisor) {
+        long[] sorted = samples.stream().mapToLong(sample -> sample / divisor).sorted().toArray();
+        return String.format("%d (%d-%d)", sorted[sorted.length / 2], sorted[0], sorted[sorted.length - 1]);
+    }
+
+    private static Path jar(Path directory, String suffix) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return null;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("wallet-service-")
+                    && file.getFileName().toString().endsWith(suffix))
+                .findFirst()
+                .orElse(null);
+        }
+    }
+
+    private static Map<String, String> properties(List<String> properties) {
+        Map<String, String> map = new HashMap<>();
+        for (String property : properties) {
+            int separator = property.indexOf('=');
+            map.put(property.substring(0, separator), property.substring(separator + 1));
+        }
+        return map;
+    }
+
+    private static void dropSchema(Map<String, String> database) throws Exception {
+        try (Connection connection = DriverManager.getConnection(database.get("spring.datasource.url"),
+                database.get("spring.datasource.username"), database.get("spring.datasource.password"));
+             Statement statement = connection.createStatement()) {
+            statement.execute("drop schema public cascade");
+            statement.execute("create schema public");
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.wallet.benchmark;
+
+import com.wallet.model.TransactionType;
+import com.wallet.model.Wallet;
+import com.wallet.repository.DailyRollupRepository;
+import com.wallet.repository.TypeTotals;
+import com.wallet.service.BalanceCheckpointService;
+import com.wallet.service.WalletService;
+import com.wallet.service.statement.Statement;
+import com.wallet.service.statement.StatementService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A year-long statement of one wallet whose history holds 10^4 or 10^6 transactions over the same
+ * 365 days. Aligned to midnight it only sums daily rollups, whose number depends on the days in
+ * the range, not on the transactions in them; with edges mid-day it also scans the two partial
+ * days, which grow with the wallet's daily volume only. {@code ledgerScan} sums every transaction
+ * in the range for contrast. Daily checkpoints bound the opening and closing balance lookups, as
+ * the scheduled checkpoint writer does in production. Consecutive calls shift the range by a day so
+ * that H2 cannot hand back the previous call's result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class StatementBenchmark {
+    private static final String USER_ID = "statement-bench";
+    private static final int DAYS = 365;
+    private static final LocalDate FIRST_DAY = LocalDate.of(2024, 1, 1);
+    private static final LocalDateTime FROM = FIRST_DAY.atStartOfDay();
+    private static final LocalDateTime TO = FIRST_DAY.plusDays(DAYS).atStartOfDay();
+
+    @Param({"10000", "1000000"})
+    public int history;
+
+    private ConfigurableApplicationContext context;
+    private StatementService statementService;
+    private DailyRollupRepository rollupRepository;
+    private Long walletId;
+    private int shift;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkApplications.start("statement-bench-" + history, "wallet.rollups.enabled=false");
+        statementService = context.getBean(StatementService.class);
+        rollupRepository = context.getBean(DailyRollupRepository.class);
+        Wallet wallet = context.getBean(WalletService.class).createWallet(USER_ID);
+        walletId = wallet.getId();
+        seed(context.getBean(JdbcTemplate.class), walletId);
+        statementService.rollUp(FIRST_DAY.plusDays(DAYS - 1));
+        BalanceCheckpointService checkpointService = context.getBean(BalanceCheckpointService.class);
+        for (int day = 1; day <= DAYS; day++) {
+            checkpointService.writeCheckpoints(FROM.plusDays(day));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public Statement wholeDays() {
+        int days = nextShift();
+        return statementService.statement(USER_ID, FROM.plusDays(days), TO.minusDays(days));
+    }
+
+    @Benchmark
+    public Statement partialEdgeDays() {
+        int days = nextShift();
+        return statementService.statement(USER_ID, FROM.plusDays(days).plusHours(12),
+            TO.minusDays(days).minusHours(12));
+    }
+
+    @Benchmark
+    public List<TypeTotals> ledgerScan() {
+        int days = nextShift();
+        return rollupRepository.sumLedger(walletId, FROM.plusDays(days), TO.minusDays(days));
+    }
+
+    private int nextShift() {
+        shift = (shift + 1) % 7;
+        return shift;
+    }
+
+    /** Deposits and withdrawals spread evenly over the year, so the balance stays positive. */
+    private void seed(JdbcTemplate jdbcTemplate, Long walletId) {
+        long step = DAYS * 86_400_000L / history;
+        List<Object[]> batch = new ArrayList<>(10_000);
+        BigDecimal balance = BigDecimal.ZERO;
+        for (int i = 0; i < history; i++) {
+            TransactionType type = i % 3 == 2 ? TransactionType.WITHDRAWAL : TransactionType.DEPOSIT;
+            BigDecimal amount = BigDecimal.valueOf(1 + i % 7);
+            balance = type == TransactionType.DEPOSIT ? balance.add(amount) : balance.subtract(amount);
+            batch.add(new Object[] {walletId, type.name(), amount, balance, "seed",
+                Timestamp.valueOf(FROM.plusNanos(i * step * 1_000_000))});
+            if (batch.size() == 10_000 || i == history - 1) {
+                jdbcTemplate.batchUpdate("""
+                    insert into transactions (id, wallet_id, type, amount, balance, description, created_at)
+                    values (next value for transactions_seq, ?, ?, ?, ?, ?, ?)
+                    """, batch);
+                batch.clear();
+            }
+        }
+    }
+}
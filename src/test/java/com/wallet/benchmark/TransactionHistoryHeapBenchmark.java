@@ -0,0 +1,96 @@
+package com.wallet.benchmark;
+
+import com.wallet.model.TransactionType;
+import com.wallet.model.Wallet;
+import com.wallet.service.WalletService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Streams histories of growing size and samples the retained heap while rows are being consumed.
+ * Run with {@code mvn test -Pbenchmarks}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+    "spring.jpa.show-sql=false",
+    // Let H2 hand rows to the cursor as it produces them, as Postgres does with a fetch size
+    "spring.datasource.url=jdbc:h2:mem:heapbench;DB_CLOSE_DELAY=-1;LAZY_QUERY_EXECUTION=1"
+})
+@ActiveProfiles("test")
+class TransactionHistoryHeapBenchmark {
+    private static final int[] HISTORY_SIZES = {25_000, 100_000, 250_000};
+    private static final int SAMPLE_EVERY = 25_000;
+    private static final long MB = 1024 * 1024;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void streamingHeapStaysFlatAsHistoryGrows() {
+        List<Long> growth = new ArrayList<>();
+        for (int size : HISTORY_SIZES) {
+            String userId = "heap-bench-" + size;
+            seedHistory(walletService.createWallet(userId), size);
+
+            long baseline = retainedHeap();
+            AtomicLong rows = new AtomicLong();
+            AtomicLong peak = new AtomicLong(baseline);
+            walletService.streamTransactionHistory(userId, transaction -> {
+                if (rows.incrementAndGet() % SAMPLE_EVERY == 0) {
+                    peak.accumulateAndGet(retainedHeap(), Math::max);
+                }
+            });
+
+            assertEquals(size, rows.get());
+            long grown = Math.max(0, peak.get() - baseline);
+            growth.add(grown);
+            System.out.printf("history=%,d rows  retained-heap-growth=%,d KB%n", size, grown / 1024);
+        }
+
+        // A 10x larger history must not need materially more retained heap; the slack covers
+        // the embedded H2 page cache (16 MB by default), which lives in the same heap
+        long smallest = growth.get(0);
+        long largest = growth.get(growth.size() - 1);
+        assertTrue(largest < smallest + 32 * MB,
+            "retained heap grew from " + smallest / MB + " MB to " + largest / MB + " MB");
+    }
+
+    private void seedHistory(Wallet wallet, int size) {
+        LocalDateTime start = LocalDateTime.now().minusDays(30);
+        List<Object[]> batch = new ArrayList<>(5_000);
+        for (int i = 0; i < size; i++) {
+            batch.add(new Object[] {wallet.getId(), TransactionType.DEPOSIT.name(), BigDecimal.ONE,
+                BigDecimal.valueOf(i + 1L), "seed " + i, Timestamp.valueOf(start.plusSeconds(i))});
+            if (batch.size() == 5_000 || i == size - 1) {
+                jdbcTemplate.batchUpdate("""
+                    insert into transactions (id, wallet_id, type, amount, balance, description, created_at)
+                    values (next value for transactions_seq, ?, ?, ?, ?, ?, ?)
+                    """, batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private static long retainedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,82 @@
+package com.wallet.benchmark;
+
+import com.wallet.exception.WalletException;
+import com.wallet.model.Money;
+import com.wallet.service.WalletService;
+import com.wallet.service.concurrency.ConcurrencyMode;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Opposing-direction transfer storm: every writer picks two of a handful of hot wallets at random
+ * and moves funds between them, so the same pairs are locked from both ends all the time.
+ */
+@Tag("benchmark")
+class TransferStormBenchmark {
+    private static final int HOT_WALLETS = 4;
+    private static final int WRITERS = 32;
+    private static final long RUN_MILLIS = 5_000;
+    private static final Money SEED = Money.of("1000000");
+
+    @Test
+    void transferStorm() throws Exception {
+        for (ConcurrencyMode mode : ConcurrencyMode.values()) {
+            try (ConfigurableApplicationContext context = BenchmarkApplications.start(
+                    "storm-" + mode, "wallet.concurrency.mode=" + mode)) {
+                WalletService walletService = context.getBean(WalletService.class);
+                for (int i = 0; i < HOT_WALLETS; i++) {
+                    walletService.createWallet(hot(i));
+                    walletService.depositFunds(hot(i), SEED, "seed");
+                }
+
+                LongAdder completed = new LongAdder();
+                LongAdder failed = new LongAdder();
+                AtomicBoolean running = new AtomicBoolean(true);
+                List<Thread> writers = new ArrayList<>();
+                for (int w = 0; w < WRITERS; w++) {
+                    Thread writer = new Thread(() -> {
+                        ThreadLocalRandom random = ThreadLocalRandom.current();
+                        while (running.get()) {
+                            int from = random.nextInt(HOT_WALLETS);
+                            int to = (from + 1 + random.nextInt(HOT_WALLETS - 1)) % HOT_WALLETS;
+                            try {
+                                walletService.transferFunds(hot(from), hot(to), Money.of("1"), "storm");
+                                completed.increment();
+                            } catch (WalletException e) {
+                                failed.increment();
+                            }
+                        }
+                    });
+                    writers.add(writer);
+                    writer.start();
+                }
+                Thread.sleep(RUN_MILLIS);
+                running.set(false);
+                for (Thread writer : writers) {
+                    writer.join();
+                }
+
+                Money total = Money.ZERO;
+                for (int i = 0; i < HOT_WALLETS; i++) {
+                    total = total.plus(walletService.getBalance(hot(i)));
+                }
+                System.out.printf("mode=%-11s writers=%d transfers/s=%,8.0f failed=%d%n",
+                    mode, WRITERS, completed.sum() * 1000.0 / RUN_MILLIS, failed.sum());
+                assertEquals(0, SEED.times(HOT_WALLETS).compareTo(total));
+            }
+        }
+    }
+
+    private static String hot(int i) {
+        return "hot-" + i;
+    }
+}
@@ -0,0 +1,126 @@
+package com.wallet.benchmark;
+
+import com.wallet.exception.WalletException;
+import com.wallet.model.Money;
+import com.wallet.service.TransactionPage;
+import com.wallet.service.WalletService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the operations that resolve a userId to its wallet, with the wallet id cache
+ * ({@code wallet.wallet-id-cache.enabled}) on and off. Before measuring, each trial prints the JDBC
+ * statements one call of each operation executes once the cache is warm.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class WalletLookupBenchmark {
+    private static final int WALLETS = 64;
+    private static final int SAMPLES = 200;
+    private static final Money AMOUNT = Money.of("1.25");
+
+    @Param({"true", "false"})
+    public boolean cache;
+
+    @Param({"h2"})
+    public String database;
+
+    private ConfigurableApplicationContext context;
+    private WalletService walletService;
+    private LocalDateTime now;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkApplications.start(BenchmarkDatabase.of(database), "lookup-bench",
+            "wallet.wallet-id-cache.enabled=" + cache,
+            "spring.datasource.type=" + StatementCountingDataSource.class.getName());
+        walletService = context.getBean(WalletService.class);
+        for (int i = 0; i < WALLETS; i++) {
+            walletService.createWallet(userId(i));
+            walletService.depositFunds(userId(i), Money.of("1000000000"), "seed");
+        }
+        now = LocalDateTime.now();
+
+        System.out.printf("%ncache=%s statements per call: history %.2f, historicalBalance %.2f, deposit %.2f, "
+                + "transfer %.2f, missingWallet %.2f%n",
+            cache, statements(this::history), statements(this::historicalBalance), statements(this::deposit),
+            statements(this::transfer), statements(this::missingWallet));
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public TransactionPage history() {
+        return walletService.getTransactionHistory(randomUser(), null, 10);
+    }
+
+    @Benchmark
+    public Money historicalBalance() {
+        return walletService.getHistoricalBalance(randomUser(), now);
+    }
+
+    @Benchmark
+    public Money deposit() {
+        return walletService.depositFunds(randomUser(), AMOUNT, "bench");
+    }
+
+    @Benchmark
+    public void transfer() {
+        int from = ThreadLocalRandom.current().nextInt(WALLETS);
+        int to = (from + 1 + ThreadLocalRandom.current().nextInt(WALLETS - 1)) % WALLETS;
+        walletService.transferFunds(userId(from), userId(to), AMOUNT, "bench");
+    }
+
+    @Benchmark
+    public String missingWallet() {
+        try {
+            walletService.depositFunds("missing-" + ThreadLocalRandom.current().nextInt(WALLETS), AMOUNT, "bench");
+            throw new IllegalStateException("Deposit to a missing wallet succeeded");
+        } catch (WalletException e) {
+            return e.getMessage();
+        }
+    }
+
+    // Warmed up first with a few calls per wallet, so the counts are those of a warm cache
+    private static double statements(Runnable operation) {
+        for (int i = 0; i < WALLETS * 4; i++) {
+            operation.run();
+        }
+        long before = StatementCountingDataSource.executions();
+        for (int i = 0; i < SAMPLES; i++) {
+            operation.run();
+        }
+        return (StatementCountingDataSource.executions() - before) / (double) SAMPLES;
+    }
+
+    private static String randomUser() {
+        return userId(ThreadLocalRandom.current().nextInt(WALLETS));
+    }
+
+    private static String userId(int i) {
+        return "bench-" + i;
+    }
+}
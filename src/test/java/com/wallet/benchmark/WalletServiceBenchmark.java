@@ -0,0 +1,111 @@
+package com.wallet.benchmark;
+
+import com.wallet.model.Money;
+import com.wallet.service.TransactionPage;
+import com.wallet.service.WalletService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of every {@link WalletService} hot path on the JPA implementation, per database. Runs
+ * against H2 by default; add Postgres with
+ * {@code mvn -Pbenchmarks test-compile exec:exec -Djmh.include=WalletServiceBenchmark -Djmh.databases=h2,postgres}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class WalletServiceBenchmark {
+    private static final int WALLETS = 64;
+    private static final int HISTORY_SIZE = 1_000;
+    private static final int PAGE_SIZE = 100;
+    private static final String HISTORY_USER = "bench-history";
+    private static final Money AMOUNT = Money.of("1.25");
+
+    @Param({"h2"})
+    public String database;
+
+    private ConfigurableApplicationContext context;
+    private WalletService walletService;
+    private LocalDateTime historyMidpoint;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkApplications.start(BenchmarkDatabase.of(database), "service-bench");
+        walletService = context.getBean(WalletService.class);
+        for (int i = 0; i < WALLETS; i++) {
+            walletService.createWallet(userId(i));
+            walletService.depositFunds(userId(i), Money.of("1000000000"), "seed");
+        }
+        walletService.createWallet(HISTORY_USER);
+        for (int i = 0; i < HISTORY_SIZE; i++) {
+            walletService.depositFunds(HISTORY_USER, AMOUNT, "history " + i);
+            if (i == HISTORY_SIZE / 2) {
+                historyMidpoint = LocalDateTime.now();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public Money deposit() {
+        return walletService.depositFunds(randomUser(), AMOUNT, "bench");
+    }
+
+    @Benchmark
+    public Money withdraw() {
+        return walletService.withdrawFunds(randomUser(), AMOUNT, "bench");
+    }
+
+    @Benchmark
+    public void transfer() {
+        int from = ThreadLocalRandom.current().nextInt(WALLETS);
+        int to = (from + 1 + ThreadLocalRandom.current().nextInt(WALLETS - 1)) % WALLETS;
+        walletService.transferFunds(userId(from), userId(to), AMOUNT, "bench");
+    }
+
+    @Benchmark
+    public Money getBalance() {
+        return walletService.getBalance(randomUser());
+    }
+
+    @Benchmark
+    public Money getHistoricalBalance() {
+        return walletService.getHistoricalBalance(HISTORY_USER, historyMidpoint);
+    }
+
+    @Benchmark
+    public TransactionPage getTransactionHistory() {
+        return walletService.getTransactionHistory(HISTORY_USER, null, PAGE_SIZE);
+    }
+
+    private static String randomUser() {
+        return userId(ThreadLocalRandom.current().nextInt(WALLETS));
+    }
+
+    private static String userId(int i) {
+        return "bench-" + i;
+    }
+}
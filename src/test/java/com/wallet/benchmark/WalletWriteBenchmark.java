@@ -0,0 +1,75 @@
+package com.wallet.benchmark;
+
+import com.wallet.model.Money;
+import com.wallet.service.WalletService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deposit and withdraw throughput of the JPA path versus the sharded engine. Run with
+ * {@code mvn -Pbenchmarks test-compile exec:exec -Djmh.include=WalletWriteBenchmark -Djmh.threads=1,8,64}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class WalletWriteBenchmark {
+    private static final int WALLETS = 64;
+    private static final Money AMOUNT = Money.of("1.25");
+
+    @Param({"jpa", "engine"})
+    public String mode;
+
+    private ConfigurableApplicationContext context;
+    private WalletService walletService;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkApplications.start("write-" + mode, "wallet.engine.enabled=" + mode.equals("engine"));
+        walletService = context.getBean(WalletService.class);
+        for (int i = 0; i < WALLETS; i++) {
+            walletService.createWallet(userId(i));
+            walletService.depositFunds(userId(i), Money.of("1000000"), "seed");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public Money deposit() {
+        return walletService.depositFunds(randomUser(), AMOUNT, "bench");
+    }
+
+    @Benchmark
+    public Money withdraw() {
+        return walletService.withdrawFunds(randomUser(), AMOUNT, "bench");
+    }
+
+    private static String randomUser() {
+        return userId(ThreadLocalRandom.current().nextInt(WALLETS));
+    }
+
+    private static String userId(int i) {
+        return "bench-" + i;
+    }
+}
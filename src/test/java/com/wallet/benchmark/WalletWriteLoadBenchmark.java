@@ -0,0 +1,91 @@
+package com.wallet.benchmark;
+
+import com.wallet.model.Money;
+import com.wallet.service.WalletService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Closed-loop load harness: N writers deposit into a pool of hot wallets for a fixed time, once
+ * through JPA and once through the sharded engine. The engine run also checks that no update was lost.
+ */
+@Tag("benchmark")
+class WalletWriteLoadBenchmark {
+    private static final int[] WRITERS = {1, 8, 64};
+    private static final int WALLETS = 16;
+    private static final long RUN_MILLIS = 3_000;
+
+    @Test
+    void compareJpaAndEngineThroughput() throws Exception {
+        for (String mode : List.of("jpa", "engine")) {
+            try (ConfigurableApplicationContext context = BenchmarkApplications.start(
+                    "load-" + mode, "wallet.engine.enabled=" + mode.equals("engine"))) {
+                WalletService walletService = context.getBean(WalletService.class);
+                for (int i = 0; i < WALLETS; i++) {
+                    walletService.createWallet("load-" + i);
+                }
+                for (int writers : WRITERS) {
+                    Result result = run(walletService, writers);
+                    System.out.printf("mode=%-6s writers=%-3d ops/s=%,10.0f errors=%d%n",
+                        mode, writers, result.ok * 1000.0 / RUN_MILLIS, result.errors);
+                }
+                if (mode.equals("engine")) {
+                    assertNoLostUpdates(walletService);
+                }
+            }
+        }
+    }
+
+    private Result run(WalletService walletService, int writers) throws InterruptedException {
+        LongAdder ok = new LongAdder();
+        LongAdder errors = new LongAdder();
+        AtomicBoolean running = new AtomicBoolean(true);
+        CountDownLatch done = new CountDownLatch(writers);
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    while (running.get()) {
+                        try {
+                            walletService.depositFunds("load-" + ThreadLocalRandom.current().nextInt(WALLETS),
+                                Money.of("1"), "load");
+                            ok.increment();
+                        } catch (RuntimeException e) {
+                            errors.increment();
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        Thread.sleep(RUN_MILLIS);
+        running.set(false);
+        done.await();
+        return new Result(ok.sum(), errors.sum());
+    }
+
+    private void assertNoLostUpdates(WalletService walletService) {
+        for (int i = 0; i < WALLETS; i++) {
+            String userId = "load-" + i;
+            LongAdder deposits = new LongAdder();
+            walletService.streamTransactionHistory(userId, transaction -> deposits.increment());
+            // Every deposit was 1, so the balance must equal the number of ledger rows
+            assertEquals(deposits.sum(), walletService.getBalance(userId).toBigDecimal().longValueExact());
+        }
+    }
+
+    private record Result(long ok, long errors) {}
+}
@@ -0,0 +1,49 @@
+package com.wallet.config;
+
+import com.wallet.replica.ReplicaRoutingDataSource;
+import com.wallet.shard.ShardRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ConnectionPoolsTest {
+
+    @Test
+    void shardedPoolsAreSummed() throws Exception {
+        LinkedHashMap<String, DataSource> shards = new LinkedHashMap<>();
+        shards.put("a", pool(10));
+        shards.put("b", pool(6));
+
+        assertEquals(16, ConnectionPools.maximumSize(new ShardRoutingDataSource(shards), "limit"));
+    }
+
+    @Test
+    void replicaRoutingUsesThePrimaryPool() throws Exception {
+        LazyConnectionDataSourceProxy routed = new LazyConnectionDataSourceProxy();
+        routed.setTargetDataSource(new ReplicaRoutingDataSource(pool(12), null));
+
+        assertEquals(12, ConnectionPools.maximumSize(routed, "limit"));
+    }
+
+    @Test
+    void otherDataSourcesNeedAnExplicitLimit() {
+        IllegalStateException error = assertThrows(IllegalStateException.class,
+            () -> ConnectionPools.maximumSize(new SimpleDriverDataSource(), "wallet.admission.max-concurrent"));
+
+        assertEquals("wallet.admission.max-concurrent must be set when the data source is not Hikari",
+            error.getMessage());
+    }
+
+    private static HikariDataSource pool(int size) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setMaximumPoolSize(size);
+        return pool;
+    }
+}
@@ -0,0 +1,127 @@
+package com.wallet.controller;
+
+import com.wallet.service.ratelimit.AdaptiveConcurrencyLimit;
+import com.jayway.jsonpath.JsonPath;
+import com.wallet.service.ratelimit.TokenBuckets;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RateLimitFilterTest {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AdaptiveConcurrencyLimit limit =
+        new AdaptiveConcurrencyLimit(1, 1, 1, Duration.ofSeconds(1), 0.5);
+    private final RateLimitFilter filter = new RateLimitFilter("X-Client-Id",
+        new TokenBuckets(0.001, 3, Duration.ofMinutes(5), 4),
+        new TokenBuckets(0.001, 2, Duration.ofMinutes(5), 4),
+        limit, registry);
+
+    @Test
+    void aFloodingClientExhaustsOnlyItsOwnBucket() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertEquals(200, post("flood", "/api/wallets").getStatus());
+        }
+        MockHttpServletResponse rejected = post("flood", "/api/wallets");
+        assertEquals(429, rejected.getStatus());
+        assertEquals(1000, Integer.parseInt(rejected.getHeader("Retry-After")));
+        assertEquals("API client rate limit exceeded", JsonPath.read(rejected.getContentAsString(), "$.message"));
+
+        assertEquals(200, post("polite", "/api/wallets").getStatus());
+        assertEquals(1.0, rejectedCount("client"));
+    }
+
+    @Test
+    void withoutATrustedHeaderRotatingItGetsNoFreshBuckets() throws Exception {
+        RateLimitFilter untrusted = new RateLimitFilter(null,
+            new TokenBuckets(0.001, 3, Duration.ofMinutes(5), 4),
+            new TokenBuckets(0.001, 2, Duration.ofMinutes(5), 4),
+            new AdaptiveConcurrencyLimit(1, 1, 1, Duration.ofSeconds(1), 0.5), registry);
+        for (int i = 0; i < 3; i++) {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            untrusted.doFilter(request("rotated-" + i, "/api/wallets"), response, new MockFilterChain());
+            assertEquals(200, response.getStatus());
+        }
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        untrusted.doFilter(request("rotated-3", "/api/wallets"), rejected, new MockFilterChain());
+        assertEquals(429, rejected.getStatus());
+
+        MockHttpServletRequest other = request("rotated-4", "/api/wallets");
+        other.setRemoteAddr("10.0.0.2");
+        MockHttpServletResponse accepted = new MockHttpServletResponse();
+        untrusted.doFilter(other, accepted, new MockFilterChain());
+        assertEquals(200, accepted.getStatus());
+    }
+
+    @Test
+    void anAuthenticatedPrincipalIsTrustedOverTheHeader() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            MockHttpServletRequest request = request("rotated-" + i, "/api/wallets");
+            request.setUserPrincipal(() -> "integrator");
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(request, response, new MockFilterChain());
+            assertEquals(200, response.getStatus());
+        }
+        MockHttpServletRequest request = request("rotated-3", "/api/wallets");
+        request.setUserPrincipal(() -> "integrator");
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(request, rejected, new MockFilterChain());
+        assertEquals(429, rejected.getStatus());
+    }
+
+    @Test
+    void userBucketsAreSharedAcrossClients() throws Exception {
+        assertEquals(200, post("a", "/api/wallets/alice/deposit").getStatus());
+        assertEquals(200, post("b", "/api/wallets/alice/transfer/bob").getStatus());
+        assertEquals(429, post("c", "/api/wallets/alice/withdraw").getStatus());
+        assertEquals(200, post("c", "/api/wallets/bob/withdraw").getStatus());
+        assertEquals(1.0, rejectedCount("user"));
+    }
+
+    @Test
+    void mutationsBeyondTheConcurrencyLimitAreShedWithoutRunning() throws Exception {
+        AtomicInteger ran = new AtomicInteger();
+        MockHttpServletResponse nested = new MockHttpServletResponse();
+        filter.doFilter(request("a", "/api/wallets/alice/deposit"), new MockHttpServletResponse(), (request, response) -> {
+            ran.incrementAndGet();
+            filter.doFilter(request("b", "/api/wallets/bob/deposit"), nested, (inner, ignored) -> ran.incrementAndGet());
+        });
+        assertEquals(503, nested.getStatus());
+        assertEquals("1", nested.getHeader("Retry-After"));
+        assertEquals(1, ran.get());
+        assertEquals(0, limit.inFlight());
+        assertEquals(1.0, rejectedCount("concurrency"));
+    }
+
+    @Test
+    void readsAreNotLimited() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/wallets/alice/balance");
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(request, response, new MockFilterChain());
+            assertEquals(200, response.getStatus());
+        }
+    }
+
+    private MockHttpServletResponse post(String clientId, String uri) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request(clientId, uri), response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String clientId, String uri) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", uri);
+        request.addHeader("X-Client-Id", clientId);
+        return request;
+    }
+
+    private double rejectedCount(String reason) {
+        return registry.get("wallet.ratelimit.rejected").tag("reason", reason).counter().count();
+    }
+}
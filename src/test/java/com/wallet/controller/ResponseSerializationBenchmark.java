@@ -0,0 +1,109 @@
+package com.wallet.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.wallet.model.Money;
+import com.wallet.model.Transaction;
+import com.wallet.model.TransactionType;
+import com.wallet.model.Wallet;
+import com.wallet.repository.TransactionRow;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON cost of the controller's response bodies, using the same mapper defaults as Spring Boot.
+ * Lives next to the controller because {@link BalanceResponse} is package-private. The history
+ * benchmarks write a 1,000-row page into a discarding stream, as the message converter streams
+ * into the response buffer, so {@code gc.alloc.rate.norm} is the serializer's own garbage per
+ * response: entities as the controller used to return them, {@link TransactionRow} through
+ * reflection, and {@link TransactionRow} through {@link TransactionRowJsonSerializer}. Run with
+ * {@code mvn -Pbenchmarks test-compile exec:exec -Djmh.include=ResponseSerializationBenchmark -Djmh.profilers=gc}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseSerializationBenchmark {
+    private static final int PAGE_SIZE = 1000;
+
+    private ObjectMapper objectMapper;
+    private ObjectMapper tunedMapper;
+    private BalanceResponse balance;
+    private List<Transaction> entityPage;
+    private List<TransactionRow> page;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+        tunedMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .serializers(new TransactionRowJsonSerializer())
+            .build();
+        balance = new BalanceResponse(Money.of("1234.5678"));
+
+        Wallet wallet = new Wallet();
+        wallet.setId(1L);
+        wallet.setUserId("bench-user");
+        wallet.setBalance(Money.of("1234.5678"));
+        wallet.setVersion(PAGE_SIZE + 1L);
+        wallet.setCreatedAt(LocalDateTime.now());
+        wallet.setUpdatedAt(LocalDateTime.now());
+
+        entityPage = new ArrayList<>(PAGE_SIZE);
+        page = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            Transaction row = new Transaction();
+            row.setId((long) i);
+            row.setWallet(wallet);
+            row.setType(TransactionType.DEPOSIT);
+            row.setAmount(Money.of("12.3456"));
+            row.setBalance(Money.of("12.3456").times(i + 1L));
+            row.setDescription("Deposit " + i);
+            row.setCreatedAt(LocalDateTime.now().minusSeconds(i));
+            entityPage.add(row);
+            page.add(new TransactionRow(row.getId(), wallet.getId(), row.getType(), row.getAmount(), row.getBalance(),
+                row.getDescription(), row.getCreatedAt()));
+        }
+    }
+
+    @Benchmark
+    public String balanceResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(balance);
+    }
+
+    @Benchmark
+    public void entityHistoryPage() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), entityPage);
+    }
+
+    @Benchmark
+    public void reflectiveHistoryPage() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), page);
+    }
+
+    @Benchmark
+    public void historyPage() throws IOException {
+        tunedMapper.writeValue(OutputStream.nullOutputStream(), page);
+    }
+}
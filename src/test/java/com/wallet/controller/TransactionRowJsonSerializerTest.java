@@ -0,0 +1,52 @@
+package com.wallet.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.wallet.model.Money;
+import com.wallet.model.TransactionType;
+import com.wallet.repository.TransactionRow;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TransactionRowJsonSerializerTest {
+    private final ObjectMapper reflective = new ObjectMapper()
+        .registerModule(new JavaTimeModule())
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final ObjectMapper tuned = new ObjectMapper()
+        .registerModule(new JavaTimeModule())
+        .registerModule(new SimpleModule().addSerializer(new TransactionRowJsonSerializer()))
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Test
+    void writesTheSameJsonAsTheDefaultSerialization() throws Exception {
+        List<TransactionRow> rows = new ArrayList<>(List.of(
+            row(0, LocalDateTime.of(2024, 1, 1, 0, 0)),
+            row(-1, LocalDateTime.of(2024, 12, 31, 23, 59, 59, 1)),
+            row(Long.MAX_VALUE, LocalDateTime.of(999, 2, 3, 4, 5, 6, 120_000_000)),
+            row(Long.MIN_VALUE, LocalDateTime.of(12_345, 6, 7, 8, 9, 10, 999_999_999)),
+            row(123_456, LocalDateTime.of(2024, 6, 1, 12, 30, 0, 500_000)),
+            new TransactionRow(null, null, null, null, null, null, null)));
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < 1_000; i++) {
+            rows.add(row(random.nextLong(-1_000_000_000_000L, 1_000_000_000_000L),
+                LocalDateTime.of(2024, 1, 1, 0, 0).plusNanos(random.nextLong(0, 1_000_000_000_000_000L))));
+        }
+
+        for (TransactionRow row : rows) {
+            assertEquals(reflective.writeValueAsString(row), tuned.writeValueAsString(row));
+        }
+    }
+
+    private static TransactionRow row(long units, LocalDateTime createdAt) {
+        return new TransactionRow(units, 42L, TransactionType.TRANSFER, Money.ofUnits(units),
+            Money.ofUnits(Math.abs(units / 2)), "Transfer to \"bob\": dinner é", createdAt);
+    }
+}
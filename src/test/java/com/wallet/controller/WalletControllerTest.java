@@ -1,24 +1,48 @@
 package com.wallet.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.wallet.model.Transaction;
+import com.wallet.model.Money;
 import com.wallet.model.TransactionType;
 import com.wallet.model.Wallet;
+import com.wallet.replica.ConsistencyToken;
+import com.wallet.replica.ReplicaSet;
+import com.wallet.repository.TransactionRow;
+import com.wallet.repository.TypeTotals;
+import com.wallet.service.BatchItemResult;
+import com.wallet.service.BatchMode;
+import com.wallet.service.BatchOperation;
+import com.wallet.service.BatchResult;
+import com.wallet.service.TransactionCursor;
+import com.wallet.service.TransactionPage;
 import com.wallet.service.WalletService;
+import com.wallet.service.idempotency.IdempotencyService;
+import com.wallet.service.idempotency.IdempotentResponse;
+import com.wallet.service.statement.Statement;
+import com.wallet.service.statement.StatementService;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -35,14 +59,32 @@ class WalletControllerTest {
     @MockBean
     private WalletService walletService;
 
+    @MockBean
+    private IdempotencyService idempotencyService;
+
+    @MockBean
+    private StatementService statementService;
+
+    @MockBean
+    private ReplicaSet replicaSet;
+
     private static final String USER_ID = "user123";
     private static final String BASE_URL = "/api/wallets";
 
+    // Stands in for the primary's WAL position, which each committed write moves forward
+    private final AtomicLong primaryPosition = new AtomicLong();
+
+    @BeforeEach
+    void issueTokensAtThePrimaryPosition() {
+        when(replicaSet.issueToken()).thenAnswer(invocation ->
+            new ConsistencyToken(primaryPosition.get(), System.currentTimeMillis()));
+    }
+
     @Test
     void createWallet_Success() throws Exception {
         Wallet wallet = new Wallet();
         wallet.setUserId(USER_ID);
-        wallet.setBalance(BigDecimal.ZERO);
+        wallet.setBalance(Money.ZERO);
 
         when(walletService.createWallet(anyString())).thenReturn(wallet);
 
@@ -51,12 +93,29 @@ class WalletControllerTest {
                 .content(objectMapper.writeValueAsString(new CreateWalletRequest(USER_ID))))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.userId").value(USER_ID))
-                .andExpect(jsonPath("$.balance").value(0));
+                .andExpect(jsonPath("$.balance").value(0))
+                .andExpect(jsonPath("$.version").doesNotExist());
+    }
+
+    @Test
+    void createWallet_IssuesTokenPastTheWrite() throws Exception {
+        when(walletService.createWallet(anyString())).thenAnswer(invocation -> {
+            primaryPosition.incrementAndGet();
+            return new Wallet();
+        });
+
+        MvcResult result = mockMvc.perform(post(BASE_URL)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new CreateWalletRequest(USER_ID))))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertTokenPastWrite(result);
     }
 
     @Test
     void getBalance_Success() throws Exception {
-        when(walletService.getBalance(USER_ID)).thenReturn(new BigDecimal("100.00"));
+        when(walletService.getBalance(USER_ID)).thenReturn(Money.of("100.00"));
 
         mockMvc.perform(get(BASE_URL + "/{userId}/balance", USER_ID))
                 .andExpect(status().isOk())
@@ -67,7 +126,7 @@ class WalletControllerTest {
     void getHistoricalBalance_Success() throws Exception {
         LocalDateTime timestamp = LocalDateTime.now();
         when(walletService.getHistoricalBalance(anyString(), any(LocalDateTime.class)))
-                .thenReturn(new BigDecimal("100.00"));
+                .thenReturn(Money.of("100.00"));
 
         mockMvc.perform(get(BASE_URL + "/{userId}/history", USER_ID)
                 .param("timestamp", timestamp.toString()))
@@ -75,28 +134,150 @@ class WalletControllerTest {
                 .andExpect(jsonPath("$.balance").value(100.00));
     }
 
+    @Test
+    void getHistoricalBalance_WithoutTimestampAsksForTheLatest() throws Exception {
+        when(walletService.getHistoricalBalance(USER_ID, null)).thenReturn(Money.of("100.00"));
+
+        mockMvc.perform(get(BASE_URL + "/{userId}/history", USER_ID))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balance").value(100.00));
+    }
+
+    @Test
+    void getHistoricalBalances_Success() throws Exception {
+        LocalDateTime timestamp = LocalDateTime.of(2024, 1, 31, 23, 59, 59);
+        when(walletService.getHistoricalBalances(List.of("a", "b"), timestamp))
+                .thenReturn(Map.of("a", Money.of("10.00"), "b", Money.of("20.00")));
+
+        mockMvc.perform(post(BASE_URL + "/historical-balances")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new HistoricalBalancesRequest(List.of("a", "b"), timestamp))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balances.a").value(10.00))
+                .andExpect(jsonPath("$.balances.b").value(20.00));
+    }
+
+    @Test
+    void getStatement_Success() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 12, 0);
+        LocalDateTime to = LocalDateTime.of(2024, 2, 1, 0, 0);
+        when(statementService.statement(USER_ID, from, to)).thenReturn(new Statement(USER_ID, from, to,
+            Money.of("10.00"), Money.of("35.00"), List.of(
+                new TypeTotals(TransactionType.DEPOSIT, 2, Money.of("30.00"), Money.ZERO),
+                new TypeTotals(TransactionType.WITHDRAWAL, 1, Money.ZERO, Money.of("5.00")),
+                TypeTotals.zero(TransactionType.TRANSFER))));
+
+        mockMvc.perform(get(BASE_URL + "/{userId}/statement", USER_ID)
+                .param("from", from.toString())
+                .param("to", to.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.openingBalance").value(10.00))
+                .andExpect(jsonPath("$.closingBalance").value(35.00))
+                .andExpect(jsonPath("$.totals[0].type").value("DEPOSIT"))
+                .andExpect(jsonPath("$.totals[0].count").value(2))
+                .andExpect(jsonPath("$.totals[1].debits").value(5.00));
+    }
+
+    @Test
+    void applyBatch_ReportsPerItemResults() throws Exception {
+        List<BatchOperation> operations = List.of(
+            new BatchOperation(TransactionType.DEPOSIT, "a", null, Money.of("10.00"), "payroll"),
+            new BatchOperation(TransactionType.WITHDRAWAL, "b", null, Money.of("99.00"), "payroll"));
+        when(walletService.applyBatch(operations, BatchMode.BEST_EFFORT))
+                .thenReturn(BatchResult.of(BatchMode.BEST_EFFORT, List.of(
+                    BatchItemResult.applied(0, Money.of("10.00")),
+                    BatchItemResult.failed(1, "Insufficient funds"))));
+
+        mockMvc.perform(post(BASE_URL + "/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new BatchRequest(BatchMode.BEST_EFFORT, operations))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.applied").value(1))
+                .andExpect(jsonPath("$.items[0].status").value("APPLIED"))
+                .andExpect(jsonPath("$.items[1].error").value("Insufficient funds"));
+    }
+
+    @Test
+    void applyBatch_RolledBackBatchIsUnprocessable() throws Exception {
+        List<BatchOperation> operations = List.of(
+            new BatchOperation(TransactionType.WITHDRAWAL, "b", null, Money.of("99.00"), "payroll"));
+        when(walletService.applyBatch(operations, BatchMode.ALL_OR_NOTHING))
+                .thenReturn(BatchResult.of(BatchMode.ALL_OR_NOTHING, List.of(
+                    BatchItemResult.failed(0, "Insufficient funds"))));
+
+        mockMvc.perform(post(BASE_URL + "/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new BatchRequest(BatchMode.ALL_OR_NOTHING, operations))))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.committed").value(false));
+    }
+
     @Test
     void depositFunds_Success() throws Exception {
-        when(walletService.depositFunds(anyString(), any(BigDecimal.class), anyString()))
-                .thenReturn(new BigDecimal("100.00"));
+        when(walletService.depositFunds(anyString(), any(Money.class), anyString()))
+                .thenReturn(Money.of("100.00"));
 
         mockMvc.perform(post(BASE_URL + "/{userId}/deposit", USER_ID)
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(new TransactionRequest(
-                    new BigDecimal("100.00"), "Test deposit"))))
+                    Money.of("100.00"), "Test deposit"))))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.balance").value(100.00));
     }
 
+    @Test
+    void depositFunds_IssuesTokenPastTheWrite() throws Exception {
+        when(walletService.depositFunds(anyString(), any(Money.class), anyString())).thenAnswer(invocation -> {
+            primaryPosition.incrementAndGet();
+            return Money.of("100.00");
+        });
+
+        MvcResult result = mockMvc.perform(post(BASE_URL + "/{userId}/deposit", USER_ID)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new TransactionRequest(
+                    Money.of("100.00"), "Test deposit"))))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertTokenPastWrite(result);
+    }
+
+    @Test
+    void depositFunds_RejectsInvalidAmounts() throws Exception {
+        for (String amount : List.of("-5.00", "0", "1.00001")) {
+            mockMvc.perform(post(BASE_URL + "/{userId}/deposit", USER_ID)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"amount\": " + amount + ", \"description\": \"Test deposit\"}"))
+                    .andExpect(status().isBadRequest());
+        }
+        verifyNoInteractions(walletService);
+    }
+
+    @Test
+    void depositFunds_ReplaysIdempotentResponse() throws Exception {
+        when(idempotencyService.execute(eq("key-1"), anyString(), any()))
+                .thenReturn(new IdempotentResponse("{\"balance\":100.00}", true));
+
+        mockMvc.perform(post(BASE_URL + "/{userId}/deposit", USER_ID)
+                .header("Idempotency-Key", "key-1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new TransactionRequest(
+                    Money.of("100.00"), "Test deposit"))))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andExpect(jsonPath("$.balance").value(100.00));
+        verifyNoInteractions(walletService);
+    }
+
     @Test
     void withdrawFunds_Success() throws Exception {
-        when(walletService.withdrawFunds(anyString(), any(BigDecimal.class), anyString()))
-                .thenReturn(new BigDecimal("50.00"));
+        when(walletService.withdrawFunds(anyString(), any(Money.class), anyString()))
+                .thenReturn(Money.of("50.00"));
 
         mockMvc.perform(post(BASE_URL + "/{userId}/withdraw", USER_ID)
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(new TransactionRequest(
-                    new BigDecimal("50.00"), "Test withdrawal"))))
+                    Money.of("50.00"), "Test withdrawal"))))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.balance").value(50.00));
     }
@@ -106,29 +287,82 @@ class WalletControllerTest {
         mockMvc.perform(post(BASE_URL + "/{fromUserId}/transfer/{toUserId}", "fromUser", "toUser")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(new TransactionRequest(
-                    new BigDecimal("25.00"), "Test transfer"))))
+                    Money.of("25.00"), "Test transfer"))))
                 .andExpect(status().isOk());
     }
 
     @Test
     void getTransactionHistory_Success() throws Exception {
-        List<Transaction> transactions = Arrays.asList(
-            createTransaction(TransactionType.DEPOSIT, new BigDecimal("100.00")),
-            createTransaction(TransactionType.WITHDRAWAL, new BigDecimal("50.00"))
+        List<TransactionRow> transactions = Arrays.asList(
+            createTransaction(TransactionType.DEPOSIT, Money.of("100.00")),
+            createTransaction(TransactionType.WITHDRAWAL, Money.of("50.00"))
         );
 
-        when(walletService.getTransactionHistory(USER_ID)).thenReturn(transactions);
+        when(walletService.getTransactionHistory(USER_ID, null, 100))
+                .thenReturn(new TransactionPage(transactions, null));
 
         mockMvc.perform(get(BASE_URL + "/{userId}/transactions", USER_ID))
                 .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(WalletController.NEXT_CURSOR_HEADER))
                 .andExpect(jsonPath("$[0].type").value("DEPOSIT"))
+                .andExpect(jsonPath("$[0].walletId").value(7))
+                .andExpect(jsonPath("$[0].amount").value(100.00))
+                .andExpect(jsonPath("$[0].createdAt").value("2024-01-01T12:00:00.123"))
+                .andExpect(jsonPath("$[0].wallet").doesNotExist())
                 .andExpect(jsonPath("$[1].type").value("WITHDRAWAL"));
     }
 
-    private Transaction createTransaction(TransactionType type, BigDecimal amount) {
-        Transaction transaction = new Transaction();
-        transaction.setType(type);
-        transaction.setAmount(amount);
-        return transaction;
+    @Test
+    void getTransactionHistory_ReturnsNextCursor() throws Exception {
+        TransactionCursor after = new TransactionCursor(LocalDateTime.of(2024, 1, 1, 12, 0), 10L);
+        TransactionCursor next = new TransactionCursor(LocalDateTime.of(2024, 1, 1, 11, 0), 7L);
+        when(walletService.getTransactionHistory(USER_ID, after, 1)).thenReturn(new TransactionPage(
+            List.of(createTransaction(TransactionType.DEPOSIT, Money.of("100.00"))), next));
+
+        mockMvc.perform(get(BASE_URL + "/{userId}/transactions", USER_ID)
+                .param("cursor", after.encode())
+                .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(WalletController.NEXT_CURSOR_HEADER, next.encode()))
+                .andExpect(jsonPath("$.length()").value(1));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void streamTransactionHistory_WritesNdjson() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<TransactionRow> sink = invocation.getArgument(1);
+            sink.accept(createTransaction(TransactionType.DEPOSIT, Money.of("100.00")));
+            sink.accept(createTransaction(TransactionType.WITHDRAWAL, Money.of("50.00")));
+            return null;
+        }).when(walletService).streamTransactionHistory(eq(USER_ID), any(Consumer.class));
+
+        MvcResult result = mockMvc.perform(get(BASE_URL + "/{userId}/transactions/stream", USER_ID))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(WalletController.NDJSON_VALUE))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("DEPOSIT", objectMapper.readTree(lines[0]).get("type").asText());
+        assertEquals("WITHDRAWAL", objectMapper.readTree(lines[1]).get("type").asText());
+    }
+
+    private TransactionRow createTransaction(TransactionType type, Money amount) {
+        return new TransactionRow(1L, 7L, type, amount, amount, "Test " + type,
+            LocalDateTime.of(2024, 1, 1, 12, 0, 0, 123_000_000));
+    }
+
+    private void assertTokenPastWrite(MvcResult result) {
+        String header = result.getResponse().getHeader("Consistency-Token");
+        assertNotNull(header, "mutation responses carry a consistency token");
+        assertTrue(ConsistencyToken.decode(header).position() >= primaryPosition.get(),
+            "token issued before the write committed");
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,209 @@
+package com.wallet.engine;
+
+import com.wallet.config.EngineProperties;
+import com.wallet.exception.WalletException;
+import com.wallet.model.Money;
+import com.wallet.service.WalletService;
+import com.wallet.service.idempotency.IdempotencyService;
+import com.wallet.service.outbox.OutboxWriter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:engine;DB_CLOSE_DELAY=-1",
+    "spring.jpa.show-sql=false",
+    "wallet.engine.enabled=true",
+    "wallet.engine.shards=4"
+})
+@ActiveProfiles("test")
+class ShardedBalanceEngineIntegrationTest {
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private ShardedBalanceEngine engine;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private OutboxWriter outboxWriter;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Test
+    void idempotencyKeysAreRejectedBeforeTheMutationRuns() {
+        String userId = createWallets(1).get(0);
+
+        WalletException rejected = assertThrows(WalletException.class, () -> idempotencyService.execute("key-1",
+            IdempotencyService.fingerprint(userId), () -> {
+                walletService.depositFunds(userId, Money.of("1"), "retried");
+                return "{}";
+            }));
+
+        assertEquals("Idempotency keys are not supported while wallet.engine.enabled is on", rejected.getMessage());
+        assertEquals(Money.ZERO, walletService.getBalance(userId));
+    }
+
+    @Test
+    void concurrentDepositsAreNeverLost() throws Exception {
+        List<String> users = createWallets(4);
+        int writers = 16;
+        int depositsPerWriter = 200;
+
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            String userId = users.get(w % users.size());
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < depositsPerWriter; i++) {
+                    walletService.depositFunds(userId, Money.of("1"), "load");
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        Money expected = Money.of("1").times((long) writers / users.size() * depositsPerWriter);
+        for (String userId : users) {
+            assertEquals(0, expected.compareTo(walletService.getBalance(userId)));
+            assertEquals(0, expected.compareTo(lastLedgerBalance(userId)));
+        }
+    }
+
+    @Test
+    void opposingCrossShardTransfersConserveFundsWithoutDeadlock() {
+        String alice = createWallets(1).get(0);
+        String bob;
+        do {
+            bob = createWallets(1).get(0);
+        } while (engine.shardFor(bob) == engine.shardFor(alice));
+        assertNotEquals(engine.shardFor(alice).index, engine.shardFor(bob).index);
+
+        walletService.depositFunds(alice, Money.of("1000"), "seed");
+        walletService.depositFunds(bob, Money.of("1000"), "seed");
+
+        String from = alice;
+        String to = bob;
+        assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < 8; w++) {
+                boolean forward = w % 2 == 0;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 100; i++) {
+                        walletService.transferFunds(forward ? from : to, forward ? to : from, Money.of("1"), "storm");
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            executor.shutdown();
+        });
+
+        assertEquals(0, Money.of("2000").compareTo(
+            walletService.getBalance(alice).plus(walletService.getBalance(bob))));
+        assertEquals(0, Money.of("1000").compareTo(walletService.getBalance(alice)));
+    }
+
+    @Test
+    void insufficientFundsAreRejected() {
+        String userId = createWallets(1).get(0);
+        walletService.depositFunds(userId, Money.of("10"), "seed");
+
+        assertThrows(WalletException.class, () -> walletService.withdrawFunds(userId, Money.of("10.01"), "x"));
+        assertThrows(WalletException.class, () -> walletService.depositFunds("missing-" + UUID.randomUUID(), Money.of("1"), "x"));
+        assertEquals(0, Money.of("10").compareTo(walletService.getBalance(userId)));
+    }
+
+    @Test
+    void restartRebuildsStateFromLedger() throws Exception {
+        String userId = createWallets(1).get(0);
+        walletService.depositFunds(userId, Money.of("75"), "before restart");
+        awaitProjected(userId, Money.of("75"));
+        // Simulate a wallets row that lagged behind the ledger
+        jdbcTemplate.update("update wallets set balance = 0 where user_id = ?", userId);
+
+        ShardedBalanceEngine restarted = new ShardedBalanceEngine(
+            new EngineProperties(true, 2, 64, 16, Duration.ofMillis(10), 100), jdbcTemplate, transactionTemplate,
+            outboxWriter, new SimpleMeterRegistry());
+        try {
+            assertEquals(Money.of("100"), restarted.deposit(userId, Money.of("25"), "after"));
+            assertEquals(Money.of("100"), restarted.balance(userId));
+        } finally {
+            restarted.destroy();
+        }
+        // Shutting down drains the projector
+        assertEquals(Money.of("100"), projectedBalance(userId));
+    }
+
+    @Test
+    void walletRowsAreProjectedFromTheLedgerWhileReadsStayExact() throws Exception {
+        String userId = createWallets(1).get(0);
+        for (int i = 0; i < 50; i++) {
+            walletService.depositFunds(userId, Money.of("2"), "projected");
+            // Reads never wait for the projection
+            assertEquals(Money.of("2").times(i + 1L), walletService.getBalance(userId));
+        }
+        walletService.withdrawFunds(userId, Money.of("30"), "projected");
+
+        awaitProjected(userId, Money.of("70"));
+        assertEquals(lastLedgerBalance(userId), projectedBalance(userId));
+        assertEquals(Duration.ZERO, engine.projectionLag());
+    }
+
+    private List<String> createWallets(int count) {
+        List<String> users = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String userId = "engine-" + UUID.randomUUID();
+            walletService.createWallet(userId);
+            users.add(userId);
+        }
+        return users;
+    }
+
+    private void awaitProjected(String userId, Money expected) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!expected.equals(projectedBalance(userId)) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, projectedBalance(userId));
+    }
+
+    private Money projectedBalance(String userId) {
+        return jdbcTemplate.queryForObject("select balance from wallets where user_id = ?", Money.class, userId);
+    }
+
+    private Money lastLedgerBalance(String userId) {
+        return jdbcTemplate.queryForObject("""
+            select t.balance from transactions t join wallets w on w.id = t.wallet_id
+            where w.user_id = ? order by t.created_at desc, t.id desc fetch first 1 rows only
+            """, Money.class, userId);
+    }
+}
@@ -0,0 +1,79 @@
+package com.wallet.engine;
+
+import com.wallet.engine.EngineCommand.Deposit;
+import com.wallet.engine.EngineCommand.Read;
+import com.wallet.engine.EngineCommand.Transfer;
+import com.wallet.engine.LedgerWriter.WalletState;
+import com.wallet.model.Money;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class WalletShardTest {
+    private static final Money MAX = Money.ofUnits(Long.MAX_VALUE);
+
+    private WalletShard shard;
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        shard.stop();
+    }
+
+    @Test
+    void failedLoadFailsTheCallInsteadOfHanging() {
+        shard = start(new LedgerWriter(null, null, null, null) {
+            @Override
+            WalletState load(String userId) {
+                throw new DataAccessResourceFailureException("database down");
+            }
+        });
+        CompletableFuture<Money> result = new CompletableFuture<>();
+
+        shard.submit(new Deposit("alice", Money.of("1.00"), "salary", result));
+
+        ExecutionException failure = assertTimeoutPreemptively(Duration.ofSeconds(5), () ->
+            assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS)));
+        assertInstanceOf(DataAccessResourceFailureException.class, failure.getCause());
+    }
+
+    @Test
+    void overflowingTransferFailsAndLeavesBothBalancesUntouched() throws Exception {
+        shard = start(new LedgerWriter(null, null, null, null) {
+            @Override
+            WalletState load(String userId) {
+                return new WalletState(userId, userId.equals("alice") ? 1 : 2, MAX);
+            }
+        });
+        CompletableFuture<Void> transfer = new CompletableFuture<>();
+
+        shard.submit(new Transfer("alice", "bob", Money.of("1.00"), "rent", shard, shard, transfer));
+
+        ExecutionException failure = assertTimeoutPreemptively(Duration.ofSeconds(5), () ->
+            assertThrows(ExecutionException.class, () -> transfer.get(5, TimeUnit.SECONDS)));
+        assertInstanceOf(ArithmeticException.class, failure.getCause());
+        assertEquals(MAX, read("alice"));
+        assertEquals(MAX, read("bob"));
+    }
+
+    private Money read(String userId) throws Exception {
+        CompletableFuture<Money> result = new CompletableFuture<>();
+        shard.submit(new Read(userId, result));
+        return result.get(5, TimeUnit.SECONDS);
+    }
+
+    private static WalletShard start(LedgerWriter writer) {
+        WalletShard shard = new WalletShard(0, 64, 16, writer, null);
+        shard.start();
+        return shard;
+    }
+}
@@ -0,0 +1,63 @@
+package com.wallet.integration;
+
+import com.wallet.model.Money;
+import com.wallet.service.WalletService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class BalanceCacheIntegrationTest {
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String alice;
+    private String bob;
+
+    @BeforeEach
+    void setUp() {
+        String run = UUID.randomUUID().toString();
+        alice = "alice-" + run;
+        bob = "bob-" + run;
+        walletService.createWallet(alice);
+        walletService.createWallet(bob);
+    }
+
+    @Test
+    void committedWritesUpdateTheCachedBalance() {
+        walletService.depositFunds(alice, Money.of("50.00"), "salary");
+        assertBalance("50.00", alice);
+
+        walletService.transferFunds(alice, bob, Money.of("20.00"), "rent");
+        walletService.withdrawFunds(bob, Money.of("5.00"), "coffee");
+
+        assertBalance("30.00", alice);
+        assertBalance("15.00", bob);
+    }
+
+    @Test
+    void readsAreServedFromTheCacheOnceLoaded() {
+        walletService.depositFunds(alice, Money.of("10.00"), "salary");
+        assertBalance("10.00", alice);
+
+        // Changed behind the service's back: only the cache can still answer 10
+        jdbcTemplate.update("update wallets set balance = 99 where user_id = ?", alice);
+
+        assertBalance("10.00", alice);
+    }
+
+    private void assertBalance(String expected, String userId) {
+        assertEquals(0, Money.of(expected).compareTo(walletService.getBalance(userId)));
+    }
+}
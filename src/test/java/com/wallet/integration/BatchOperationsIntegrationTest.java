@@ -0,0 +1,125 @@
+package com.wallet.integration;
+
+import com.wallet.model.Money;
+import com.wallet.model.TransactionType;
+import com.wallet.service.BatchItemResult.Status;
+import com.wallet.service.BatchMode;
+import com.wallet.service.BatchOperation;
+import com.wallet.service.BatchResult;
+import com.wallet.service.WalletService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class BatchOperationsIntegrationTest {
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String alice;
+    private String bob;
+
+    @BeforeEach
+    void setUp() {
+        // Batches commit for real, so every test works on its own wallets
+        String run = UUID.randomUUID().toString();
+        alice = "alice-" + run;
+        bob = "bob-" + run;
+        walletService.createWallet(alice);
+        walletService.createWallet(bob);
+    }
+
+    @Test
+    void bestEffortAppliesEverythingThatSucceedsInOrder() {
+        BatchResult result = walletService.applyBatch(List.of(
+            deposit(alice, "100.00"),
+            withdraw(bob, "10.00"),
+            transfer(alice, bob, "30.00"),
+            withdraw(bob, "10.00"),
+            deposit("nobody", "5.00")), BatchMode.BEST_EFFORT);
+
+        assertTrue(result.committed());
+        assertEquals(3, result.applied());
+        assertEquals(2, result.failed());
+        assertEquals(List.of(Status.APPLIED, Status.FAILED, Status.APPLIED, Status.APPLIED, Status.FAILED),
+            result.items().stream().map(item -> item.status()).toList());
+        assertEquals("Insufficient funds", result.items().get(1).error());
+        assertEquals(0, Money.of("70.00").compareTo(result.items().get(2).balance()));
+        assertEquals(0, Money.of("70.00").compareTo(walletService.getBalance(alice)));
+        assertEquals(0, Money.of("20.00").compareTo(walletService.getBalance(bob)));
+        assertEquals(4, ledgerSize(alice) + ledgerSize(bob));
+    }
+
+    @Test
+    void allOrNothingRollsBackEveryOperationWhenOneFails() {
+        BatchResult result = walletService.applyBatch(List.of(
+            deposit(alice, "100.00"),
+            transfer(alice, bob, "150.00")), BatchMode.ALL_OR_NOTHING);
+
+        assertFalse(result.committed());
+        assertEquals(0, result.applied());
+        assertEquals(Status.ROLLED_BACK, result.items().get(0).status());
+        assertNull(result.items().get(0).balance());
+        assertEquals("Insufficient funds for transfer", result.items().get(1).error());
+        assertEquals(0, Money.ZERO.compareTo(walletService.getBalance(alice)));
+        assertEquals(0, ledgerSize(alice) + ledgerSize(bob));
+    }
+
+    @Test
+    void largeBatchKeepsBalancesAndLedgerConsistent() {
+        List<BatchOperation> operations = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            operations.add(i % 2 == 0 ? deposit(alice, "2.00") : transfer(alice, bob, "1.00"));
+        }
+
+        BatchResult result = walletService.applyBatch(operations, BatchMode.ALL_OR_NOTHING);
+
+        assertTrue(result.committed());
+        assertEquals(2_000, result.applied());
+        assertEquals(0, Money.of("1000.00").compareTo(walletService.getBalance(alice)));
+        assertEquals(0, Money.of("1000.00").compareTo(walletService.getBalance(bob)));
+        assertEquals(3_000, ledgerSize(alice) + ledgerSize(bob));
+        assertEquals(0, Money.of("1000.00").compareTo(latestLedgerBalance(alice)));
+    }
+
+    private int ledgerSize(String userId) {
+        return jdbcTemplate.queryForObject("""
+            select count(*) from transactions t join wallets w on w.id = t.wallet_id where w.user_id = ?
+            """, Integer.class, userId);
+    }
+
+    private Money latestLedgerBalance(String userId) {
+        return jdbcTemplate.queryForObject("""
+            select t.balance from transactions t join wallets w on w.id = t.wallet_id where w.user_id = ?
+            order by t.id desc fetch first 1 rows only
+            """, Money.class, userId);
+    }
+
+    private static BatchOperation deposit(String userId, String amount) {
+        return new BatchOperation(TransactionType.DEPOSIT, userId, null, Money.of(amount), "batch");
+    }
+
+    private static BatchOperation withdraw(String userId, String amount) {
+        return new BatchOperation(TransactionType.WITHDRAWAL, userId, null, Money.of(amount), "batch");
+    }
+
+    private static BatchOperation transfer(String fromUserId, String toUserId, String amount) {
+        return new BatchOperation(TransactionType.TRANSFER, fromUserId, toUserId, Money.of(amount), "batch");
+    }
+}
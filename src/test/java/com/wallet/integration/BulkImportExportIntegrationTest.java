@@ -0,0 +1,188 @@
+package com.wallet.integration;
+
+import com.wallet.model.Money;
+import com.wallet.model.Wallet;
+import com.wallet.service.WalletService;
+import com.wallet.service.bulk.BulkCursor;
+import com.wallet.service.bulk.BulkExporter;
+import com.wallet.service.bulk.BulkImporter;
+import com.wallet.service.bulk.BulkResult;
+import com.wallet.service.bulk.BulkTable;
+import com.wallet.service.cache.BalanceCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:bulk;DB_CLOSE_DELAY=-1",
+    "wallet.bulk.enabled=true",
+    "wallet.bulk.chunk-size=3",
+    "wallet.checkpoints.enabled=false",
+    "wallet.rollups.enabled=false"
+})
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+class BulkImportExportIntegrationTest {
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private BulkExporter exporter;
+
+    @Autowired
+    private BulkImporter importer;
+
+    @Autowired
+    private BalanceCache balanceCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void wipe() {
+        jdbcTemplate.update("delete from transactions");
+        jdbcTemplate.update("delete from wallets");
+    }
+
+    @Test
+    void exportsAndReimportsTheLedgerVerbatim() throws Exception {
+        walletService.createWallet("bulk-alice");
+        walletService.createWallet("bulk-bob");
+        walletService.createWallet("bulk-carol");
+        walletService.depositFunds("bulk-alice", Money.of("100.00"), "salary, january");
+        walletService.depositFunds("bulk-bob", Money.of("20.50"), "say \"hi\"\nbye");
+        walletService.depositFunds("bulk-carol", Money.of("1.0001"), "");
+        walletService.depositFunds("bulk-carol", Money.of("2.00"), null);
+        walletService.transferFunds("bulk-alice", "bulk-bob", Money.of("30.00"), "rent");
+        walletService.withdrawFunds("bulk-bob", Money.of("5.00"), "cash");
+
+        byte[] wallets = export("wallets");
+        byte[] transactions = export("transactions");
+        assertTrue(new String(transactions, StandardCharsets.UTF_8)
+            .startsWith("id,wallet_id,type,amount,balance,created_at,description\n"));
+
+        wipe();
+        for (String userId : new String[] {"bulk-alice", "bulk-bob", "bulk-carol"}) {
+            balanceCache.evict(userId);
+        }
+        mockMvc.perform(post("/api/admin/bulk/wallets").contentType("text/csv").content(wallets))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.rows").value(3));
+        mockMvc.perform(post("/api/admin/bulk/transactions").contentType("text/csv").content(transactions))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.rows").value(7))
+            .andExpect(jsonPath("$.walletsChecked").value(3))
+            .andExpect(jsonPath("$.inconsistentWallets").value(0));
+
+        assertArrayEquals(wallets, export("wallets"));
+        assertArrayEquals(transactions, export("transactions"));
+        assertEquals(Money.of("45.50"), walletService.getBalance("bulk-bob"));
+        assertEquals("say \"hi\"\nbye", walletService.getTransactionHistory("bulk-bob", null, 10)
+            .items().get(2).description());
+        // Sequences were moved past the imported ids
+        Wallet dave = walletService.createWallet("bulk-dave");
+        assertEquals(Money.of("1.00"), walletService.depositFunds("bulk-dave", Money.of("1.00"), "new"));
+        assertTrue(dave.getId() > 0);
+    }
+
+    @Test
+    void resumesAnInterruptedImportAndReportsInconsistentBalances() {
+        Wallet alice = walletService.createWallet("bulk-alice");
+        walletService.createWallet("bulk-bob");
+        for (int i = 1; i <= 4; i++) {
+            walletService.depositFunds("bulk-alice", Money.of("10.00"), "a" + i);
+            walletService.depositFunds("bulk-bob", Money.of("1.00"), "b" + i);
+        }
+        jdbcTemplate.update("update wallets set balance = 999 where id = ?", alice.getId());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BulkResult exported = exporter.export(BulkTable.TRANSACTIONS, null, out);
+        assertEquals(8, exported.rows());
+        assertEquals(2, exported.walletsChecked());
+        assertEquals(1, exported.inconsistentWallets());
+        assertTrue(exported.inconsistencies().get(0).startsWith("Wallet " + alice.getId() + " balance 999"));
+        byte[] transactions = out.toByteArray();
+
+        jdbcTemplate.update("delete from transactions");
+        BulkResult interrupted = importer.importFrom(BulkTable.TRANSACTIONS, null,
+            new FailingInputStream(transactions, transactions.length * 2 / 3));
+        assertNotNull(interrupted.error());
+        assertEquals(3, interrupted.rows());
+        assertEquals(3, count());
+
+        BulkResult resumed = importer.importFrom(BulkTable.TRANSACTIONS, BulkCursor.decode(interrupted.cursor()),
+            new ByteArrayInputStream(transactions));
+        assertNull(resumed.error());
+        assertEquals(5, resumed.rows());
+        assertEquals(8, count());
+        assertEquals(exported.cursor(), resumed.cursor());
+        // Alice was resumed part-way, so only Bob could be checked
+        assertEquals(1, resumed.walletsChecked());
+        assertEquals(0, resumed.inconsistentWallets());
+
+        jdbcTemplate.update("delete from transactions");
+        BulkResult reimported = importer.importFrom(BulkTable.TRANSACTIONS, null,
+            new ByteArrayInputStream(transactions));
+        assertEquals(2, reimported.walletsChecked());
+        assertEquals(exported.inconsistencies(), reimported.inconsistencies());
+    }
+
+    private byte[] export(String table) throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/admin/bulk/" + table))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        return mockMvc.perform(asyncDispatch(started))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsByteArray();
+    }
+
+    private long count() {
+        return jdbcTemplate.queryForObject("select count(*) from transactions", Long.class);
+    }
+
+    /** Delivers the first {@code limit} bytes, then fails like a dropped connection. */
+    private static final class FailingInputStream extends InputStream {
+        private final InputStream in;
+        private int remaining;
+
+        FailingInputStream(byte[] bytes, int limit) {
+            this.in = new ByteArrayInputStream(bytes);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining-- <= 0) {
+                throw new IOException("Connection reset");
+            }
+            return in.read();
+        }
+    }
+}
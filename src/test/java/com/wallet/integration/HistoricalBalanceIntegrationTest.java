@@ -0,0 +1,114 @@
+package com.wallet.integration;
+
+import com.wallet.exception.WalletException;
+import com.wallet.model.Money;
+import com.wallet.model.TransactionType;
+import com.wallet.model.Wallet;
+import com.wallet.repository.BalanceCheckpointRepository;
+import com.wallet.service.BalanceCheckpointService;
+import com.wallet.service.WalletService;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class HistoricalBalanceIntegrationTest {
+    private static final LocalDateTime DAY = LocalDateTime.of(2024, 3, 1, 0, 0);
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private BalanceCheckpointService checkpointService;
+
+    @Autowired
+    private BalanceCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Wallet alice;
+    private Wallet bob;
+
+    @BeforeEach
+    void setUp() {
+        alice = walletService.createWallet("alice");
+        bob = walletService.createWallet("bob");
+        // Sequence ids defer the wallet inserts; the JDBC seeding below needs the rows
+        entityManager.flush();
+        record(alice, "100.00", DAY.plusHours(1));
+        record(alice, "150.00", DAY.plusHours(3));
+        record(bob, "40.00", DAY.plusHours(2));
+        record(alice, "120.00", DAY.plusHours(5));
+    }
+
+    @Test
+    void historicalBalanceBeforeFirstTransactionIsZero() {
+        assertEquals(0, Money.ZERO.compareTo(walletService.getHistoricalBalance("alice", DAY)));
+    }
+
+    @Test
+    void historicalBalanceReplaysFromNearestCheckpoint() {
+        assertEquals(2, checkpointService.writeCheckpoints(DAY.plusHours(4)));
+        assertEquals(0, checkpointService.writeCheckpoints(DAY.plusHours(4)));
+
+        assertEquals(Money.of("100.0000"), walletService.getHistoricalBalance("alice", DAY.plusHours(2)));
+        assertEquals(Money.of("150.0000"), walletService.getHistoricalBalance("alice", DAY.plusHours(4)));
+        assertEquals(Money.of("120.0000"), walletService.getHistoricalBalance("alice", DAY.plusHours(6)));
+    }
+
+    @Test
+    void historicalBalanceFallsBackToCheckpointWhenOlderRowsAreGone() {
+        checkpointService.writeCheckpoints(DAY.plusHours(4));
+        jdbcTemplate.update("delete from transactions where created_at <= ?", Timestamp.valueOf(DAY.plusHours(4)));
+
+        assertEquals(Money.of("150.0000"), walletService.getHistoricalBalance("alice", DAY.plusHours(4)));
+        assertEquals(Money.of("40.0000"), walletService.getHistoricalBalance("bob", DAY.plusHours(6)));
+    }
+
+    @Test
+    void bulkHistoricalBalancesMatchSingleLookups() {
+        checkpointService.writeCheckpoints(DAY.plusHours(2));
+        assertEquals(2, checkpointRepository.count());
+
+        Map<String, Money> balances = walletService.getHistoricalBalances(
+            List.of("bob", "alice"), DAY.plusHours(4));
+
+        assertEquals(List.of("bob", "alice"), List.copyOf(balances.keySet()));
+        assertEquals(Money.of("40.0000"), balances.get("bob"));
+        assertEquals(Money.of("150.0000"), balances.get("alice"));
+    }
+
+    @Test
+    void bulkHistoricalBalancesRejectUnknownWallets() {
+        assertThrows(WalletException.class,
+            () -> walletService.getHistoricalBalances(List.of("alice", "nobody"), DAY));
+    }
+
+    private void record(Wallet wallet, String balance, LocalDateTime at) {
+        jdbcTemplate.update("""
+            insert into transactions (id, wallet_id, type, amount, balance, description, created_at)
+            values (next value for transactions_seq, ?, ?, ?, ?, ?, ?)
+            """, wallet.getId(), TransactionType.DEPOSIT.name(), new BigDecimal(balance), new BigDecimal(balance),
+            "seed", Timestamp.valueOf(at));
+    }
+}
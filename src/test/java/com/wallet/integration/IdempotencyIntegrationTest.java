@@ -0,0 +1,141 @@
+package com.wallet.integration;
+
+import com.wallet.exception.WalletException;
+import com.wallet.model.Money;
+import com.wallet.service.WalletService;
+import com.wallet.service.idempotency.IdempotencyService;
+import com.wallet.service.idempotency.IdempotentResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class IdempotencyIntegrationTest {
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String userId;
+
+    @BeforeEach
+    void setUp() {
+        // Keys and wallets commit for real, so every test works on its own
+        userId = "user-" + UUID.randomUUID();
+        walletService.createWallet(userId);
+    }
+
+    @Test
+    void retryReplaysTheFirstResponseWithoutRunningAgain() {
+        String key = UUID.randomUUID().toString();
+
+        IdempotentResponse first = idempotencyService.execute(key, "deposit-10", () -> deposit("10.00"));
+        IdempotentResponse retry = idempotencyService.execute(key, "deposit-10", () -> deposit("10.00"));
+
+        assertFalse(first.replayed());
+        assertTrue(retry.replayed());
+        assertEquals(first.body(), retry.body());
+        assertEquals(1, ledgerSize());
+    }
+
+    @Test
+    void concurrentDuplicatesRunOnce() throws Exception {
+        String key = UUID.randomUUID().toString();
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<IdempotentResponse>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return idempotencyService.execute(key, "deposit-5", () -> deposit("5.00"));
+                }));
+            }
+            start.countDown();
+
+            int executed = 0;
+            for (Future<IdempotentResponse> result : results) {
+                IdempotentResponse response = result.get();
+                executed += response.replayed() ? 0 : 1;
+                assertEquals(0, Money.of("5.00").compareTo(Money.of(response.body())));
+            }
+            assertEquals(1, executed);
+            assertEquals(1, ledgerSize());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void keyCannotBeReusedForADifferentRequest() {
+        String key = UUID.randomUUID().toString();
+        idempotencyService.execute(key, "deposit-10", () -> deposit("10.00"));
+
+        assertThrows(WalletException.class,
+            () -> idempotencyService.execute(key, "deposit-20", () -> deposit("20.00")));
+        assertEquals(1, ledgerSize());
+    }
+
+    @Test
+    void failedRequestReleasesItsKey() {
+        String key = UUID.randomUUID().toString();
+        assertThrows(WalletException.class, () -> idempotencyService.execute(key, "withdraw-10",
+            () -> walletService.withdrawFunds(userId, Money.of("10.00"), "too early").toString()));
+
+        deposit("10.00");
+        IdempotentResponse retry = idempotencyService.execute(key, "withdraw-10",
+            () -> walletService.withdrawFunds(userId, Money.of("10.00"), "retry").toString());
+
+        assertFalse(retry.replayed());
+        assertEquals(0, Money.ZERO.compareTo(Money.of(retry.body())));
+    }
+
+    @Test
+    void abandonedClaimIsTakenOverOnceItsLeaseLapses() {
+        String key = UUID.randomUUID().toString();
+        LocalDateTime past = LocalDateTime.now().minusMinutes(1);
+        jdbcTemplate.update("""
+            insert into idempotency_keys (idempotency_key, fingerprint, status, locked_until, expires_at)
+            values (?, 'crashed', 'IN_PROGRESS', ?, ?)
+            """, key, Timestamp.valueOf(past), Timestamp.valueOf(past.plusDays(1)));
+
+        IdempotentResponse response = idempotencyService.execute(key, "deposit-10", () -> deposit("10.00"));
+
+        assertFalse(response.replayed());
+        assertEquals(1, ledgerSize());
+    }
+
+    private String deposit(String amount) {
+        return walletService.depositFunds(userId, Money.of(amount), "idempotent").toString();
+    }
+
+    private int ledgerSize() {
+        return jdbcTemplate.queryForObject("""
+            select count(*) from transactions t join wallets w on w.id = t.wallet_id where w.user_id = ?
+            """, Integer.class, userId);
+    }
+}
@@ -0,0 +1,86 @@
+package com.wallet.integration;
+
+import com.wallet.exception.WalletException;
+import com.wallet.model.Money;
+import com.wallet.repository.TransactionRow;
+import com.wallet.service.WalletService;
+import com.wallet.service.impl.JdbcWalletService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:jdbc-writes;DB_CLOSE_DELAY=-1",
+    "wallet.persistence.mode=JDBC"
+})
+@ActiveProfiles("test")
+class JdbcWalletServiceIntegrationTest {
+    @Autowired
+    private WalletService walletService;
+
+    private String alice;
+    private String bob;
+
+    @BeforeEach
+    void setUp() {
+        String run = UUID.randomUUID().toString();
+        alice = "alice-" + run;
+        bob = "bob-" + run;
+        walletService.createWallet(alice);
+        walletService.createWallet(bob);
+    }
+
+    @Test
+    void writesGoThroughJdbcAndReadBackThroughJpa() {
+        assertEquals(JdbcWalletService.class, AopUtils.getTargetClass(walletService));
+
+        assertEquals(Money.of("100.00"), walletService.depositFunds(alice, Money.of("100.00"), "salary"));
+        assertEquals(Money.of("75.00"), walletService.withdrawFunds(alice, Money.of("25.00"), "rent"));
+        walletService.transferFunds(alice, bob, Money.of("30.00"), "dinner");
+        walletService.transferFunds(bob, bob, Money.of("10.00"), "to self");
+
+        assertEquals(Money.of("45.00"), walletService.getBalance(alice));
+        assertEquals(Money.of("30.00"), walletService.getBalance(bob));
+        assertEquals(Money.of("45.00"), walletService.getHistoricalBalance(alice, LocalDateTime.now()));
+
+        List<TransactionRow> history = walletService.getTransactionHistory(alice, null, 10).items();
+        assertEquals(List.of(Money.of("-30.0000"), Money.of("25.0000"), Money.of("100.0000")),
+            history.stream().map(TransactionRow::amount).toList());
+        assertEquals(Money.of("45.0000"), history.get(0).balance());
+        assertEquals(3, walletService.getTransactionHistory(bob, null, 10).items().size());
+    }
+
+    @Test
+    void failedWritesReportTheSameErrorsAndChangeNothing() {
+        walletService.depositFunds(alice, Money.of("10.00"), "salary");
+
+        assertEquals("Wallet already exists for user: " + alice,
+            assertThrows(WalletException.class, () -> walletService.createWallet(alice)).getMessage());
+        assertEquals("Insufficient funds",
+            assertThrows(WalletException.class,
+                () -> walletService.withdrawFunds(alice, Money.of("50.00"), "rent")).getMessage());
+        assertEquals("Insufficient funds for transfer",
+            assertThrows(WalletException.class,
+                () -> walletService.transferFunds(alice, bob, Money.of("50.00"), "rent")).getMessage());
+        assertEquals("Wallet not found for user: nobody",
+            assertThrows(WalletException.class,
+                () -> walletService.transferFunds(alice, "nobody", Money.of("5.00"), "rent")).getMessage());
+        assertEquals("Wallet not found for user: nobody",
+            assertThrows(WalletException.class,
+                () -> walletService.depositFunds("nobody", Money.of("5.00"), "rent")).getMessage());
+
+        assertEquals(Money.of("10.00"), walletService.getBalance(alice));
+        assertEquals(Money.ZERO, walletService.getBalance(bob));
+        assertEquals(1, walletService.getTransactionHistory(alice, null, 10).items().size());
+    }
+}
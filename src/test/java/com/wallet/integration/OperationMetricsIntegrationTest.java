@@ -0,0 +1,79 @@
+package com.wallet.integration;
+
+import com.wallet.exception.WalletException;
+import com.wallet.model.Money;
+import com.wallet.service.WalletService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:metrics;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@ActiveProfiles("test")
+class OperationMetricsIntegrationTest {
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void operationsAreTimedWithTheirStatementsAndFailureReasons() throws Exception {
+        String alice = "alice-" + UUID.randomUUID();
+        walletService.createWallet(alice);
+        long deposits = deposits();
+
+        walletService.depositFunds(alice, Money.of("10.00"), "salary");
+        assertThrows(WalletException.class, () -> walletService.withdrawFunds(alice, Money.of("99.00"), "rent"));
+
+        assertEquals(deposits + 1, deposits());
+        assertTrue(registry.get("wallet.operation.statements").tag("operation", "depositFunds")
+            .summary().max() > 0);
+        assertTrue(registry.get("wallet.operation.errors").tag("operation", "withdrawFunds")
+            .tag("reason", "insufficient_funds").counter().count() >= 1);
+
+        // The deposit cached the balance, so this read runs no statement
+        long cachedReads = cachedReads();
+        assertEquals(Money.of("10.00"), walletService.getBalance(alice));
+        assertEquals(cachedReads + 1, cachedReads());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+            .andExpect(status().isOk())
+            .andExpect(content().string(containsString("wallet_operation_seconds_bucket")));
+        mockMvc.perform(get("/actuator/hotwallets"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[?(@.userId == '" + alice + "')].count").value(1));
+    }
+
+    private long deposits() {
+        Timer timer = registry.find("wallet.operation").tag("operation", "depositFunds")
+            .tag("outcome", "success").timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    private long cachedReads() {
+        Timer timer = registry.find("wallet.operation.cached").tag("operation", "getBalance").timer();
+        return timer == null ? 0 : timer.count();
+    }
+}
@@ -0,0 +1,162 @@
+package com.wallet.integration;
+
+import com.wallet.model.Money;
+import com.wallet.model.OutboxEvent;
+import com.wallet.model.TransactionType;
+import com.wallet.repository.TransactionRow;
+import com.wallet.service.BatchMode;
+import com.wallet.service.BatchOperation;
+import com.wallet.service.WalletService;
+import com.wallet.service.outbox.InMemoryOutboxSink;
+import com.wallet.service.outbox.OutboxRelay;
+import com.wallet.service.outbox.OutboxSink;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:outbox;DB_CLOSE_DELAY=-1",
+    "wallet.outbox.enabled=true",
+    "wallet.outbox.sink=MEMORY",
+    "wallet.outbox.workers=3",
+    "wallet.outbox.batch-size=4",
+    "wallet.outbox.poll-interval=20ms"
+})
+@ActiveProfiles("test")
+class OutboxIntegrationTest {
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private OutboxSink sink;
+
+    @Autowired
+    private OutboxRelay relay;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Test
+    void everyCommittedLedgerRowIsPublishedOnce() throws Exception {
+        double publishedBefore = registry.get("wallet.outbox.published").counter().count();
+        String alice = "alice-" + UUID.randomUUID();
+        String bob = "bob-" + UUID.randomUUID();
+        walletService.createWallet(alice);
+        walletService.createWallet(bob);
+
+        walletService.depositFunds(alice, Money.of("100.00"), "salary");
+        walletService.withdrawFunds(alice, Money.of("10.00"), "coffee");
+        walletService.transferFunds(alice, bob, Money.of("30.00"), "rent");
+        assertThrows(RuntimeException.class, () -> walletService.withdrawFunds(bob, Money.of("500.00"), "too much"));
+        walletService.applyBatch(List.of(
+            new BatchOperation(TransactionType.DEPOSIT, bob, null, Money.of("5.00"), "refund"),
+            new BatchOperation(TransactionType.TRANSFER, bob, alice, Money.of("15.00"), "half back")),
+            BatchMode.ALL_OR_NOTHING);
+        for (int i = 0; i < 20; i++) {
+            walletService.depositFunds(bob, Money.of("1.00"), "tip " + i);
+        }
+
+        List<TransactionRow> ledger = new ArrayList<>(walletService.getTransactionHistory(alice, null, 100).items());
+        ledger.addAll(walletService.getTransactionHistory(bob, null, 100).items());
+        Map<Long, OutboxEvent> events = await(Set.of(alice, bob), ledger.size());
+
+        assertEquals(ledger.stream().map(TransactionRow::id).collect(Collectors.toSet()), events.keySet());
+        for (TransactionRow row : ledger) {
+            OutboxEvent event = events.get(row.id());
+            assertEquals(row.walletId(), event.getWalletId());
+            assertEquals(row.type(), event.getType());
+            assertEquals(row.amount(), event.getAmount());
+            assertEquals(row.balance(), event.getBalance());
+            assertEquals(row.description(), event.getDescription());
+        }
+        assertEquals(Set.of(alice), events.values().stream()
+            .filter(event -> event.getDescription().equals("Transfer to " + bob + ": rent"))
+            .map(OutboxEvent::getUserId).collect(Collectors.toSet()));
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from outbox_events", Integer.class));
+        assertTrue(registry.get("wallet.outbox.published").counter().count() - publishedBefore >= ledger.size());
+        assertTrue(registry.get("wallet.outbox.lag").timer().count() > 0);
+    }
+
+    @Test
+    void concurrentRelaysSkipEachOthersRows() throws Exception {
+        List<String> users = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            users.add("relay-" + UUID.randomUUID());
+            walletService.createWallet(users.get(i));
+        }
+        ExecutorService writers = Executors.newFixedThreadPool(4);
+        ExecutorService relays = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> writes = new ArrayList<>();
+            for (String user : users) {
+                writes.add(writers.submit(() -> {
+                    for (int i = 0; i < 20; i++) {
+                        walletService.depositFunds(user, Money.of("1.00"), "deposit " + i);
+                    }
+                }));
+            }
+            // Relay from here as well, racing the background workers for the same rows
+            List<Future<Integer>> relayed = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                relayed.add(relays.submit(relay::relayAll));
+            }
+            for (Future<?> write : writes) {
+                write.get();
+            }
+            for (Future<Integer> count : relayed) {
+                count.get();
+            }
+        } finally {
+            writers.shutdown();
+            relays.shutdown();
+        }
+
+        // Fails on duplicates as well as on missing events
+        Map<Long, OutboxEvent> events = await(Set.copyOf(users), users.size() * 20);
+        for (String user : users) {
+            assertEquals(20, events.values().stream().filter(event -> event.getUserId().equals(user)).count());
+        }
+    }
+
+    /**
+     * Takes events for {@code userIds} off the queue until {@code expected} arrived, then waits a
+     * little longer to catch any duplicate.
+     */
+    private Map<Long, OutboxEvent> await(Set<String> userIds, int expected) throws InterruptedException {
+        InMemoryOutboxSink queue = (InMemoryOutboxSink) sink;
+        Map<Long, OutboxEvent> events = new HashMap<>();
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        OutboxEvent event;
+        while ((event = queue.poll(Duration.ofMillis(200))) != null
+                || (events.size() < expected && System.nanoTime() < deadline)) {
+            if (event != null && userIds.contains(event.getUserId())) {
+                assertNull(events.put(event.getTransactionId(), event), "Published twice: " + event);
+            }
+        }
+        assertEquals(expected, events.size());
+        return events;
+    }
+}
@@ -0,0 +1,200 @@
+package com.wallet.integration;
+
+import com.wallet.model.Money;
+import com.wallet.repository.WalletRepository;
+import com.wallet.service.BalanceCheckpointService;
+import com.wallet.service.WalletService;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Runs waves of concurrent readers of one wallet against lookups slowed down to 100 ms, with the
+ * balance cache off, and counts the lookups that actually reach the database.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:coalescing;DB_CLOSE_DELAY=-1",
+    "wallet.balance-cache.enabled=false"
+})
+@ActiveProfiles("test")
+class ReadCoalescingIntegrationTest {
+    private static final long LOOKUP_MILLIS = 100;
+
+    @Autowired
+    private WalletService walletService;
+
+    @SpyBean
+    private BalanceCheckpointService checkpointService;
+
+    private static final AtomicInteger balanceQueries = new AtomicInteger();
+    private static final AtomicBoolean slowBalanceQueries = new AtomicBoolean();
+    private final AtomicInteger historicalQueries = new AtomicInteger();
+    private String alice;
+
+    @BeforeEach
+    void setUp() {
+        alice = "alice-" + UUID.randomUUID();
+        walletService.createWallet(alice);
+        walletService.depositFunds(alice, Money.of("10.00"), "salary");
+        balanceQueries.set(0);
+        slowBalanceQueries.set(true);
+        doAnswer(invocation -> {
+            historicalQueries.incrementAndGet();
+            Thread.sleep(LOOKUP_MILLIS);
+            return invocation.callRealMethod();
+        }).when(checkpointService).balanceAt(anyLong(), any(LocalDateTime.class));
+    }
+
+    @Test
+    void concurrentBalanceReadsShareLookups() throws Exception {
+        for (int readers : List.of(1, 16, 128)) {
+            balanceQueries.set(0);
+            List<Money> balances = readConcurrently(readers, () -> walletService.getBalance(alice));
+
+            assertTrue(balances.stream().allMatch(Money.of("10.00")::equals));
+            assertTrue(balanceQueries.get() <= 3,
+                readers + " readers ran " + balanceQueries.get() + " balance queries");
+        }
+    }
+
+    @Test
+    void concurrentHistoricalReadsOfOneInstantShareLookups() throws Exception {
+        LocalDateTime timestamp = LocalDateTime.now();
+        for (int readers : List.of(1, 16, 128)) {
+            historicalQueries.set(0);
+            List<Money> balances = readConcurrently(readers, () -> walletService.getHistoricalBalance(alice, timestamp));
+
+            assertTrue(balances.stream().allMatch(Money.of("10.00")::equals));
+            assertTrue(historicalQueries.get() <= 3,
+                readers + " readers ran " + historicalQueries.get() + " historical queries");
+        }
+    }
+
+    @Test
+    void concurrentReadsOfTheLatestHistoricalBalanceShareLookups() throws Exception {
+        for (int readers : List.of(1, 16, 128)) {
+            historicalQueries.set(0);
+            List<Money> balances = readConcurrently(readers, () -> walletService.getHistoricalBalance(alice, null));
+
+            assertTrue(balances.stream().allMatch(Money.of("10.00")::equals));
+            assertTrue(historicalQueries.get() <= 3,
+                readers + " readers ran " + historicalQueries.get() + " historical queries");
+        }
+    }
+
+    @Test
+    void readersAfterAWriteDoNotJoinALookupThatStartedBeforeIt() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Money> slowRead = executor.submit(() -> walletService.getBalance(alice));
+            while (balanceQueries.get() == 0) {
+                Thread.onSpinWait();
+            }
+            walletService.depositFunds(alice, Money.of("5.00"), "bonus");
+
+            assertEquals(Money.of("15.00"), walletService.getBalance(alice));
+            slowRead.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void latestHistoricalReadersAfterAWriteDoNotJoinALookupThatStartedBeforeIt() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Money> slowRead = executor.submit(() -> walletService.getHistoricalBalance(alice, null));
+            while (historicalQueries.get() == 0) {
+                Thread.onSpinWait();
+            }
+            walletService.depositFunds(alice, Money.of("5.00"), "bonus");
+
+            assertEquals(Money.of("15.00"), walletService.getHistoricalBalance(alice, null));
+            slowRead.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        slowBalanceQueries.set(false);
+    }
+
+    private static List<Money> readConcurrently(int readers, Supplier<Money> read) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(readers);
+        try {
+            CyclicBarrier start = new CyclicBarrier(readers);
+            List<Future<Money>> results = new ArrayList<>(readers);
+            for (int i = 0; i < readers; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return read.get();
+                }));
+            }
+            List<Money> balances = new ArrayList<>(readers);
+            for (Future<Money> result : results) {
+                balances.add(result.get(30, TimeUnit.SECONDS));
+            }
+            return balances;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Repository interfaces cannot be spied on, so the balance lookup is slowed down and counted by
+     * wrapping the repository bean instead.
+     */
+    @TestConfiguration
+    static class SlowBalanceLookups {
+        @Bean
+        static BeanPostProcessor slowBalanceLookupPostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (!(bean instanceof WalletRepository)) {
+                        return bean;
+                    }
+                    ProxyFactory factory = new ProxyFactory(bean);
+                    factory.addAdvice((MethodInterceptor) invocation -> {
+                        if (slowBalanceQueries.get() && invocation.getMethod().getName().equals("findBalanceByUserId")) {
+                            balanceQueries.incrementAndGet();
+                            Thread.sleep(LOOKUP_MILLIS);
+                        }
+                        return invocation.proceed();
+                    });
+                    return factory.getProxy();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.wallet.integration;
+
+import com.wallet.model.Money;
+import com.wallet.service.WalletService;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Two H2 databases stand in for a primary and its replica. Replication is simulated by copying the
+ * primary into the replica with {@link #replicate()}, so anything written afterwards is visible only
+ * on the primary and shows which one served a read.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:replica-primary;DB_CLOSE_DELAY=-1",
+    "wallet.replicas.enabled=true",
+    "wallet.replicas.nodes[0].url=" + ReadReplicaRoutingIntegrationTest.REPLICA_URL,
+    "wallet.replicas.lag-check-interval=100ms",
+    "wallet.replicas.max-lag=500ms",
+    "wallet.balance-cache.enabled=false"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ReadReplicaRoutingIntegrationTest {
+    static final String REPLICA_URL = "jdbc:h2:mem:replica-standby;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private HikariDataSource primaryDataSource;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+    private String userId;
+
+    @BeforeEach
+    void setUp() {
+        userId = "reader-" + UUID.randomUUID();
+        walletService.createWallet(userId);
+        walletService.depositFunds(userId, Money.of("10.00"), "salary");
+        replicate();
+        walletService.depositFunds(userId, Money.of("5.00"), "bonus");
+    }
+
+    @Test
+    void readOnlyTransactionsUseTheReplicaAndWritesThePrimary() {
+        double replicaReads = replicaReads();
+
+        assertEquals(Money.of("10.00"), walletService.getBalance(userId));
+        assertEquals(Money.of("10.00"), walletService.getHistoricalBalance(userId, LocalDateTime.now()));
+        assertEquals(1, walletService.getTransactionHistory(userId, null, 10).items().size());
+
+        // Writes read their wallet inside a read-write transaction, so they see the primary's balance
+        assertEquals(Money.of("12.00"), walletService.withdrawFunds(userId, Money.of("3.00"), "coffee"));
+        assertEquals(new BigDecimal("12.0000"), new JdbcTemplate(primaryDataSource).queryForObject(
+            "select balance from wallets where user_id = ?", BigDecimal.class, userId));
+
+        assertEquals(0.0, registry.get("wallet.replica.lag").gauge().value());
+        assertEquals(1.0, registry.get("wallet.replica.available").gauge().value());
+        // The wallet id cache, filled by createWallet, answers the wallet lookup of the historical balance
+        assertEquals(replicaReads + 3, replicaReads(),
+            "the balance lookup, replay of the historical balance, the history page");
+    }
+
+    @Test
+    void consistencyTokenPinsReadsToThePrimaryUntilReplicasCatchUp() throws Exception {
+        String token = mockMvc.perform(post("/api/wallets/{userId}/deposit", userId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"amount\": 1.00, \"description\": \"refund\"}"))
+            .andExpect(status().isOk())
+            .andExpect(header().exists("Consistency-Token"))
+            .andReturn().getResponse().getHeader("Consistency-Token");
+        assertNotNull(token);
+
+        mockMvc.perform(get("/api/wallets/{userId}/balance", userId))
+            .andExpect(jsonPath("$.balance").value(10.00));
+        mockMvc.perform(get("/api/wallets/{userId}/balance", userId).header("Consistency-Token", token))
+            .andExpect(jsonPath("$.balance").value(16.00));
+
+        // H2 reports no replay position, so the pin lasts max-lag plus one lag check
+        Thread.sleep(700);
+        mockMvc.perform(get("/api/wallets/{userId}/balance", userId).header("Consistency-Token", token))
+            .andExpect(jsonPath("$.balance").value(10.00));
+
+        mockMvc.perform(get("/api/wallets/{userId}/balance", userId).header("Consistency-Token", "garbage"))
+            .andExpect(status().isBadRequest());
+    }
+
+    private double replicaReads() {
+        return registry.get("wallet.replica.reads").tag("replica", "wallet-replica-0").counter().count();
+    }
+
+    private void replicate() {
+        List<String> script = new JdbcTemplate(primaryDataSource).queryForList("script", String.class);
+        replica.execute("drop all objects");
+        script.forEach(replica::execute);
+    }
+}
@@ -0,0 +1,200 @@
+package com.wallet.integration;
+
+import com.wallet.exception.WalletException;
+import com.wallet.model.Money;
+import com.wallet.model.TransactionType;
+import com.wallet.model.TransferSaga;
+import com.wallet.repository.TransferSagaRepository;
+import com.wallet.service.BatchItemResult;
+import com.wallet.service.BatchMode;
+import com.wallet.service.BatchOperation;
+import com.wallet.service.BatchResult;
+import com.wallet.service.WalletService;
+import com.wallet.service.impl.WalletServiceImpl;
+import com.wallet.shard.CrossShardTransfers;
+import com.wallet.shard.ShardRebalancer;
+import com.wallet.shard.ShardRouter;
+import com.wallet.shard.TransferLegs;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Three H2 databases as shards, the third just added: {@code previous-nodes} still lists the first
+ * two, so wallets may sit on the shard the two-shard ring gave them until they are rebalanced.
+ */
+@SpringBootTest(properties = {
+    "wallet.sharding.enabled=true",
+    "wallet.sharding.nodes[0].name=s0",
+    "wallet.sharding.nodes[0].url=jdbc:h2:mem:shard-0;DB_CLOSE_DELAY=-1",
+    "wallet.sharding.nodes[1].name=s1",
+    "wallet.sharding.nodes[1].url=jdbc:h2:mem:shard-1;DB_CLOSE_DELAY=-1",
+    "wallet.sharding.nodes[2].name=s2",
+    "wallet.sharding.nodes[2].url=jdbc:h2:mem:shard-2;DB_CLOSE_DELAY=-1",
+    "wallet.sharding.previous-nodes=s0,s1",
+    "wallet.sharding.saga-recovery-interval=1h",
+    "wallet.sharding.saga-timeout=0s"
+})
+@ActiveProfiles("test")
+class ShardedWalletIntegrationTest {
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private WalletServiceImpl unsharded;
+
+    @Autowired
+    private ShardRouter router;
+
+    @Autowired
+    private CrossShardTransfers crossShardTransfers;
+
+    @Autowired
+    private TransferLegs legs;
+
+    @Autowired
+    private TransferSagaRepository sagaRepository;
+
+    @Autowired
+    private ShardRebalancer rebalancer;
+
+    @Test
+    void transfersWithinAndAcrossShards() {
+        String alice = wallet(userOn("s0"), "100.00");
+        String bob = wallet(userOn("s0"), "0.00");
+        String carol = wallet(userOn("s2"), "0.00");
+
+        walletService.transferFunds(alice, bob, Money.of("30.00"), "rent");
+        walletService.transferFunds(alice, carol, Money.of("20.00"), "dinner");
+
+        assertEquals(Money.of("50.00"), walletService.getBalance(alice));
+        assertEquals(Money.of("30.00"), walletService.getBalance(bob));
+        assertEquals(Money.of("20.00"), walletService.getBalance(carol));
+        assertEquals("Transfer from " + alice + ": dinner",
+            walletService.getTransactionHistory(carol, null, 10).items().get(0).description());
+        assertEquals(Money.of("20.00"), walletService.getHistoricalBalances(
+            List.of(carol, alice), LocalDateTime.now()).get(carol));
+
+        WalletException missing = assertThrows(WalletException.class, () ->
+            walletService.transferFunds(alice, userOn("s1"), Money.of("5.00"), "nobody"));
+        assertTrue(missing.getMessage().startsWith("Wallet not found"));
+        assertThrows(WalletException.class, () ->
+            walletService.transferFunds(alice, carol, Money.of("500.00"), "too much"));
+        assertEquals(Money.of("50.00"), walletService.getBalance(alice));
+    }
+
+    @Test
+    void recoveryFinishesInterruptedTransfersExactlyOnce() {
+        String sender = wallet(userOn("s0"), "100.00");
+        String recipient = wallet(userOn("s2"), "0.00");
+
+        // Crashed after the debit, and after the credit but before completing
+        TransferSaga debited = saga(sender, recipient, "10.00");
+        router.onShard("s0", () -> legs.debit(debited));
+        TransferSaga credited = saga(sender, recipient, "5.00");
+        router.onShard("s0", () -> legs.debit(credited));
+        router.onShard("s2", () -> legs.credit(credited));
+        assertEquals(Money.of("5.00"), walletService.getBalance(recipient));
+
+        crossShardTransfers.recoverAll();
+        crossShardTransfers.recoverAll();
+
+        assertEquals(Money.of("85.00"), walletService.getBalance(sender));
+        assertEquals(Money.of("15.00"), walletService.getBalance(recipient));
+        for (TransferSaga saga : List.of(debited, credited)) {
+            assertEquals(TransferSaga.Status.COMPLETED,
+                router.onShard("s0", () -> sagaRepository.findById(saga.getId())).orElseThrow().getStatus());
+        }
+    }
+
+    @Test
+    void batchesSpanningShardsRunBestEffortOnly() {
+        String alice = wallet(userOn("s1"), "10.00");
+        String bob = wallet(userOn("s2"), "0.00");
+        List<BatchOperation> operations = List.of(
+            new BatchOperation(TransactionType.DEPOSIT, alice, null, Money.of("5.00"), "top-up"),
+            new BatchOperation(TransactionType.TRANSFER, alice, bob, Money.of("12.00"), "split"),
+            new BatchOperation(TransactionType.WITHDRAWAL, bob, null, Money.of("20.00"), "too much"));
+
+        assertThrows(WalletException.class, () -> walletService.applyBatch(operations, BatchMode.ALL_OR_NOTHING));
+
+        BatchResult result = walletService.applyBatch(operations, BatchMode.BEST_EFFORT);
+        assertEquals(List.of(BatchItemResult.Status.APPLIED, BatchItemResult.Status.APPLIED,
+            BatchItemResult.Status.FAILED), result.items().stream().map(BatchItemResult::status).toList());
+        assertEquals(List.of(0, 1, 2), result.items().stream().map(BatchItemResult::index).toList());
+        assertEquals(Money.of("3.00"), result.items().get(1).balance());
+        assertEquals(Money.of("12.00"), walletService.getBalance(bob));
+    }
+
+    @Test
+    void rebalancingMovesWalletsToTheirShardOnline() {
+        List<String> misplaced = new ArrayList<>();
+        while (misplaced.size() < 5) {
+            String userId = "moving-" + UUID.randomUUID();
+            String previous = router.previousShardFor(userId);
+            if (!previous.equals(router.shardFor(userId))) {
+                router.onShard(previous, () -> unsharded.createWallet(userId));
+                router.onShard(previous, () -> unsharded.depositFunds(userId, Money.of("7.00"), "before"));
+                misplaced.add(userId);
+            }
+        }
+        String moving = misplaced.get(0);
+        assertEquals(router.previousShardFor(moving), router.locate(moving));
+        assertEquals(Money.of("9.00"), walletService.depositFunds(moving, Money.of("2.00"), "while resharding"));
+        assertThrows(WalletException.class, () -> walletService.createWallet(moving));
+
+        assertEquals(misplaced.size(), rebalancer.rebalance());
+        assertEquals(0, rebalancer.rebalance());
+
+        for (String userId : misplaced) {
+            assertTrue(router.exists(router.shardFor(userId), userId));
+            assertFalse(router.exists(router.previousShardFor(userId), userId));
+        }
+        assertEquals(router.shardFor(moving), router.locate(moving));
+        assertEquals(Money.of("9.00"), walletService.getBalance(moving));
+        assertEquals(2, walletService.getTransactionHistory(moving, null, 10).items().size());
+        assertEquals(Money.of("10.00"), walletService.depositFunds(moving, Money.of("1.00"), "after"));
+    }
+
+    private String wallet(String userId, String balance) {
+        walletService.createWallet(userId);
+        if (Money.of(balance).isPositive()) {
+            walletService.depositFunds(userId, Money.of(balance), "opening");
+        }
+        return userId;
+    }
+
+    private String userOn(String shard) {
+        while (true) {
+            String userId = "user-" + UUID.randomUUID();
+            if (router.shardFor(userId).equals(shard)) {
+                return userId;
+            }
+        }
+    }
+
+    private static TransferSaga saga(String from, String to, String amount) {
+        LocalDateTime now = LocalDateTime.now();
+        TransferSaga saga = new TransferSaga();
+        saga.setId(UUID.randomUUID().toString());
+        saga.setFromUserId(from);
+        saga.setToUserId(to);
+        saga.setAmount(Money.of(amount));
+        saga.setDescription("interrupted");
+        saga.setStatus(TransferSaga.Status.DEBITED);
+        saga.setCreatedAt(now);
+        saga.setUpdatedAt(now);
+        return saga;
+    }
+}
@@ -0,0 +1,150 @@
+package com.wallet.integration;
+
+import com.wallet.exception.WalletException;
+import com.wallet.model.Money;
+import com.wallet.model.TransactionType;
+import com.wallet.model.Wallet;
+import com.wallet.repository.TypeTotals;
+import com.wallet.service.WalletService;
+import com.wallet.service.statement.Statement;
+import com.wallet.service.statement.StatementService;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:statements;DB_CLOSE_DELAY=-1",
+    "wallet.rollups.enabled=false",
+    "wallet.checkpoints.enabled=false"
+})
+@ActiveProfiles("test")
+@Transactional
+class StatementIntegrationTest {
+    private static final LocalDate FIRST_DAY = LocalDate.of(2024, 1, 1);
+    private static final int DAYS = 10;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private StatementService statementService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private final List<Entry> ledger = new ArrayList<>();
+
+    @Test
+    void statementsCombineRollupsWithTheLedgerAtTheEdges() {
+        Wallet alice = walletService.createWallet("statement-alice");
+        Wallet bob = walletService.createWallet("statement-bob");
+        entityManager.flush();
+        seed(alice, new Random(7));
+        seed(bob, new Random(11));
+
+        assertEquals(6, statementService.rollUp(FIRST_DAY.plusDays(5)));
+        assertEquals(0, statementService.rollUp(FIRST_DAY.plusDays(5)));
+
+        LocalDateTime start = FIRST_DAY.atStartOfDay();
+        List<LocalDateTime[]> ranges = List.of(
+            new LocalDateTime[] {start, start.plusDays(DAYS)},
+            new LocalDateTime[] {start.plusHours(13).plusMinutes(7), start.plusDays(4).plusHours(2)},
+            new LocalDateTime[] {start.plusDays(2), start.plusDays(3)},
+            new LocalDateTime[] {start.plusDays(3).plusHours(5), start.plusDays(3).plusHours(20)},
+            new LocalDateTime[] {start.plusDays(4).plusHours(9), start.plusDays(8).plusHours(9)},
+            new LocalDateTime[] {start.plusDays(7), start.plusDays(9).plusHours(1)},
+            new LocalDateTime[] {start.minusDays(3), start.plusDays(1)});
+        for (LocalDateTime[] range : ranges) {
+            Statement statement = statementService.statement("statement-alice", range[0], range[1]);
+            assertEquals(expectedTotals(alice, range[0], range[1]), statement.totals(), range[0] + " - " + range[1]);
+            assertEquals(balanceBefore(alice, range[0]), statement.openingBalance());
+            assertEquals(balanceBefore(alice, range[1]), statement.closingBalance());
+        }
+    }
+
+    @Test
+    void rejectsUnknownWalletsAndEmptyRanges() {
+        LocalDateTime now = LocalDateTime.now();
+        assertThrows(WalletException.class, () -> statementService.statement("nobody", now.minusDays(1), now));
+        walletService.createWallet("statement-carol");
+        assertThrows(WalletException.class, () -> statementService.statement("statement-carol", now, now));
+    }
+
+    /** A few transactions a day at random times, with the running balance kept like the services do. */
+    private void seed(Wallet wallet, Random random) {
+        Money balance = Money.ZERO;
+        for (int day = 0; day < DAYS; day++) {
+            int[] seconds = random.ints(6, 0, 86_400).sorted().toArray();
+            for (int second : seconds) {
+                LocalDateTime at = FIRST_DAY.plusDays(day).atStartOfDay().plusSeconds(second);
+                TransactionType type = TransactionType.values()[random.nextInt(TransactionType.values().length)];
+                Money amount = Money.ofUnits(1 + random.nextInt(1_000_000));
+                if (type == TransactionType.WITHDRAWAL || type == TransactionType.TRANSFER && random.nextBoolean()) {
+                    Money debit = amount.isLessThan(balance) ? amount : balance;
+                    if (!debit.isPositive()) {
+                        continue;
+                    }
+                    amount = type == TransactionType.WITHDRAWAL ? debit : debit.negate();
+                    balance = balance.minus(debit);
+                } else {
+                    balance = balance.plus(amount);
+                }
+                jdbcTemplate.update("""
+                    insert into transactions (id, wallet_id, type, amount, balance, description, created_at)
+                    values (next value for transactions_seq, ?, ?, ?, ?, ?, ?)
+                    """, wallet.getId(), type.name(), amount.toBigDecimal(), balance.toBigDecimal(), "seed",
+                    Timestamp.valueOf(at));
+                ledger.add(new Entry(wallet.getId(), type, amount, balance, at));
+            }
+        }
+    }
+
+    private List<TypeTotals> expectedTotals(Wallet wallet, LocalDateTime from, LocalDateTime to) {
+        Map<TransactionType, TypeTotals> totals = new EnumMap<>(TransactionType.class);
+        for (TransactionType type : TransactionType.values()) {
+            totals.put(type, TypeTotals.zero(type));
+        }
+        for (Entry entry : ledger) {
+            if (entry.walletId().equals(wallet.getId()) && !entry.at().isBefore(from) && entry.at().isBefore(to)) {
+                boolean debit = entry.type() == TransactionType.WITHDRAWAL || entry.amount().signum() < 0;
+                Money magnitude = entry.amount().signum() < 0 ? entry.amount().negate() : entry.amount();
+                totals.merge(entry.type(), new TypeTotals(entry.type(), 1,
+                    debit ? Money.ZERO : magnitude, debit ? magnitude : Money.ZERO), TypeTotals::plus);
+            }
+        }
+        return new ArrayList<>(totals.values());
+    }
+
+    // Each wallet's entries are seeded in time order, so the last one before wins
+    private Money balanceBefore(Wallet wallet, LocalDateTime at) {
+        Money balance = Money.ZERO;
+        for (Entry entry : ledger) {
+            if (entry.walletId().equals(wallet.getId()) && entry.at().isBefore(at)) {
+                balance = entry.balance();
+            }
+        }
+        return balance;
+    }
+
+    private record Entry(Long walletId, TransactionType type, Money amount, Money balance, LocalDateTime at) {
+    }
+}
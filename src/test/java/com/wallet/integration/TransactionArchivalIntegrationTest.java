@@ -0,0 +1,123 @@
+package com.wallet.integration;
+
+import com.wallet.model.Money;
+import com.wallet.model.TransactionType;
+import com.wallet.model.Wallet;
+import com.wallet.repository.BalanceCheckpointRepository;
+import com.wallet.service.WalletService;
+import com.wallet.service.retention.TransactionArchiver;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class TransactionArchivalIntegrationTest {
+    private static final LocalDateTime JANUARY = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final LocalDateTime FEBRUARY = LocalDateTime.of(2024, 2, 1, 0, 0);
+    private static final LocalDateTime MARCH = LocalDateTime.of(2024, 3, 1, 0, 0);
+
+    @TempDir
+    static Path archiveDir;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> "jdbc:h2:mem:archival;DB_CLOSE_DELAY=-1");
+        registry.add("wallet.retention.archive-dir", () -> archiveDir.toString());
+        registry.add("wallet.retention.retain-months", () -> "1");
+        registry.add("wallet.retention.batch-size", () -> "1");
+    }
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private TransactionArchiver archiver;
+
+    @Autowired
+    private BalanceCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void setUp() {
+        Wallet alice = walletService.createWallet("alice");
+        Wallet bob = walletService.createWallet("bob");
+        entityManager.flush();
+        record(alice, "100.00", "salary, january", JANUARY.plusDays(9));
+        record(bob, "40.00", "seed", JANUARY.plusDays(19));
+        record(alice, "150.00", "seed", FEBRUARY.plusDays(9));
+        record(alice, "120.00", "seed", LocalDateTime.now().withNano(0));
+    }
+
+    @Test
+    void archivedMonthsAreExportedAndHistoricalBalancesSurvive() throws IOException {
+        assertEquals(2, archiver.archiveExpired(YearMonth.now()));
+
+        assertEquals(List.of(
+            "id,wallet_id,type,amount,balance,description,created_at",
+            "DEPOSIT,100.0000,100.0000,\"salary, january\",2024-01-10T00:00",
+            "DEPOSIT,40.0000,40.0000,seed,2024-01-20T00:00"),
+            read(archiveDir.resolve("transactions-2024-01.csv.gz")));
+        assertEquals(2, read(archiveDir.resolve("transactions-2024-02.csv.gz")).size());
+        assertEquals(1, jdbcTemplate.queryForObject("select count(*) from transactions", Integer.class));
+
+        assertEquals(Money.of("100.0000"), walletService.getHistoricalBalance("alice", FEBRUARY));
+        assertEquals(Money.of("150.0000"), walletService.getHistoricalBalance("alice", MARCH));
+        assertEquals(Money.of("40.0000"), walletService.getHistoricalBalance("bob", LocalDateTime.now()));
+        assertEquals(Money.of("120.0000"), walletService.getHistoricalBalance("alice", LocalDateTime.now()));
+    }
+
+    @Test
+    void rearchivingAMonthWritesNoDuplicateCheckpoints() {
+        archiver.archive(YearMonth.of(2024, 1));
+        long checkpoints = checkpointRepository.count();
+
+        assertEquals(0, archiver.archive(YearMonth.of(2024, 1)));
+        assertEquals(checkpoints, checkpointRepository.count());
+    }
+
+    private List<String> read(Path file) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            // Drop the generated id and wallet_id columns
+            return reader.lines().map(line -> line.startsWith("id,") ? line : line.split(",", 3)[2]).toList();
+        }
+    }
+
+    private void record(Wallet wallet, String balance, String description, LocalDateTime at) {
+        jdbcTemplate.update("""
+            insert into transactions (id, wallet_id, type, amount, balance, description, created_at)
+            values (next value for transactions_seq, ?, ?, ?, ?, ?, ?)
+            """, wallet.getId(), TransactionType.DEPOSIT.name(), new BigDecimal(balance), new BigDecimal(balance),
+            description, Timestamp.valueOf(at));
+    }
+}
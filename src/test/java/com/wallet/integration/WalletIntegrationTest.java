@@ -114,9 +114,29 @@ class WalletIntegrationTest {
         // 8. Check transaction history
         List<Transaction> transactions = transactionRepository.findByWalletIdOrderByCreatedAtDesc(wallet.getId());
         assertEquals(3, transactions.size());
-        assertEquals(TransactionType.DEPOSIT, transactions.get(0).getType());
+        assertEquals(TransactionType.TRANSFER, transactions.get(0).getType());
         assertEquals(TransactionType.WITHDRAWAL, transactions.get(1).getType());
-        assertEquals(TransactionType.TRANSFER, transactions.get(2).getType());
+        assertEquals(TransactionType.DEPOSIT, transactions.get(2).getType());
+
+        // 9. Page through history newest first using the keyset cursor
+        String nextCursor = mockMvc.perform(get(BASE_URL + "/{userId}/transactions", USER_ID)
+                .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].type").value("TRANSFER"))
+                .andExpect(jsonPath("$[1].type").value("WITHDRAWAL"))
+                .andReturn()
+                .getResponse()
+                .getHeader("X-Next-Cursor");
+        assertNotNull(nextCursor);
+
+        mockMvc.perform(get(BASE_URL + "/{userId}/transactions", USER_ID)
+                .param("cursor", nextCursor)
+                .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].type").value("DEPOSIT"))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
     }
 
     private record CreateWalletRequest(String userId) {}
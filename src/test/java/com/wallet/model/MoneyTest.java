@@ -0,0 +1,40 @@
+package com.wallet.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MoneyTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void arithmeticIsExactAndIgnoresTrailingZeros() {
+        Money balance = Money.of("100.10").minus(Money.of("0.0500")).plus(Money.of("1"));
+
+        assertEquals(Money.of("101.05"), balance);
+        assertEquals(new BigDecimal("101.0500"), balance.toBigDecimal());
+        assertEquals(1_010_500L, balance.units());
+        assertTrue(Money.of("0.0001").isPositive());
+        assertTrue(Money.of("-5").isLessThan(Money.ZERO));
+    }
+
+    @Test
+    void rejectsSubUnitAmountsAndOverflow() {
+        assertThrows(ArithmeticException.class, () -> Money.of("0.00001"));
+        assertThrows(ArithmeticException.class, () -> Money.ofUnits(Long.MAX_VALUE).plus(Money.ofUnits(1)));
+    }
+
+    @Test
+    void jsonUsesPlainDecimalNumbers() throws Exception {
+        assertEquals("12.5000", objectMapper.writeValueAsString(Money.of("12.5")));
+        assertEquals(Money.of("12.5"), objectMapper.readValue("12.50", Money.class));
+        assertEquals(Money.of("12.5"), objectMapper.readValue("\"12.5\"", Money.class));
+        assertThrows(InvalidFormatException.class, () -> objectMapper.readValue("1.23456", Money.class));
+    }
+}
@@ -0,0 +1,61 @@
+package com.wallet.service.cache;
+
+import com.wallet.config.BalanceCacheProperties;
+import com.wallet.model.Money;
+import com.wallet.repository.WalletBalance;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class BalanceCacheTest {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final BalanceCache cache = new BalanceCache(
+        new BalanceCacheProperties(true, 1_000, Duration.ofMinutes(5), Duration.ZERO), registry);
+
+    @Test
+    void hitsReturnTheCachedInstanceWithoutLoading() {
+        AtomicInteger loads = new AtomicInteger();
+        Money balance = Money.of("10.00");
+
+        Money first = cache.get("alice", userId -> {
+            loads.incrementAndGet();
+            return new WalletBalance(1L, balance, 1L);
+        });
+        Money second = cache.get("alice", userId -> {
+            throw new AssertionError("should be a hit");
+        });
+
+        assertEquals(1, loads.get());
+        assertSame(first, second);
+        assertEquals(1.0, registry.get("cache.gets").tag("cache", "balances").tag("result", "hit")
+            .functionCounter().count());
+    }
+
+    @Test
+    void olderWritesNeverReplaceNewerOnes() {
+        cache.put("alice", new WalletBalance(1L, Money.of("30.00"), 3L));
+        cache.put("alice", new WalletBalance(1L, Money.of("20.00"), 2L));
+
+        assertEquals(Money.of("30.00"), cache.get("alice", userId -> {
+            throw new AssertionError("should be a hit");
+        }));
+    }
+
+    @Test
+    void readerThatRacedAWriteDoesNotCacheWhatItLoaded() {
+        Money loaded = cache.get("alice", userId -> {
+            // A write without a version lands while this reader is still loading the old balance
+            cache.evict("alice");
+            return new WalletBalance(1L, Money.of("5.00"), 1L);
+        });
+        Money reloaded = cache.get("alice", userId -> new WalletBalance(1L, Money.of("8.00"), 2L));
+
+        assertEquals(Money.of("5.00"), loaded);
+        assertEquals(Money.of("8.00"), reloaded);
+    }
+}
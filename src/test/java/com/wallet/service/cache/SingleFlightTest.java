@@ -0,0 +1,96 @@
+package com.wallet.service.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SingleFlightTest {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final SingleFlight<String, String> flights = new SingleFlight<>("test", registry);
+
+    @Test
+    void callersArrivingMidFlightShareTheLeadersResult() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> flights.load("alice", key -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            await(release);
+            return "10.00";
+        }));
+        loading.await(5, TimeUnit.SECONDS);
+        CompletableFuture<String> follower = CompletableFuture.supplyAsync(() -> flights.load("alice", key -> {
+            loads.incrementAndGet();
+            return "stale";
+        }));
+        while (registry.get("wallet.singleflight.shared").counter().count() < 1) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        assertEquals("10.00", leader.get(5, TimeUnit.SECONDS));
+        assertEquals("10.00", follower.get(5, TimeUnit.SECONDS));
+        assertEquals(1, loads.get());
+        // Landed flights are not remembered
+        assertEquals("20.00", flights.load("alice", key -> "20.00"));
+    }
+
+    @Test
+    void failuresReachEveryWaiter() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        IllegalStateException failure = new IllegalStateException("database down");
+
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> flights.load("alice", key -> {
+            loading.countDown();
+            await(release);
+            throw failure;
+        }));
+        loading.await(5, TimeUnit.SECONDS);
+        CompletableFuture<Throwable> follower = CompletableFuture.supplyAsync(() ->
+            assertThrows(IllegalStateException.class, () -> flights.load("alice", key -> "unused")));
+        while (registry.get("wallet.singleflight.shared").counter().count() < 1) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        assertSame(failure, follower.get(5, TimeUnit.SECONDS));
+        assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void forgottenFlightsAreNotJoined() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> flights.load("alice", key -> {
+            loading.countDown();
+            await(release);
+            return "before write";
+        }));
+        loading.await(5, TimeUnit.SECONDS);
+        flights.forget("alice");
+
+        assertEquals("after write", flights.load("alice", key -> "after write"));
+        release.countDown();
+        assertEquals("before write", leader.get(5, TimeUnit.SECONDS));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.wallet.service.cache;
+
+import com.wallet.config.WalletIdCacheProperties;
+import com.wallet.exception.WalletException;
+import com.wallet.replica.ReplicaSet;
+import com.wallet.shard.ShardRouter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+class WalletIdCacheTest {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final WalletIdCache cache = new WalletIdCache(
+        new WalletIdCacheProperties(true, 1_000, Duration.ofMinutes(1)),
+        new StaticListableBeanFactory().getBeanProvider(ShardRouter.class),
+        new StaticListableBeanFactory().getBeanProvider(ReplicaSet.class), registry);
+
+    @Test
+    void foundIdsAreLoadedOnce() {
+        AtomicInteger loads = new AtomicInteger();
+
+        long first = cache.walletId("alice", userId -> {
+            loads.incrementAndGet();
+            return Optional.of(7L);
+        });
+        long second = cache.walletId("alice", userId -> {
+            throw new AssertionError("should be a hit");
+        });
+
+        assertEquals(7L, first);
+        assertEquals(7L, second);
+        assertEquals(1, loads.get());
+        assertEquals(1.0, registry.get("cache.gets").tag("cache", "wallet-ids").tag("result", "hit")
+            .functionCounter().count());
+    }
+
+    @Test
+    void missingWalletsAreAnsweredFromTheCacheUntilCreated() {
+        assertThrows(WalletException.class, () -> cache.walletId("alice", userId -> Optional.empty()));
+        WalletException missing = assertThrows(WalletException.class, () -> cache.requireWallet("alice", userId -> {
+            throw new AssertionError("should be a hit");
+        }));
+        assertEquals("Wallet not found for user: alice", missing.getMessage());
+
+        cache.created("alice", 9L);
+
+        assertEquals(9L, cache.walletId("alice", userId -> {
+            throw new AssertionError("should be a hit");
+        }));
+    }
+
+    @Test
+    void bulkLookupsLoadOnlyTheMissesAndNameEveryMissingWallet() {
+        cache.created("alice", 1L);
+
+        Map<String, Long> ids = cache.walletIds(List.of("alice", "bob"), misses -> {
+            assertEquals(List.of("bob"), misses);
+            return Map.of("bob", 2L);
+        });
+        WalletException missing = assertThrows(WalletException.class, () ->
+            cache.walletIds(List.of("alice", "bob", "carol", "dave"), misses -> Map.of()));
+
+        assertEquals(Map.of("alice", 1L, "bob", 2L), ids);
+        assertEquals("Wallets not found for users: [carol, dave]", missing.getMessage());
+    }
+
+    @Test
+    void disabledCacheLoadsEveryTimeAndSkipsTheWriteCheck() {
+        WalletIdCache disabled = new WalletIdCache(new WalletIdCacheProperties(false, 1_000, Duration.ofMinutes(1)),
+            new StaticListableBeanFactory().getBeanProvider(ShardRouter.class),
+            new StaticListableBeanFactory().getBeanProvider(ReplicaSet.class), registry);
+        AtomicInteger loads = new AtomicInteger();
+
+        disabled.created("alice", 1L);
+        disabled.walletId("alice", userId -> Optional.of((long) loads.incrementAndGet()));
+        disabled.walletId("alice", userId -> Optional.of((long) loads.incrementAndGet()));
+        disabled.requireWallet("bob", userId -> {
+            throw new AssertionError("should not look up");
+        });
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void missesThatMayComeFromAReplicaAreNotStored() {
+        StaticListableBeanFactory replicas = new StaticListableBeanFactory();
+        replicas.addBean("replicaSet", mock(ReplicaSet.class));
+        WalletIdCache replicated = new WalletIdCache(new WalletIdCacheProperties(true, 1_000, Duration.ofMinutes(1)),
+            new StaticListableBeanFactory().getBeanProvider(ShardRouter.class),
+            replicas.getBeanProvider(ReplicaSet.class), registry);
+
+        assertThrows(WalletException.class, () -> replicated.walletId("alice", userId -> Optional.empty()));
+
+        assertEquals(3L, replicated.walletId("alice", userId -> Optional.of(3L)));
+    }
+}
@@ -0,0 +1,156 @@
+package com.wallet.service.concurrency;
+
+import com.wallet.benchmark.BenchmarkApplications;
+import com.wallet.exception.WalletException;
+import com.wallet.model.Money;
+import com.wallet.service.WalletService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Hammers a single hot wallet from many threads in each concurrency mode and checks that the
+ * balance, the ledger and the count of successful operations agree exactly.
+ */
+class ConcurrencyModeStressTest {
+    private static final int WRITERS = 8;
+    private static final int OPERATIONS_PER_WRITER = 40;
+
+    @ParameterizedTest
+    @EnumSource(ConcurrencyMode.class)
+    void noLostUpdatesUnderContention(ConcurrencyMode mode) throws Exception {
+        try (ConfigurableApplicationContext context = BenchmarkApplications.start(
+                "stress-" + mode, "wallet.concurrency.mode=" + mode, "wallet.concurrency.max-attempts=50")) {
+            WalletService walletService = context.getBean(WalletService.class);
+            walletService.createWallet("hot");
+            walletService.depositFunds("hot", Money.of("1000"), "seed");
+
+            AtomicInteger deposits = new AtomicInteger();
+            AtomicInteger withdrawals = new AtomicInteger();
+            long started = System.nanoTime();
+            runConcurrently(WRITERS, () -> {
+                for (int i = 0; i < OPERATIONS_PER_WRITER; i++) {
+                    try {
+                        walletService.depositFunds("hot", Money.of("3"), "stress");
+                        deposits.incrementAndGet();
+                        walletService.withdrawFunds("hot", Money.of("1"), "stress");
+                        withdrawals.incrementAndGet();
+                    } catch (WalletException e) {
+                        // Retries exhausted: the operation did not happen and must leave no trace
+                    }
+                }
+                return null;
+            });
+            double seconds = (System.nanoTime() - started) / 1e9;
+
+            Money expected = Money.of("1000")
+                .plus(Money.of("3").times(deposits.get()))
+                .minus(Money.of("1").times(withdrawals.get()));
+            assertEquals(0, expected.compareTo(walletService.getBalance("hot")));
+            assertEquals(1 + deposits.get() + withdrawals.get(), ledgerRows(context, "hot"));
+
+            MeterRegistry registry = context.getBean(MeterRegistry.class);
+            System.out.printf("mode=%-11s ops/s=%,8.0f conflicts=%.0f retries=%.0f lock-wait-total=%.1fms%n",
+                mode, (deposits.get() + withdrawals.get()) / seconds,
+                registry.counter("wallet.concurrency.conflicts", "mode", mode.name()).count(),
+                registry.counter("wallet.concurrency.retries", "mode", mode.name()).count(),
+                registry.timer("wallet.concurrency.lock.wait", "mode", mode.name())
+                    .totalTime(TimeUnit.MILLISECONDS));
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(ConcurrencyMode.class)
+    void concurrentWithdrawalsNeverOverdraw(ConcurrencyMode mode) throws Exception {
+        try (ConfigurableApplicationContext context = BenchmarkApplications.start(
+                "overdraw-" + mode, "wallet.concurrency.mode=" + mode, "wallet.concurrency.max-attempts=50")) {
+            WalletService walletService = context.getBean(WalletService.class);
+            walletService.createWallet("target");
+            walletService.depositFunds("target", Money.of("100"), "seed");
+
+            AtomicInteger succeeded = new AtomicInteger();
+            runConcurrently(16, () -> {
+                try {
+                    walletService.withdrawFunds("target", Money.of("10"), "drain");
+                    succeeded.incrementAndGet();
+                } catch (WalletException e) {
+                    // Insufficient funds or retries exhausted
+                }
+                return null;
+            });
+
+            Money balance = walletService.getBalance("target");
+            assertEquals(0, Money.of("100").minus(Money.of("10").times(succeeded.get()))
+                .compareTo(balance));
+            assertEquals(true, balance.signum() >= 0);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(ConcurrencyMode.class)
+    void opposingTransfersConserveFunds(ConcurrencyMode mode) throws Exception {
+        try (ConfigurableApplicationContext context = BenchmarkApplications.start(
+                "transfer-" + mode, "wallet.concurrency.mode=" + mode, "wallet.concurrency.max-attempts=50")) {
+            WalletService walletService = context.getBean(WalletService.class);
+            for (String userId : List.of("left", "right")) {
+                walletService.createWallet(userId);
+                walletService.depositFunds(userId, Money.of("500"), "seed");
+            }
+
+            AtomicInteger transfers = new AtomicInteger();
+            AtomicInteger writer = new AtomicInteger();
+            runConcurrently(WRITERS, () -> {
+                boolean leftToRight = writer.getAndIncrement() % 2 == 0;
+                for (int i = 0; i < OPERATIONS_PER_WRITER; i++) {
+                    try {
+                        walletService.transferFunds(leftToRight ? "left" : "right", leftToRight ? "right" : "left",
+                            Money.of("1"), "storm");
+                        transfers.incrementAndGet();
+                    } catch (WalletException e) {
+                        // Retries exhausted
+                    }
+                }
+                return null;
+            });
+
+            assertEquals(0, Money.of("1000").compareTo(
+                walletService.getBalance("left").plus(walletService.getBalance("right"))));
+            assertEquals(1 + transfers.get(), ledgerRows(context, "left"));
+            assertEquals(1 + transfers.get(), ledgerRows(context, "right"));
+        }
+    }
+
+    private static void runConcurrently(int threads, Callable<Void> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(task));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static int ledgerRows(ConfigurableApplicationContext context, String userId) {
+        return context.getBean(JdbcTemplate.class).queryForObject("""
+            select count(*) from transactions t join wallets w on w.id = t.wallet_id where w.user_id = ?
+            """, Integer.class, userId);
+    }
+}
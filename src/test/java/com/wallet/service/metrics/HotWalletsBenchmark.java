@@ -0,0 +1,62 @@
+package com.wallet.service.metrics;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Contention on {@link HotWallets#record} from concurrent writers, with one stripe (every writer on
+ * one lock) against the default striping. Lives next to {@link HotWallets} for its package-private
+ * constructor. A tenth of the calls go to a few hot wallets, the rest to a long tail that keeps
+ * every stripe full and evicting. Run with
+ * {@code mvn -Pbenchmarks test-compile exec:exec -Djmh.include=HotWalletsBenchmark -Djmh.threads=1,8,64}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HotWalletsBenchmark {
+    private static final int CAPACITY = 100;
+    private static final int HOT_WALLETS = 8;
+    private static final int TAIL_WALLETS = 100_000;
+
+    @Param({"1", "16"})
+    public int stripes;
+
+    private HotWallets hotWallets;
+    private String[] hot;
+    private String[] tail;
+
+    @Setup
+    public void setUp() {
+        hotWallets = new HotWallets(CAPACITY, Duration.ofMinutes(1), System::nanoTime, stripes);
+        hot = new String[HOT_WALLETS];
+        for (int i = 0; i < HOT_WALLETS; i++) {
+            hot[i] = "hot-" + i;
+        }
+        tail = new String[TAIL_WALLETS];
+        for (int i = 0; i < TAIL_WALLETS; i++) {
+            tail[i] = "tail-" + i;
+        }
+    }
+
+    @Benchmark
+    public void record() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        hotWallets.record(random.nextInt(10) == 0 ? hot[random.nextInt(HOT_WALLETS)] : tail[random.nextInt(TAIL_WALLETS)]);
+    }
+}
@@ -0,0 +1,92 @@
+package com.wallet.service.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HotWalletsTest {
+    private final AtomicLong clock = new AtomicLong();
+    private final HotWallets hotWallets = new HotWallets(4, Duration.ofSeconds(60), clock::get);
+
+    @Test
+    void heavyHittersSurviveALongTailOfOtherWallets() {
+        for (int i = 0; i < 1_000; i++) {
+            hotWallets.record("hot");
+            if (i % 2 == 0) {
+                hotWallets.record("warm");
+            }
+            hotWallets.record("tail-" + i);
+        }
+
+        List<HotWallets.HotWallet> top = hotWallets.top(2);
+        assertEquals(List.of("hot", "warm"), top.stream().map(HotWallets.HotWallet::userId).toList());
+        HotWallets.HotWallet hot = top.get(0);
+        assertTrue(hot.count() - hot.error() <= 1_000 && hot.count() >= 1_000);
+    }
+
+    @Test
+    void countsDecayOverTime() {
+        for (int i = 0; i < 8; i++) {
+            hotWallets.record("alice");
+        }
+        hotWallets.record("bob");
+
+        clock.addAndGet(Duration.ofSeconds(61).toNanos());
+
+        assertEquals(List.of(new HotWallets.HotWallet("alice", 4, 0)), hotWallets.top(10));
+    }
+
+    @Test
+    void untrackedWalletTakesOverTheLowestCounter() {
+        for (int i = 0; i < 3; i++) {
+            hotWallets.record("a");
+            hotWallets.record("b");
+        }
+        hotWallets.record("c");
+        hotWallets.record("d");
+        hotWallets.record("d");
+
+        hotWallets.record("e");
+
+        assertEquals(new HotWallets.HotWallet("e", 2, 1), hotWallets.top(10).stream()
+            .filter(wallet -> wallet.userId().equals("e")).findFirst().orElseThrow());
+        assertEquals(4, hotWallets.top(10).size());
+        assertTrue(hotWallets.top(10).stream().noneMatch(wallet -> wallet.userId().equals("c")));
+    }
+
+    @Test
+    void concurrentWritersOnStripedSketchesLoseNoCounts() throws Exception {
+        HotWallets striped = new HotWallets(128, Duration.ofSeconds(60), clock::get, 8);
+        int writers = 8;
+        int recordsPerWriter = 10_000;
+
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < recordsPerWriter; i++) {
+                    striped.record("wallet-" + (i % 16));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        List<HotWallets.HotWallet> top = striped.top(100);
+        assertEquals(16, top.size());
+        for (HotWallets.HotWallet wallet : top) {
+            assertEquals(new HotWallets.HotWallet(wallet.userId(), writers * recordsPerWriter / 16, 0), wallet);
+        }
+    }
+}
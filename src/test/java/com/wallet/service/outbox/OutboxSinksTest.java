@@ -0,0 +1,98 @@
+package com.wallet.service.outbox;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.sun.net.httpserver.HttpServer;
+import com.wallet.model.Money;
+import com.wallet.model.OutboxEvent;
+import com.wallet.model.TransactionType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class OutboxSinksTest {
+    private final ObjectMapper objectMapper = new ObjectMapper()
+        .registerModule(new JavaTimeModule())
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Test
+    void fileSinkAppendsOneJsonLinePerEvent(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("events/outbox.ndjson");
+        try (FileOutboxSink sink = new FileOutboxSink(file, objectMapper)) {
+            sink.publish(List.of(event(1, "10.50"), event(2, "20.00")));
+            sink.publish(List.of(event(3, "-5.00")));
+        }
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(3, lines.size());
+        JsonNode first = objectMapper.readTree(lines.get(0));
+        assertEquals(1, first.get("transactionId").asLong());
+        assertEquals("alice", first.get("userId").asText());
+        assertEquals("DEPOSIT", first.get("type").asText());
+        assertEquals(Money.of("10.50"), Money.of(first.get("amount").decimalValue()));
+        assertEquals(3, objectMapper.readTree(lines.get(2)).get("transactionId").asLong());
+    }
+
+    @Test
+    void webhookSinkPostsBatchesAndFailsOnErrorStatus() throws IOException {
+        List<JsonNode> received = new ArrayList<>();
+        AtomicInteger status = new AtomicInteger(204);
+        HttpServer stub = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        stub.createContext("/events", exchange -> {
+            received.add(objectMapper.readTree(exchange.getRequestBody()));
+            exchange.sendResponseHeaders(status.get(), -1);
+            exchange.close();
+        });
+        stub.start();
+        try {
+            WebhookOutboxSink sink = new WebhookOutboxSink(
+                URI.create("http://localhost:" + stub.getAddress().getPort() + "/events"), Duration.ofSeconds(5),
+                objectMapper);
+
+            sink.publish(List.of(event(1, "1.00"), event(2, "2.00")));
+            assertEquals(1, received.size());
+            assertEquals(2, received.get(0).size());
+            assertEquals(2, received.get(0).get(1).get("transactionId").asLong());
+
+            status.set(503);
+            assertThrows(IOException.class, () -> sink.publish(List.of(event(3, "3.00"))));
+        } finally {
+            stub.stop(0);
+        }
+    }
+
+    @Test
+    void memorySinkRejectsBatchesItCannotHoldWhole() throws Exception {
+        InMemoryOutboxSink sink = new InMemoryOutboxSink(3);
+        sink.publish(List.of(event(1, "1.00"), event(2, "2.00")));
+
+        assertThrows(IOException.class, () -> sink.publish(List.of(event(3, "3.00"), event(4, "4.00"))));
+        assertEquals(2, sink.size());
+        assertEquals(1, sink.poll(Duration.ZERO).getTransactionId());
+        sink.publish(List.of(event(3, "3.00"), event(4, "4.00")));
+        assertEquals(List.of(2L, 3L, 4L), sink.drain(10).stream().map(OutboxEvent::getTransactionId).toList());
+    }
+
+    private static OutboxEvent event(long transactionId, String amount) {
+        Money money = Money.of(amount);
+        OutboxEvent event = OutboxEvent.of("alice", 7, transactionId, TransactionType.DEPOSIT, money, money,
+            "test", LocalDateTime.of(2024, 1, 1, 12, 0));
+        event.setId(transactionId);
+        return event;
+    }
+}
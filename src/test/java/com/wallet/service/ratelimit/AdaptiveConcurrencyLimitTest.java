@@ -0,0 +1,56 @@
+package com.wallet.service.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimitTest {
+    private static final long TARGET = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @Test
+    void slowCompletionsBackOffAtMostOncePerTargetLatency() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 2, 20, Duration.ofNanos(TARGET), 0.5);
+        long now = System.nanoTime() + TARGET;
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limit.tryAcquire());
+        }
+        assertFalse(limit.tryAcquire());
+
+        for (int i = 0; i < 5; i++) {
+            limit.release(2 * TARGET, false, now);
+        }
+        assertEquals(5, limit.limit());
+
+        limit.release(TARGET / 2, true, now + TARGET);
+        assertEquals(2, limit.limit());
+        limit.release(2 * TARGET, false, now + 2 * TARGET);
+        assertEquals(2, limit.limit());
+    }
+
+    @Test
+    void fastCompletionsGrowTheLimitOnlyWhileItIsInUse() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(4, 1, 5, Duration.ofNanos(TARGET), 0.5);
+        for (int i = 0; i < 20; i++) {
+            assertTrue(limit.tryAcquire());
+            limit.release(TARGET / 2, false);
+        }
+        assertEquals(4, limit.limit());
+
+        for (int round = 0; round < 20; round++) {
+            int acquired = 0;
+            while (limit.tryAcquire()) {
+                acquired++;
+            }
+            for (int i = 0; i < acquired; i++) {
+                limit.release(TARGET / 2, false);
+            }
+        }
+        assertEquals(5, limit.limit());
+        assertEquals(0, limit.inFlight());
+    }
+}
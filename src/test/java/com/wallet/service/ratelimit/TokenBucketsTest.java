@@ -0,0 +1,42 @@
+package com.wallet.service.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TokenBucketsTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void bucketsAllowABurstThenRefillAtTheRate() {
+        TokenBuckets buckets = new TokenBuckets(2, 3, Duration.ofMinutes(1), 4);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, buckets.tryAcquire("a", 0));
+        }
+        assertEquals(SECOND / 2, buckets.tryAcquire("a", 0));
+        assertEquals(0, buckets.tryAcquire("b", 0));
+
+        assertEquals(0, buckets.tryAcquire("a", SECOND / 2));
+        assertEquals(SECOND / 2, buckets.tryAcquire("a", SECOND / 2));
+        assertEquals(0, buckets.tryAcquire("a", 10 * SECOND));
+    }
+
+    @Test
+    void idleBucketsAreSweptOnceTheyWouldBeFull() {
+        TokenBuckets buckets = new TokenBuckets(1, 2, Duration.ofSeconds(1), 1);
+        for (int i = 0; i < 100; i++) {
+            buckets.tryAcquire("key-" + i, 0);
+        }
+        assertEquals(100, buckets.size());
+
+        // Idle timeout is raised to the 2s refill time, so nothing is swept at 1s
+        buckets.tryAcquire("key-0", SECOND);
+        assertEquals(100, buckets.size());
+
+        buckets.tryAcquire("late", 3 * SECOND);
+        assertEquals(2, buckets.size());
+    }
+}
@@ -0,0 +1,56 @@
+package com.wallet.shard;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConsistentHashRingTest {
+    private static final int KEYS = 100_000;
+
+    @Test
+    void spreadsKeysEvenlyOverNodes() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("s0", "s1", "s2", "s3"), 128);
+
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            counts.merge(ring.nodeFor("user-" + i), 1, Integer::sum);
+        }
+
+        assertEquals(4, counts.size());
+        counts.forEach((node, count) ->
+            assertTrue(Math.abs(count - KEYS / 4) < KEYS / 4 * 0.2, node + " holds " + count + " keys"));
+    }
+
+    @Test
+    void addingANodeOnlyMovesKeysToIt() {
+        ConsistentHashRing before = new ConsistentHashRing(List.of("s0", "s1", "s2"), 128);
+        ConsistentHashRing after = new ConsistentHashRing(List.of("s0", "s1", "s2", "s3"), 128);
+
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            String key = "user-" + i;
+            String owner = after.nodeFor(key);
+            if (!owner.equals(before.nodeFor(key))) {
+                assertEquals("s3", owner);
+                moved++;
+            }
+        }
+        assertTrue(Math.abs(moved - KEYS / 4) < KEYS / 4 * 0.2, moved + " keys moved");
+    }
+
+    @Test
+    void placementIsStable() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("s0", "s1"), 128);
+        ConsistentHashRing reordered = new ConsistentHashRing(List.of("s1", "s0"), 128);
+
+        for (int i = 0; i < 1_000; i++) {
+            assertEquals(ring.nodeFor("user-" + i), reordered.nodeFor("user-" + i));
+        }
+        assertEquals(3821251815001557236L, ConsistentHashRing.hash("alice"));
+    }
+}